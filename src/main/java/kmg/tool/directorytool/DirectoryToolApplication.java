@@ -4,6 +4,8 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import kmg.tool.directorytool.presentation.daemon.DirectoryToolClient;
+
 /**
  * ディレクトリ操作ツールのメインアプリケーションクラス。
  *
@@ -15,12 +17,21 @@ public class DirectoryToolApplication {
 
     /**
      * アプリケーションのメインメソッド。
+     * <p>
+     * 最初の引数が--clientオプションの場合は、Springのコンテキストを起動せずにサーバーモードのプロセスへジョブ要求を送信する。
+     * </p>
      *
      * @param args
      *             コマンドライン引数の配列
      */
     public static void main(final String[] args) {
 
+        if (DirectoryToolClient.isClientRequest(args)) {
+
+            System.exit(DirectoryToolClient.execute(args, System.out));
+
+        }
+
         @SuppressWarnings("resource")
         final ConfigurableApplicationContext ctx = SpringApplication.run(DirectoryToolApplication.class, args);
         ctx.close();
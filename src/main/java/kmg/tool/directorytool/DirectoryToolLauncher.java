@@ -0,0 +1,333 @@
+package kmg.tool.directorytool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
+import kmg.tool.directorytool.domain.service.DirectoryService;
+import kmg.tool.directorytool.domain.service.impl.CopyDirectoryServiceImpl;
+import kmg.tool.directorytool.domain.service.impl.DiffDirectoryServiceImpl;
+import kmg.tool.directorytool.domain.service.impl.DirectoryServiceImpl;
+import kmg.tool.directorytool.domain.service.impl.MoveDirectoryServiceImpl;
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.concurrent.WorkerPool;
+import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
+import kmg.tool.directorytool.presentation.daemon.DirectoryToolClient;
+import kmg.tool.directorytool.presentation.runner.DirectoryToolAr;
+
+/**
+ * Springのコンテキストを起動せずにディレクトリ操作ツールを実行する高速起動用のメインクラス。<br>
+ * <p>
+ * {@link DirectoryToolApplication}と同じ引数を受け付け、同じ{@link ExitCodeTypes}で終了する。<br>
+ * コンポーネントスキャンやBean定義の処理を行わず、COPY/MOVE/DIFFのサービスとワーカープールを直接組み立てて{@link DirectoryToolAr}に渡すため、
+ * 起動にかかる時間はJVMの起動とクラスの読み込みのみとなる。
+ * </p>
+ * <p>
+ * ワーカープール（directorytool.worker-pool.*）、リミッタ（directorytool.throttle.*）、ログ（logging.*）は、
+ * Springでの起動と同じapplication.ymlの設定を{@link LauncherProperties}で読み込んで組み立てる。<br>
+ * ログはlogback-spring.xmlと同じく、コンソール、logging.file.nameのファイル、イベントログのファイル（{@value #EVENT_LOG_FILE}）に出力する。
+ * LogbackのXML設定は読み込まず、コードで設定する。システムプロパティlogback.configurationFileで設定ファイルを指定することもできる。
+ * </p>
+ *
+ * <pre>
+ * java -cp directory-tool-1.0.0.jar kmg.tool.directorytool.DirectoryToolLauncher COPY /src /dest
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class DirectoryToolLauncher {
+
+    /** Logbackの設定ファイルを指定するシステムプロパティ */
+    private static final String LOGBACK_CONFIGURATION_PROPERTY = "logback.configurationFile";
+
+    /** ログのパターン（logging.pattern.console、logging.pattern.fileが設定されていない場合） */
+    private static final String LOG_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    /** ログレベルの設定の接頭辞 */
+    private static final String LOG_LEVEL_PREFIX = "logging.level.";
+
+    /** イベントロガーの名前（logback-spring.xmlと同じ） */
+    private static final String EVENT_LOGGER_NAME = "kmg.tool.directorytool.domain.service.impl.DiffDirectoryServiceImpl.event";
+
+    /** イベントログの出力先（logback-spring.xmlと同じ） */
+    private static final String EVENT_LOG_FILE = "./logs/event.log";
+
+    /** イベントログのローテーション後のファイル名のパターン（logback-spring.xmlと同じ） */
+    private static final String EVENT_LOG_FILE_NAME_PATTERN = "./logs/event-%d{yyyy-MM-dd}.%i.log";
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private DirectoryToolLauncher() {
+
+        // 処理なし
+    }
+
+    /**
+     * 高速起動用のメインメソッド。
+     * <p>
+     * 最初の引数が--clientオプションの場合は、サーバーモードのプロセスへジョブ要求を送信する。
+     * </p>
+     *
+     * @param args
+     *             コマンドライン引数の配列
+     */
+    public static void main(final String[] args) {
+
+        final LauncherProperties properties = LauncherProperties.load();
+
+        // 設定ファイルが指定されていない場合は、XMLの解析を行わずにapplication.ymlの設定で出力先を設定する
+        if (System.getProperty(DirectoryToolLauncher.LOGBACK_CONFIGURATION_PROPERTY) == null) {
+
+            DirectoryToolLauncher.configureLogging(properties);
+
+        }
+
+        final int exitCode = DirectoryToolClient.isClientRequest(args) ? DirectoryToolClient.execute(args, System.out)
+                : DirectoryToolLauncher.run(args, properties);
+
+        // 非同期のアペンダとバッファに残ったログを出力してから終了する
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        System.exit(exitCode);
+
+    }
+
+    /**
+     * application.ymlの設定を読み込み、コマンドライン引数に従って処理を実行する。
+     *
+     * @param args
+     *             コマンドライン引数の配列
+     * @return 終了コード
+     */
+    public static int run(final String[] args) {
+
+        final int result = DirectoryToolLauncher.run(args, LauncherProperties.load());
+        return result;
+
+    }
+
+    /**
+     * コマンドライン引数に従って処理を実行する。<br>
+     * ワーカープールとリミッタは、Springでの起動と同じプロパティと既定値で作成する。
+     *
+     * @param args
+     *                   コマンドライン引数の配列
+     * @param properties
+     *                   application.ymlの設定
+     * @return 終了コード
+     */
+    static int run(final String[] args, final LauncherProperties properties) {
+
+        try (WorkerPool workerPool = new WorkerPool(properties.getInt("directorytool.worker-pool.size", 0),
+                properties.getInt("directorytool.worker-pool.copy-limit", 0),
+                properties.getInt("directorytool.worker-pool.move-limit", 0),
+                properties.getInt("directorytool.worker-pool.diff-limit", 0),
+                properties.getInt("directorytool.worker-pool.local-store-limit", 0),
+                properties.getInt("directorytool.worker-pool.network-store-limit",
+                        WorkerPool.DEFAULT_NETWORK_STORE_LIMIT))) {
+
+            final ThroughputLimiter throughputLimiter = new ThroughputLimiter(
+                    properties.getString("directorytool.throttle.bandwidth", "0"),
+                    properties.getInt("directorytool.throttle.iops", 0));
+            final DirectoryToolAr   runner            = new DirectoryToolAr(
+                    DirectoryToolLauncher.createDirectoryService(workerPool, throughputLimiter),
+                    () -> DirectoryToolLauncher.createDirectoryService(workerPool, throughputLimiter));
+            runner.setThroughputLimiter(throughputLimiter);
+            runner.run(new DefaultApplicationArguments(args));
+
+            final int result = runner.getExitCode();
+            return result;
+
+        }
+
+    }
+
+    /**
+     * ログの出力先とログレベルをapplication.ymlの設定に合わせる。<br>
+     * logback-spring.xmlと同じく、ファイルとイベントログは非同期のアペンダで出力する。
+     * LogbackのXML設定の読み込みは起動時間の大半を占めるため、コードで設定する。
+     *
+     * @param properties
+     *                   application.ymlの設定
+     */
+    private static void configureLogging(final LauncherProperties properties) {
+
+        final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        final ConsoleAppender<ILoggingEvent> console = new ConsoleAppender<>();
+        console.setContext(context);
+        console.setEncoder(DirectoryToolLauncher.createEncoder(context,
+                properties.getString("logging.pattern.console", DirectoryToolLauncher.LOG_PATTERN)));
+        console.start();
+
+        final Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(console);
+
+        final String filePattern = properties.getString("logging.pattern.file", DirectoryToolLauncher.LOG_PATTERN);
+        final String logFile     = properties.getString("logging.file.name", null);
+
+        if (logFile != null) {
+
+            final RollingFileAppender<ILoggingEvent> file = DirectoryToolLauncher.createFileAppender(context,
+                    properties, logFile, properties.getString("logging.logback.rollingpolicy.file-name-pattern",
+                            logFile + ".%d{yyyy-MM-dd}.%i.gz"),
+                    filePattern);
+            root.addAppender(DirectoryToolLauncher.createAsyncAppender(context, file, 8192, 5000));
+
+        }
+
+        // イベントログは専用のキューと専用のファイルに出力し、書き込みごとのフラッシュを行わない
+        final RollingFileAppender<ILoggingEvent> eventFile = DirectoryToolLauncher.createFileAppender(context,
+                properties, DirectoryToolLauncher.EVENT_LOG_FILE, DirectoryToolLauncher.EVENT_LOG_FILE_NAME_PATTERN,
+                filePattern);
+        eventFile.setImmediateFlush(false);
+        eventFile.setBufferSize(FileSize.valueOf("256KB"));
+        final Logger eventLogger = context.getLogger(DirectoryToolLauncher.EVENT_LOGGER_NAME);
+        eventLogger.setAdditive(false);
+        eventLogger.addAppender(DirectoryToolLauncher.createAsyncAppender(context, eventFile, 65536, 10000));
+        eventLogger.addAppender(console);
+
+        for (final Map.Entry<String, String> entry : properties.getByPrefix(DirectoryToolLauncher.LOG_LEVEL_PREFIX)
+                .entrySet()) {
+
+            // Springのキーの表記（[kmg.tool.directorytool]）からロガーの名前を取り出す
+            final String name = entry.getKey().replace("[", "").replace("]", "");
+            final Logger logger = "root".equalsIgnoreCase(name) ? root : context.getLogger(name);
+            logger.setLevel(Level.toLevel(entry.getValue(), Level.INFO));
+
+        }
+
+    }
+
+    /**
+     * ログのパターンのエンコーダを作成する。
+     *
+     * @param context
+     *                ロガーのコンテキスト
+     * @param pattern
+     *                ログのパターン
+     * @return 開始したエンコーダ
+     */
+    private static PatternLayoutEncoder createEncoder(final LoggerContext context, final String pattern) {
+
+        final PatternLayoutEncoder result = new PatternLayoutEncoder();
+        result.setContext(context);
+        result.setPattern(pattern);
+        result.setCharset(StandardCharsets.UTF_8);
+        result.start();
+        return result;
+
+    }
+
+    /**
+     * logging.logback.rollingpolicy.*の設定でローテーションするファイルのアペンダを作成する。<br>
+     * 書き込みごとのフラッシュやバッファの大きさを変更できるよう、開始せずに返す。
+     *
+     * @param context
+     *                        ロガーのコンテキスト
+     * @param properties
+     *                        application.ymlの設定
+     * @param file
+     *                        ログファイル
+     * @param fileNamePattern
+     *                        ローテーション後のファイル名のパターン
+     * @param pattern
+     *                        ログのパターン
+     * @return 開始していないアペンダ
+     */
+    private static RollingFileAppender<ILoggingEvent> createFileAppender(final LoggerContext context,
+            final LauncherProperties properties, final String file, final String fileNamePattern,
+            final String pattern) {
+
+        final RollingFileAppender<ILoggingEvent> result = new RollingFileAppender<>();
+        result.setContext(context);
+        result.setFile(file);
+        result.setEncoder(DirectoryToolLauncher.createEncoder(context, pattern));
+
+        final SizeAndTimeBasedRollingPolicy<ILoggingEvent> policy = new SizeAndTimeBasedRollingPolicy<>();
+        policy.setContext(context);
+        policy.setParent(result);
+        policy.setFileNamePattern(fileNamePattern);
+        policy.setMaxFileSize(
+                FileSize.valueOf(properties.getString("logging.logback.rollingpolicy.max-file-size", "10MB")));
+        policy.setMaxHistory(properties.getInt("logging.logback.rollingpolicy.max-history", 7));
+        policy.setTotalSizeCap(
+                FileSize.valueOf(properties.getString("logging.logback.rollingpolicy.total-size-cap", "0")));
+        result.setRollingPolicy(policy);
+        return result;
+
+    }
+
+    /**
+     * アペンダを開始し、処理スレッドがファイルI/Oで待たないよう非同期のアペンダで包む。
+     *
+     * @param context
+     *                     ロガーのコンテキスト
+     * @param appender
+     *                     開始していないアペンダ
+     * @param queueSize
+     *                     キューの大きさ
+     * @param maxFlushTime
+     *                     終了時にキューに残ったログを出力する最大待ち時間（ミリ秒）
+     * @return 開始した非同期のアペンダ
+     */
+    private static AsyncAppender createAsyncAppender(final LoggerContext context,
+            final RollingFileAppender<ILoggingEvent> appender, final int queueSize, final int maxFlushTime) {
+
+        appender.getRollingPolicy().start();
+        appender.start();
+
+        final AsyncAppender result = new AsyncAppender();
+        result.setContext(context);
+        result.setQueueSize(queueSize);
+        // キューが埋まってもINFO以下のログを破棄しない
+        result.setDiscardingThreshold(0);
+        result.setMaxFlushTime(maxFlushTime);
+        result.addAppender(appender);
+        result.start();
+        return result;
+
+    }
+
+    /**
+     * COPY/MOVE/DIFFのサービスを組み立てたディレクトリ操作サービスを作成する。<br>
+     * Springのプロトタイプスコープと同様に、呼び出すたびに新しいインスタンスを返す。
+     *
+     * @param workerPool
+     *                          各サービスで共有するワーカープール
+     * @param throughputLimiter
+     *                          COPY/MOVEで共有する帯域とファイル操作数のリミッタ
+     * @return ディレクトリ操作サービス
+     */
+    static DirectoryService createDirectoryService(final WorkerPool workerPool,
+            final ThroughputLimiter throughputLimiter) {
+
+        final CopyDirectoryServiceImpl copyService = new CopyDirectoryServiceImpl();
+        copyService.setWorkerPool(workerPool);
+        copyService.setThroughputLimiter(throughputLimiter);
+        final MoveDirectoryServiceImpl moveService = new MoveDirectoryServiceImpl();
+        moveService.setWorkerPool(workerPool);
+        moveService.setThroughputLimiter(throughputLimiter);
+        final DiffDirectoryServiceImpl diffService = new DiffDirectoryServiceImpl();
+        diffService.setWorkerPool(workerPool);
+
+        final DirectoryService result = new DirectoryServiceImpl(copyService, moveService, diffService);
+        return result;
+
+    }
+}
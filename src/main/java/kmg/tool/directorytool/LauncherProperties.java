@@ -0,0 +1,222 @@
+package kmg.tool.directorytool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+/**
+ * Springのコンテキストを起動せずに、application.ymlの設定を読み込むクラス。<br>
+ * <p>
+ * {@link DirectoryToolLauncher}がSpringでの起動と同じ設定でワーカープール、リミッタ、ログを組み立てるために使用する。
+ * 次の順に読み込み、後のものほど優先する（Spring Bootの既定の読み込み場所と同じ）。
+ * </p>
+ * <ol>
+ * <li>クラスパスのapplication.yml
+ * <li>作業ディレクトリのapplication.yml
+ * <li>作業ディレクトリのconfig/application.yml
+ * <li>システムプロパティ（例: -Ddirectorytool.worker-pool.size=8）
+ * </ol>
+ * <p>
+ * 入れ子のキーはドットで連結したキー（例: directorytool.worker-pool.size）で参照する。
+ * 環境変数とプロファイルごとの設定ファイルは読み込まない。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+final class LauncherProperties {
+
+    /** 設定ファイルの名前 */
+    private static final String FILE_NAME = "application.yml";
+
+    /** 作業ディレクトリの設定ファイル */
+    private static final List<Path> EXTERNAL_FILES = List.of(Path.of(LauncherProperties.FILE_NAME),
+            Path.of("config", LauncherProperties.FILE_NAME));
+
+    /** ドットで連結したキーと値 */
+    private final Map<String, String> properties;
+
+    /**
+     * 読み込んだ設定で初期化する。
+     *
+     * @param properties
+     *                   ドットで連結したキーと値
+     */
+    LauncherProperties(final Map<String, String> properties) {
+
+        this.properties = properties;
+
+    }
+
+    /**
+     * 既定の読み込み場所から設定を読み込む。
+     *
+     * @return 読み込んだ設定
+     * @throws UncheckedIOException
+     *                              設定ファイルの読み込みに失敗した場合
+     */
+    static LauncherProperties load() {
+
+        final Map<String, String> properties = new LinkedHashMap<>();
+
+        try (InputStream input = LauncherProperties.class.getClassLoader()
+                .getResourceAsStream(LauncherProperties.FILE_NAME)) {
+
+            if (input != null) {
+
+                LauncherProperties.read(input, properties);
+
+            }
+
+            for (final Path file : LauncherProperties.EXTERNAL_FILES) {
+
+                if (!Files.isRegularFile(file)) {
+
+                    continue;
+
+                }
+
+                try (InputStream external = Files.newInputStream(file)) {
+
+                    LauncherProperties.read(external, properties);
+
+                }
+
+            }
+
+        } catch (final IOException e) {
+
+            throw new UncheckedIOException("設定ファイルの読み込みに失敗しました。", e);
+
+        }
+
+        for (final String name : System.getProperties().stringPropertyNames()) {
+
+            properties.put(name, System.getProperty(name));
+
+        }
+
+        final LauncherProperties result = new LauncherProperties(properties);
+        return result;
+
+    }
+
+    /**
+     * YAMLを読み込み、ドットで連結したキーで追加する。既存のキーは上書きする。
+     *
+     * @param input
+     *                   YAMLの入力
+     * @param properties
+     *                   追加先のキーと値
+     */
+    static void read(final InputStream input, final Map<String, String> properties) {
+
+        final Object document = new Yaml(new SafeConstructor(new LoaderOptions())).load(input);
+
+        if (document instanceof final Map<?, ?> map) {
+
+            LauncherProperties.flatten("", map, properties);
+
+        }
+
+    }
+
+    /**
+     * 入れ子のマップをドットで連結したキーに展開する。
+     *
+     * @param prefix
+     *                   親のキー。最上位の場合は空文字列
+     * @param map
+     *                   展開するマップ
+     * @param properties
+     *                   追加先のキーと値
+     */
+    private static void flatten(final String prefix, final Map<?, ?> map, final Map<String, String> properties) {
+
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+
+            final String key = prefix + entry.getKey();
+
+            if (entry.getValue() instanceof final Map<?, ?> child) {
+
+                LauncherProperties.flatten(key + '.', child, properties);
+
+            } else if (entry.getValue() != null) {
+
+                properties.put(key, entry.getValue().toString());
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 文字列の設定値を返す。
+     *
+     * @param key
+     *                     ドットで連結したキー
+     * @param defaultValue
+     *                     設定されていない場合の値
+     * @return 設定値
+     */
+    String getString(final String key, final String defaultValue) {
+
+        final String result = this.properties.getOrDefault(key, defaultValue);
+        return result;
+
+    }
+
+    /**
+     * 整数の設定値を返す。
+     *
+     * @param key
+     *                     ドットで連結したキー
+     * @param defaultValue
+     *                     設定されていない場合の値
+     * @return 設定値
+     * @throws NumberFormatException
+     *                               整数でない値が設定されている場合
+     */
+    int getInt(final String key, final int defaultValue) {
+
+        final String value = this.properties.get(key);
+
+        final int result = value == null ? defaultValue : Integer.parseInt(value.strip());
+        return result;
+
+    }
+
+    /**
+     * 指定された接頭辞で始まるキーの設定値を、接頭辞を除いたキーで返す。
+     *
+     * @param prefix
+     *               キーの接頭辞（例: logging.level.）
+     * @return 接頭辞を除いたキーと設定値
+     */
+    Map<String, String> getByPrefix(final String prefix) {
+
+        final Map<String, String> result = new LinkedHashMap<>();
+
+        for (final Map.Entry<String, String> entry : this.properties.entrySet()) {
+
+            if (entry.getKey().startsWith(prefix)) {
+
+                result.put(entry.getKey().substring(prefix.length()), entry.getValue());
+
+            }
+
+        }
+        return result;
+
+    }
+}
@@ -0,0 +1,31 @@
+package kmg.tool.directorytool.domain.model;
+
+import kmg.tool.directorytool.infrastructure.types.DiffCategoryTypes;
+
+/**
+ * 差分比較で検出した1件の差分。<br>
+ * <p>
+ * サイズと更新日時は、該当する側にパスが存在しない場合はnullとなる。ディレクトリのサイズは0とする。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ * @param category
+ *                           差分の分類
+ * @param path
+ *                           ルートからの相対パス
+ * @param directory
+ *                           ソース側（ソースに存在しない場合はターゲット側）がディレクトリの場合true
+ * @param sourceSize
+ *                           ソース側のサイズ
+ * @param sourceLastModified
+ *                           ソース側の最終更新日時（エポックミリ秒）
+ * @param targetSize
+ *                           ターゲット側のサイズ
+ * @param targetLastModified
+ *                           ターゲット側の最終更新日時（エポックミリ秒）
+ */
+public record DiffEntry(DiffCategoryTypes category, String path, boolean directory, Long sourceSize,
+        Long sourceLastModified, Long targetSize, Long targetLastModified) {
+    // 処理なし
+}
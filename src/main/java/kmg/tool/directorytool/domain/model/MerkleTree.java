@@ -0,0 +1,730 @@
+package kmg.tool.directorytool.domain.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ディレクトリツリーのマークル木による要約。<br>
+ * <p>
+ * 各ファイルは内容のハッシュ値を、各ディレクトリは子要素（名前、種別、ハッシュ値）から計算したハッシュ値を保持する。<br>
+ * 2つのツリーの比較ではハッシュ値が一致するサブツリー全体を1回の比較で読み飛ばせるため、比較コストが差分の量に比例する。
+ * </p>
+ * <p>
+ * 要約はルートディレクトリ直下の{@link #FILE_NAME}に保存される。<br>
+ * 再構築時はサイズと更新日時が前回と変わらないファイルのハッシュ値を再利用するため、内容の再読み込みは変更されたファイルに限られる。
+ * </p>
+ * <p>
+ * ソースディレクトリには書き込まないため、ソースの要約はターゲットのルートディレクトリ直下の{@link #SOURCE_FILE_NAME}に、
+ * ソースの絶対パスとともに保存する（{@link #loadOrBuildSource(Path, Path)}）。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class MerkleTree {
+
+    /** 要約ファイルの名前 */
+    public static final String FILE_NAME = ".directorytool.merkle";
+
+    /** ターゲットに保存するソースの要約ファイルの名前 */
+    public static final String SOURCE_FILE_NAME = MerkleTree.FILE_NAME + ".source";
+
+    /** 要約ファイルのヘッダ */
+    private static final String HEADER = "# directorytool merkle v1";
+
+    /** ソースの要約ファイルで、ソースの絶対パスを記録する行の接頭辞 */
+    private static final String SOURCE_PREFIX = "# source\t";
+
+    /** ハッシュアルゴリズム */
+    private static final String ALGORITHM = "SHA-256";
+
+    /** ファイル読み込み時のバッファサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** ルートディレクトリの相対パス */
+    private static final String ROOT = "";
+
+    /** 相対パスの区切り文字 */
+    private static final char SEPARATOR = '/';
+
+    /** 相対パスごとのノード */
+    private final Map<String, Node> nodes;
+
+    /** 相対パスごとの子要素の相対パス */
+    private final Map<String, List<String>> children;
+
+    /**
+     * マークル木のノード。
+     *
+     * @param directory
+     *                     ディレクトリの場合true
+     * @param size
+     *                     ファイルサイズ（ディレクトリの場合は0）
+     * @param lastModified
+     *                     最終更新日時（エポックミリ秒）
+     * @param hash
+     *                     ハッシュ値（16進数文字列）
+     */
+    public record Node(boolean directory, long size, long lastModified, String hash) {
+        // 処理なし
+    }
+
+    /**
+     * 2つのマークル木の差分。
+     *
+     * @param sourcePaths
+     *                          ソース側に存在し、ターゲット側と一致しない相対パスのリスト
+     * @param targetOnlyPaths
+     *                          ターゲット側のみに存在する相対パスのリスト
+     */
+    public record Difference(List<String> sourcePaths, List<String> targetOnlyPaths) {
+        // 処理なし
+    }
+
+    /**
+     * 空のマークル木を作成する。
+     */
+    private MerkleTree() {
+
+        this.nodes = new HashMap<>();
+        this.children = new HashMap<>();
+
+    }
+
+    /**
+     * 指定されたパスが要約ファイル（書き込み途中の一時ファイルを含む）であるかを判定する。
+     *
+     * @param root
+     *             ルートディレクトリのパス
+     * @param path
+     *             判定対象のパス
+     * @return 要約ファイルの場合true
+     */
+    public static boolean isSummaryFile(final Path root, final Path path) {
+
+        final Path fileName = path.getFileName();
+
+        final boolean result = (fileName != null) && fileName.toString().startsWith(MerkleTree.FILE_NAME)
+                && root.equals(path.getParent());
+        return result;
+
+    }
+
+    /**
+     * 保存済みの要約を読み込む。
+     *
+     * @param root
+     *             ルートディレクトリのパス
+     * @return マークル木。要約ファイルが存在しない場合はnull
+     * @throws IOException
+     *                     要約ファイルの読み込みに失敗した場合、または形式が不正な場合
+     */
+    public static MerkleTree load(final Path root) throws IOException {
+
+        final MerkleTree result = MerkleTree.read(root.resolve(MerkleTree.FILE_NAME), null);
+        return result;
+
+    }
+
+    /**
+     * 保存済みの要約をもとにマークル木を再構築し、内容が変わった場合は保存する。<br>
+     * <p>
+     * 保存済みの要約は前回の走査時点のものであり、その後の変更を反映していないため、そのまま使用せずに再構築する。
+     * サイズと更新日時が変わらないファイルのみ保存済みのハッシュ値を再利用するため、内容の再読み込みは変更されたファイルに限られる。
+     * </p>
+     *
+     * @param root
+     *             ルートディレクトリのパス
+     * @return 現在のディレクトリの内容を反映したマークル木
+     * @throws IOException
+     *                     要約の読み込み、構築、または保存に失敗した場合
+     */
+    public static MerkleTree loadOrBuild(final Path root) throws IOException {
+
+        final MerkleTree previous = MerkleTree.load(root);
+
+        final MerkleTree result = MerkleTree.build(root, previous, null);
+
+        if ((previous == null) || !previous.nodes.equals(result.nodes)) {
+
+            result.save(root);
+
+        }
+        return result;
+
+    }
+
+    /**
+     * ターゲットに保存済みのソースの要約をもとにソースのマークル木を再構築し、内容が変わった場合はターゲットに保存する。<br>
+     * <p>
+     * ソースディレクトリには書き込まない。保存済みの要約が別のソースのものである場合は使用せず、内容から構築して置き換える。
+     * サイズと更新日時が変わらないファイルのみ保存済みのハッシュ値を再利用するため、内容の再読み込みは変更されたファイルに限られる。
+     * </p>
+     *
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    要約を保存するターゲットディレクトリのパス
+     * @return 現在のソースディレクトリの内容を反映したマークル木
+     * @throws IOException
+     *                     要約の読み込み、構築、または保存に失敗した場合
+     */
+    public static MerkleTree loadOrBuildSource(final Path source, final Path destination) throws IOException {
+
+        final Path   file       = destination.resolve(MerkleTree.SOURCE_FILE_NAME);
+        final String sourceName = source.toAbsolutePath().normalize().toString();
+
+        final MerkleTree previous = MerkleTree.read(file, sourceName);
+
+        final MerkleTree result = MerkleTree.build(source, previous, null);
+
+        if ((previous == null) || !previous.nodes.equals(result.nodes)) {
+
+            result.write(file, sourceName);
+
+        }
+        return result;
+
+    }
+
+    /**
+     * ディレクトリを走査してマークル木を構築する。<br>
+     * <p>
+     * ファイルのハッシュ値は以下の優先順で決定する。
+     * </p>
+     * <ol>
+     * <li>ヒントに同じ相対パス・同じサイズ・同じ更新日時のファイルがあればそのハッシュ値（更新日時を保持して移動した場合など）
+     * <li>前回の要約に同じサイズ・同じ更新日時のファイルがあればそのハッシュ値
+     * <li>ファイル内容から計算したハッシュ値
+     * </ol>
+     *
+     * @param root
+     *                 ルートディレクトリのパス
+     * @param previous
+     *                 同じルートの前回の要約。存在しない場合はnull
+     * @param hint
+     *                 内容が同一であることが分かっているツリーの要約。存在しない場合はnull
+     * @return マークル木
+     * @throws IOException
+     *                     ディレクトリの走査またはファイルの読み込みに失敗した場合
+     */
+    public static MerkleTree build(final Path root, final MerkleTree previous, final MerkleTree hint)
+            throws IOException {
+
+        final MerkleTree result = MerkleTree.build(root, previous, hint, Set.of());
+        return result;
+
+    }
+
+    /**
+     * ディレクトリを走査してマークル木を構築する。<br>
+     * <p>
+     * {@link #build(Path, MerkleTree, MerkleTree)}に加えて、今回の処理でヒントのファイルからコピーした相対パスは、
+     * 更新日時が異なってもサイズが同じであればヒントのハッシュ値を再利用する。
+     * </p>
+     *
+     * @param root
+     *                    ルートディレクトリのパス
+     * @param previous
+     *                    同じルートの前回の要約。存在しない場合はnull
+     * @param hint
+     *                    内容が同一であることが分かっているツリーの要約。存在しない場合はnull
+     * @param copiedPaths
+     *                    今回の処理でヒントのファイルからコピーした相対パスのセット
+     * @return マークル木
+     * @throws IOException
+     *                     ディレクトリの走査またはファイルの読み込みに失敗した場合
+     */
+    public static MerkleTree build(final Path root, final MerkleTree previous, final MerkleTree hint,
+            final Set<Path> copiedPaths) throws IOException {
+
+        final MerkleTree        result                 = new MerkleTree();
+        final Map<String, Long> directoryLastModifieds = new HashMap<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+
+                directoryLastModifieds.put(MerkleTree.toKey(root, dir), attrs.lastModifiedTime().toMillis());
+                return FileVisitResult.CONTINUE;
+
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+
+                if (MerkleTree.isSummaryFile(root, file)) {
+
+                    return FileVisitResult.CONTINUE;
+
+                }
+
+                final String  relativePath = MerkleTree.toKey(root, file);
+                final long    size         = attrs.size();
+                final long    lastModified = attrs.lastModifiedTime().toMillis();
+                final boolean copied       = copiedPaths.contains(root.relativize(file));
+
+                String hash = MerkleTree.reusableHash(hint, relativePath, size, copied ? null : lastModified);
+
+                if (hash == null) {
+
+                    hash = MerkleTree.reusableHash(previous, relativePath, size, lastModified);
+
+                }
+
+                if (hash == null) {
+
+                    hash = MerkleTree.hashFile(file);
+
+                }
+                result.put(relativePath, new Node(false, size, lastModified, hash));
+                return FileVisitResult.CONTINUE;
+
+            }
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+
+                if (exc != null) {
+
+                    throw exc;
+
+                }
+
+                final String relativePath = MerkleTree.toKey(root, dir);
+                final long   lastModified = directoryLastModifieds.remove(relativePath);
+                result.put(relativePath, new Node(true, 0L, lastModified, result.hashDirectory(relativePath)));
+                return FileVisitResult.CONTINUE;
+
+            }
+        });
+        return result;
+
+    }
+
+    /**
+     * ソース側とターゲット側のマークル木を比較し、差分のある相対パスを求める。<br>
+     * <p>
+     * ハッシュ値と種別が一致するサブツリーは子要素を辿らずに読み飛ばす。<br>
+     * 片側のみに存在するサブツリーは、その配下のすべての相対パスを差分として返す。
+     * </p>
+     *
+     * @param source
+     *               ソース側のマークル木
+     * @param target
+     *               ターゲット側のマークル木
+     * @return 差分
+     */
+    public static Difference diff(final MerkleTree source, final MerkleTree target) {
+
+        final List<String> sourcePaths     = new ArrayList<>();
+        final List<String> targetOnlyPaths = new ArrayList<>();
+
+        MerkleTree.collectDifferences(source, target, MerkleTree.ROOT, sourcePaths, targetOnlyPaths);
+
+        final Difference result = new Difference(sourcePaths, targetOnlyPaths);
+        return result;
+
+    }
+
+    /**
+     * 要約をルートディレクトリ直下に保存する。<br>
+     * <p>
+     * 一時ファイルに書き込んでから置き換えるため、書き込み途中の要約が読み込まれることはない。
+     * </p>
+     *
+     * @param root
+     *             ルートディレクトリのパス
+     * @throws IOException
+     *                     要約ファイルの書き込みに失敗した場合
+     */
+    public void save(final Path root) throws IOException {
+
+        this.write(root.resolve(MerkleTree.FILE_NAME), null);
+
+    }
+
+    /**
+     * 相対パスに対応するノードを返す。
+     *
+     * @param relativePath
+     *                     ルートからの相対パス（区切り文字は'/'、ルートは空文字列）
+     * @return ノード。存在しない場合はnull
+     */
+    public Node getNode(final String relativePath) {
+
+        final Node result = this.nodes.get(relativePath);
+        return result;
+
+    }
+
+    /**
+     * ルートディレクトリのハッシュ値を返す。
+     *
+     * @return ルートディレクトリのハッシュ値
+     */
+    public String getRootHash() {
+
+        final String result = this.nodes.get(MerkleTree.ROOT).hash();
+        return result;
+
+    }
+
+    /**
+     * 要約ファイルを読み込む。
+     *
+     * @param file
+     *                   要約ファイルのパス
+     * @param sourceName
+     *                   ソースの要約ファイルの場合は記録されているべきソースの絶対パス、それ以外はnull
+     * @return マークル木。要約ファイルが存在しない場合、または別のソースの要約の場合はnull
+     * @throws IOException
+     *                     要約ファイルの読み込みに失敗した場合、または形式が不正な場合
+     */
+    private static MerkleTree read(final Path file, final String sourceName) throws IOException {
+
+        if (!Files.isRegularFile(file)) {
+
+            return null;
+
+        }
+
+        final MerkleTree result = new MerkleTree();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+
+            final String header = reader.readLine();
+
+            if (!MerkleTree.HEADER.equals(header)) {
+
+                throw new IOException(String.format("要約ファイルの形式が不正です。: %s", file));
+
+            }
+
+            if ((sourceName != null) && !(MerkleTree.SOURCE_PREFIX + sourceName).equals(reader.readLine())) {
+
+                return null;
+
+            }
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+
+                final String[] fields = line.split("\t", 5);
+
+                if (fields.length != 5) {
+
+                    throw new IOException(String.format("要約ファイルの形式が不正です。: %s", file));
+
+                }
+
+                final Node node = new Node("D".equals(fields[0]), Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2]), fields[3]);
+                result.put(fields[4], node);
+
+            }
+
+        } catch (final NumberFormatException e) {
+
+            throw new IOException(String.format("要約ファイルの形式が不正です。: %s", file), e);
+
+        }
+
+        if (!result.nodes.containsKey(MerkleTree.ROOT)) {
+
+            throw new IOException(String.format("要約ファイルにルートが含まれていません。: %s", file));
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 要約ファイルを書き込む。<br>
+     * <p>
+     * 一時ファイルに書き込んでから置き換えるため、書き込み途中の要約が読み込まれることはない。
+     * </p>
+     *
+     * @param file
+     *                   要約ファイルのパス
+     * @param sourceName
+     *                   ソースの要約ファイルの場合は記録するソースの絶対パス、それ以外はnull
+     * @throws IOException
+     *                     要約ファイルの書き込みに失敗した場合
+     */
+    private void write(final Path file, final String sourceName) throws IOException {
+
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+
+            writer.write(MerkleTree.HEADER);
+            writer.newLine();
+
+            if (sourceName != null) {
+
+                writer.write(MerkleTree.SOURCE_PREFIX + sourceName);
+                writer.newLine();
+
+            }
+
+            for (final Map.Entry<String, Node> entry : new TreeMap<>(this.nodes).entrySet()) {
+
+                final Node node = entry.getValue();
+                writer.write(String.format("%s\t%d\t%d\t%s\t%s", node.directory() ? "D" : "F", node.size(),
+                        node.lastModified(), node.hash(), entry.getKey()));
+                writer.newLine();
+
+            }
+
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    }
+
+    /**
+     * 差分を再帰的に収集する。
+     *
+     * @param source
+     *                        ソース側のマークル木
+     * @param target
+     *                        ターゲット側のマークル木
+     * @param relativePath
+     *                        比較対象の相対パス
+     * @param sourcePaths
+     *                        ソース側の差分の格納先
+     * @param targetOnlyPaths
+     *                        ターゲット側のみに存在するパスの格納先
+     */
+    private static void collectDifferences(final MerkleTree source, final MerkleTree target,
+            final String relativePath, final List<String> sourcePaths, final List<String> targetOnlyPaths) {
+
+        final Node sourceNode = source.nodes.get(relativePath);
+        final Node targetNode = target.nodes.get(relativePath);
+
+        if ((sourceNode != null) && (targetNode != null) && (sourceNode.directory() == targetNode.directory())
+                && sourceNode.hash().equals(targetNode.hash())) {
+
+            return;
+
+        }
+
+        if (!MerkleTree.ROOT.equals(relativePath)) {
+
+            if (sourceNode != null) {
+
+                sourcePaths.add(relativePath);
+
+            } else {
+
+                targetOnlyPaths.add(relativePath);
+
+            }
+
+        }
+
+        final Set<String> childPaths = new TreeSet<>(source.getChildren(relativePath));
+        childPaths.addAll(target.getChildren(relativePath));
+
+        for (final String childPath : childPaths) {
+
+            MerkleTree.collectDifferences(source, target, childPath, sourcePaths, targetOnlyPaths);
+
+        }
+
+    }
+
+    /**
+     * 再利用可能なハッシュ値を返す。
+     *
+     * @param tree
+     *                     参照するマークル木。nullの場合は再利用しない
+     * @param relativePath
+     *                     相対パス
+     * @param size
+     *                     現在のファイルサイズ
+     * @param lastModified
+     *                     現在の最終更新日時。内容が同一であることが分かっている場合はnullを指定し、比較しない
+     * @return ハッシュ値。再利用できない場合はnull
+     */
+    private static String reusableHash(final MerkleTree tree, final String relativePath, final long size,
+            final Long lastModified) {
+
+        if (tree == null) {
+
+            return null;
+
+        }
+
+        final Node node = tree.nodes.get(relativePath);
+
+        if ((node == null) || node.directory() || (node.size() != size)) {
+
+            return null;
+
+        }
+
+        if ((lastModified != null) && (node.lastModified() != lastModified)) {
+
+            return null;
+
+        }
+
+        final String result = node.hash();
+        return result;
+
+    }
+
+    /**
+     * ファイル内容のハッシュ値を計算する。
+     *
+     * @param file
+     *             ファイルのパス
+     * @return ハッシュ値（16進数文字列）
+     * @throws IOException
+     *                     ファイルの読み込みに失敗した場合
+     */
+    private static String hashFile(final Path file) throws IOException {
+
+        final MessageDigest digest = MerkleTree.newDigest();
+
+        try (InputStream in = Files.newInputStream(file)) {
+
+            final byte[] buffer = new byte[MerkleTree.BUFFER_SIZE];
+            int          read;
+
+            while ((read = in.read(buffer)) != -1) {
+
+                digest.update(buffer, 0, read);
+
+            }
+
+        }
+
+        final String result = HexFormat.of().formatHex(digest.digest());
+        return result;
+
+    }
+
+    /**
+     * ハッシュ計算用のダイジェストを作成する。
+     *
+     * @return ダイジェスト
+     */
+    private static MessageDigest newDigest() {
+
+        try {
+
+            final MessageDigest result = MessageDigest.getInstance(MerkleTree.ALGORITHM);
+            return result;
+
+        } catch (final NoSuchAlgorithmException e) {
+
+            throw new IllegalStateException(String.format("ハッシュアルゴリズムが利用できません。: %s", MerkleTree.ALGORITHM), e);
+
+        }
+
+    }
+
+    /**
+     * パスをルートからの相対パスのキーに変換する。
+     *
+     * @param root
+     *             ルートディレクトリのパス
+     * @param path
+     *             変換対象のパス
+     * @return 相対パスのキー（区切り文字は'/'）
+     */
+    private static String toKey(final Path root, final Path path) {
+
+        final String result = root.relativize(path).toString().replace(File.separatorChar, MerkleTree.SEPARATOR);
+        return result;
+
+    }
+
+    /**
+     * ノードを追加し、親の子要素として登録する。
+     *
+     * @param relativePath
+     *                     相対パスのキー
+     * @param node
+     *                     ノード
+     */
+    private void put(final String relativePath, final Node node) {
+
+        this.nodes.put(relativePath, node);
+
+        if (MerkleTree.ROOT.equals(relativePath)) {
+
+            return;
+
+        }
+
+        final int    index  = relativePath.lastIndexOf(MerkleTree.SEPARATOR);
+        final String parent = index < 0 ? MerkleTree.ROOT : relativePath.substring(0, index);
+        this.children.computeIfAbsent(parent, key -> new ArrayList<>()).add(relativePath);
+
+    }
+
+    /**
+     * 子要素の相対パスのリストを返す。
+     *
+     * @param relativePath
+     *                     親の相対パス
+     * @return 子要素の相対パスのリスト
+     */
+    private List<String> getChildren(final String relativePath) {
+
+        final List<String> result = this.children.getOrDefault(relativePath, Collections.emptyList());
+        return result;
+
+    }
+
+    /**
+     * ディレクトリのハッシュ値を子要素から計算する。
+     *
+     * @param relativePath
+     *                     ディレクトリの相対パス
+     * @return ハッシュ値（16進数文字列）
+     */
+    private String hashDirectory(final String relativePath) {
+
+        final MessageDigest digest = MerkleTree.newDigest();
+
+        for (final String childPath : new TreeSet<>(this.getChildren(relativePath))) {
+
+            final Node   child = this.nodes.get(childPath);
+            final String name  = childPath.substring(childPath.lastIndexOf(MerkleTree.SEPARATOR) + 1);
+            digest.update(String.format("%s\0%s\0%s\n", name, child.directory() ? "D" : "F", child.hash())
+                    .getBytes(StandardCharsets.UTF_8));
+
+        }
+
+        final String result = HexFormat.of().formatHex(digest.digest());
+        return result;
+
+    }
+}
@@ -0,0 +1,608 @@
+package kmg.tool.directorytool.domain.model;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+
+import org.springframework.util.unit.DataSize;
+
+/**
+ * COPY/MOVE/DIFFの対象とするパスを、包含と除外のルールで選択するフィルタ。<br>
+ * <p>
+ * ルールは次の形式で指定し、{@link #compile(List, List, long)}で一度だけ照合用の構造に変換する。
+ * </p>
+ * <ul>
+ * <li>グロブ（{@code glob:}は省略可）: {@code /}を含まないパターンはファイル名と、含むパターンはルートからの相対パスと照合する
+ * <li>正規表現（{@code regex:}）: ルートからの相対パスと照合する
+ * <li>サイズ（{@code size:>100MB}、{@code size:<1KB}）: 通常のファイルのサイズと比較する
+ * <li>経過時間（{@code age:>30d}、{@code age:<12h}）: 通常のファイルの最終更新日時からの経過時間と比較する（単位: s, m, h, d）
+ * </ul>
+ * <p>
+ * 照合は、ワイルドカードを含まないファイル名（{@code node_modules}、{@code .git}）をハッシュセット、
+ * 拡張子のパターン（{@code *.tmp}）を接尾辞のハッシュセット、ワイルドカードを含まない相対パス（{@code build/output}）を
+ * パスの要素ごとのトライ木で行い、残りのパターンのみをコンパイル済みの{@link PathMatcher}で順に照合する。
+ * </p>
+ * <p>
+ * 除外のパス、グロブ、正規表現に一致したディレクトリは、走査時にサブツリーごと読み飛ばす（{@link #isExcludedDirectory(Path)}）。
+ * ファイルは、除外のルールのいずれにも一致せず、包含のパターンを指定した場合はいずれかに一致し、包含のサイズと経過時間の条件をすべて満たす場合に選択する。
+ * 包含のルールはファイルのみに適用し、ディレクトリは除外されない限り走査する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class PathFilter {
+
+    /** グロブのワイルドカードとなる文字 */
+    private static final String GLOB_META_CHARS = "*?[]{}\\";
+
+    /** 除外のルール */
+    private final RuleSet excludes;
+
+    /** 包含のルール */
+    private final RuleSet includes;
+
+    /**
+     * フィルタを作成する。
+     *
+     * @param excludes
+     *                 除外のルール
+     * @param includes
+     *                 包含のルール
+     */
+    private PathFilter(final RuleSet excludes, final RuleSet includes) {
+
+        this.excludes = excludes;
+        this.includes = includes;
+
+    }
+
+    /**
+     * 包含と除外のルールをコンパイルする。
+     *
+     * @param includes
+     *                 包含のルール
+     * @param excludes
+     *                 除外のルール
+     * @param now
+     *                 経過時間の基準とする時刻（エポックミリ秒）
+     * @return フィルタ
+     * @throws IllegalArgumentException
+     *                                  ルールの形式が不正な場合
+     */
+    public static PathFilter compile(final List<String> includes, final List<String> excludes, final long now) {
+
+        final PathFilter result = new PathFilter(new RuleSet(excludes, now), new RuleSet(includes, now));
+        return result;
+
+    }
+
+    /**
+     * ディレクトリを除外するかを判定する。除外する場合、サブツリーを走査しない。
+     *
+     * @param relativePath
+     *                     ルートからのディレクトリの相対パス
+     * @return 除外のパターンに一致する場合true
+     */
+    public boolean isExcludedDirectory(final Path relativePath) {
+
+        final boolean result = this.excludes.matchesPattern(relativePath);
+        return result;
+
+    }
+
+    /**
+     * ファイルを選択するかを判定する。
+     *
+     * @param relativePath
+     *                     ルートからのファイルの相対パス
+     * @param attributes
+     *                     走査で取得済みのファイルの属性
+     * @return 選択する場合true
+     */
+    public boolean accept(final Path relativePath, final BasicFileAttributes attributes) {
+
+        if (this.excludes.matchesPattern(relativePath) || this.excludes.anyPredicate(attributes)) {
+
+            return false;
+
+        }
+
+        if (this.includes.hasPatterns() && !this.includes.matchesPattern(relativePath)) {
+
+            return false;
+
+        }
+
+        final boolean result = this.includes.allPredicates(attributes);
+        return result;
+
+    }
+
+    /**
+     * コンパイルしたルールの集合。
+     */
+    private static final class RuleSet {
+
+        /** ワイルドカードを含まないファイル名 */
+        private final Set<String> names;
+
+        /** 拡張子のパターンの接尾辞（例: .tmp） */
+        private final Set<String> suffixes;
+
+        /** ワイルドカードを含まない相対パスのトライ木 */
+        private final TrieNode paths;
+
+        /** ファイル名と照合するパターン */
+        private final List<PathMatcher> nameMatchers;
+
+        /** 相対パスと照合するパターン */
+        private final List<PathMatcher> pathMatchers;
+
+        /** サイズと経過時間の条件 */
+        private final List<AttributePredicate> predicates;
+
+        /** パターンが存在する場合true */
+        private final boolean patterns;
+
+        /**
+         * ルールをコンパイルする。
+         *
+         * @param rules
+         *              ルール
+         * @param now
+         *              経過時間の基準とする時刻（エポックミリ秒）
+         */
+        RuleSet(final List<String> rules, final long now) {
+
+            this.names = new HashSet<>();
+            this.suffixes = new HashSet<>();
+            this.paths = new TrieNode();
+            this.nameMatchers = new ArrayList<>();
+            this.pathMatchers = new ArrayList<>();
+            this.predicates = new ArrayList<>();
+
+            for (final String rule : rules) {
+
+                this.add(rule.strip(), now);
+
+            }
+            this.patterns = !this.names.isEmpty() || !this.suffixes.isEmpty() || !this.paths.children.isEmpty()
+                    || !this.nameMatchers.isEmpty() || !this.pathMatchers.isEmpty();
+
+        }
+
+        /**
+         * ルールを種類に応じた照合用の構造に追加する。
+         *
+         * @param rule
+         *             ルール
+         * @param now
+         *             経過時間の基準とする時刻（エポックミリ秒）
+         */
+        private void add(final String rule, final long now) {
+
+            if (rule.isEmpty()) {
+
+                throw new IllegalArgumentException("空のルールは指定できません。");
+
+            }
+
+            if (rule.startsWith("size:") || rule.startsWith("age:")) {
+
+                this.predicates.add(AttributePredicate.parse(rule, now));
+                return;
+
+            }
+
+            if (rule.startsWith("regex:")) {
+
+                try {
+
+                    this.pathMatchers.add(FileSystems.getDefault().getPathMatcher(rule));
+
+                } catch (final PatternSyntaxException e) {
+
+                    throw new IllegalArgumentException(String.format("正規表現が不正です。: %s", rule), e);
+
+                }
+                return;
+
+            }
+
+            String glob = rule.startsWith("glob:") ? rule.substring("glob:".length()) : rule;
+
+            // 相対パスとして照合するため、先頭と末尾の区切り文字を除く
+            while (glob.startsWith("/")) {
+
+                glob = glob.substring(1);
+
+            }
+
+            while (glob.endsWith("/")) {
+
+                glob = glob.substring(0, glob.length() - 1);
+
+            }
+
+            if (glob.isEmpty()) {
+
+                throw new IllegalArgumentException(String.format("パターンが空です。: %s", rule));
+
+            }
+
+            final boolean literal = glob.chars().noneMatch(c -> PathFilter.GLOB_META_CHARS.indexOf(c) >= 0);
+            final boolean path    = glob.indexOf('/') >= 0;
+
+            if (literal && !path) {
+
+                this.names.add(glob);
+
+            } else if (literal) {
+
+                this.paths.add(glob.split("/"));
+
+            } else if (!path && glob.startsWith("*.") && (glob.indexOf('.', 2) < 0)
+                    && glob.substring(1).chars().noneMatch(c -> PathFilter.GLOB_META_CHARS.indexOf(c) >= 0)) {
+
+                this.suffixes.add(glob.substring(1));
+
+            } else {
+
+                try {
+
+                    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+                    (path ? this.pathMatchers : this.nameMatchers).add(matcher);
+
+                } catch (final PatternSyntaxException e) {
+
+                    throw new IllegalArgumentException(String.format("グロブが不正です。: %s", rule), e);
+
+                }
+
+            }
+
+        }
+
+        /**
+         * パターンが存在するかを返す。
+         *
+         * @return ファイル名、パス、グロブ、正規表現のいずれかのパターンが存在する場合true
+         */
+        boolean hasPatterns() {
+
+            final boolean result = this.patterns;
+            return result;
+
+        }
+
+        /**
+         * 相対パスがいずれかのパターンに一致するかを判定する。
+         *
+         * @param relativePath
+         *                     ルートからの相対パス
+         * @return 一致する場合true
+         */
+        boolean matchesPattern(final Path relativePath) {
+
+            if (!this.patterns) {
+
+                return false;
+
+            }
+
+            final Path   fileName = relativePath.getFileName();
+            final String name     = fileName.toString();
+
+            if (this.names.contains(name) || this.matchesSuffix(name) || this.paths.matches(relativePath)) {
+
+                return true;
+
+            }
+
+            for (final PathMatcher matcher : this.nameMatchers) {
+
+                if (matcher.matches(fileName)) {
+
+                    return true;
+
+                }
+
+            }
+
+            for (final PathMatcher matcher : this.pathMatchers) {
+
+                if (matcher.matches(relativePath)) {
+
+                    return true;
+
+                }
+
+            }
+            return false;
+
+        }
+
+        /**
+         * ファイル名が拡張子のパターンに一致するかを判定する。
+         *
+         * @param name
+         *             ファイル名
+         * @return 一致する場合true
+         */
+        private boolean matchesSuffix(final String name) {
+
+            if (this.suffixes.isEmpty()) {
+
+                return false;
+
+            }
+
+            final int index = name.lastIndexOf('.');
+
+            final boolean result = (index >= 0) && this.suffixes.contains(name.substring(index));
+            return result;
+
+        }
+
+        /**
+         * いずれかのサイズと経過時間の条件を満たすかを判定する。
+         *
+         * @param attributes
+         *                   ファイルの属性
+         * @return 通常のファイルで、いずれかの条件を満たす場合true
+         */
+        boolean anyPredicate(final BasicFileAttributes attributes) {
+
+            for (final AttributePredicate predicate : this.predicates) {
+
+                if (predicate.test(attributes)) {
+
+                    return true;
+
+                }
+
+            }
+            return false;
+
+        }
+
+        /**
+         * すべてのサイズと経過時間の条件を満たすかを判定する。
+         *
+         * @param attributes
+         *                   ファイルの属性
+         * @return すべての条件を満たす場合true。条件が存在しない場合もtrue
+         */
+        boolean allPredicates(final BasicFileAttributes attributes) {
+
+            for (final AttributePredicate predicate : this.predicates) {
+
+                if (!predicate.test(attributes)) {
+
+                    return false;
+
+                }
+
+            }
+            return true;
+
+        }
+    }
+
+    /**
+     * ワイルドカードを含まない相対パスのトライ木のノード。パスの要素ごとに子のノードを持つ。
+     */
+    private static final class TrieNode {
+
+        /** パスの要素ごとの子のノード */
+        private final Map<String, TrieNode> children = new HashMap<>();
+
+        /** このノードまでのパスがルールの場合true */
+        private boolean terminal;
+
+        /**
+         * パスを追加する。
+         *
+         * @param elements
+         *                 パスの要素
+         */
+        void add(final String[] elements) {
+
+            TrieNode node = this;
+
+            for (final String element : elements) {
+
+                if (!element.isEmpty()) {
+
+                    node = node.children.computeIfAbsent(element, key -> new TrieNode());
+
+                }
+
+            }
+            node.terminal = true;
+
+        }
+
+        /**
+         * 相対パス、またはその上位のディレクトリがルールに一致するかを判定する。
+         *
+         * @param relativePath
+         *                     ルートからの相対パス
+         * @return 一致する場合true
+         */
+        boolean matches(final Path relativePath) {
+
+            TrieNode node = this;
+
+            for (final Path element : relativePath) {
+
+                node = node.children.get(element.toString());
+
+                if (node == null) {
+
+                    return false;
+
+                }
+
+                if (node.terminal) {
+
+                    return true;
+
+                }
+
+            }
+            return false;
+
+        }
+    }
+
+    /**
+     * 通常のファイルのサイズまたは経過時間の条件。
+     *
+     * @param age
+     *                  経過時間の条件の場合true、サイズの条件の場合false
+     * @param greater
+     *                  しきい値より大きい場合に満たす場合true、小さい場合に満たす場合false
+     * @param threshold
+     *                  しきい値（サイズはバイト、経過時間はミリ秒）
+     * @param now
+     *                  経過時間の基準とする時刻（エポックミリ秒）
+     */
+    private record AttributePredicate(boolean age, boolean greater, long threshold, long now) {
+
+        /**
+         * 条件のルールを解析する。
+         *
+         * @param rule
+         *             ルール（例: size:>100MB, age:<12h）
+         * @param now
+         *             経過時間の基準とする時刻（エポックミリ秒）
+         * @return 条件
+         * @throws IllegalArgumentException
+         *                                  形式が不正な場合
+         */
+        static AttributePredicate parse(final String rule, final long now) {
+
+            final boolean age   = rule.startsWith("age:");
+            final String  value = rule.substring(rule.indexOf(':') + 1).strip();
+
+            if (value.length() < 2 || ((value.charAt(0) != '>') && (value.charAt(0) != '<'))) {
+
+                throw new IllegalArgumentException(String.format("条件は>または<で指定してください。: %s", rule));
+
+            }
+
+            final String amount    = value.substring(1).strip();
+            final long   threshold = age ? AttributePredicate.parseAge(amount, rule) : AttributePredicate.parseSize(amount, rule);
+
+            final AttributePredicate result = new AttributePredicate(age, value.charAt(0) == '>', threshold, now);
+            return result;
+
+        }
+
+        /**
+         * サイズをバイト数に変換する。
+         *
+         * @param amount
+         *               サイズ（例: 100MB, 512KB, 1024）
+         * @param rule
+         *               エラーメッセージに使用するルール
+         * @return バイト数
+         * @throws IllegalArgumentException
+         *                                  形式が不正な場合
+         */
+        private static long parseSize(final String amount, final String rule) {
+
+            try {
+
+                final long result = DataSize.parse(amount).toBytes();
+                return result;
+
+            } catch (final IllegalArgumentException e) {
+
+                throw new IllegalArgumentException(String.format("サイズは100MBのような形式で指定してください。: %s", rule), e);
+
+            }
+
+        }
+
+        /**
+         * 経過時間をミリ秒に変換する。
+         *
+         * @param amount
+         *               経過時間（例: 30d, 12h, 15m, 45s）
+         * @param rule
+         *               エラーメッセージに使用するルール
+         * @return ミリ秒
+         * @throws IllegalArgumentException
+         *                                  形式が不正な場合
+         */
+        private static long parseAge(final String amount, final String rule) {
+
+            if (amount.isEmpty()) {
+
+                throw new IllegalArgumentException(String.format("経過時間は30dのような形式で指定してください。: %s", rule));
+
+            }
+
+            final char unit = Character.toLowerCase(amount.charAt(amount.length() - 1));
+
+            try {
+
+                final long number = Long.parseLong(amount.substring(0, amount.length() - 1));
+
+                final Duration duration = switch (unit) {
+
+                    case 's' -> Duration.ofSeconds(number);
+                    case 'm' -> Duration.ofMinutes(number);
+                    case 'h' -> Duration.ofHours(number);
+                    case 'd' -> Duration.ofDays(number);
+                    default -> throw new IllegalArgumentException(
+                            String.format("経過時間の単位はs, m, h, dのいずれかで指定してください。: %s", rule));
+
+                };
+
+                final long result = duration.toMillis();
+                return result;
+
+            } catch (final NumberFormatException e) {
+
+                throw new IllegalArgumentException(String.format("経過時間は30dのような形式で指定してください。: %s", rule), e);
+
+            }
+
+        }
+
+        /**
+         * ファイルの属性が条件を満たすかを判定する。ディレクトリなど、通常のファイル以外は満たさない。
+         *
+         * @param attributes
+         *                   ファイルの属性
+         * @return 条件を満たす場合true
+         */
+        boolean test(final BasicFileAttributes attributes) {
+
+            if (!attributes.isRegularFile()) {
+
+                return false;
+
+            }
+
+            final long actual = this.age ? this.now - attributes.lastModifiedTime().toMillis() : attributes.size();
+
+            final boolean result = this.greater ? actual > this.threshold : actual < this.threshold;
+            return result;
+
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package kmg.tool.directorytool.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * 走査の対象とする範囲。走査の深さの上限と、最上位のエントリの分割（シャード）を表す。<br>
+ * <p>
+ * 深さはソースからの相対パスの要素数で数え、ソースの直下のエントリが1となる。
+ * 上限の深さのディレクトリは処理するが、その配下は走査しない。
+ * </p>
+ * <p>
+ * 分割では、ソースの直下のエントリを名前のハッシュ値（CRC32C）でN個のシャードに割り当て、k番目のシャードのみを処理する。
+ * ハッシュ値はエントリの名前のみから決まるため、ホストやプロセス、実行の順序によらず同じシャードに割り当てられる。
+ * 1からNまでのすべてのシャードを実行すると、各エントリはちょうど1回処理される。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class TraversalScope {
+
+    /** 範囲を限定しない走査 */
+    public static final TraversalScope ALL = new TraversalScope(Integer.MAX_VALUE, 1, 1);
+
+    /** 走査の深さの上限 */
+    private final int maxDepth;
+
+    /** 処理するシャードの番号（1始まり） */
+    private final int shardIndex;
+
+    /** シャードの数 */
+    private final int shardCount;
+
+    /**
+     * 走査の範囲を作成する。
+     *
+     * @param maxDepth
+     *                   走査の深さの上限
+     * @param shardIndex
+     *                   処理するシャードの番号（1始まり）
+     * @param shardCount
+     *                   シャードの数
+     */
+    private TraversalScope(final int maxDepth, final int shardIndex, final int shardCount) {
+
+        this.maxDepth = maxDepth;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+
+    }
+
+    /**
+     * 走査の範囲を作成する。
+     *
+     * @param maxDepth
+     *                   走査の深さの上限（1以上）
+     * @param shardIndex
+     *                   処理するシャードの番号（1以上、シャードの数以下）
+     * @param shardCount
+     *                   シャードの数（1以上）
+     * @return 走査の範囲
+     * @throws IllegalArgumentException
+     *                                  値が範囲外の場合
+     */
+    public static TraversalScope of(final int maxDepth, final int shardIndex, final int shardCount) {
+
+        if (maxDepth < 1) {
+
+            throw new IllegalArgumentException(String.format("走査の深さの上限は1以上で指定してください。: %d", maxDepth));
+
+        }
+
+        if ((shardCount < 1) || (shardIndex < 1) || (shardIndex > shardCount)) {
+
+            throw new IllegalArgumentException(
+                    String.format("シャードは1以上、シャードの数以下で指定してください。: %d/%d", shardIndex, shardCount));
+
+        }
+
+        final TraversalScope result = new TraversalScope(maxDepth, shardIndex, shardCount);
+        return result;
+
+    }
+
+    /**
+     * コマンドライン引数の形式から走査の範囲を作成する。
+     *
+     * @param maxDepth
+     *                 走査の深さの上限。限定しない場合はnull
+     * @param shard
+     *                 シャード（例: 2/4）。分割しない場合はnull
+     * @return 走査の範囲
+     * @throws IllegalArgumentException
+     *                                  形式が不正な場合、または値が範囲外の場合
+     */
+    public static TraversalScope parse(final String maxDepth, final String shard) {
+
+        int depth = Integer.MAX_VALUE;
+        int index = 1;
+        int count = 1;
+
+        try {
+
+            if (maxDepth != null) {
+
+                depth = Integer.parseInt(maxDepth.strip());
+
+            }
+
+            if (shard != null) {
+
+                final int separator = shard.indexOf('/');
+
+                if (separator < 0) {
+
+                    throw new IllegalArgumentException(String.format("シャードはk/Nの形式で指定してください。: %s", shard));
+
+                }
+                index = Integer.parseInt(shard.substring(0, separator).strip());
+                count = Integer.parseInt(shard.substring(separator + 1).strip());
+
+            }
+
+        } catch (final NumberFormatException e) {
+
+            throw new IllegalArgumentException(String.format("走査の深さとシャードは数値で指定してください。: %s, %s", maxDepth, shard), e);
+
+        }
+
+        final TraversalScope result = TraversalScope.of(depth, index, count);
+        return result;
+
+    }
+
+    /**
+     * 走査の深さの上限を返す。{@link java.nio.file.Files#walk(Path, int, java.nio.file.FileVisitOption...)}にそのまま指定できる。
+     *
+     * @return 走査の深さの上限。限定しない場合は{@link Integer#MAX_VALUE}
+     */
+    public int getMaxDepth() {
+
+        final int result = this.maxDepth;
+        return result;
+
+    }
+
+    /**
+     * 範囲を限定しているかを返す。
+     *
+     * @return 深さの上限または分割を指定している場合true
+     */
+    public boolean isLimited() {
+
+        final boolean result = (this.maxDepth != Integer.MAX_VALUE) || this.isSharded();
+        return result;
+
+    }
+
+    /**
+     * 分割しているかを返す。
+     *
+     * @return シャードの数が2以上の場合true
+     */
+    public boolean isSharded() {
+
+        final boolean result = this.shardCount > 1;
+        return result;
+
+    }
+
+    /**
+     * シャードの名前を返す。シャードごとに異なるジャーナルのファイル名などに使用する。
+     *
+     * @return シャードの名前（例: 2-of-4）。分割しない場合はnull
+     */
+    public String getShardName() {
+
+        if (!this.isSharded()) {
+
+            return null;
+
+        }
+
+        final String result = String.format("%d-of-%d", this.shardIndex, this.shardCount);
+        return result;
+
+    }
+
+    /**
+     * 相対パスが範囲に含まれるかを判定する。
+     *
+     * @param relativePath
+     *                     ルートからの相対パス。ルート自身（空のパス）は常に含まれる
+     * @return 上限以下の深さで、最上位のエントリが処理するシャードに割り当てられている場合true
+     */
+    public boolean contains(final Path relativePath) {
+
+        if (!this.isLimited() || relativePath.toString().isEmpty()) {
+
+            return true;
+
+        }
+
+        if (relativePath.getNameCount() > this.maxDepth) {
+
+            return false;
+
+        }
+
+        final boolean result = !this.isSharded()
+                || (TraversalScope.shardOf(relativePath.getName(0).toString(), this.shardCount) == this.shardIndex);
+        return result;
+
+    }
+
+    /**
+     * ディレクトリの配下を走査するかを判定する。
+     *
+     * @param relativePath
+     *                     ルートからのディレクトリの相対パス。ルート自身は空のパス
+     * @return ディレクトリの深さが上限未満の場合true
+     */
+    public boolean isDescendable(final Path relativePath) {
+
+        final int depth = relativePath.toString().isEmpty() ? 0 : relativePath.getNameCount();
+
+        final boolean result = depth < this.maxDepth;
+        return result;
+
+    }
+
+    /**
+     * 最上位のエントリの名前からシャードの番号を求める。
+     *
+     * @param name
+     *                   最上位のエントリの名前
+     * @param shardCount
+     *                   シャードの数
+     * @return シャードの番号（1始まり）
+     */
+    private static int shardOf(final String name, final int shardCount) {
+
+        final CRC32C crc = new CRC32C();
+        crc.update(name.getBytes(StandardCharsets.UTF_8));
+
+        final int result = (int) (crc.getValue() % shardCount) + 1;
+        return result;
+
+    }
+}
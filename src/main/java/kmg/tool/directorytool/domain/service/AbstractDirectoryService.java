@@ -1,6 +1,12 @@
 package kmg.tool.directorytool.domain.service;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
+import kmg.tool.directorytool.infrastructure.io.FileCopyEngine;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
 
 /**
  * ディレクトリ操作の基本機能を提供するインタフェース。 <br>
@@ -22,6 +28,15 @@ import java.io.IOException;
  */
 public interface AbstractDirectoryService {
 
+    /** 1つのタスクにまとめる小さいファイルのデフォルトの最大数 */
+    int DEFAULT_SMALL_FILE_BATCH_COUNT = 32;
+
+    /** 1つのタスクにまとめる小さいファイルのデフォルトの合計サイズの上限（バイト） */
+    long DEFAULT_SMALL_FILE_BATCH_SIZE = 128L * 1024;
+
+    /** 1つのタスクの完了を待機するデフォルトの時間（秒） */
+    long DEFAULT_TASK_TIMEOUT_SECONDS = 30;
+
     /**
      * ディレクトリの処理を実行する。
      *
@@ -41,4 +56,83 @@ public interface AbstractDirectoryService {
      *                       スレッドプールのサイズ。0以下の場合はデフォルト値が使用されます。
      */
     void setThreadPoolSize(int threadPoolSize);
+
+    /**
+     * マークル木による要約を使用するかを設定します。
+     *
+     * @param merkleEnabled
+     *                      要約を使用する場合true
+     */
+    void setMerkleEnabled(boolean merkleEnabled);
+
+    /**
+     * 共有のエグゼキュータを設定します。
+     *
+     * @param executor
+     *                 ファイル単位のタスクを実行するエグゼキュータ。nullの場合は処理ごとにスレッドプールを作成する
+     */
+    void setExecutor(Executor executor);
+
+    /**
+     * ファイルの内容をコピーするエンジンを設定します。<br>
+     * COPYと、ファイルシステムをまたぐMOVEで使用します。
+     *
+     * @param copyEngine
+     *                   コピーエンジン
+     */
+    void setCopyEngine(FileCopyEngine copyEngine);
+
+    /**
+     * 小さいファイルのバッチ処理を設定します。<br>
+     * 同じディレクトリの連続する小さいファイルを1つのタスクにまとめて処理します。
+     *
+     * @param batchCount
+     *                   1つのタスクにまとめるファイルの最大数。1以下の場合はまとめない
+     * @param batchSize
+     *                   1つのタスクにまとめるファイルの合計サイズの上限（バイト）
+     */
+    void setSmallFileBatch(int batchCount, long batchSize);
+
+    /**
+     * 処理したファイルをストレージに同期する方式を設定します。
+     *
+     * @param durability
+     *                   永続性の種類
+     */
+    void setDurability(DurabilityTypes durability);
+
+    /**
+     * 前回の処理のジャーナルから再開するかを設定します。
+     *
+     * @param resume
+     *               再開する場合true
+     */
+    void setResume(boolean resume);
+
+    /**
+     * 対象とするパスのフィルタを設定します。
+     *
+     * @param pathFilter
+     *                   フィルタ。絞り込まない場合はnull
+     */
+    void setPathFilter(PathFilter pathFilter);
+
+    /**
+     * 走査の範囲（深さの上限とシャード）を設定します。
+     *
+     * @param traversalScope
+     *                       走査の範囲。nullの場合は範囲を限定しない
+     */
+    void setTraversalScope(TraversalScope traversalScope);
+
+    /**
+     * 1つのタスクの完了を待機する時間を設定します。<br>
+     * <p>
+     * 帯域とファイル操作数のリミッタを設定した場合は、正常に処理していても時間がかかるため、待機する時間に上限を設けません。
+     * </p>
+     *
+     * @param taskTimeoutSeconds
+     *                           待機する時間（秒）。0以下の場合は上限を設けない
+     */
+    void setTaskTimeout(long taskTimeoutSeconds);
 }
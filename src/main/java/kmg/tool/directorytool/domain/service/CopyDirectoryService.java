@@ -29,5 +29,15 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public interface CopyDirectoryService extends AbstractDirectoryService {
-    // 処理なし
+
+    /**
+     * コピーしたファイルを原子的に公開するかを設定する。<br>
+     * <p>
+     * 有効な場合、同じディレクトリの隠しの一時ファイルに書き込んだ後、名前の変更でコピー先に置き換えるため、書き込み途中のファイルは見えない。
+     * </p>
+     *
+     * @param atomicPublish
+     *                      一時ファイルに書き込んだ後に名前の変更で公開する場合true
+     */
+    void setAtomicPublish(boolean atomicPublish);
 }
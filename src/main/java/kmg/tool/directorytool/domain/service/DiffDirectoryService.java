@@ -1,7 +1,12 @@
 package kmg.tool.directorytool.domain.service;
 
+import java.nio.file.Path;
+
 import org.springframework.stereotype.Service;
 
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
+
 /**
  * ディレクトリの差分を検出するサービスインタフェース。 <br>
  * <p>
@@ -14,6 +19,7 @@ import org.springframework.stereotype.Service;
  * <li>ファイル内容の詳細な比較
  * <li>並列処理による高速な差分検出
  * <li>多様な差分タイプの検出と報告
+ * <li>機械可読な差分レポート（JSON Lines、CSV）の出力
  * </ul>
  * <p>
  * 検出される差分の種類：
@@ -54,5 +60,30 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public interface DiffDirectoryService extends AbstractDirectoryService {
-    // 処理なし
+
+    /**
+     * ファイル内容の比較深度を設定します。
+     *
+     * @param compareDepth
+     *                     比較深度
+     */
+    void setCompareDepth(CompareDepthTypes compareDepth);
+
+    /**
+     * 大きなファイルの全体を比較した後に、ページキャッシュを解放するかを設定します。
+     *
+     * @param cacheHygiene
+     *                     ページキャッシュを解放する場合true
+     */
+    void setCacheHygiene(boolean cacheHygiene);
+
+    /**
+     * 差分レポートの出力先と形式を設定します。
+     *
+     * @param reportFile
+     *                     差分レポートの出力先。nullの場合は差分をログに出力する
+     * @param reportFormat
+     *                     差分レポートの出力形式
+     */
+    void setReport(Path reportFile, ReportFormatTypes reportFormat);
 }
@@ -1,14 +1,24 @@
 package kmg.tool.directorytool.domain.service;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
 
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
+import kmg.tool.directorytool.infrastructure.io.FileCopyEngine;
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
 import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+import kmg.tool.directorytool.infrastructure.types.RecoveryTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
 
 /**
  * ディレクトリ操作のファサードとして機能するサービスインタフェース。 <br>
  * <p>
  * 操作モードに応じて適切なサービスクラスに処理を委譲する。<br>
- * Spring Frameworkのサービスレイヤーとして実装され、DIコンテナによって管理される。
+ * Spring Frameworkのサービスレイヤーとして実装され、DIコンテナによって管理される。<br>
+ * 設定はインスタンスごとに保持するため、ジョブを並行して実行する場合はジョブごとにインスタンスを取得する（プロトタイプスコープ）。
  * </p>
  * <p>
  * このクラスは以下の操作をサポートする：
@@ -31,6 +41,158 @@ public interface DirectoryService {
      */
     void setThreadPoolSize(int threadPoolSize);
 
+    /**
+     * マークル木による要約を使用するかを設定します。<br>
+     * <p>
+     * 有効な場合、DIFFは保存済みの要約を比較して差分のあるサブツリーのみを検査し、COPYとMOVEは処理後に要約を更新します。
+     * </p>
+     *
+     * @param merkleEnabled
+     *                      要約を使用する場合true
+     */
+    void setMerkleEnabled(boolean merkleEnabled);
+
+    /**
+     * 差分比較でのファイル内容の比較深度を設定します。
+     *
+     * @param compareDepth
+     *                     比較深度
+     */
+    void setCompareDepth(CompareDepthTypes compareDepth);
+
+    /**
+     * 差分比較で大きなファイルの全体を比較した後に、ページキャッシュを解放するかを設定します。
+     *
+     * @param cacheHygiene
+     *                     ページキャッシュを解放する場合true
+     */
+    void setCacheHygiene(boolean cacheHygiene);
+
+    /**
+     * 差分比較の差分レポートの出力先と形式を設定します。
+     *
+     * @param reportFile
+     *                     差分レポートの出力先。nullの場合は差分をログに出力する
+     * @param reportFormat
+     *                     差分レポートの出力形式
+     */
+    void setReport(Path reportFile, ReportFormatTypes reportFormat);
+
+    /**
+     * ファイル単位のタスクを実行する共有のエグゼキュータを設定します。<br>
+     * <p>
+     * バッチ実行で複数のジョブがワーカーを共有する場合に使用します。
+     * </p>
+     *
+     * @param executor
+     *                 共有のエグゼキュータ。nullの場合は処理ごとにスレッドプールを作成する
+     */
+    void setExecutor(Executor executor);
+
+    /**
+     * ファイルの内容をコピーするエンジンを設定します。<br>
+     * COPYと、ファイルシステムをまたぐMOVEで使用します。
+     *
+     * @param copyEngine
+     *                   コピーエンジン
+     */
+    void setCopyEngine(FileCopyEngine copyEngine);
+
+    /**
+     * 小さいファイルのバッチ処理を設定します。<br>
+     * <p>
+     * 同じディレクトリの連続する小さいファイルを1つのタスクにまとめ、ファイルごとのタスクのスケジューリングのコストを削減します。
+     * </p>
+     *
+     * @param batchCount
+     *                   1つのタスクにまとめるファイルの最大数。1以下の場合はまとめない
+     * @param batchSize
+     *                   1つのタスクにまとめるファイルの合計サイズの上限（バイト）
+     */
+    void setSmallFileBatch(int batchCount, long batchSize);
+
+    /**
+     * COPY/MOVEで処理したファイルをストレージに同期する方式を設定します。<br>
+     * <p>
+     * 同期なし、ファイルごとの同期、バックグラウンドのスレッドによる一括の同期から選択します。
+     * いずれの同期する方式でも、処理が正常に終了した時点で、処理したファイルはクラッシュ後も失われません。
+     * </p>
+     *
+     * @param durability
+     *                   永続性の種類
+     */
+    void setDurability(DurabilityTypes durability);
+
+    /**
+     * COPY/MOVEを前回の処理のジャーナルから再開するかを設定します。<br>
+     * <p>
+     * 再開する場合、前回の処理で完了したファイルを読み飛ばし、残りのファイルのみを処理します。
+     * </p>
+     *
+     * @param resume
+     *               再開する場合true
+     */
+    void setResume(boolean resume);
+
+    /**
+     * MOVEをトランザクションで行うかを設定します。<br>
+     * <p>
+     * 有効な場合、すべてのファイルをステージングして検証した後にソースを削除するため、失敗してもデータがソースとターゲットに分散しません。
+     * </p>
+     *
+     * @param transactional
+     *                      トランザクションで移動する場合true
+     */
+    void setTransactionalMove(boolean transactional);
+
+    /**
+     * COPYでコピーしたファイルを原子的に公開するかを設定します。<br>
+     * <p>
+     * 有効な場合、一時ファイルに書き込んだ後に名前の変更でコピー先に置き換えるため、読む側に書き込み途中のファイルは見えません。
+     * </p>
+     *
+     * @param atomicPublish
+     *                      一時ファイルに書き込んだ後に名前の変更で公開する場合true
+     */
+    void setAtomicPublish(boolean atomicPublish);
+
+    /**
+     * COPY/MOVE/DIFFの対象とするパスのフィルタを設定します。<br>
+     * <p>
+     * 除外したディレクトリは走査せず、選択されないファイルはコピーも移動も比較もしません。MOVEでは除外したファイルがソースに残ります。
+     * </p>
+     *
+     * @param pathFilter
+     *                   フィルタ。絞り込まない場合はnull
+     */
+    void setPathFilter(PathFilter pathFilter);
+
+    /**
+     * COPY/MOVE/DIFFの走査の範囲を設定します。<br>
+     * <p>
+     * 最上位のエントリをシャードに分割すると、複数のプロセスやホストで1つのツリーを重複なく分担して処理できます。
+     * DIFFの差分レポートは、シャードごとに出力した後に{@link kmg.tool.directorytool.infrastructure.io.DiffReportWriter#merge}で結合できます。
+     * </p>
+     *
+     * @param traversalScope
+     *                       走査の範囲。nullの場合は範囲を限定しない
+     */
+    void setTraversalScope(TraversalScope traversalScope);
+
+    /**
+     * 中断したトランザクションのMOVEを、ターゲットディレクトリのジャーナルから復旧します。
+     *
+     * @param srcPath
+     *                 ソースディレクトリのパス
+     * @param destPath
+     *                 ターゲットディレクトリのパス
+     * @param recovery
+     *                 復旧の種類（完了または取り消し）
+     * @throws IOException
+     *                     ジャーナルが存在しない場合、取り消せない場合、または復旧中にエラーが発生した場合
+     */
+    void recoverMove(String srcPath, String destPath, RecoveryTypes recovery) throws IOException;
+
     /**
      * 指定されたソースディレクトリをターゲットディレクトリに対して処理する。<br>
      * <p>
@@ -1,7 +1,11 @@
 package kmg.tool.directorytool.domain.service;
 
+import java.io.IOException;
+
 import org.springframework.stereotype.Service;
 
+import kmg.tool.directorytool.infrastructure.types.RecoveryTypes;
+
 /**
  * ディレクトリの移動操作を実行するサービスインタフェース。<br>
  * <p>
@@ -42,5 +46,29 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public interface MoveDirectoryService extends AbstractDirectoryService {
-    // 処理なし
+
+    /**
+     * トランザクションの移動を行うかを設定する。<br>
+     * <p>
+     * 有効な場合、ファイルをコピーしてステージングし、すべてのファイルを検証した後にソースを削除して確定する。
+     * </p>
+     *
+     * @param transactional
+     *                      ステージングと確定の2段階で移動する場合true
+     */
+    void setTransactional(boolean transactional);
+
+    /**
+     * 中断したトランザクションの移動を、ターゲットディレクトリのジャーナルから復旧する。
+     *
+     * @param srcPath
+     *                 ソースディレクトリのパス
+     * @param destPath
+     *                 ターゲットディレクトリのパス
+     * @param recovery
+     *                 復旧の種類（完了または取り消し）
+     * @throws IOException
+     *                     ジャーナルが存在しない場合、取り消せない場合、または復旧中にエラーが発生した場合
+     */
+    void recover(String srcPath, String destPath, RecoveryTypes recovery) throws IOException;
 }
@@ -1,17 +1,40 @@
 package kmg.tool.directorytool.domain.service.impl;
 
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Stream;
+import java.util.function.BiConsumer;
 
+import org.springframework.beans.factory.annotation.Autowired;
+
+import kmg.tool.directorytool.domain.model.MerkleTree;
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
 import kmg.tool.directorytool.domain.service.AbstractDirectoryService;
+import kmg.tool.directorytool.infrastructure.concurrent.FileStoreExecutor;
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.concurrent.WorkerPool;
+import kmg.tool.directorytool.infrastructure.io.FileComparator;
+import kmg.tool.directorytool.infrastructure.io.FileCopyEngine;
+import kmg.tool.directorytool.infrastructure.io.FileSyncer;
+import kmg.tool.directorytool.infrastructure.io.FilesCopyEngine;
+import kmg.tool.directorytool.infrastructure.io.JobJournal;
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
 
 /**
  * ディレクトリ操作の基本機能を提供する抽象クラス。 <br>
@@ -23,6 +46,8 @@ import kmg.tool.directorytool.domain.service.AbstractDirectoryService;
  * <ul>
  * <li>マルチスレッドによる並列処理機能
  * <li>ディレクトリ走査の共通実装
+ * <li>同じディレクトリの小さいファイルを1つのタスクにまとめるバッチ処理
+ * <li>ジョブのジャーナルによる中断した処理の再開
  * <li>ファイル操作の基本的な検証機能
  * <li>ファイル比較の共通ユーティリティ
  * </ul>
@@ -37,16 +62,60 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
 
     /** デフォルトのスレッド数。システムで利用可能なCPUの論理コア数に基づきます。 */
     protected static final int DEFAULT_THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
-
     /** スレッドプール */
     private int threadPoolSize;
 
+    /** マークル木による要約を使用するか */
+    private boolean merkleEnabled;
+
+    /** 共有のエグゼキュータ。nullの場合はワーカープールを使用する */
+    private Executor executor;
+
+    /** 処理間で共有するワーカープール。nullの場合は処理ごとにスレッドプールを作成する */
+    private WorkerPool workerPool;
+
+    /** 帯域とファイル操作数のリミッタ。nullの場合は制限しない */
+    private ThroughputLimiter throughputLimiter;
+
+    /** ファイルの内容をコピーするエンジン */
+    private FileCopyEngine copyEngine;
+
+    /** 1つのタスクにまとめる小さいファイルの最大数。1以下の場合はまとめない */
+    private int smallFileBatchCount;
+
+    /** 1つのタスクにまとめる小さいファイルの合計サイズの上限（バイト） */
+    private long smallFileBatchSize;
+
+    /** 処理したファイルをストレージに同期する方式 */
+    private DurabilityTypes durability;
+
+    /** 処理中のファイルの同期。処理中以外はnull */
+    private FileSyncer fileSyncer;
+
+    /** 前回の処理のジャーナルから再開するか */
+    private boolean resume;
+
+    /** 対象とするパスのフィルタ。絞り込まない場合はnull */
+    private PathFilter pathFilter;
+
+    /** 走査の範囲 */
+    private TraversalScope traversalScope;
+
+    /** 1つのタスクの完了を待機する時間（秒）。0以下の場合は上限を設けない */
+    private long taskTimeoutSeconds;
+
     /**
      * デフォルトのスレッドプールサイズでインスタンスを作成します。
      */
     protected AbstractDirectoryServiceImpl() {
 
         this.setThreadPoolSize(AbstractDirectoryServiceImpl.DEFAULT_THREAD_POOL_SIZE);
+        this.copyEngine = new FilesCopyEngine();
+        this.smallFileBatchCount = AbstractDirectoryService.DEFAULT_SMALL_FILE_BATCH_COUNT;
+        this.smallFileBatchSize = AbstractDirectoryService.DEFAULT_SMALL_FILE_BATCH_SIZE;
+        this.durability = DurabilityTypes.getDefault();
+        this.traversalScope = TraversalScope.ALL;
+        this.taskTimeoutSeconds = AbstractDirectoryService.DEFAULT_TASK_TIMEOUT_SECONDS;
 
     }
 
@@ -70,6 +139,513 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
 
     }
 
+    /**
+     * マークル木による要約を使用するかを設定します。
+     *
+     * @param merkleEnabled
+     *                      要約を使用する場合true
+     */
+    @Override
+    public void setMerkleEnabled(final boolean merkleEnabled) {
+
+        this.merkleEnabled = merkleEnabled;
+
+    }
+
+    /**
+     * 共有のエグゼキュータを設定します。<br>
+     * <p>
+     * 設定した場合は処理ごとのスレッドプールを作成せず、ファイル単位のタスクを指定されたエグゼキュータで実行します。<br>
+     * エグゼキュータの停止は呼び出し元が行います。
+     * </p>
+     *
+     * @param executor
+     *                 共有のエグゼキュータ。nullの場合は処理ごとにスレッドプールを作成する
+     */
+    @Override
+    public void setExecutor(final Executor executor) {
+
+        this.executor = executor;
+
+    }
+
+    /**
+     * 処理間で共有するワーカープールを設定します。<br>
+     * <p>
+     * 設定した場合は処理ごとのスレッドプールを作成せず、ワーカープールのスレッドを再利用します。<br>
+     * ファイル単位のタスクはファイルストアごとのキューに振り分けられ、同時実行数はスレッドプールのサイズと、
+     * ワーカープールの操作モードごと・ファイルストアごとの上限で制限されます。
+     * </p>
+     *
+     * @param workerPool
+     *                   ワーカープール。nullの場合は処理ごとにスレッドプールを作成する
+     */
+    @Autowired(required = false)
+    public void setWorkerPool(final WorkerPool workerPool) {
+
+        this.workerPool = workerPool;
+
+    }
+
+    /**
+     * すべてのワーカーで共有する、帯域とファイル操作数のリミッタを設定します。
+     *
+     * @param throughputLimiter
+     *                          リミッタ。nullの場合は制限しない
+     */
+    @Autowired(required = false)
+    public void setThroughputLimiter(final ThroughputLimiter throughputLimiter) {
+
+        this.throughputLimiter = throughputLimiter;
+
+    }
+
+    /**
+     * 帯域とファイル操作数のリミッタを返します。
+     *
+     * @return リミッタ。制限しない場合はnull
+     */
+    protected ThroughputLimiter getThroughputLimiter() {
+
+        final ThroughputLimiter result = this.throughputLimiter;
+        return result;
+
+    }
+
+    /**
+     * ファイルの内容をコピーするエンジンを設定します。
+     *
+     * @param copyEngine
+     *                   コピーエンジン
+     */
+    @Override
+    public void setCopyEngine(final FileCopyEngine copyEngine) {
+
+        this.copyEngine = copyEngine;
+
+    }
+
+    /**
+     * ファイルの内容をコピーするエンジンを返します。
+     *
+     * @return コピーエンジン
+     */
+    protected FileCopyEngine getCopyEngine() {
+
+        final FileCopyEngine result = this.copyEngine;
+        return result;
+
+    }
+
+    /**
+     * 小さいファイルのバッチ処理を設定します。<br>
+     * <p>
+     * 同じディレクトリの連続する小さいファイルを、最大数と合計サイズの上限に達するまで1つのタスクにまとめて処理します。<br>
+     * ファイルごとのタスク、Future、ラムダの生成とスケジューリングのコストを、まとめたファイルの数で分散します。
+     * </p>
+     *
+     * @param batchCount
+     *                   1つのタスクにまとめるファイルの最大数。1以下の場合はまとめない
+     * @param batchSize
+     *                   1つのタスクにまとめるファイルの合計サイズの上限（バイト）。このサイズを超えるファイルはまとめない
+     */
+    @Override
+    public void setSmallFileBatch(final int batchCount, final long batchSize) {
+
+        this.smallFileBatchCount = batchCount;
+        this.smallFileBatchSize = batchSize;
+
+    }
+
+    /**
+     * 処理したファイルをストレージに同期する方式を設定します。
+     *
+     * @param durability
+     *                   永続性の種類
+     * @see FileSyncer
+     */
+    @Override
+    public void setDurability(final DurabilityTypes durability) {
+
+        this.durability = durability;
+
+    }
+
+    /**
+     * 前回の処理のジャーナルから再開するかを設定します。<br>
+     * <p>
+     * 再開する場合、ジャーナルに処理が完了したと記録されているファイルは、ファイル属性を確認せずに読み飛ばします。<br>
+     * 再開する場合のみ処理が完了したファイルをジャーナルに記録し、すべての処理が完了した時点でジャーナルを削除します。
+     * ジャーナルが存在しない場合は最初から処理するため、中断に備える場合は最初の実行から指定します。
+     * </p>
+     *
+     * @param resume
+     *               再開する場合true
+     * @see JobJournal
+     */
+    @Override
+    public void setResume(final boolean resume) {
+
+        this.resume = resume;
+
+    }
+
+    /**
+     * 対象とするパスのフィルタを設定します。<br>
+     * <p>
+     * 除外のルールに一致したディレクトリは走査時にサブツリーごと読み飛ばし、選択されないファイルはタスクにしません。
+     * </p>
+     *
+     * @param pathFilter
+     *                   フィルタ。絞り込まない場合はnull
+     * @see PathFilter
+     */
+    @Override
+    public void setPathFilter(final PathFilter pathFilter) {
+
+        this.pathFilter = pathFilter;
+
+    }
+
+    /**
+     * 対象とするパスのフィルタを返します。
+     *
+     * @return フィルタ。絞り込まない場合はnull
+     */
+    protected PathFilter getPathFilter() {
+
+        final PathFilter result = this.pathFilter;
+        return result;
+
+    }
+
+    /**
+     * 走査の範囲を設定します。<br>
+     * <p>
+     * 深さの上限を超えるディレクトリは走査せず、処理するシャードに割り当てられていない最上位のエントリは読み飛ばします。
+     * 分割した場合、同じターゲットディレクトリを複数のシャードで並行して処理できるよう、シャードごとのジャーナルを使用します。
+     * </p>
+     *
+     * @param traversalScope
+     *                       走査の範囲。nullの場合は範囲を限定しない
+     * @see TraversalScope
+     */
+    @Override
+    public void setTraversalScope(final TraversalScope traversalScope) {
+
+        this.traversalScope = traversalScope == null ? TraversalScope.ALL : traversalScope;
+
+    }
+
+    /**
+     * 1つのタスクの完了を待機する時間を設定します。<br>
+     * <p>
+     * 帯域とファイル操作数のリミッタを設定した場合は、待機する時間に上限を設けません。
+     * </p>
+     *
+     * @param taskTimeoutSeconds
+     *                           待機する時間（秒）。0以下の場合は上限を設けない
+     */
+    @Override
+    public void setTaskTimeout(final long taskTimeoutSeconds) {
+
+        this.taskTimeoutSeconds = taskTimeoutSeconds;
+
+    }
+
+    /**
+     * 走査の範囲を返します。
+     *
+     * @return 走査の範囲
+     */
+    protected TraversalScope getTraversalScope() {
+
+        final TraversalScope result = this.traversalScope;
+        return result;
+
+    }
+
+    /**
+     * パスが処理の範囲外にあるかを判定します。<br>
+     * <p>
+     * 除外されたディレクトリの配下、深さの上限を超えるパス、処理するシャードに割り当てられていない最上位のエントリの配下を範囲外とします。
+     * 走査後にソースやターゲットを処理するサブクラスが、走査しなかったパスを対象にしないために使用します。
+     * </p>
+     *
+     * @param root
+     *             ソースまたはターゲットディレクトリのパス
+     * @param path
+     *             判定対象のパス
+     * @return 範囲外の場合true。ルート自身は範囲内とする
+     */
+    protected boolean isOutOfScope(final Path root, final Path path) {
+
+        if (path.equals(root)) {
+
+            return false;
+
+        }
+
+        final Path relativePath = root.relativize(path);
+
+        if (!this.traversalScope.contains(relativePath)) {
+
+            return true;
+
+        }
+
+        if (this.pathFilter == null) {
+
+            return false;
+
+        }
+
+        for (int i = 1; i <= relativePath.getNameCount(); i++) {
+
+            if (this.pathFilter.isExcludedDirectory(relativePath.subpath(0, i))) {
+
+                return true;
+
+            }
+
+        }
+        return false;
+
+    }
+
+    /**
+     * パスが走査を行わずに処理の対象となるかを判定します。<br>
+     * <p>
+     * 処理の範囲内（{@link #isOutOfScope(Path, Path)}）で、ファイルの場合はフィルタの包含と除外のルールで選択されるパスを対象とします。
+     * 走査を行わずに得たパス（マークル木の差分など）に、{@link #walkFiltered(Path, boolean, PathVisitor)}と同じ絞り込みを適用するために使用します。
+     * </p>
+     *
+     * @param root
+     *             ソースまたはターゲットディレクトリのパス
+     * @param path
+     *             判定対象のパス
+     * @return 処理の対象となる場合true
+     * @throws IOException
+     *                     ファイルの属性の取得に失敗した場合
+     */
+    protected boolean isSelected(final Path root, final Path path) throws IOException {
+
+        if (this.isOutOfScope(root, path)) {
+
+            return false;
+
+        }
+
+        if (this.pathFilter == null) {
+
+            return true;
+
+        }
+
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+
+        final boolean result = attributes.isDirectory() || this.pathFilter.accept(root.relativize(path), attributes);
+        return result;
+
+    }
+
+    /**
+     * 処理ごとのタスクのエグゼキュータを使用する処理。
+     */
+    @FunctionalInterface
+    protected interface ExecutorAction {
+
+        /**
+         * タスクのエグゼキュータを使用して処理します。
+         *
+         * @param taskExecutor
+         *                     タスクの対象のパスとタスクを受け取り、タスクを実行するエグゼキュータ
+         * @throws IOException
+         *                     処理中にエラーが発生した場合
+         */
+        void run(BiConsumer<Path, Runnable> taskExecutor) throws IOException;
+    }
+
+    /**
+     * 処理ごとのタスクのエグゼキュータを用意して、指定された処理を実行します。<br>
+     * <p>
+     * 共有のエグゼキュータが設定されている場合はそれを使用し、ワーカープールが設定されている場合は、
+     * 操作モードとファイルストアごとの上限を適用するエグゼキュータ（{@link FileStoreExecutor}）を取得します。
+     * どちらも設定されていない場合は、スレッドプールのサイズのスレッドプールを作成し、処理の終了時にすべてのタスクの完了を待って停止します。
+     * </p>
+     *
+     * @param destination
+     *                    ターゲットディレクトリのパス。ファイルストアごとの上限の判定に使用する
+     * @param action
+     *                    エグゼキュータを使用する処理
+     * @throws IOException
+     *                     処理中にエラーが発生した場合
+     */
+    protected void runWithExecutor(final Path destination, final ExecutorAction action) throws IOException {
+
+        if (this.executor != null) {
+
+            // 共有のエグゼキュータで実行
+            action.run((path, task) -> this.executor.execute(task));
+
+        } else if (this.workerPool != null) {
+
+            // ワーカープールのスレッドを再利用し、ファイルストアごとのキューに振り分けて実行
+            final FileStoreExecutor fileStoreExecutor = this.workerPool.newExecutor(this.getOperationMode(),
+                    this.threadPoolSize, destination);
+            action.run(fileStoreExecutor::execute);
+
+        } else {
+
+            // 並列処理用のスレッドプール。タスクの実行を管理し、スレッドの再利用を可能にします。
+            try (ExecutorService executorService = Executors.newFixedThreadPool(this.threadPoolSize)) {
+
+                action.run((path, task) -> executorService.execute(task));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 走査したパスを処理する処理。
+     */
+    @FunctionalInterface
+    protected interface PathVisitor {
+
+        /**
+         * 走査したパスを処理します。
+         *
+         * @param path
+         *             走査したパス
+         * @throws IOException
+         *                     処理中にエラーが発生した場合
+         */
+        void visit(Path path) throws IOException;
+    }
+
+    /**
+     * フィルタと走査の範囲を適用してディレクトリを走査し、対象のパスを処理します。<br>
+     * <p>
+     * 除外されたディレクトリと、処理するシャードに割り当てられていない最上位のディレクトリは、
+     * {@link #processPaths(BiConsumer, Path, Path, JobJournal)}と同様に、配下のエントリを1件ずつ判定せずにサブツリーごと読み飛ばします。
+     * ファイルは包含と除外のルール（サイズと経過時間の条件を含む）で選択し、ディレクトリは除外されない限り処理します。
+     * ルート自身も処理の対象とします。
+     * </p>
+     *
+     * @param root
+     *                        ソースまたはターゲットディレクトリのパス
+     * @param directoriesLast
+     *                        ディレクトリを配下のエントリの後に処理する場合true。配下より先に処理する場合false
+     * @param visitor
+     *                        対象のパスを処理する処理
+     * @throws IOException
+     *                     ディレクトリの走査中、またはパスの処理中にエラーが発生した場合
+     */
+    protected void walkFiltered(final Path root, final boolean directoriesLast, final PathVisitor visitor)
+            throws IOException {
+
+        final PathFilter     filter = this.pathFilter;
+        final TraversalScope scope  = this.traversalScope;
+
+        Files.walkFileTree(root, Set.of(), scope.getMaxDepth(), new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+                    throws IOException {
+
+                final Path relativePath = root.relativize(dir);
+
+                // 除外したディレクトリと範囲外のディレクトリは、配下のエントリを1件ずつ判定せずにサブツリーごと読み飛ばす
+                if (!dir.equals(root) && (!scope.contains(relativePath)
+                        || ((filter != null) && filter.isExcludedDirectory(relativePath)))) {
+
+                    return FileVisitResult.SKIP_SUBTREE;
+
+                }
+
+                if (!directoriesLast) {
+
+                    visitor.visit(dir);
+
+                }
+                return FileVisitResult.CONTINUE;
+
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+
+                final Path relativePath = root.relativize(file);
+
+                if (!scope.contains(relativePath)) {
+
+                    return FileVisitResult.CONTINUE;
+
+                }
+
+                // 深さの上限にあるディレクトリは、配下を走査せずにエントリとして渡される
+                final boolean selected = attrs.isDirectory()
+                        ? (filter == null) || !filter.isExcludedDirectory(relativePath)
+                        : (filter == null) || filter.accept(relativePath, attrs);
+
+                if (selected) {
+
+                    visitor.visit(file);
+
+                }
+                return FileVisitResult.CONTINUE;
+
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+
+                if (exc != null) {
+
+                    throw exc;
+
+                }
+
+                if (directoriesLast) {
+
+                    visitor.visit(dir);
+
+                }
+                return FileVisitResult.CONTINUE;
+
+            }
+        });
+
+    }
+
+    /**
+     * 処理中のファイルの同期を返します。<br>
+     * サブクラスは、ファイルの処理が完了したときに{@link FileSyncer#completed(Path)}で通知します。
+     *
+     * @return ファイルの同期。処理中以外はnull
+     */
+    protected FileSyncer getFileSyncer() {
+
+        final FileSyncer result = this.fileSyncer;
+        return result;
+
+    }
+
+    /**
+     * マークル木による要約を使用するかを返します。
+     *
+     * @return 要約を使用する場合true
+     */
+    protected boolean isMerkleEnabled() {
+
+        final boolean result = this.merkleEnabled;
+        return result;
+
+    }
+
     /**
      * ディレクトリの処理を実行する。
      *
@@ -90,48 +666,46 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
         // パスの有効性を確認
         AbstractDirectoryServiceImpl.validatePaths(source, destination);
 
-        // 非同期タスクの結果を保持するリストを用意
-        final List<Future<?>> futures = new ArrayList<>();
+        // 処理が完了したファイルをジャーナルに記録し、中断した場合は次回の処理で再開できるようにする
+        final JobJournal journal;
 
-        // 並列処理用のスレッドプール。タスクの実行を管理し、スレッドの再利用を可能にします。
-        try (ExecutorService executorService = Executors.newFixedThreadPool(this.threadPoolSize)) {
+        if (this.isJournalRequired()) {
 
-            // ソースパス内のすべてのファイルとディレクトリを再帰的に処理
-            try (Stream<Path> stream = Files.walk(source)) {
+            journal = JobJournal.open(destination, source, this.getJobName(), this.traversalScope.getShardName(),
+                    this.resume, this.durability == DurabilityTypes.FILE);
 
-                stream.forEach(path -> {
+        } else {
 
-                    /* 非同期タスクを開始してファイルを処理 */
+            // 記録しない場合はジャーナルを作成せず、前回の処理のジャーナルは再開しないため破棄する
+            Files.deleteIfExists(destination.resolve(JobJournal.fileName(this.traversalScope.getShardName())));
+            journal = null;
 
-                    final Future<?> future = executorService.submit(() -> {
+        }
 
-                        try {
+        try (journal) {
 
-                            // 相対パスを計算
-                            final Path relativePath = source.relativize(path);
-                            // ターゲットパスを計算
-                            final Path targetPath = destination.resolve(relativePath);
-                            // 個別のファイルやディレクトリを処理
-                            this.processPath(path, targetPath, relativePath);
+            // 処理したファイルを同期し、確定の前にすべての同期を完了させる
+            try (FileSyncer syncer = new FileSyncer(this.durability, destination)) {
 
-                        } catch (final IOException e) {
+                this.fileSyncer = syncer;
+                this.runWithExecutor(destination,
+                        taskExecutor -> this.processPaths(taskExecutor, source, destination, journal));
 
-                            // 処理中にエラーが発生した場合はランタイム例外をスロー
-                            throw new RuntimeException(
-                                    String.format("ファイルの処理に失敗しました。パス=[%s], エラー=[%s]", path, e.toString()), e);
+            } finally {
 
-                        }
+                this.fileSyncer = null;
 
-                    });
-                    // 結果をリストに追加
-                    futures.add(future);
+            }
 
-                });
+            // ステージングした処理を確定
+            this.commit(source, destination, journal);
 
-            }
+        }
+
+        // すべての処理が完了したため、ジャーナルを削除
+        if (journal != null) {
 
-            // すべての非同期処理が完了するのを待機
-            AbstractDirectoryServiceImpl.waitForCompletion(futures);
+            journal.delete();
 
         }
 
@@ -140,6 +714,243 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
 
     }
 
+    /**
+     * ソースディレクトリ内のすべてのパスをタスクとして投入し、完了を待機する。<br>
+     * <p>
+     * ディレクトリと大きいファイルはパスごとに、同じディレクトリの連続する小さいファイルはまとめて1つのタスクとする。<br>
+     * ジャーナルに処理が完了したと記録されているファイルは、タスクにせずに読み飛ばす。<br>
+     * 除外したディレクトリ、範囲外の最上位のエントリ、深さの上限を超えるディレクトリの配下は走査しない。
+     * </p>
+     *
+     * @param taskExecutor
+     *                     対象のパスとタスクを受け取り、タスクを実行キューに投入する処理
+     * @param source
+     *                     ソースディレクトリのパス
+     * @param destination
+     *                     ターゲットディレクトリのパス
+     * @param journal
+     *                     処理が完了したファイルを記録するジャーナル。記録しない場合はnull
+     * @throws IOException
+     *                     ディレクトリの走査中、またはファイル処理中にエラーが発生した場合
+     */
+    private void processPaths(final BiConsumer<Path, Runnable> taskExecutor, final Path source, final Path destination,
+            final JobJournal journal) throws IOException {
+
+        // 非同期タスクの結果を保持するリストを用意
+        final List<Future<?>> futures    = new ArrayList<>();
+        final int             batchCount = this.smallFileBatchCount;
+        final long            batchSize  = this.smallFileBatchSize;
+        final PathFilter      filter     = this.pathFilter;
+        final TraversalScope  scope      = this.traversalScope;
+
+        // ソースパス内のすべてのファイルとディレクトリを再帰的に処理
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+
+            /** タスクにまとめる途中の小さいファイル */
+            private List<Path> batch = new ArrayList<>();
+
+            /** タスクにまとめる途中の小さいファイルの合計サイズ */
+            private long batchBytes;
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+
+                final Path relativePath = source.relativize(dir);
+
+                // 除外したディレクトリと範囲外のディレクトリは、配下のエントリを1件ずつ判定せずにサブツリーごと読み飛ばす
+                if (!dir.equals(source) && (!scope.contains(relativePath)
+                        || ((filter != null) && filter.isExcludedDirectory(relativePath)))) {
+
+                    return FileVisitResult.SKIP_SUBTREE;
+
+                }
+
+                this.flush();
+                AbstractDirectoryServiceImpl.this.submit(taskExecutor, futures, List.of(dir), source, destination,
+                        null);
+
+                // 深さの上限のディレクトリは作成し、配下は走査しない
+                if (!scope.isDescendable(relativePath)) {
+
+                    return FileVisitResult.SKIP_SUBTREE;
+
+                }
+                return FileVisitResult.CONTINUE;
+
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+
+                final Path relativePath = source.relativize(file);
+
+                if (MerkleTree.isSummaryFile(source, file) || JobJournal.isJournalFile(source, file)
+                        || ((journal != null) && journal.isCompleted(relativePath.toString()))
+                        || !scope.contains(relativePath)
+                        || ((filter != null) && !filter.accept(relativePath, attrs))) {
+
+                    return FileVisitResult.CONTINUE;
+
+                }
+
+                if ((batchCount <= 1) || !attrs.isRegularFile() || (attrs.size() > batchSize)) {
+
+                    AbstractDirectoryServiceImpl.this.submit(taskExecutor, futures, List.of(file), source,
+                            destination, journal);
+                    return FileVisitResult.CONTINUE;
+
+                }
+
+                if ((this.batchBytes + attrs.size()) > batchSize) {
+
+                    this.flush();
+
+                }
+                this.batch.add(file);
+                this.batchBytes += attrs.size();
+
+                if (this.batch.size() >= batchCount) {
+
+                    this.flush();
+
+                }
+                return FileVisitResult.CONTINUE;
+
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+
+                if (exc != null) {
+
+                    throw exc;
+
+                }
+
+                // 親ディレクトリのファイルとまとめないよう、ディレクトリの終わりでタスクにする
+                this.flush();
+                return FileVisitResult.CONTINUE;
+
+            }
+
+            /**
+             * まとめる途中の小さいファイルを1つのタスクとして投入する。
+             */
+            private void flush() {
+
+                if (this.batch.isEmpty()) {
+
+                    return;
+
+                }
+                AbstractDirectoryServiceImpl.this.submit(taskExecutor, futures, this.batch, source, destination,
+                        journal);
+                this.batch = new ArrayList<>();
+                this.batchBytes = 0;
+
+            }
+
+        });
+
+        // すべての非同期処理が完了するのを待機
+        this.waitForCompletion(futures);
+
+    }
+
+    /**
+     * パスを順に処理するタスクを作成し、実行キューに投入する。
+     *
+     * @param taskExecutor
+     *                     対象のパスとタスクを受け取り、タスクを実行キューに投入する処理
+     * @param futures
+     *                     投入したタスクの結果を追加するリスト
+     * @param paths
+     *                     1つのタスクで処理するパス
+     * @param source
+     *                     ソースディレクトリのパス
+     * @param destination
+     *                     ターゲットディレクトリのパス
+     * @param journal
+     *                     処理が完了したファイルを記録するジャーナル。ディレクトリのように記録しない場合はnull
+     */
+    private void submit(final BiConsumer<Path, Runnable> taskExecutor, final List<Future<?>> futures,
+            final List<Path> paths, final Path source, final Path destination, final JobJournal journal) {
+
+        /* 非同期タスクを開始してファイルを処理 */
+
+        final FutureTask<Void> future = new FutureTask<>(() -> this.processBatch(paths, source, destination, journal),
+                null);
+        taskExecutor.accept(paths.get(0), future);
+        // 結果をリストに追加
+        futures.add(future);
+
+    }
+
+    /**
+     * 1つのタスクにまとめたパスを順に処理する。<br>
+     * <p>
+     * 処理に失敗したパスがあっても残りのパスを処理し、最初の失敗を、以降の失敗を抑制された例外として付加してスローする。
+     * </p>
+     *
+     * @param paths
+     *                    処理するパス
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @param journal
+     *                    処理が完了したファイルを記録するジャーナル。記録しない場合はnull
+     */
+    private void processBatch(final List<Path> paths, final Path source, final Path destination,
+            final JobJournal journal) {
+
+        RuntimeException failure = null;
+
+        for (final Path path : paths) {
+
+            try {
+
+                // 相対パスを計算
+                final Path relativePath = source.relativize(path);
+                // ターゲットパスを計算
+                final Path targetPath = destination.resolve(relativePath);
+                // 個別のファイルやディレクトリを処理
+                this.processPath(path, targetPath, relativePath);
+
+                if (journal != null) {
+
+                    journal.record(relativePath.toString());
+
+                }
+
+            } catch (final IOException e) {
+
+                // 処理中にエラーが発生した場合はランタイム例外として記録
+                final RuntimeException exception = new RuntimeException(
+                        String.format("ファイルの処理に失敗しました。パス=[%s], エラー=[%s]", path, e.toString()), e);
+
+                if (failure == null) {
+
+                    failure = exception;
+
+                } else {
+
+                    failure.addSuppressed(exception);
+
+                }
+
+            }
+
+        }
+
+        if (failure != null) {
+
+            throw failure;
+
+        }
+
+    }
+
     /**
      * ソースとターゲットのパスを検証する。 <br>
      * <p>
@@ -208,6 +1019,60 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
      */
     protected abstract void postProcess(Path source, Path destination) throws IOException;
 
+    /**
+     * すべてのファイルの処理と同期が完了した後、ジャーナルを削除する前に、ステージングした処理を確定する。<br>
+     * <p>
+     * 確定が失敗した場合はジャーナルを残すため、次回の処理で再開または復旧できる。デフォルトでは何もしない。
+     * </p>
+     *
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @param journal
+     *                    処理が完了したファイルを記録したジャーナル。記録しない場合はnull
+     * @throws IOException
+     *                     確定中にエラーが発生した場合
+     */
+    protected void commit(final Path source, final Path destination, final JobJournal journal) throws IOException {
+
+        // 処理なし
+    }
+
+    /**
+     * 処理が完了したファイルをジャーナルに記録するかを返す。<br>
+     * デフォルトでは再開する場合のみ記録する。
+     *
+     * @return 記録する場合true
+     */
+    protected boolean isJournalRequired() {
+
+        final boolean result = this.resume;
+        return result;
+
+    }
+
+    /**
+     * ジャーナルのジョブの名前を返す。<br>
+     * 再開時に名前が一致しないジャーナルは破棄する。デフォルトでは操作モードの値を返す。
+     *
+     * @return ジョブの名前
+     */
+    protected String getJobName() {
+
+        final String result = this.getOperationMode().getValue();
+        return result;
+
+    }
+
+    /**
+     * このサービスの操作モードの種類を返す。<br>
+     * ワーカープールの操作モードごとの同時実行数の上限に使用する。
+     *
+     * @return 操作モードの種類
+     */
+    protected abstract OperationModeTypes getOperationMode();
+
     /**
      * 2つのファイルの内容をバイト単位で比較する。<br>
      * <p>
@@ -225,17 +1090,32 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
      */
     public static boolean compareFiles(final Path file1, final Path file2) throws IOException {
 
-        boolean result;
-
-        if (Files.size(file1) != Files.size(file2)) {
-
-            result = false;
+        final boolean result = AbstractDirectoryServiceImpl.compareFiles(file1, file2, CompareDepthTypes.FULL);
+        return result;
 
-        } else {
+    }
 
-            result = Files.mismatch(file1, file2) == -1;
+    /**
+     * 2つのファイルの内容を指定された深度で比較する。<br>
+     * <p>
+     * サイズ、サンプリングしたブロック、ファイル全体の順に比較し、差異が見つかった時点で打ち切る。
+     * </p>
+     *
+     * @param file1
+     *              比較対象のファイル1
+     * @param file2
+     *              比較対象のファイル2
+     * @param depth
+     *              比較深度
+     * @return 指定された深度で差異が見つからなかった場合true、それ以外の場合false
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合
+     * @see FileComparator
+     */
+    public static boolean compareFiles(final Path file1, final Path file2, final CompareDepthTypes depth)
+            throws IOException {
 
-        }
+        final boolean result = FileComparator.compare(file1, file2, depth);
         return result;
 
     }
@@ -243,7 +1123,8 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
     /**
      * すべての非同期タスクの完了を待機する。<br>
      * <p>
-     * 各タスクには30秒のタイムアウトが設定されており、 タイムアウトした場合やタスク内で例外が発生した場合はIOExceptionをスローする。
+     * 各タスクには設定した時間のタイムアウトが設定されており、 タイムアウトした場合やタスク内で例外が発生した場合はIOExceptionをスローする。
+     * リミッタで帯域やファイル操作数を制限した場合は、正常に処理していても1つのタスクに長い時間がかかるため、タイムアウトを設定しない。
      * </p>
      *
      * @param futures
@@ -251,13 +1132,23 @@ public abstract class AbstractDirectoryServiceImpl implements AbstractDirectoryS
      * @throws IOException
      *                     タスクの実行中にInterruptedException, ExecutionException, TimeoutExceptionが発生した場合。
      */
-    private static void waitForCompletion(final List<Future<?>> futures) throws IOException {
+    private void waitForCompletion(final List<Future<?>> futures) throws IOException {
+
+        final boolean timed = (this.taskTimeoutSeconds > 0) && (this.throughputLimiter == null);
 
         for (final Future<?> future : futures) {
 
             try {
 
-                future.get(30, TimeUnit.SECONDS);       // TODO 20225/01/18 タイムアウトをパラメータから指定できるようにする。
+                if (timed) {
+
+                    future.get(this.taskTimeoutSeconds, TimeUnit.SECONDS);
+
+                } else {
+
+                    future.get();
+
+                }
 
             } catch (InterruptedException | java.util.concurrent.ExecutionException
                     | java.util.concurrent.TimeoutException e) {
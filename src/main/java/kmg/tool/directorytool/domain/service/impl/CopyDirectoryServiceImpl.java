@@ -3,13 +3,23 @@ package kmg.tool.directorytool.domain.service.impl;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import kmg.tool.directorytool.domain.model.MerkleTree;
+import kmg.tool.directorytool.domain.model.TraversalScope;
 import kmg.tool.directorytool.domain.service.AbstractDirectoryService;
 import kmg.tool.directorytool.domain.service.CopyDirectoryService;
 import kmg.tool.directorytool.domain.service.DirectoryService;
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.io.AtomicPublisher;
+import kmg.tool.directorytool.infrastructure.io.FileSyncer;
+import kmg.tool.directorytool.infrastructure.io.JobJournal;
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
 
 /**
  * ディレクトリのコピー操作を実行するサービスクラス。 <br>
@@ -23,6 +33,7 @@ import kmg.tool.directorytool.domain.service.DirectoryService;
  * <li>既存ファイルの自動上書き
  * <li>並列処理による高速なファイルコピー
  * <li>ディレクトリ階層の自動作成
+ * <li>一時ファイルと名前の変更による原子的な公開（{@link AtomicPublisher}）
  * </ul>
  * 使用例：
  *
@@ -37,15 +48,81 @@ import kmg.tool.directorytool.domain.service.DirectoryService;
  * @see DirectoryService
  */
 @Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class CopyDirectoryServiceImpl extends AbstractDirectoryServiceImpl implements CopyDirectoryService {
 
+    /** 一時ファイルに書き込んだ後に名前の変更で公開するか */
+    private boolean atomicPublish;
+
+    /** 今回の処理でコピーしたファイルの相対パス（マークル木による要約が有効な場合のみ記録する） */
+    private final Set<Path> copiedPaths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * コピーしたファイルを原子的に公開するかを設定する。
+     *
+     * @param atomicPublish
+     *                      一時ファイルに書き込んだ後に名前の変更で公開する場合true
+     */
+    @Override
+    public void setAtomicPublish(final boolean atomicPublish) {
+
+        this.atomicPublish = atomicPublish;
+
+    }
+
+    /**
+     * ディレクトリのコピーを実行する。<br>
+     * <p>
+     * 原子的に公開する場合、またはターゲットディレクトリにジャーナルが残っている場合は、
+     * 前回の中断した処理で残った一時ファイルを、処理の範囲から削除してから処理する。
+     * ジャーナルは再開する場合のみ作成されるため、原子的に公開する場合は前回の処理の終了状態によらずに削除する。
+     * </p>
+     *
+     * @param srcPath
+     *                 ソースディレクトリのパス
+     * @param destPath
+     *                 ターゲットディレクトリのパス
+     * @throws IOException
+     *                     ソースディレクトリが存在しない場合、またはファイル処理中にエラーが発生した場合
+     */
+    @Override
+    public void processDirectory(final String srcPath, final String destPath) throws IOException {
+
+        final Path           destination = Path.of(destPath);
+        final TraversalScope scope       = this.getTraversalScope();
+
+        if ((this.atomicPublish && Files.isDirectory(destination))
+                || Files.exists(destination.resolve(JobJournal.fileName(scope.getShardName())))) {
+
+            // 分割した場合、最上位の一時ファイルはどのシャードのものか判別できないため、同じファイルの次のコピーで上書きされるまで残す
+            AtomicPublisher.cleanUp(destination, scope.getMaxDepth(), relativePath -> scope.contains(relativePath)
+                    && (!scope.isSharded() || (relativePath.getNameCount() > 1)));
+
+        }
+        this.copiedPaths.clear();
+        super.processDirectory(srcPath, destPath);
+
+    }
+
     /**
      * 個々のファイル/ディレクトリに対してコピー操作を実行する。 <br>
      * <p>
      * ソースがディレクトリの場合、ターゲットディレクトリを作成する。 <br>
-     * ソースがファイルの場合、親ディレクトリを作成し、ファイルをコピーする。<br>
+     * ソースがファイルの場合、親ディレクトリを作成し、設定されたコピーエンジンでファイルをコピーする。<br>
      * 既存のファイルは上書きされる。
      * </p>
+     * <p>
+     * リミッタが設定されている場合、ファイル1件ごとにファイル操作の実行枠を取得する。
+     * 帯域を制限している場合は、コピーエンジンがチャンクごとに帯域の転送枠を取得しながらコピーする。
+     * </p>
+     * <p>
+     * コピーしたファイルは、設定された永続性に応じて同期する（{@link FileSyncer}）。
+     * </p>
+     * <p>
+     * 原子的に公開する場合は、同じディレクトリの一時ファイルにコピーした後、コピー先の名前に変更する。
+     * 同期する場合は、名前の変更の前に一時ファイルの内容を同期し、名前の変更の後に親ディレクトリを同期する。
+     * 失敗した場合は一時ファイルを削除し、コピー先の既存のファイルは変更しない。
+     * </p>
      *
      * @param sourcePath
      *                     コピー元のパス
@@ -69,24 +146,109 @@ public class CopyDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
 
         // ターゲットディレクトリが存在することを保証
         Files.createDirectories(targetPath.getParent());
-        Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+
+        final ThroughputLimiter limiter = this.getThroughputLimiter();
+
+        if (limiter != null) {
+
+            limiter.acquireOperation();
+
+        }
+
+        final FileSyncer fileSyncer = this.getFileSyncer();
+
+        if (this.atomicPublish) {
+
+            final Path temporaryPath = AtomicPublisher.temporaryPath(targetPath);
+
+            try {
+
+                this.getCopyEngine().copy(sourcePath, temporaryPath, limiter);
+
+                if (fileSyncer != null) {
+
+                    fileSyncer.syncContent(temporaryPath);
+
+                }
+
+            } catch (final IOException e) {
+
+                AtomicPublisher.discard(temporaryPath, e);
+                throw e;
+
+            }
+            AtomicPublisher.publish(temporaryPath, targetPath);
+
+            if (fileSyncer != null) {
+
+                fileSyncer.published(targetPath);
+
+            }
+
+        } else {
+
+            this.getCopyEngine().copy(sourcePath, targetPath, limiter);
+
+            if (fileSyncer != null) {
+
+                fileSyncer.completed(targetPath);
+
+            }
+
+        }
+
+        if (this.isMerkleEnabled()) {
+
+            this.copiedPaths.add(relativePath);
+
+        }
+
+    }
+
+    /**
+     * 操作モードの種類としてコピーを返す。
+     *
+     * @return 操作モードの種類
+     */
+    @Override
+    protected OperationModeTypes getOperationMode() {
+
+        final OperationModeTypes result = OperationModeTypes.COPY;
+        return result;
 
     }
 
     /**
      * コピー操作後の後処理を実行する。 <br>
      * <p>
-     * この実装では特に処理は行わないため、例外はスローされません。
+     * マークル木による要約が有効な場合、ソースの要約を構築した後、ターゲットの要約を更新して保存する。<br>
+     * ソースディレクトリには書き込まないため、ソースの要約はターゲットに保存し（{@link MerkleTree#loadOrBuildSource(Path, Path)}）、
+     * 次回はサイズと更新日時が変わらないソースのファイルのハッシュ値を再利用する。
+     * 今回コピーしたファイルはソースと内容が同一であるため、ソースのハッシュ値を再利用し、内容の再読み込みは行わない。
      * </p>
      *
      * @param source
      *                    ソースディレクトリのパス
      * @param destination
      *                    ターゲットディレクトリのパス
+     * @throws IOException
+     *                     要約の更新中にエラーが発生した場合
      */
     @Override
     protected void postProcess(final Path source, final Path destination) throws IOException {
 
-        // コピー操作では後処理は不要
+        if (!this.isMerkleEnabled()) {
+
+            return;
+
+        }
+
+        final MerkleTree sourceTree = MerkleTree.loadOrBuildSource(source, destination);
+
+        final MerkleTree destinationTree = MerkleTree.build(destination, MerkleTree.load(destination), sourceTree,
+                this.copiedPaths);
+        destinationTree.save(destination);
+        this.copiedPaths.clear();
+
     }
 }
@@ -3,13 +3,26 @@ package kmg.tool.directorytool.domain.service.impl;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Stream;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import kmg.tool.directorytool.domain.model.DiffEntry;
+import kmg.tool.directorytool.domain.model.MerkleTree;
 import kmg.tool.directorytool.domain.service.DiffDirectoryService;
+import kmg.tool.directorytool.infrastructure.io.DiffReportWriter;
+import kmg.tool.directorytool.infrastructure.io.FileComparator;
+import kmg.tool.directorytool.infrastructure.io.JobJournal;
+import kmg.tool.directorytool.infrastructure.io.NativeIo;
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+import kmg.tool.directorytool.infrastructure.types.DiffCategoryTypes;
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
 
 /**
  * ディレクトリの差分を検出するサービスクラス。 <br>
@@ -23,6 +36,8 @@ import kmg.tool.directorytool.domain.service.DiffDirectoryService;
  * <li>ファイル内容の詳細な比較
  * <li>並列処理による高速な差分検出
  * <li>多様な差分タイプの検出と報告
+ * <li>マークル木による要約を用いた、差分のあるサブツリーのみの比較
+ * <li>機械可読な差分レポート（JSON Lines、CSV）の出力
  * </ul>
  * <p>
  * 検出される差分の種類：
@@ -62,11 +77,82 @@ import kmg.tool.directorytool.domain.service.DiffDirectoryService;
  * @see DirectoryServiceImpl
  */
 @Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class DiffDirectoryServiceImpl extends AbstractDirectoryServiceImpl implements DiffDirectoryService {
 
     /** ロガー */
     private static final Logger logger = LoggerFactory.getLogger(DiffDirectoryServiceImpl.class);
 
+    /**
+     * ファイル単位の差分を出力するイベントロガー。<br>
+     * <p>
+     * 差分の多いディレクトリでは大量に出力されるため、通常のロガーとは別の非同期チャネルに出力する（logback-spring.xml参照）。<br>
+     * 本クラスのロガーの子ロガーのため、本クラスのロガーに追加したアペンダでも受け取ることができる。
+     * </p>
+     */
+    private static final Logger eventLogger = LoggerFactory
+            .getLogger(DiffDirectoryServiceImpl.class.getName() + ".event");
+
+    /** ファイル内容の比較深度 */
+    private CompareDepthTypes compareDepth = CompareDepthTypes.getDefault();
+
+    /** 大きなファイルの全体を比較した後にページキャッシュを解放するか */
+    private boolean cacheHygiene;
+
+    /** 差分レポートの出力先。nullの場合は差分をログに出力する */
+    private Path reportFile;
+
+    /** 差分レポートの出力形式 */
+    private ReportFormatTypes reportFormat = ReportFormatTypes.getDefault();
+
+    /** 処理中の差分レポートの出力 */
+    private DiffReportWriter reportWriter;
+
+    /** 処理中の大きなファイルの比較で補助ワーカーを実行するエグゼキュータ。処理中以外はnull */
+    private Executor compareExecutor;
+
+    /**
+     * ファイル内容の比較深度を設定します。
+     *
+     * @param compareDepth
+     *                     比較深度
+     */
+    @Override
+    public void setCompareDepth(final CompareDepthTypes compareDepth) {
+
+        this.compareDepth = compareDepth;
+
+    }
+
+    /**
+     * 大きなファイルの全体を比較した後に、ページキャッシュを解放するかを設定します。
+     *
+     * @param cacheHygiene
+     *                     ページキャッシュを解放する場合true
+     */
+    @Override
+    public void setCacheHygiene(final boolean cacheHygiene) {
+
+        this.cacheHygiene = cacheHygiene;
+
+    }
+
+    /**
+     * 差分レポートの出力先と形式を設定します。
+     *
+     * @param reportFile
+     *                     差分レポートの出力先。nullの場合は差分をログに出力する
+     * @param reportFormat
+     *                     差分レポートの出力形式
+     */
+    @Override
+    public void setReport(final Path reportFile, final ReportFormatTypes reportFormat) {
+
+        this.reportFile = reportFile;
+        this.reportFormat = reportFormat;
+
+    }
+
     /**
      * ソースディレクトリとターゲットディレクトリのパスを比較し、差分を検出します。
      *
@@ -83,25 +169,30 @@ public class DiffDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
     protected void processPath(final Path sourcePath, final Path targetPath, final Path relativePath)
             throws IOException {
 
-        // ソースパスとターゲットパスの種別を判定
-        final boolean isSourceDir  = Files.isDirectory(sourcePath);
-        final boolean targetExists = Files.exists(targetPath);
+        // ソースパスとターゲットパスの種別を判定（それぞれ属性の取得は1回のみ）
+        final NativeIo.FileStatus sourceStatus = NativeIo.stat(sourcePath);
+        final NativeIo.FileStatus targetStatus = NativeIo.stat(targetPath);
+
+        final boolean isSourceDir  = (sourceStatus != null) && sourceStatus.directory();
+        final boolean targetExists = targetStatus != null;
 
-        final boolean isTargetDir = targetExists && Files.isDirectory(targetPath);
+        final boolean isTargetDir = targetExists && targetStatus.directory();
 
         // ディレクトリの比較
         if (isSourceDir) {
 
             if (!targetExists) {
 
-                DiffDirectoryServiceImpl.logger.info("ソースディレクトリのみに存在するディレクトリ: {}", relativePath);
+                this.reportDifference(DiffCategoryTypes.SOURCE_ONLY, relativePath, sourcePath, targetPath,
+                        "ソースディレクトリのみに存在するディレクトリ: {}");
                 return;
 
             }
 
             if (!isTargetDir) {
 
-                DiffDirectoryServiceImpl.logger.info("差異あり: {} (ディレクトリ vs ファイル)", relativePath);
+                this.reportDifference(DiffCategoryTypes.TYPE_MISMATCH, relativePath, sourcePath, targetPath,
+                        "差異あり: {} (ディレクトリ vs ファイル)");
 
             }
             return;
@@ -111,26 +202,45 @@ public class DiffDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
         // ファイルの比較
         if (!targetExists) {
 
-            DiffDirectoryServiceImpl.logger.info("ソースのみに存在: {}", relativePath);
+            this.reportDifference(DiffCategoryTypes.SOURCE_ONLY, relativePath, sourcePath, targetPath, "ソースのみに存在: {}");
             return;
 
         }
 
         if (isTargetDir) {
 
-            DiffDirectoryServiceImpl.logger.info("差異あり: {} (ファイル vs ディレクトリ)", relativePath);
+            this.reportDifference(DiffCategoryTypes.TYPE_MISMATCH, relativePath, sourcePath, targetPath,
+                    "差異あり: {} (ファイル vs ディレクトリ)");
             return;
 
         }
 
-        if (!AbstractDirectoryServiceImpl.compareFiles(sourcePath, targetPath)) {
+        // サイズが異なる場合は、ファイルを開かずに差異ありとする
+        final boolean sizeDiffers = (sourceStatus != null) && sourceStatus.regularFile() && targetStatus.regularFile()
+                && (sourceStatus.size() != targetStatus.size());
 
-            DiffDirectoryServiceImpl.logger.info("差異あり: {}", relativePath);
+        if (sizeDiffers || !FileComparator.compare(sourcePath, targetPath, this.compareDepth, this.cacheHygiene,
+                this.compareExecutor)) {
+
+            this.reportDifference(DiffCategoryTypes.CONTENT_DIFF, relativePath, sourcePath, targetPath, "差異あり: {}");
 
         }
 
     }
 
+    /**
+     * 操作モードの種類として差分比較を返す。
+     *
+     * @return 操作モードの種類
+     */
+    @Override
+    protected OperationModeTypes getOperationMode() {
+
+        final OperationModeTypes result = OperationModeTypes.DIFF;
+        return result;
+
+    }
+
     /**
      * ターゲットディレクトリを走査して、ソースディレクトリに存在しないファイルを検出します。
      *
@@ -150,11 +260,15 @@ public class DiffDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
 
         }
 
-        try (Stream<Path> stream = Files.walk(destination)) {
+        this.walkFiltered(destination, false, path -> {
 
-            stream.forEach(path -> DiffDirectoryServiceImpl.processDestinationPath(source, destination, path));
+            if (!MerkleTree.isSummaryFile(destination, path) && !JobJournal.isJournalFile(destination, path)) {
 
-        }
+                this.processDestinationPath(source, destination, path);
+
+            }
+
+        });
 
     }
 
@@ -168,7 +282,7 @@ public class DiffDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
      * @param path
      *                    ターゲットディレクトリ内の現在のパス
      */
-    private static void processDestinationPath(final Path source, final Path destination, final Path path) {
+    private void processDestinationPath(final Path source, final Path destination, final Path path) {
 
         if (path.equals(destination)) {
 
@@ -187,11 +301,12 @@ public class DiffDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
 
         if (Files.isDirectory(path)) {
 
-            DiffDirectoryServiceImpl.logger.info("ターゲットディレクトリのみに存在するディレクトリ: {}", relativePath);
+            this.reportDifference(DiffCategoryTypes.TARGET_ONLY, relativePath, sourcePath, path,
+                    "ターゲットディレクトリのみに存在するディレクトリ: {}");
 
         } else {
 
-            DiffDirectoryServiceImpl.logger.info("ターゲットのみに存在: {}", relativePath);
+            this.reportDifference(DiffCategoryTypes.TARGET_ONLY, relativePath, sourcePath, path, "ターゲットのみに存在: {}");
 
         }
 
@@ -229,29 +344,255 @@ public class DiffDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
 
         AbstractDirectoryServiceImpl.validatePaths(source, destination);
 
-        // ソースディレクトリの処理
-        try (Stream<Path> stream = Files.walk(source)) {
+        if (this.reportFile == null) {
+
+            this.compareDirectories(source, destination);
+            return;
+
+        }
+
+        // 差分レポートを出力しながら比較
+        final long count;
+
+        try (DiffReportWriter writer = new DiffReportWriter(this.reportFile, this.reportFormat)) {
+
+            this.reportWriter = writer;
+            this.compareDirectories(source, destination);
+            count = writer.getCount();
+
+        } finally {
+
+            this.reportWriter = null;
+
+        }
+        DiffDirectoryServiceImpl.logger.info("差分レポートを出力しました。: {} ({}件)", this.reportFile, count);
+
+    }
+
+    /**
+     * ソースディレクトリとターゲットディレクトリを比較する。<br>
+     * 大きなファイルのウィンドウ単位の比較の補助ワーカーは、COPY/MOVEのファイル単位のタスクと同じエグゼキュータで実行し、
+     * ワーカープールの操作モードとファイルストアごとの同時実行数の上限を適用する（{@link #runWithExecutor(Path, ExecutorAction)}）。
+     *
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @throws IOException
+     *                     ファイルまたはディレクトリの比較中にI/Oエラーが発生した場合。
+     */
+    private void compareDirectories(final Path source, final Path destination) throws IOException {
 
-            stream.forEach(path -> {
+        this.runWithExecutor(destination, taskExecutor -> {
 
-                try {
+            this.compareExecutor = task -> taskExecutor.accept(destination, task);
 
-                    final Path relativePath = source.relativize(path);
-                    final Path targetPath   = destination.resolve(relativePath);
-                    this.processPath(path, targetPath, relativePath);
+            try {
 
-                } catch (final IOException e) {
+                this.compareTrees(source, destination);
 
-                    throw new RuntimeException(String.format("ファイルの処理に失敗しました。: %s", path), e);
+            } finally {
+
+                this.compareExecutor = null;
+
+            }
+
+        });
+
+    }
+
+    /**
+     * ソースディレクトリを走査し、ターゲットディレクトリと比較する。
+     *
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @throws IOException
+     *                     ファイルまたはディレクトリの比較中にI/Oエラーが発生した場合。
+     */
+    private void compareTrees(final Path source, final Path destination) throws IOException {
 
-                }
+        if (this.isMerkleEnabled()) {
 
-            });
+            this.processDirectoryByMerkleTree(source, destination);
+            return;
 
         }
 
+        // ソースディレクトリの処理
+        this.walkFiltered(source, false, path -> {
+
+            if (MerkleTree.isSummaryFile(source, path) || JobJournal.isJournalFile(source, path)) {
+
+                return;
+
+            }
+
+            try {
+
+                final Path relativePath = source.relativize(path);
+                final Path targetPath   = destination.resolve(relativePath);
+                this.processPath(path, targetPath, relativePath);
+
+            } catch (final IOException e) {
+
+                throw new RuntimeException(String.format("ファイルの処理に失敗しました。: %s", path), e);
+
+            }
+
+        });
+
         // ターゲットディレクトリの処理
         this.postProcess(source, destination);
 
     }
+
+    /**
+     * マークル木による要約を比較し、差分のあるパスのみを検査する。<br>
+     * <p>
+     * 保存済みの要約をもとに要約を再構築し、ハッシュ値が一致するサブツリーを読み飛ばす。<br>
+     * ソースディレクトリには書き込まないため、ソースの要約はターゲットに保存する（{@link MerkleTree#loadOrBuildSource(Path, Path)}）。<br>
+     * 差分のあるパスは通常の比較と同じ処理で検査するため、出力形式は通常の比較と同一となる。
+     * </p>
+     *
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @throws IOException
+     *                     要約の読み込みまたはファイルの比較中にI/Oエラーが発生した場合。
+     */
+    private void processDirectoryByMerkleTree(final Path source, final Path destination) throws IOException {
+
+        final MerkleTree            sourceTree      = MerkleTree.loadOrBuildSource(source, destination);
+        final MerkleTree            destinationTree = MerkleTree.loadOrBuild(destination);
+        final MerkleTree.Difference difference      = MerkleTree.diff(sourceTree, destinationTree);
+
+        for (final String relativePath : difference.sourcePaths()) {
+
+            if (this.isSelected(source, source.resolve(relativePath))) {
+
+                this.processPath(source.resolve(relativePath), destination.resolve(relativePath),
+                        Path.of(relativePath));
+
+            }
+
+        }
+
+        for (final String relativePath : difference.targetOnlyPaths()) {
+
+            if (this.isSelected(destination, destination.resolve(relativePath))) {
+
+                this.processDestinationPath(source, destination, destination.resolve(relativePath));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 差分を報告する。<br>
+     * <p>
+     * 差分レポートの出力先が設定されている場合は、サイズと更新日時を含めてレポートに出力する。<br>
+     * 設定されていない場合はログに出力する。
+     * </p>
+     *
+     * @param category
+     *                     差分の分類
+     * @param relativePath
+     *                     相対パス
+     * @param sourcePath
+     *                     ソース側のパス
+     * @param targetPath
+     *                     ターゲット側のパス
+     * @param logFormat
+     *                     ログに出力する場合のメッセージ形式
+     */
+    private void reportDifference(final DiffCategoryTypes category, final Path relativePath, final Path sourcePath,
+            final Path targetPath, final String logFormat) {
+
+        final DiffReportWriter writer = this.reportWriter;
+
+        if (writer == null) {
+
+            DiffDirectoryServiceImpl.eventLogger.info(logFormat, relativePath);
+            return;
+
+        }
+
+        final BasicFileAttributes sourceAttributes = DiffDirectoryServiceImpl.readAttributes(sourcePath);
+        final BasicFileAttributes targetAttributes = DiffDirectoryServiceImpl.readAttributes(targetPath);
+        final BasicFileAttributes attributes       = sourceAttributes != null ? sourceAttributes : targetAttributes;
+
+        writer.write(new DiffEntry(category,
+                relativePath.toString().replace(relativePath.getFileSystem().getSeparator(), "/"),
+                (attributes != null) && attributes.isDirectory(), DiffDirectoryServiceImpl.size(sourceAttributes),
+                DiffDirectoryServiceImpl.lastModified(sourceAttributes), DiffDirectoryServiceImpl.size(targetAttributes),
+                DiffDirectoryServiceImpl.lastModified(targetAttributes)));
+
+    }
+
+    /**
+     * パスの属性を読み込む。
+     *
+     * @param path
+     *             パス
+     * @return 属性。パスが存在しない場合、または読み込めない場合はnull
+     */
+    private static BasicFileAttributes readAttributes(final Path path) {
+
+        try {
+
+            final BasicFileAttributes result = Files.readAttributes(path, BasicFileAttributes.class);
+            return result;
+
+        } catch (@SuppressWarnings("unused") final IOException e) {
+
+            return null;
+
+        }
+
+    }
+
+    /**
+     * 属性からサイズを返す。ディレクトリのサイズは0とする。
+     *
+     * @param attributes
+     *                   属性
+     * @return サイズ。属性がnullの場合はnull
+     */
+    private static Long size(final BasicFileAttributes attributes) {
+
+        if (attributes == null) {
+
+            return null;
+
+        }
+
+        final Long result = attributes.isDirectory() ? 0L : attributes.size();
+        return result;
+
+    }
+
+    /**
+     * 属性から最終更新日時を返す。
+     *
+     * @param attributes
+     *                   属性
+     * @return 最終更新日時（エポックミリ秒）。属性がnullの場合はnull
+     */
+    private static Long lastModified(final BasicFileAttributes attributes) {
+
+        if (attributes == null) {
+
+            return null;
+
+        }
+
+        final Long result = attributes.lastModifiedTime().toMillis();
+        return result;
+
+    }
 }
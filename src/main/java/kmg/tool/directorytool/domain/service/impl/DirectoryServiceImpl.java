@@ -1,16 +1,27 @@
 package kmg.tool.directorytool.domain.service.impl;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
 import kmg.tool.directorytool.domain.service.AbstractDirectoryService;
 import kmg.tool.directorytool.domain.service.CopyDirectoryService;
 import kmg.tool.directorytool.domain.service.DiffDirectoryService;
 import kmg.tool.directorytool.domain.service.DirectoryService;
 import kmg.tool.directorytool.domain.service.MoveDirectoryService;
+import kmg.tool.directorytool.infrastructure.io.FileCopyEngine;
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
 import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+import kmg.tool.directorytool.infrastructure.types.RecoveryTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
 
 /**
  * ディレクトリ操作のファサードとして機能するサービスクラス。 <br>
@@ -33,6 +44,7 @@ import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
  * @see DiffDirectoryService
  */
 @Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class DirectoryServiceImpl implements DirectoryService {
 
     /** ディレクトリのコピー操作を実行するサービス */
@@ -47,6 +59,34 @@ public class DirectoryServiceImpl implements DirectoryService {
     @Autowired
     private DiffDirectoryService diffService;
 
+    /**
+     * デフォルトコンストラクタ。<br>
+     * 各操作のサービスはDIコンテナによって注入される。
+     */
+    public DirectoryServiceImpl() {
+
+        // 処理なし
+    }
+
+    /**
+     * DIコンテナを使用せずに、各操作のサービスを指定してインスタンスを作成する。
+     *
+     * @param copyService
+     *                    ディレクトリのコピー操作を実行するサービス
+     * @param moveService
+     *                    ディレクトリの移動操作を実行するサービス
+     * @param diffService
+     *                    ディレクトリの差分比較操作を実行するサービス
+     */
+    public DirectoryServiceImpl(final CopyDirectoryService copyService, final MoveDirectoryService moveService,
+            final DiffDirectoryService diffService) {
+
+        this.copyService = copyService;
+        this.moveService = moveService;
+        this.diffService = diffService;
+
+    }
+
     /**
      * スレッドプールのサイズを設定します。 全ての実装サービス（コピー、移動、差分比較）のスレッドプールサイズを更新します。
      *
@@ -62,6 +102,212 @@ public class DirectoryServiceImpl implements DirectoryService {
 
     }
 
+    /**
+     * マークル木による要約を使用するかを設定します。 全ての実装サービス（コピー、移動、差分比較）の設定を更新します。
+     *
+     * @param merkleEnabled
+     *                      要約を使用する場合true
+     */
+    @Override
+    public void setMerkleEnabled(final boolean merkleEnabled) {
+
+        this.copyService.setMerkleEnabled(merkleEnabled);
+        this.moveService.setMerkleEnabled(merkleEnabled);
+        this.diffService.setMerkleEnabled(merkleEnabled);
+
+    }
+
+    /**
+     * 差分比較でのファイル内容の比較深度を設定します。 差分比較サービスの設定を更新します。
+     *
+     * @param compareDepth
+     *                     比較深度
+     */
+    @Override
+    public void setCompareDepth(final CompareDepthTypes compareDepth) {
+
+        this.diffService.setCompareDepth(compareDepth);
+
+    }
+
+    /**
+     * 差分比較で大きなファイルの全体を比較した後に、ページキャッシュを解放するかを設定します。 差分比較サービスの設定を更新します。
+     *
+     * @param cacheHygiene
+     *                     ページキャッシュを解放する場合true
+     */
+    @Override
+    public void setCacheHygiene(final boolean cacheHygiene) {
+
+        this.diffService.setCacheHygiene(cacheHygiene);
+
+    }
+
+    /**
+     * 差分比較の差分レポートの出力先と形式を設定します。 差分比較サービスの設定を更新します。
+     *
+     * @param reportFile
+     *                     差分レポートの出力先。nullの場合は差分をログに出力する
+     * @param reportFormat
+     *                     差分レポートの出力形式
+     */
+    @Override
+    public void setReport(final Path reportFile, final ReportFormatTypes reportFormat) {
+
+        this.diffService.setReport(reportFile, reportFormat);
+
+    }
+
+    /**
+     * ファイル単位のタスクを実行する共有のエグゼキュータを設定します。 すべての操作サービスの設定を更新します。
+     *
+     * @param executor
+     *                 共有のエグゼキュータ。nullの場合は処理ごとにスレッドプールを作成する
+     */
+    @Override
+    public void setExecutor(final Executor executor) {
+
+        this.copyService.setExecutor(executor);
+        this.moveService.setExecutor(executor);
+        this.diffService.setExecutor(executor);
+
+    }
+
+    /**
+     * ファイルの内容をコピーするエンジンを設定します。 コピーと移動のサービスの設定を更新します。
+     *
+     * @param copyEngine
+     *                   コピーエンジン
+     */
+    @Override
+    public void setCopyEngine(final FileCopyEngine copyEngine) {
+
+        this.copyService.setCopyEngine(copyEngine);
+        this.moveService.setCopyEngine(copyEngine);
+
+    }
+
+    /**
+     * 小さいファイルのバッチ処理を設定します。 すべてのサービスの設定を更新します。
+     *
+     * @param batchCount
+     *                   1つのタスクにまとめるファイルの最大数。1以下の場合はまとめない
+     * @param batchSize
+     *                   1つのタスクにまとめるファイルの合計サイズの上限（バイト）
+     */
+    @Override
+    public void setSmallFileBatch(final int batchCount, final long batchSize) {
+
+        this.copyService.setSmallFileBatch(batchCount, batchSize);
+        this.moveService.setSmallFileBatch(batchCount, batchSize);
+        this.diffService.setSmallFileBatch(batchCount, batchSize);
+
+    }
+
+    /**
+     * 処理したファイルをストレージに同期する方式を設定します。 コピーと移動のサービスの設定を更新します。
+     *
+     * @param durability
+     *                   永続性の種類
+     */
+    @Override
+    public void setDurability(final DurabilityTypes durability) {
+
+        this.copyService.setDurability(durability);
+        this.moveService.setDurability(durability);
+
+    }
+
+    /**
+     * 前回の処理のジャーナルから再開するかを設定します。 コピーと移動のサービスの設定を更新します。
+     *
+     * @param resume
+     *               再開する場合true
+     */
+    @Override
+    public void setResume(final boolean resume) {
+
+        this.copyService.setResume(resume);
+        this.moveService.setResume(resume);
+
+    }
+
+    /**
+     * MOVEをトランザクションで行うかを設定します。 移動のサービスの設定を更新します。
+     *
+     * @param transactional
+     *                      トランザクションで移動する場合true
+     */
+    @Override
+    public void setTransactionalMove(final boolean transactional) {
+
+        this.moveService.setTransactional(transactional);
+
+    }
+
+    /**
+     * COPYでコピーしたファイルを原子的に公開するかを設定します。 コピーのサービスの設定を更新します。
+     *
+     * @param atomicPublish
+     *                      一時ファイルに書き込んだ後に名前の変更で公開する場合true
+     */
+    @Override
+    public void setAtomicPublish(final boolean atomicPublish) {
+
+        this.copyService.setAtomicPublish(atomicPublish);
+
+    }
+
+    /**
+     * COPY/MOVE/DIFFの対象とするパスのフィルタを設定します。 コピー、移動、差分比較のサービスの設定を更新します。
+     *
+     * @param pathFilter
+     *                   フィルタ。絞り込まない場合はnull
+     */
+    @Override
+    public void setPathFilter(final PathFilter pathFilter) {
+
+        this.copyService.setPathFilter(pathFilter);
+        this.moveService.setPathFilter(pathFilter);
+        this.diffService.setPathFilter(pathFilter);
+
+    }
+
+    /**
+     * COPY/MOVE/DIFFの走査の範囲を設定します。 コピー、移動、差分比較のサービスの設定を更新します。
+     *
+     * @param traversalScope
+     *                       走査の範囲。nullの場合は範囲を限定しない
+     */
+    @Override
+    public void setTraversalScope(final TraversalScope traversalScope) {
+
+        this.copyService.setTraversalScope(traversalScope);
+        this.moveService.setTraversalScope(traversalScope);
+        this.diffService.setTraversalScope(traversalScope);
+
+    }
+
+    /**
+     * 中断したトランザクションのMOVEを復旧します。 移動のサービスに処理を委譲します。
+     *
+     * @param srcPath
+     *                 ソースディレクトリのパス
+     * @param destPath
+     *                 ターゲットディレクトリのパス
+     * @param recovery
+     *                 復旧の種類
+     * @throws IOException
+     *                     復旧中にエラーが発生した場合
+     */
+    @Override
+    public void recoverMove(final String srcPath, final String destPath, final RecoveryTypes recovery)
+            throws IOException {
+
+        this.moveService.recover(srcPath, destPath, recovery);
+
+    }
+
     /**
      * 指定されたソースディレクトリをターゲットディレクトリに対して処理する。<br>
      * <p>
@@ -1,18 +1,32 @@
 package kmg.tool.directorytool.domain.service.impl;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.stream.Stream;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import kmg.tool.directorytool.domain.model.MerkleTree;
 import kmg.tool.directorytool.domain.service.AbstractDirectoryService;
 import kmg.tool.directorytool.domain.service.DirectoryService;
 import kmg.tool.directorytool.domain.service.MoveDirectoryService;
+import kmg.tool.directorytool.domain.model.TraversalScope;
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.io.AtomicPublisher;
+import kmg.tool.directorytool.infrastructure.io.FileSyncer;
+import kmg.tool.directorytool.infrastructure.io.JobJournal;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+import kmg.tool.directorytool.infrastructure.types.RecoveryTypes;
 
 /**
  * ディレクトリの移動操作を実行するサービスクラス。<br>
@@ -39,6 +53,14 @@ import kmg.tool.directorytool.domain.service.MoveDirectoryService;
  * <li>空のディレクトリは深い階層から順に削除される
  * </ul>
  * <p>
+ * トランザクションの移動（{@link #setTransactional(boolean)}）では、2段階で移動する：
+ * <ol>
+ * <li>ステージング: ソースを残したままファイルをターゲットの一時ファイルにコピーして名前を変更し、完了したファイルをジャーナルに記録する
+ * <li>確定: すべてのファイルのサイズと更新日時をソースと照合し、ストレージに同期した後、確定の開始をジャーナルに記録し、記録したファイルのソースを削除する
+ * </ol>
+ * 中断した場合は、{@link #recover(String, String, RecoveryTypes)}で移動を完了するか、ステージングを取り消す。
+ * コピー中に中断したファイルは一時ファイルとして残るため、復旧時に削除する。
+ * <p>
  * 使用例：
  *
  * <pre>
@@ -53,16 +75,127 @@ import kmg.tool.directorytool.domain.service.MoveDirectoryService;
  * @see DirectoryService
  */
 @Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class MoveDirectoryServiceImpl extends AbstractDirectoryServiceImpl implements MoveDirectoryService {
 
     /** ロガー */
     private static final Logger logger = LoggerFactory.getLogger(MoveDirectoryServiceImpl.class);
 
+    /** トランザクションの移動のジャーナルのジョブの名前 */
+    private static final String TRANSACTIONAL_JOB_NAME = OperationModeTypes.MOVE.getValue() + "/transactional";
+
+    /** トランザクションの移動を行うか */
+    private boolean transactional;
+
+    /**
+     * トランザクションの移動を行うかを設定する。
+     *
+     * @param transactional
+     *                      ステージングと確定の2段階で移動する場合true
+     */
+    @Override
+    public void setTransactional(final boolean transactional) {
+
+        this.transactional = transactional;
+
+    }
+
+    /**
+     * ディレクトリの移動を実行する。<br>
+     * <p>
+     * トランザクションの移動で、ターゲットディレクトリにジャーナルが残っている場合は前回の処理が中断しているため、
+     * ステージング中に残った一時ファイルを削除してから処理する。
+     * </p>
+     *
+     * @param srcPath
+     *                 ソースディレクトリのパス
+     * @param destPath
+     *                 ターゲットディレクトリのパス
+     * @throws IOException
+     *                     ソースディレクトリが存在しない場合、またはファイル処理中にエラーが発生した場合
+     */
+    @Override
+    public void processDirectory(final String srcPath, final String destPath) throws IOException {
+
+        final Path destination = Path.of(destPath);
+
+        if (this.transactional
+                && Files.exists(destination.resolve(JobJournal.fileName(this.getTraversalScope().getShardName())))) {
+
+            this.cleanUpStaging(destination);
+
+        }
+        super.processDirectory(srcPath, destPath);
+
+    }
+
+    /**
+     * 中断したトランザクションの移動を、ターゲットディレクトリのジャーナルから復旧する。<br>
+     * <p>
+     * 完了（{@link RecoveryTypes#COMMIT}）の場合は、ジャーナルから再開して残りのファイルをステージングし、確定する。
+     * 確定を開始していた場合は、削除が済んでいないソースのみを削除する。<br>
+     * 取り消し（{@link RecoveryTypes#ROLLBACK}）の場合は、ステージングしたファイルをターゲットから削除する。
+     * 確定を開始したジャーナルは、ソースの一部を削除しているため取り消せない。
+     * </p>
+     *
+     * @param srcPath
+     *                 ソースディレクトリのパス
+     * @param destPath
+     *                 ターゲットディレクトリのパス
+     * @param recovery
+     *                 復旧の種類
+     * @throws IOException
+     *                     ジャーナルが存在しない場合、取り消せない場合、または復旧中にエラーが発生した場合
+     */
+    @Override
+    public void recover(final String srcPath, final String destPath, final RecoveryTypes recovery)
+            throws IOException {
+
+        final Path source      = Path.of(srcPath);
+        final Path destination = Path.of(destPath);
+
+        switch (recovery) {
+
+            case COMMIT -> {
+
+                final String shard = this.getTraversalScope().getShardName();
+
+                if (!Files.exists(destination.resolve(JobJournal.fileName(shard)))) {
+
+                    throw new IOException(String.format("復旧するジャーナルが存在しません。: %s", destination));
+
+                }
+                this.setTransactional(true);
+                this.setResume(true);
+                this.processDirectory(srcPath, destPath);
+
+            }
+            case ROLLBACK -> this.rollback(source, destination);
+            case NONE ->
+                throw new IllegalArgumentException(String.format("Unexpected value: %s", recovery.getName()));
+
+        }
+
+    }
+
     /**
      * 個々のファイル/ディレクトリに対して移動操作を実行する。<br>
      * <p>
      * ソースがディレクトリの場合、ターゲットディレクトリを作成する。 ソースがファイルの場合、親ディレクトリを作成し、ファイルを移動する。 既存のファイルは上書きされる。
      * </p>
+     * <p>
+     * リミッタが設定されている場合、ファイル1件ごとにファイル操作の実行枠を取得する。
+     * 帯域を制限している場合、同じファイルシステム内の移動は名前の変更のみで完了するため帯域を消費しない。
+     * ファイルシステムをまたぐ移動は、帯域の転送枠を取得しながらコピーした後にソースを削除する。
+     * </p>
+     * <p>
+     * 永続性が設定されている場合、名前の変更で移動したファイルは設定に応じて同期する。
+     * ファイルシステムをまたぐ移動では、クラッシュでファイルを失わないよう、ソースを削除する前にコピー先を同期する。
+     * </p>
+     * <p>
+     * トランザクションの移動では、ソースを削除せずに一時ファイルにコピーし、更新日時をソースに合わせてから名前を変更する（ステージング）。
+     * 書き込み途中のファイルがコピー先の名前で残らないため、取り消しで削除できないファイルは残らない。ソースは確定時に削除する。
+     * </p>
      *
      * @param sourcePath
      *                     移動元のパス
@@ -86,7 +219,295 @@ public class MoveDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
 
         // ファイル移動前にターゲットディレクトリが存在することを保証
         Files.createDirectories(targetPath.getParent());
-        Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+
+        final ThroughputLimiter limiter    = this.getThroughputLimiter();
+        final FileSyncer        fileSyncer = this.getFileSyncer();
+        final boolean           durable    = (fileSyncer != null) && fileSyncer.isEnabled();
+
+        if (limiter != null) {
+
+            limiter.acquireOperation();
+
+        }
+
+        if (this.transactional) {
+
+            final Path temporaryPath = AtomicPublisher.temporaryPath(targetPath);
+
+            try {
+
+                this.getCopyEngine().copy(sourcePath, temporaryPath, limiter);
+                Files.setLastModifiedTime(temporaryPath, Files.getLastModifiedTime(sourcePath));
+
+                if (durable) {
+
+                    // 同期していない内容がコピー先の名前で永続化されないよう、名前の変更の前に同期する
+                    fileSyncer.syncContent(temporaryPath);
+
+                }
+
+            } catch (final IOException e) {
+
+                AtomicPublisher.discard(temporaryPath, e);
+                throw e;
+
+            }
+            AtomicPublisher.publish(temporaryPath, targetPath);
+
+            if (durable) {
+
+                fileSyncer.published(targetPath);
+
+            }
+            return;
+
+        }
+
+        if (((limiter == null) || !limiter.isBandwidthLimited()) && !durable) {
+
+            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            return;
+
+        }
+
+        try {
+
+            // 名前の変更で移動できる場合はデータを転送しない
+            Files.move(sourcePath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+
+            if (durable) {
+
+                fileSyncer.completed(targetPath);
+
+            }
+
+        } catch (@SuppressWarnings("unused") final AtomicMoveNotSupportedException e) {
+
+            // ファイルシステムをまたぐ場合は帯域を制限してコピーし、コピー先を同期してからソースを削除する
+            this.getCopyEngine().copy(sourcePath, targetPath, limiter);
+            Files.setLastModifiedTime(targetPath, Files.getLastModifiedTime(sourcePath));
+
+            if (durable) {
+
+                fileSyncer.sync(targetPath);
+
+            }
+            Files.delete(sourcePath);
+
+        }
+
+    }
+
+    /**
+     * 操作モードの種類として移動を返す。
+     *
+     * @return 操作モードの種類
+     */
+    @Override
+    protected OperationModeTypes getOperationMode() {
+
+        final OperationModeTypes result = OperationModeTypes.MOVE;
+        return result;
+
+    }
+
+    /**
+     * トランザクションの移動の場合は、確定と復旧にステージングしたファイルの記録が必要なため、再開しない場合もジャーナルに記録する。
+     *
+     * @return 記録する場合true
+     */
+    @Override
+    protected boolean isJournalRequired() {
+
+        final boolean result = this.transactional || super.isJournalRequired();
+        return result;
+
+    }
+
+    /**
+     * トランザクションの移動の場合は、ジャーナルのジョブの名前を通常の移動と区別する。
+     *
+     * @return ジョブの名前
+     */
+    @Override
+    protected String getJobName() {
+
+        final String result = this.transactional ? MoveDirectoryServiceImpl.TRANSACTIONAL_JOB_NAME
+                : super.getJobName();
+        return result;
+
+    }
+
+    /**
+     * トランザクションの移動の場合、ステージングしたファイルを検証し、ソースを削除して確定する。<br>
+     * <p>
+     * ジャーナルに記録したすべてのファイルについて、ターゲットのサイズと更新日時（ミリ秒単位）がソースと一致することを確認する。
+     * 1件でも一致しない場合は、ソースを削除せずに例外をスローする（ジャーナルは残る）。<br>
+     * 検証後、永続性の設定によらず、ステージングしたファイルと親ディレクトリからターゲットまでのディレクトリをストレージに同期する。
+     * 同期なしで実行した場合や、中断前にステージングしたファイルも、ソースを削除する前に必ず永続化するためである。<br>
+     * 同期後、確定の開始をジャーナルに記録してストレージに同期し、記録したファイルのソースを削除する。
+     * 確定の開始後に中断した場合、復旧ではソースが既に存在しないファイルの検証を省略する。
+     * </p>
+     *
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @param journal
+     *                    ステージングしたファイルを記録したジャーナル
+     * @throws IOException
+     *                     検証に失敗した場合、またはソースの削除に失敗した場合
+     */
+    @Override
+    protected void commit(final Path source, final Path destination, final JobJournal journal) throws IOException {
+
+        if (!this.transactional) {
+
+            return;
+
+        }
+
+        final boolean      committing    = journal.isCommitting();
+        final List<String> relativePaths = List.copyOf(journal.getCompletedPaths());
+
+        for (final String relativePath : relativePaths) {
+
+            final Path sourcePath = source.resolve(relativePath);
+            final Path targetPath = destination.resolve(relativePath);
+
+            if (committing && !Files.exists(sourcePath, LinkOption.NOFOLLOW_LINKS)) {
+
+                continue;
+
+            }
+
+            // 更新日時はファイルシステムごとの精度の違いを吸収するため、ミリ秒単位で比較する
+            if (!Files.isRegularFile(targetPath) || (Files.size(sourcePath) != Files.size(targetPath))
+                    || (Files.getLastModifiedTime(sourcePath).toMillis() != Files.getLastModifiedTime(targetPath)
+                            .toMillis())) {
+
+                throw new IOException(String.format("ステージングしたファイルがソースと一致しません。: %s", relativePath));
+
+            }
+
+        }
+
+        if (!committing) {
+
+            // 同期済みのファイルは書き戻すページがないため、同期は短時間で完了する
+            try (FileSyncer syncer = new FileSyncer(DurabilityTypes.BATCH, destination)) {
+
+                for (final String relativePath : relativePaths) {
+
+                    syncer.completed(destination.resolve(relativePath));
+
+                }
+
+            }
+
+        }
+        journal.markCommitting();
+
+        for (final String relativePath : relativePaths) {
+
+            this.deleteIfExists(source.resolve(relativePath));
+
+        }
+        MoveDirectoryServiceImpl.logger.info("ステージングした{}件のファイルを検証し、ソースを削除しました。", relativePaths.size());
+
+    }
+
+    /**
+     * ステージングしたファイルをターゲットから削除し、トランザクションの移動を取り消す。<br>
+     * <p>
+     * ソースが存在しないファイルは、唯一のコピーを失わないようターゲットに残す。
+     * コピー中に中断して残った一時ファイルも削除する。
+     * ステージングで作成した空のディレクトリも、ソースに同じディレクトリがあれば削除する。
+     * </p>
+     *
+     * @param source
+     *                    ソースディレクトリのパス
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @throws IOException
+     *                     ジャーナルが存在しない場合、確定を開始している場合、または削除に失敗した場合
+     */
+    private void rollback(final Path source, final Path destination) throws IOException {
+
+        final JobJournal journal = JobJournal.openExisting(destination, source,
+                MoveDirectoryServiceImpl.TRANSACTIONAL_JOB_NAME, this.getTraversalScope().getShardName(), true);
+
+        if (journal == null) {
+
+            throw new IOException(String.format("復旧するトランザクションの移動のジャーナルが存在しません。: %s", destination));
+
+        }
+
+        try (journal) {
+
+            if (journal.isCommitting()) {
+
+                throw new IOException("ソースの削除を開始しているため取り消せません。完了（commit）で移動を完了してください。");
+
+            }
+
+            for (final String relativePath : journal.getCompletedPaths()) {
+
+                if (!Files.exists(source.resolve(relativePath), LinkOption.NOFOLLOW_LINKS)) {
+
+                    MoveDirectoryServiceImpl.logger.warn("ソースが存在しないため、ステージングしたファイルを残します。: {}", relativePath);
+                    continue;
+
+                }
+                Files.deleteIfExists(destination.resolve(relativePath));
+
+            }
+
+        }
+
+        this.cleanUpStaging(destination);
+
+        // ステージングで作成した空のディレクトリを深い階層から削除。他のシャードが処理中のディレクトリは走査しない
+        this.walkFiltered(destination, true, path -> {
+
+            if (path.equals(destination) || !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+                    || !Files.isDirectory(source.resolve(destination.relativize(path)))) {
+
+                return;
+
+            }
+
+            try {
+
+                Files.delete(path);
+
+            } catch (@SuppressWarnings("unused") final DirectoryNotEmptyException e) {
+
+                // 既存のファイルを含むディレクトリは残す
+            }
+
+        });
+
+        journal.delete();
+        MoveDirectoryServiceImpl.logger.info("トランザクションの移動を取り消しました。: {}", destination);
+
+    }
+
+    /**
+     * ステージング中に中断して残った一時ファイルを、ターゲットディレクトリの処理の範囲から削除する。
+     *
+     * @param destination
+     *                    ターゲットディレクトリのパス
+     * @throws IOException
+     *                     走査または削除に失敗した場合
+     */
+    private void cleanUpStaging(final Path destination) throws IOException {
+
+        final TraversalScope scope = this.getTraversalScope();
+
+        // 分割した場合、最上位の一時ファイルはどのシャードのものか判別できないため、同じファイルの次のステージングで上書きされるまで残す
+        AtomicPublisher.cleanUp(destination, scope.getMaxDepth(), relativePath -> scope.contains(relativePath)
+                && (!scope.isSharded() || (relativePath.getNameCount() > 1)));
 
     }
 
@@ -99,11 +520,18 @@ public class MoveDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
      * <p>
      * この処理は以下の手順で実行されます：
      * <ol>
-     * <li>ソースディレクトリ内のすべてのパスを取得
-     * <li>パスをその長さで降順にソート（深い階層から処理するため）
+     * <li>ソースディレクトリを走査し、除外したディレクトリと範囲外のパスを読み飛ばす
+     * <li>各ディレクトリは配下のエントリの後に処理する（深い階層から削除するため）
      * <li>各パスに対して削除を試行
      * </ol>
      * 削除に失敗した場合は処理を継続し、可能な限り多くのディレクトリを削除します。
+     * <p>
+     * マークル木による要約が有効な場合、保存済みのソースの要約をヒントとしてターゲットの要約を更新する。
+     * 移動では更新日時が保持されるため、サイズと更新日時が一致するファイルのみヒントのハッシュ値を再利用する。ソースの要約は読み込みのみ行う。
+     * </p>
+     * <p>
+     * トランザクションの移動では、確定で削除しなかったファイル（処理の開始後に追加されたファイルなど）を削除しないよう、空のディレクトリのみを削除する。
+     * </p>
      *
      * @param source
      *                    ソースディレクトリのパス
@@ -115,24 +543,44 @@ public class MoveDirectoryServiceImpl extends AbstractDirectoryServiceImpl imple
     @Override
     protected void postProcess(final Path source, final Path destination) throws IOException {
 
-        // 空になったディレクトリを削除
-        try (Stream<Path> stream = Files.walk(source)) {
+        if (this.isMerkleEnabled()) {
+
+            final MerkleTree destinationTree = MerkleTree.build(destination, MerkleTree.load(destination),
+                    MerkleTree.load(source));
+            destinationTree.save(destination);
+
+        }
+
+        // 絞り込んだ場合や範囲を限定した場合、処理しなかったファイルが残るため、空になったディレクトリのみを削除する
+        final boolean filtered = (this.getPathFilter() != null) || this.getTraversalScope().isLimited();
 
-            stream.sorted((src, dest) -> dest.toString().length() - src.toString().length()).forEach(path -> {
+        // 空になったディレクトリを、配下のエントリの後に削除。除外したディレクトリはサブツリーごと走査しない
+        this.walkFiltered(source, true, path -> {
 
-                try {
+            try {
 
-                    this.deleteIfExists(path);
+                if ((this.transactional || filtered) && !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
 
-                } catch (final IOException e) {
+                    return;
+
+                }
+                this.deleteIfExists(path);
+
+            } catch (final DirectoryNotEmptyException e) {
+
+                if (!filtered) {
 
                     MoveDirectoryServiceImpl.logger.error(String.format("パス '%s' の削除に失敗しました", path), e);
 
                 }
 
-            });
+            } catch (final IOException e) {
 
-        }
+                MoveDirectoryServiceImpl.logger.error(String.format("パス '%s' の削除に失敗しました", path), e);
+
+            }
+
+        });
 
     }
 
@@ -0,0 +1,140 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link FairShareExecutor}のレーンに設定する同時実行数の上限。<br>
+ * <p>
+ * 1つの上限を複数のレーンで共有でき、上限を共有するすべてのレーンの合計の実行中のタスク数が上限を超えないようにする。<br>
+ * 上限に達したレーンはワーカーを待たせずに待機状態となり、上限を共有するタスクが終了した時点で実行待ちに戻る。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class ConcurrencyLimit {
+
+    /** 同時実行数の上限 */
+    private final int maxConcurrency;
+
+    /** 実行中のタスク数 */
+    private final AtomicInteger running;
+
+    /** 上限に達して待機しているレーンを実行待ちに戻す処理 */
+    private final Queue<Runnable> waiters;
+
+    /**
+     * 同時実行数の上限を作成する。
+     *
+     * @param maxConcurrency
+     *                       同時実行数の上限
+     */
+    public ConcurrencyLimit(final int maxConcurrency) {
+
+        if (maxConcurrency <= 0) {
+
+            throw new IllegalArgumentException(String.format("同時実行数の上限は1以上で指定してください。: %d", maxConcurrency));
+
+        }
+
+        this.maxConcurrency = maxConcurrency;
+        this.running = new AtomicInteger();
+        this.waiters = new ConcurrentLinkedQueue<>();
+
+    }
+
+    /**
+     * 同時実行数の上限を返す。
+     *
+     * @return 同時実行数の上限
+     */
+    public int getMaxConcurrency() {
+
+        final int result = this.maxConcurrency;
+        return result;
+
+    }
+
+    /**
+     * 実行中のタスク数を返す。
+     *
+     * @return 実行中のタスク数
+     */
+    public int getRunning() {
+
+        final int result = this.running.get();
+        return result;
+
+    }
+
+    /**
+     * 上限に達していなければ実行枠を1つ取得する。
+     *
+     * @return 取得できた場合true
+     */
+    boolean tryAcquire() {
+
+        while (true) {
+
+            final int current = this.running.get();
+
+            if (current >= this.maxConcurrency) {
+
+                return false;
+
+            }
+
+            if (this.running.compareAndSet(current, current + 1)) {
+
+                return true;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 実行枠を解放し、待機しているレーンを実行待ちに戻す。
+     */
+    void release() {
+
+        this.running.decrementAndGet();
+
+        Runnable waiter;
+
+        while ((waiter = this.waiters.poll()) != null) {
+
+            waiter.run();
+
+        }
+
+    }
+
+    /**
+     * 実行枠が空いた時点でレーンを実行待ちに戻す処理を登録する。<br>
+     * 登録の直前に実行枠が空いた場合は取りこぼさないよう、呼び出し元は登録後に{@link #hasCapacity()}を再確認する。
+     *
+     * @param waiter
+     *               レーンを実行待ちに戻す処理
+     */
+    void addWaiter(final Runnable waiter) {
+
+        this.waiters.add(waiter);
+
+    }
+
+    /**
+     * 実行枠に空きがあるかを返す。
+     *
+     * @return 空きがある場合true
+     */
+    boolean hasCapacity() {
+
+        final boolean result = this.running.get() < this.maxConcurrency;
+        return result;
+
+    }
+}
@@ -0,0 +1,435 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 複数のジョブで共有する、ジョブ間で公平にタスクを実行するスレッドプール。<br>
+ * <p>
+ * ジョブごとに{@link #newLane()}でレーンを作成し、ジョブのタスクはレーンに投入する。<br>
+ * ワーカーは実行待ちのタスクを持つレーンを順番に巡回し、1レーンにつき1タスクずつ実行する。<br>
+ * そのため、大量のタスクを投入したジョブがあっても、他のジョブのタスクは投入順に関係なく順番が回ってくる。
+ * </p>
+ * <p>
+ * 同時に実行されるタスクの数は、全ジョブの合計でワーカー数を超えない。<br>
+ * ワーカー数は{@link #ensureWorkerCount(int)}で後から増やすことができる。
+ * </p>
+ * <p>
+ * {@link #newLane(ConcurrencyLimit...)}でレーンに同時実行数の上限を設定できる。<br>
+ * 上限に達したレーンは待機状態となり、ワーカーはそのレーンを待たずに他のレーンのタスクを実行する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class FairShareExecutor implements AutoCloseable {
+
+    /** ワーカーの終了を表す番兵 */
+    private static final Lane STOP = new Lane(null, new ConcurrencyLimit[0]);
+
+    /** 実行待ちのタスクを持つレーン */
+    private final LinkedBlockingQueue<Lane> readyLanes;
+
+    /** ワーカースレッド */
+    private final List<Thread> workers;
+
+    /** 投入済みで終了していないタスクの数 */
+    private final AtomicInteger pendingTasks;
+
+    /** 停止済みか */
+    private volatile boolean closed;
+
+    /**
+     * 指定された数のワーカーでスレッドプールを開始する。
+     *
+     * @param workerCount
+     *                    ワーカー数
+     */
+    public FairShareExecutor(final int workerCount) {
+
+        if (workerCount <= 0) {
+
+            throw new IllegalArgumentException(String.format("ワーカー数は1以上で指定してください。: %d", workerCount));
+
+        }
+
+        this.readyLanes = new LinkedBlockingQueue<>();
+        this.workers = new ArrayList<>(workerCount);
+        this.pendingTasks = new AtomicInteger();
+        this.ensureWorkerCount(workerCount);
+
+    }
+
+    /**
+     * ワーカー数が指定された数に満たない場合は、不足分のワーカーを開始する。<br>
+     * ワーカー数を減らすことはない。
+     *
+     * @param workerCount
+     *                    必要なワーカー数
+     */
+    public synchronized void ensureWorkerCount(final int workerCount) {
+
+        if (this.closed) {
+
+            throw new RejectedExecutionException("スレッドプールは停止しています。");
+
+        }
+
+        while (this.workers.size() < workerCount) {
+
+            final Thread worker = new Thread(this::work, String.format("fair-worker-%d", this.workers.size() + 1));
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+
+        }
+
+    }
+
+    /**
+     * ワーカー数を返す。
+     *
+     * @return ワーカー数
+     */
+    public synchronized int getWorkerCount() {
+
+        final int result = this.workers.size();
+        return result;
+
+    }
+
+    /**
+     * ジョブ用のレーンを作成する。
+     *
+     * @return レーンにタスクを投入するエグゼキュータ
+     */
+    public Executor newLane() {
+
+        final Executor result = this.newLane(new ConcurrencyLimit[0]);
+        return result;
+
+    }
+
+    /**
+     * 同時実行数の上限を設定したレーンを作成する。<br>
+     * レーンのタスクは、指定されたすべての上限に空きがある場合にのみ実行される。
+     *
+     * @param limits
+     *               同時実行数の上限。他のレーンと共有してもよい
+     * @return レーンにタスクを投入するエグゼキュータ
+     */
+    public Executor newLane(final ConcurrencyLimit... limits) {
+
+        final Lane result = new Lane(this, limits.clone());
+        return result;
+
+    }
+
+    /**
+     * 投入済みのタスクをすべて実行してからワーカーを停止する。
+     */
+    @Override
+    public void close() {
+
+        final List<Thread> stoppingWorkers;
+
+        synchronized (this) {
+
+            this.closed = true;
+            stoppingWorkers = List.copyOf(this.workers);
+
+        }
+
+        // 上限により待機しているレーンのタスクも含めて、すべてのタスクの終了を待つ
+        synchronized (this.pendingTasks) {
+
+            while (this.pendingTasks.get() > 0) {
+
+                try {
+
+                    this.pendingTasks.wait();
+
+                } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                    return;
+
+                }
+
+            }
+
+        }
+
+        for (int i = 0; i < stoppingWorkers.size(); i++) {
+
+            this.readyLanes.add(FairShareExecutor.STOP);
+
+        }
+
+        for (final Thread worker : stoppingWorkers) {
+
+            try {
+
+                worker.join();
+
+            } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                return;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * ワーカーの処理。レーンを取り出して実行枠を取得し、1タスクを取得してレーンを末尾に戻してからタスクを実行する。
+     */
+    private void work() {
+
+        while (true) {
+
+            final Lane lane;
+
+            try {
+
+                lane = this.readyLanes.take();
+
+            } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+                return;
+
+            }
+
+            if (lane == FairShareExecutor.STOP) {
+
+                return;
+
+            }
+
+            // 上限に達している場合、レーンは待機状態となり実行枠が空いた時点で実行待ちに戻る
+            if (!lane.tryAcquire()) {
+
+                continue;
+
+            }
+
+            // タスクを取り出したらすぐにレーンを末尾に戻し、同じジョブの次のタスクも他のワーカーが実行できるようにする
+            final Runnable task = lane.tasks.poll();
+            lane.reschedule();
+
+            if (task == null) {
+
+                lane.release();
+                continue;
+
+            }
+
+            try {
+
+                task.run();
+
+            } catch (@SuppressWarnings("unused") final RuntimeException e) {
+
+                // タスクの例外は投入元がFutureTaskなどで受け取る。ワーカーは停止させない
+            } finally {
+
+                lane.release();
+                this.taskFinished();
+
+            }
+
+        }
+
+    }
+
+    /**
+     * タスクの終了を記録し、すべてのタスクが終了した場合は停止処理に通知する。
+     */
+    private void taskFinished() {
+
+        if (this.pendingTasks.decrementAndGet() > 0) {
+
+            return;
+
+        }
+
+        synchronized (this.pendingTasks) {
+
+            this.pendingTasks.notifyAll();
+
+        }
+
+    }
+
+    /**
+     * 1ジョブ分のタスクを保持するレーン。
+     */
+    private static final class Lane implements Executor {
+
+        /** 所属するスレッドプール */
+        private final FairShareExecutor owner;
+
+        /** 同時実行数の上限 */
+        private final ConcurrencyLimit[] limits;
+
+        /** 実行待ちのタスク */
+        private final Queue<Runnable> tasks;
+
+        /** 実行待ちのレーンに登録済み、または上限により待機中か */
+        private final AtomicBoolean scheduled;
+
+        /** 上限により待機中か */
+        private final AtomicBoolean parked;
+
+        /**
+         * レーンを作成する。
+         *
+         * @param owner
+         *               所属するスレッドプール
+         * @param limits
+         *               同時実行数の上限
+         */
+        Lane(final FairShareExecutor owner, final ConcurrencyLimit[] limits) {
+
+            this.owner = owner;
+            this.limits = limits;
+            this.tasks = new ConcurrentLinkedQueue<>();
+            this.scheduled = new AtomicBoolean();
+            this.parked = new AtomicBoolean();
+
+        }
+
+        /**
+         * タスクをレーンに投入する。
+         *
+         * @param task
+         *             タスク
+         */
+        @Override
+        public void execute(final Runnable task) {
+
+            if (this.owner.closed) {
+
+                throw new RejectedExecutionException("スレッドプールは停止しています。");
+
+            }
+
+            this.owner.pendingTasks.incrementAndGet();
+            this.tasks.add(task);
+
+            if (this.scheduled.compareAndSet(false, true)) {
+
+                this.owner.readyLanes.add(this);
+
+            }
+
+        }
+
+        /**
+         * すべての上限の実行枠を取得する。<br>
+         * 取得できない上限があった場合は取得済みの実行枠を解放し、その上限の実行枠が空くまでレーンを待機状態にする。
+         *
+         * @return すべての実行枠を取得できた場合true
+         */
+        boolean tryAcquire() {
+
+            for (int i = 0; i < this.limits.length; i++) {
+
+                if (this.limits[i].tryAcquire()) {
+
+                    continue;
+
+                }
+
+                for (int j = 0; j < i; j++) {
+
+                    this.limits[j].release();
+
+                }
+                this.park(this.limits[i]);
+                return false;
+
+            }
+            return true;
+
+        }
+
+        /**
+         * 取得した実行枠を解放する。
+         */
+        void release() {
+
+            for (final ConcurrencyLimit limit : this.limits) {
+
+                limit.release();
+
+            }
+
+        }
+
+        /**
+         * タスクの取り出し後に、タスクが残っていればレーンを実行待ちの末尾に戻す。
+         */
+        void reschedule() {
+
+            if (!this.tasks.isEmpty()) {
+
+                this.owner.readyLanes.add(this);
+                return;
+
+            }
+
+            this.scheduled.set(false);
+
+            // 登録解除の直前に投入されたタスクを取りこぼさないよう再確認する
+            if (!this.tasks.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+
+                this.owner.readyLanes.add(this);
+
+            }
+
+        }
+
+        /**
+         * 上限の実行枠が空くまでレーンを待機状態にする。
+         *
+         * @param limit
+         *              実行枠を取得できなかった上限
+         */
+        private void park(final ConcurrencyLimit limit) {
+
+            this.parked.set(true);
+            limit.addWaiter(this::unpark);
+
+            // 登録の直前に実行枠が空いた場合は取りこぼさないよう再確認する
+            if (limit.hasCapacity()) {
+
+                this.unpark();
+
+            }
+
+        }
+
+        /**
+         * 待機状態のレーンを実行待ちに戻す。
+         */
+        private void unpark() {
+
+            if (this.parked.compareAndSet(true, false)) {
+
+                this.owner.readyLanes.add(this);
+
+            }
+
+        }
+    }
+}
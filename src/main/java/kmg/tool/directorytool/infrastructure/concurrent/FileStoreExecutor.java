@@ -0,0 +1,225 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 1回の処理のタスクを、対象のファイルがあるファイルストア（デバイス）ごとのキューに振り分けるエグゼキュータ。<br>
+ * <p>
+ * ファイルストアごとにレーンを作成し、各レーンには処理ごと・操作モードごとの上限に加えてファイルストアの上限を設定する。<br>
+ * ファイルストアの上限は同じファイルストアを使用するすべての処理で共有するため、低速なネットワークマウントが上限に達しても
+ * ワーカーは他のファイルストアのタスクを実行し続け、低速なマウントは上限の範囲で処理が進む。
+ * </p>
+ * <p>
+ * ファイルストアの判定はディレクトリ単位で行い、デバイス番号ごとにキャッシュするため、ファイルごとのマウント情報の参照は発生しない。<br>
+ * {@link #execute(Path, Runnable)}はディレクトリを走査する1つのスレッドから呼び出すことを前提とする。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ * @see WorkerPool
+ */
+public class FileStoreExecutor implements Executor {
+
+    /** 所属するワーカープール */
+    private final WorkerPool workerPool;
+
+    /** ファイルストアに関係なく適用する上限 */
+    private final ConcurrencyLimit[] baseLimits;
+
+    /** ファイルストアが判定できないタスクのレーン */
+    private final Executor defaultLane;
+
+    /** ファイルストアごとのレーン */
+    private final Map<FileStore, Executor> lanes;
+
+    /** ディレクトリごとのファイルストア */
+    private final Map<Path, FileStore> directoryStores;
+
+    /** デバイス番号ごとのファイルストア */
+    private final Map<Object, FileStore> deviceStores;
+
+    /** デバイス番号（unix:dev）を取得できるか */
+    private boolean deviceSupported;
+
+    /**
+     * エグゼキュータを作成する。
+     *
+     * @param workerPool
+     *                   所属するワーカープール
+     * @param baseLimits
+     *                   ファイルストアに関係なく適用する上限
+     */
+    FileStoreExecutor(final WorkerPool workerPool, final ConcurrencyLimit... baseLimits) {
+
+        this.workerPool = workerPool;
+        this.baseLimits = baseLimits.clone();
+        this.defaultLane = workerPool.newLane(this.baseLimits);
+        this.lanes = new ConcurrentHashMap<>();
+        this.directoryStores = new HashMap<>();
+        this.deviceStores = new HashMap<>();
+        this.deviceSupported = true;
+
+    }
+
+    /**
+     * ファイルストアを判定せずにタスクを投入する。
+     *
+     * @param task
+     *             タスク
+     */
+    @Override
+    public void execute(final Runnable task) {
+
+        this.defaultLane.execute(task);
+
+    }
+
+    /**
+     * 対象のパスがあるファイルストアのキューにタスクを投入する。
+     *
+     * @param path
+     *             タスクの対象のパス
+     * @param task
+     *             タスク
+     */
+    public void execute(final Path path, final Runnable task) {
+
+        final FileStore store = this.getFileStore(path);
+
+        if (store == null) {
+
+            this.defaultLane.execute(task);
+            return;
+
+        }
+
+        this.lanes.computeIfAbsent(store, this::newLane).execute(task);
+
+    }
+
+    /**
+     * ファイルストアのレーンの数を返す。
+     *
+     * @return ファイルストアのレーンの数
+     */
+    public int getLaneCount() {
+
+        final int result = this.lanes.size();
+        return result;
+
+    }
+
+    /**
+     * ファイルストア用のレーンを作成する。
+     *
+     * @param store
+     *              ファイルストア
+     * @return レーン
+     */
+    private Executor newLane(final FileStore store) {
+
+        final ConcurrencyLimit storeLimit = this.workerPool.getStoreLimit(store);
+
+        if (storeLimit == null || Arrays.asList(this.baseLimits).contains(storeLimit)) {
+
+            final Executor result = this.workerPool.newLane(this.baseLimits);
+            return result;
+
+        }
+
+        final ConcurrencyLimit[] limits = Arrays.copyOf(this.baseLimits, this.baseLimits.length + 1);
+        limits[this.baseLimits.length] = storeLimit;
+
+        final Executor result = this.workerPool.newLane(limits);
+        return result;
+
+    }
+
+    /**
+     * パスの親ディレクトリのファイルストアを返す。<br>
+     * マウントポイントはディレクトリであり、その直下のファイルは同じファイルストアにあるため、親ディレクトリ単位で判定する。
+     *
+     * @param path
+     *             パス
+     * @return ファイルストア。判定できない場合はnull
+     */
+    private FileStore getFileStore(final Path path) {
+
+        final Path directory = path.getParent() != null ? path.getParent() : path;
+
+        FileStore result = this.directoryStores.get(directory);
+
+        if (result != null) {
+
+            return result;
+
+        }
+
+        try {
+
+            final Object device = this.getDevice(directory);
+            result = device != null ? this.deviceStores.get(device) : null;
+
+            if (result == null) {
+
+                result = Files.getFileStore(directory);
+
+                if (device != null) {
+
+                    this.deviceStores.put(device, result);
+
+                }
+
+            }
+
+        } catch (@SuppressWarnings("unused") final IOException e) {
+
+            return null;
+
+        }
+
+        this.directoryStores.put(directory, result);
+        return result;
+
+    }
+
+    /**
+     * ディレクトリのデバイス番号を返す。
+     *
+     * @param directory
+     *                  ディレクトリ
+     * @return デバイス番号。取得できない環境の場合はnull
+     * @throws IOException
+     *                     属性の取得に失敗した場合
+     */
+    private Object getDevice(final Path directory) throws IOException {
+
+        if (!this.deviceSupported) {
+
+            return null;
+
+        }
+
+        try {
+
+            final Object result = Files.getAttribute(directory, "unix:dev");
+            return result;
+
+        } catch (@SuppressWarnings("unused") final UnsupportedOperationException | IllegalArgumentException e) {
+
+            // UNIXの属性を扱えないファイルシステムでは、ディレクトリごとにファイルストアを判定する
+            this.deviceSupported = false;
+            return null;
+
+        }
+
+    }
+}
@@ -0,0 +1,167 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 制御ファイルを監視し、{@link ThroughputLimiter}の上限を実行中に変更するクラス。<br>
+ * <p>
+ * 制御ファイルはプロパティ形式で、次のキーを記述する。記述のないキーの上限は変更しない。
+ * </p>
+ *
+ * <pre>
+ * # 帯域（1秒あたり）。0は制限なし
+ * bandwidth=50MB
+ * # 1秒あたりのファイル操作数。0は制限なし
+ * iops=200
+ * </pre>
+ * <p>
+ * 制御ファイルの更新日時を一定の間隔で確認し、変更された場合に読み込む。<br>
+ * 値が不正な場合は警告を出力し、その時点の上限を維持する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class ThrottleControlFile implements AutoCloseable {
+
+    /** ロガー */
+    private static final Logger logger = LoggerFactory.getLogger(ThrottleControlFile.class);
+
+    /** 帯域のキー */
+    public static final String BANDWIDTH_KEY = "bandwidth";
+
+    /** ファイル操作数のキー */
+    public static final String IOPS_KEY = "iops";
+
+    /** 更新日時を確認する間隔（ミリ秒） */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    /** 制御ファイルのパス */
+    private final Path path;
+
+    /** 上限を変更するリミッタ */
+    private final ThroughputLimiter limiter;
+
+    /** 更新日時を確認するスレッド */
+    private final ScheduledExecutorService scheduler;
+
+    /** 最後に読み込んだ時点の更新日時 */
+    private FileTime lastModified;
+
+    /**
+     * 制御ファイルを読み込み、監視を開始する。
+     *
+     * @param path
+     *                制御ファイルのパス
+     * @param limiter
+     *                上限を変更するリミッタ
+     */
+    public ThrottleControlFile(final Path path, final ThroughputLimiter limiter) {
+
+        this.path = path;
+        this.limiter = limiter;
+        this.reloadIfModified();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+
+            final Thread thread = new Thread(task, "throttle-control-file");
+            thread.setDaemon(true);
+            return thread;
+
+        });
+        this.scheduler.scheduleWithFixedDelay(this::reloadIfModified, ThrottleControlFile.POLL_INTERVAL_MILLIS,
+                ThrottleControlFile.POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * 制御ファイルが前回の読み込みから変更されている場合は読み込み、リミッタの上限を変更する。
+     */
+    synchronized void reloadIfModified() {
+
+        final FileTime modified;
+
+        try {
+
+            modified = Files.getLastModifiedTime(this.path);
+
+        } catch (@SuppressWarnings("unused") final NoSuchFileException e) {
+
+            // 制御ファイルが作成されるまでは上限を変更しない
+            return;
+
+        } catch (final IOException e) {
+
+            ThrottleControlFile.logger.warn(String.format("制御ファイルの確認に失敗しました。: %s", this.path), e);
+            return;
+
+        }
+
+        if (modified.equals(this.lastModified)) {
+
+            return;
+
+        }
+        this.lastModified = modified;
+
+        final Properties properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(this.path, StandardCharsets.UTF_8)) {
+
+            properties.load(reader);
+
+        } catch (final IOException e) {
+
+            ThrottleControlFile.logger.warn(String.format("制御ファイルの読み込みに失敗しました。: %s", this.path), e);
+            return;
+
+        }
+
+        final String bandwidthValue = properties.getProperty(ThrottleControlFile.BANDWIDTH_KEY);
+        final String iopsValue      = properties.getProperty(ThrottleControlFile.IOPS_KEY);
+
+        final long bandwidth;
+        final long iops;
+
+        try {
+
+            bandwidth = bandwidthValue != null ? ThroughputLimiter.parseBandwidth(bandwidthValue)
+                    : this.limiter.getBandwidth();
+            iops = iopsValue != null ? Long.parseLong(iopsValue.strip()) : this.limiter.getOperationsPerSecond();
+
+        } catch (final IllegalArgumentException e) {
+
+            ThrottleControlFile.logger.warn("制御ファイルの値が不正なため、上限を変更しません。: {}: {}", this.path, e.getMessage());
+            return;
+
+        }
+
+        this.limiter.setBandwidth(bandwidth);
+        this.limiter.setOperationsPerSecond(iops);
+        ThrottleControlFile.logger.info("スループットの上限を変更しました。: 帯域={}バイト/秒, ファイル操作数={}/秒（0は制限なし）", bandwidth, iops);
+
+    }
+
+    /**
+     * 制御ファイルの監視を停止する。
+     */
+    @Override
+    public void close() {
+
+        this.scheduler.shutdownNow();
+
+    }
+}
@@ -0,0 +1,255 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * COPY/MOVEの帯域（バイト/秒）とファイル操作数（IOPS）を制限する、すべてのワーカーで共有するリミッタ。<br>
+ * <p>
+ * 帯域とファイル操作数はそれぞれ{@link TokenBucket}で制限し、上限は実行中に変更できる。<br>
+ * ファイル操作数は、ファイル1件のコピーまたは移動を1操作として数える。
+ * </p>
+ * <p>
+ * 帯域を制限する場合、ファイルは{@link #copy(Path, Path)}で一定のサイズのチャンクに分けてコピーし、
+ * チャンクごとにトークンを取得する。チャンクのコピーにはカーネル内での転送（{@link FileChannel#transferTo}）を使用する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+@Component
+public class ThroughputLimiter {
+
+    /** 帯域を制限する場合のチャンクの最大サイズ（バイト） */
+    private static final long MAX_CHUNK_SIZE = 1024 * 1024;
+
+    /** 帯域を制限する場合のチャンクの最小サイズ（バイト） */
+    private static final long MIN_CHUNK_SIZE = 16 * 1024;
+
+    /** 1秒あたりのチャンク数の目安。帯域が小さい場合はチャンクを小さくして待機を平準化する */
+    private static final long CHUNKS_PER_SECOND = 10;
+
+    /** 帯域（バイト/秒） */
+    private final TokenBucket bandwidth;
+
+    /** ファイル操作数（操作/秒） */
+    private final TokenBucket operations;
+
+    /**
+     * リミッタを作成する。
+     *
+     * @param bandwidth
+     *                           帯域（例: 50MB）。1秒あたりの量として扱う。0の場合は制限しない
+     * @param operationsPerSecond
+     *                           1秒あたりのファイル操作数。0以下の場合は制限しない
+     * @throws IllegalArgumentException
+     *                                  帯域の形式が不正な場合
+     */
+    public ThroughputLimiter(@Value("${directorytool.throttle.bandwidth:0}") final String bandwidth,
+            @Value("${directorytool.throttle.iops:0}") final long operationsPerSecond) {
+
+        this.bandwidth = new TokenBucket(ThroughputLimiter.parseBandwidth(bandwidth));
+        this.operations = new TokenBucket(operationsPerSecond);
+
+    }
+
+    /**
+     * 帯域の指定を1秒あたりのバイト数に変換する。
+     *
+     * @param value
+     *              帯域（例: 500KB, 50MB, 1GB, 1048576）
+     * @return 1秒あたりのバイト数
+     * @throws IllegalArgumentException
+     *                                  形式が不正な場合
+     */
+    public static long parseBandwidth(final String value) {
+
+        final long result = DataSize.parse(value.strip()).toBytes();
+
+        if (result < 0) {
+
+            throw new IllegalArgumentException(String.format("帯域は0以上で指定してください。: %s", value));
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 帯域を返す。
+     *
+     * @return 1秒あたりのバイト数。0の場合は制限しない
+     */
+    public long getBandwidth() {
+
+        final long result = this.bandwidth.getRate();
+        return result;
+
+    }
+
+    /**
+     * 帯域を変更する。
+     *
+     * @param bytesPerSecond
+     *                       1秒あたりのバイト数。0以下の場合は制限しない
+     */
+    public void setBandwidth(final long bytesPerSecond) {
+
+        this.bandwidth.setRate(bytesPerSecond);
+
+    }
+
+    /**
+     * ファイル操作数の上限を返す。
+     *
+     * @return 1秒あたりのファイル操作数。0の場合は制限しない
+     */
+    public long getOperationsPerSecond() {
+
+        final long result = this.operations.getRate();
+        return result;
+
+    }
+
+    /**
+     * ファイル操作数の上限を変更する。
+     *
+     * @param operationsPerSecond
+     *                            1秒あたりのファイル操作数。0以下の場合は制限しない
+     */
+    public void setOperationsPerSecond(final long operationsPerSecond) {
+
+        this.operations.setRate(operationsPerSecond);
+
+    }
+
+    /**
+     * 帯域を制限しているかを返す。
+     *
+     * @return 制限している場合true
+     */
+    public boolean isBandwidthLimited() {
+
+        final boolean result = this.bandwidth.getRate() > 0;
+        return result;
+
+    }
+
+    /**
+     * ファイル1件の操作の実行枠を取得する。上限に達している場合は待機する。
+     *
+     * @throws InterruptedIOException
+     *                                待機中に割り込まれた場合
+     */
+    public void acquireOperation() throws InterruptedIOException {
+
+        this.operations.acquire(1);
+
+    }
+
+    /**
+     * 指定されたバイト数の転送枠を取得する。上限に達している場合は待機する。
+     *
+     * @param bytes
+     *              転送するバイト数
+     * @throws InterruptedIOException
+     *                                待機中に割り込まれた場合
+     */
+    public void acquireBytes(final long bytes) throws InterruptedIOException {
+
+        this.bandwidth.acquire(bytes);
+
+    }
+
+    /**
+     * 帯域の上限に従ってファイルをコピーする。既存のファイルは上書きする。<br>
+     * ファイル操作の実行枠はこのメソッドでは取得しない。
+     *
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合、または待機中に割り込まれた場合
+     */
+    public void copy(final Path source, final Path target) throws IOException {
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            this.transfer(in, out, 0, in.size());
+
+        }
+
+    }
+
+    /**
+     * 帯域の上限に従って、ファイルの指定された領域をコピー先の同じ位置に転送する。
+     *
+     * @param in
+     *                 コピー元のチャネル
+     * @param out
+     *                 コピー先のチャネル
+     * @param position
+     *                 領域の開始位置
+     * @param length
+     *                 領域の長さ
+     * @throws IOException
+     *                     転送中にエラーが発生した場合、または待機中に割り込まれた場合
+     */
+    public void transfer(final FileChannel in, final FileChannel out, final long position, final long length)
+            throws IOException {
+
+        final long end     = position + length;
+        long       current = position;
+        out.position(position);
+
+        while (current < end) {
+
+            final long chunk = Math.min(this.getChunkSize(), end - current);
+            this.acquireBytes(chunk);
+
+            final long transferred = in.transferTo(current, chunk, out);
+
+            if (transferred <= 0) {
+
+                // 途中までのコピーを成功とみなさない
+                throw new IOException("コピー中にコピー元のファイルが切り詰められました。");
+
+            }
+            current += transferred;
+
+        }
+
+    }
+
+    /**
+     * 現在の帯域に応じたチャンクのサイズを返す。<br>
+     * チャンクごとに転送枠を取得してコピーする場合は、このサイズで分割する。
+     *
+     * @return チャンクのサイズ（バイト）
+     */
+    public long getChunkSize() {
+
+        final long rate = this.bandwidth.getRate();
+
+        if (rate <= 0) {
+
+            return ThroughputLimiter.MAX_CHUNK_SIZE;
+
+        }
+
+        final long result = Math.clamp(rate / ThroughputLimiter.CHUNKS_PER_SECOND, ThroughputLimiter.MIN_CHUNK_SIZE,
+                ThroughputLimiter.MAX_CHUNK_SIZE);
+        return result;
+
+    }
+}
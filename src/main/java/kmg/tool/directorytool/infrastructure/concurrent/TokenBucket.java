@@ -0,0 +1,157 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * トークンバケットによる流量の制限。<br>
+ * <p>
+ * 1秒あたりのレートでトークンを補充し、最大で1秒分のトークンを蓄積する。<br>
+ * 取得するトークンが不足する場合は、不足分を前借りして補充されるまで呼び出し元を待機させる。
+ * そのため、バケットの容量より大きな量も1回で取得でき、後続の呼び出しは前借りの分だけ長く待機する。
+ * </p>
+ * <p>
+ * レートは実行中に変更できる。レートが0以下の場合は制限しない。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class TokenBucket {
+
+    /** 1秒のナノ秒数 */
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** 1秒あたりのレート。0以下の場合は制限しない */
+    private long rate;
+
+    /** 蓄積しているトークン。負の場合は前借りしている量 */
+    private double tokens;
+
+    /** 最後にトークンを補充した時刻（ナノ秒） */
+    private long lastRefillNanos;
+
+    /**
+     * トークンバケットを作成する。
+     *
+     * @param rate
+     *             1秒あたりのレート。0以下の場合は制限しない
+     */
+    public TokenBucket(final long rate) {
+
+        this.rate = Math.max(0, rate);
+        this.tokens = this.rate;
+        this.lastRefillNanos = System.nanoTime();
+
+    }
+
+    /**
+     * 1秒あたりのレートを返す。
+     *
+     * @return 1秒あたりのレート。0の場合は制限しない
+     */
+    public synchronized long getRate() {
+
+        final long result = this.rate;
+        return result;
+
+    }
+
+    /**
+     * 1秒あたりのレートを変更する。<br>
+     * 蓄積しているトークンは新しいレートの1秒分を上限とする。
+     *
+     * @param newRate
+     *                1秒あたりのレート。0以下の場合は制限しない
+     */
+    public synchronized void setRate(final long newRate) {
+
+        this.refill(System.nanoTime());
+        this.rate = Math.max(0, newRate);
+        this.tokens = Math.min(this.tokens, this.rate);
+
+    }
+
+    /**
+     * 指定された量のトークンを取得する。不足する場合は補充されるまで待機する。
+     *
+     * @param amount
+     *               取得する量
+     * @throws InterruptedIOException
+     *                                待機中に割り込まれた場合
+     */
+    public void acquire(final long amount) throws InterruptedIOException {
+
+        final long waitNanos = this.reserve(amount);
+
+        if (waitNanos <= 0) {
+
+            return;
+
+        }
+
+        try {
+
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+
+        } catch (final InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            final InterruptedIOException exception = new InterruptedIOException("流量の制限の待機中に割り込まれました。");
+            exception.initCause(e);
+            throw exception;
+
+        }
+
+    }
+
+    /**
+     * 指定された量のトークンを前借りを含めて確保し、確保した量が補充されるまでの待機時間を返す。
+     *
+     * @param amount
+     *               確保する量
+     * @return 待機時間（ナノ秒）。待機が不要な場合は0
+     */
+    synchronized long reserve(final long amount) {
+
+        if (this.rate <= 0) {
+
+            return 0;
+
+        }
+
+        this.refill(System.nanoTime());
+        this.tokens -= amount;
+
+        if (this.tokens >= 0) {
+
+            return 0;
+
+        }
+
+        final long result = (long) ((-this.tokens * TokenBucket.NANOS_PER_SECOND) / this.rate);
+        return result;
+
+    }
+
+    /**
+     * 経過時間に応じてトークンを補充する。
+     *
+     * @param nowNanos
+     *                 現在の時刻（ナノ秒）
+     */
+    private void refill(final long nowNanos) {
+
+        final long elapsed = nowNanos - this.lastRefillNanos;
+        this.lastRefillNanos = nowNanos;
+
+        if (this.rate <= 0) {
+
+            return;
+
+        }
+
+        this.tokens = Math.min(this.rate, this.tokens + ((double) elapsed * this.rate) / TokenBucket.NANOS_PER_SECOND);
+
+    }
+}
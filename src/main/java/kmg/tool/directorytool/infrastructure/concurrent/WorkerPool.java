@@ -0,0 +1,244 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+
+/**
+ * プロセス内のすべてのディレクトリ操作で共有する、長期間利用するワーカープール。<br>
+ * <p>
+ * 処理ごとにスレッドプールを作成・破棄せず、同じワーカースレッドを繰り返し使用する。<br>
+ * ワーカーは{@link FairShareExecutor}で管理し、処理ごとに{@link #newExecutor(OperationModeTypes, int, Path)}で取得したエグゼキュータは
+ * ファイルストアごとのレーンにタスクを投入する。ワーカーはレーンを順番に巡回するため、同時に実行される処理の間、
+ * およびファイルストアの間でワーカーは公平に割り当てられる。
+ * </p>
+ * <p>
+ * 同時に実行するタスクの数は、次の上限で制限する。上限に達したレーンは待機し、ワーカーは他のレーンのタスクを実行する。
+ * </p>
+ * <ul>
+ * <li>処理ごとの上限: 1回の処理の同時実行数（--thread-pool-size）。不足する場合はワーカーを追加する
+ * <li>操作モードごとの上限: 同じ操作モードのすべての処理の合計（directorytool.worker-pool.copy-limitなど）
+ * <li>ファイルストアごとの上限: 同じファイルストアを使用するすべての処理の合計。ネットワークファイルシステムとローカルで別に指定する
+ * </ul>
+ * <p>
+ * Springのコンテキストの終了時に、投入済みのタスクをすべて実行してからワーカーを停止する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ * @see FileStoreExecutor
+ */
+@Component
+public class WorkerPool implements AutoCloseable {
+
+    /** ネットワークファイルシステムのファイルストアごとの同時実行数の上限のデフォルト値 */
+    public static final int DEFAULT_NETWORK_STORE_LIMIT = 2;
+
+    /** ネットワークファイルシステムとして扱うファイルストアの種類 */
+    private static final Set<String> NETWORK_STORE_TYPES = Set.of("nfs", "nfs4", "cifs", "smb", "smb2", "smb3", "smbfs",
+            "fuse.sshfs", "sshfs", "9p", "afs", "ceph", "fuse.ceph", "glusterfs", "fuse.glusterfs", "lustre", "davfs",
+            "fuse.davfs2");
+
+    /** ワーカー */
+    private final FairShareExecutor workers;
+
+    /** 操作モードごとの同時実行数の上限 */
+    private final Map<OperationModeTypes, ConcurrencyLimit> operationLimits;
+
+    /** ローカルのファイルストアごとの同時実行数の上限。0以下の場合は上限なし */
+    private final int localStoreLimit;
+
+    /** ネットワークファイルシステムのファイルストアごとの同時実行数の上限。0以下の場合は上限なし */
+    private final int networkStoreLimit;
+
+    /** ファイルストアごとの同時実行数の上限。上限がない場合は空 */
+    private final ConcurrentMap<FileStore, Optional<ConcurrencyLimit>> storeLimits;
+
+    /**
+     * ワーカープールを開始する。
+     *
+     * @param poolSize
+     *                          初期のワーカー数。0以下の場合は利用可能なCPUの論理コア数
+     * @param copyLimit
+     *                          コピーの同時実行数の上限。0以下の場合は上限なし
+     * @param moveLimit
+     *                          移動の同時実行数の上限。0以下の場合は上限なし
+     * @param diffLimit
+     *                          差分比較の同時実行数の上限。0以下の場合は上限なし
+     * @param localStoreLimit
+     *                          ローカルのファイルストアごとの同時実行数の上限。0以下の場合は上限なし
+     * @param networkStoreLimit
+     *                          ネットワークファイルシステムのファイルストアごとの同時実行数の上限。0以下の場合は上限なし
+     */
+    public WorkerPool(@Value("${directorytool.worker-pool.size:0}") final int poolSize,
+            @Value("${directorytool.worker-pool.copy-limit:0}") final int copyLimit,
+            @Value("${directorytool.worker-pool.move-limit:0}") final int moveLimit,
+            @Value("${directorytool.worker-pool.diff-limit:0}") final int diffLimit,
+            @Value("${directorytool.worker-pool.local-store-limit:0}") final int localStoreLimit,
+            @Value("${directorytool.worker-pool.network-store-limit:"
+                    + WorkerPool.DEFAULT_NETWORK_STORE_LIMIT + "}") final int networkStoreLimit) {
+
+        this.workers = new FairShareExecutor(poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors());
+        this.operationLimits = new EnumMap<>(OperationModeTypes.class);
+        WorkerPool.putLimit(this.operationLimits, OperationModeTypes.COPY, copyLimit);
+        WorkerPool.putLimit(this.operationLimits, OperationModeTypes.MOVE, moveLimit);
+        WorkerPool.putLimit(this.operationLimits, OperationModeTypes.DIFF, diffLimit);
+        this.localStoreLimit = localStoreLimit;
+        this.networkStoreLimit = networkStoreLimit;
+        this.storeLimits = new ConcurrentHashMap<>();
+
+    }
+
+    /**
+     * 1回の処理のタスクを実行するエグゼキュータを作成する。<br>
+     * ワーカー数が処理ごとの上限に満たない場合は、ワーカーを追加する。<br>
+     * ターゲットディレクトリのファイルストアに上限がある場合は、すべてのタスクにその上限を適用する。
+     *
+     * @param operationMode
+     *                       操作モードの種類
+     * @param maxConcurrency
+     *                       この処理の同時実行数の上限
+     * @param destination
+     *                       ターゲットディレクトリ。nullの場合はターゲットのファイルストアの上限を適用しない
+     * @return 処理のタスクを実行するエグゼキュータ
+     * @throws RejectedExecutionException
+     *                                    ワーカープールが停止している場合
+     */
+    public FileStoreExecutor newExecutor(final OperationModeTypes operationMode, final int maxConcurrency,
+            final Path destination) {
+
+        this.workers.ensureWorkerCount(maxConcurrency);
+
+        final List<ConcurrencyLimit> limits = new ArrayList<>();
+        limits.add(new ConcurrencyLimit(maxConcurrency));
+
+        final ConcurrencyLimit operationLimit = this.operationLimits.get(operationMode);
+
+        if (operationLimit != null) {
+
+            limits.add(operationLimit);
+
+        }
+
+        if (destination != null) {
+
+            try {
+
+                final ConcurrencyLimit destinationLimit = this.getStoreLimit(Files.getFileStore(destination));
+
+                if (destinationLimit != null) {
+
+                    limits.add(destinationLimit);
+
+                }
+
+            } catch (@SuppressWarnings("unused") final IOException e) {
+
+                // ファイルストアを判定できない場合は上限を適用しない
+            }
+
+        }
+
+        final FileStoreExecutor result = new FileStoreExecutor(this, limits.toArray(ConcurrencyLimit[]::new));
+        return result;
+
+    }
+
+    /**
+     * ワーカー数を返す。
+     *
+     * @return ワーカー数
+     */
+    public int getWorkerCount() {
+
+        final int result = this.workers.getWorkerCount();
+        return result;
+
+    }
+
+    /**
+     * 投入済みのタスクをすべて実行してからワーカーを停止する。
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+
+        this.workers.close();
+
+    }
+
+    /**
+     * ファイルストアの同時実行数の上限を返す。<br>
+     * 上限は同じファイルストアを使用するすべての処理で共有する。
+     *
+     * @param store
+     *              ファイルストア
+     * @return 同時実行数の上限。上限がない場合はnull
+     */
+    ConcurrencyLimit getStoreLimit(final FileStore store) {
+
+        final ConcurrencyLimit result = this.storeLimits.computeIfAbsent(store, key -> {
+
+            final int limit = WorkerPool.NETWORK_STORE_TYPES.contains(key.type()) ? this.networkStoreLimit
+                    : this.localStoreLimit;
+            return limit > 0 ? Optional.of(new ConcurrencyLimit(limit)) : Optional.empty();
+
+        }).orElse(null);
+        return result;
+
+    }
+
+    /**
+     * 上限を設定したレーンを作成する。
+     *
+     * @param limits
+     *               同時実行数の上限
+     * @return レーン
+     */
+    Executor newLane(final ConcurrencyLimit... limits) {
+
+        final Executor result = this.workers.newLane(limits);
+        return result;
+
+    }
+
+    /**
+     * 上限が指定されている場合のみ、操作モードの同時実行数の上限を登録する。
+     *
+     * @param limits
+     *                      操作モードごとの同時実行数の上限
+     * @param operationMode
+     *                      操作モードの種類
+     * @param limit
+     *                      同時実行数の上限。0以下の場合は上限なし
+     */
+    private static void putLimit(final Map<OperationModeTypes, ConcurrencyLimit> limits,
+            final OperationModeTypes operationMode, final int limit) {
+
+        if (limit <= 0) {
+
+            return;
+
+        }
+
+        limits.put(operationMode, new ConcurrencyLimit(limit));
+
+    }
+}
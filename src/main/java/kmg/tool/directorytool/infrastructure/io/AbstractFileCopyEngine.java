@@ -0,0 +1,240 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * 事前割り当てとスパースファイルに対応したコピーエンジンの基底クラス。<br>
+ * <p>
+ * {@value #LAYOUT_THRESHOLD}バイト以上のファイルは、ネイティブなファイル操作（{@link NativeIo}）を使用できる場合、次の手順でコピーする。
+ * </p>
+ * <ol>
+ * <li>statxでソースのサイズ、割り当て済みのサイズ、パーミッションを1回で取得する
+ * <li>割り当て済みのサイズがファイルサイズより小さい場合のみ、SEEK_DATA/SEEK_HOLEでソースのデータ領域を列挙する
+ * <li>コピー先のデータ領域をfallocateで事前に割り当て、最終的なサイズに設定する。ホールは割り当てない
+ * <li>データ領域のみを{@link #copyRegions(Path, Path, List, ThroughputLimiter)}でコピーし、ソースのページキャッシュを解放する
+ * <li>書き込みのために付けた所有者の書き込み権限を、ソースのパーミッションにない場合は外す
+ * </ol>
+ * <p>
+ * 事前割り当てによりコピー先のファイルの断片化を防ぎ、空き容量の不足をコピーの開始時に検出できる。<br>
+ * スパースファイル（仮想マシンのイメージなど）は論理サイズではなく割り当て済みのサイズの分だけ読み書きし、コピー先もスパースファイルとなる。
+ * </p>
+ * <p>
+ * 小さいファイル、またはネイティブなファイル操作を使用できない環境では、{@link #copyFile(Path, Path, ThroughputLimiter)}でファイル全体をコピーする。
+ * </p>
+ * <p>
+ * キャッシュ保護モードでは、データ領域を{@value #HYGIENE_CHUNK_SIZE}バイトのチャンクに分けてコピーし、
+ * チャンクごとに{@link PageCacheHygiene}でソースとコピー先のページキャッシュを解放し、コピー先の書き戻しを一定量ごとに完了させる。
+ * 小さいファイルはコピー後にまとめて解放する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public abstract class AbstractFileCopyEngine implements FileCopyEngine {
+
+    /** 事前割り当てとホールの検出を行うファイルサイズの下限（1MB） */
+    public static final long LAYOUT_THRESHOLD = 1024 * 1024;
+
+    /** キャッシュ保護モードでページキャッシュを解放するチャンクのサイズ（8MB） */
+    public static final long HYGIENE_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    /** キャッシュ保護モードか */
+    private final boolean cacheHygiene;
+
+    /**
+     * コピーエンジンを作成する。
+     *
+     * @param cacheHygiene
+     *                     キャッシュ保護モードの場合true
+     */
+    protected AbstractFileCopyEngine(final boolean cacheHygiene) {
+
+        this.cacheHygiene = cacheHygiene;
+
+    }
+
+    /**
+     * キャッシュ保護モードかを返す。
+     *
+     * @return キャッシュ保護モードの場合true
+     */
+    public boolean isCacheHygiene() {
+
+        final boolean result = this.cacheHygiene;
+        return result;
+
+    }
+
+    /**
+     * ファイルをコピーする。既存のファイルは上書きする。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    @Override
+    public void copy(final Path source, final Path target, final ThroughputLimiter limiter) throws IOException {
+
+        if (!NativeIo.isAvailable()) {
+
+            this.copyFile(source, target, limiter);
+            return;
+
+        }
+
+        final NativeIo.FileStatus status = NativeIo.stat(source);
+
+        if (status == null) {
+
+            throw new NoSuchFileException(source.toString());
+
+        }
+
+        final long size = status.size();
+
+        if (size < AbstractFileCopyEngine.LAYOUT_THRESHOLD) {
+
+            this.copyFile(source, target, limiter);
+
+            if (this.cacheHygiene) {
+
+                NativeIo.releaseCache(source, target);
+
+            }
+            return;
+
+        }
+
+        // すべてのブロックが割り当て済みの場合はホールがないため、データ領域の列挙を省略する
+        final List<NativeIo.Region> regions = status.allocatedSize() >= size ? List.of(new NativeIo.Region(0, size))
+                : NativeIo.dataRegions(source, size);
+        NativeIo.prepareTarget(target, regions, size, status.mode());
+        this.copyRegions(source, target, regions, limiter);
+        NativeIo.restoreMode(target, status.mode());
+
+    }
+
+    /**
+     * データ領域をコピー先の同じ位置にコピーする。ページキャッシュの保護を指定した場合は、チャンクごとにページキャッシュを解放する。<br>
+     * コピー先は事前割り当て済みで、最終的なサイズに設定されている。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param regions
+     *                コピーするデータ領域
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    protected void copyRegions(final Path source, final Path target, final List<NativeIo.Region> regions,
+            final ThroughputLimiter limiter) throws IOException {
+
+        if (this.cacheHygiene) {
+
+            this.copyRegionsWithHygiene(source, target, regions, limiter);
+            return;
+
+        }
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+
+            for (final NativeIo.Region region : regions) {
+
+                this.copyRegion(in, out, region.position(), region.length(), limiter);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * データ領域をチャンクに分けてコピーし、チャンクごとにソースとコピー先のページキャッシュを解放する。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param regions
+     *                コピーするデータ領域
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中、または書き戻し中にエラーが発生した場合
+     */
+    private void copyRegionsWithHygiene(final Path source, final Path target, final List<NativeIo.Region> regions,
+            final ThroughputLimiter limiter) throws IOException {
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE);
+                PageCacheHygiene hygiene = NativeIo.openPageCacheHygiene(source, target)) {
+
+            for (final NativeIo.Region region : regions) {
+
+                final long end      = region.position() + region.length();
+                long       position = region.position();
+
+                while (position < end) {
+
+                    final long length = Math.min(AbstractFileCopyEngine.HYGIENE_CHUNK_SIZE, end - position);
+                    this.copyRegion(in, out, position, length, limiter);
+                    hygiene.release(position, length);
+                    position += length;
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * ファイル全体をコピーする。既存のファイルは上書きする。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    protected abstract void copyFile(Path source, Path target, ThroughputLimiter limiter) throws IOException;
+
+    /**
+     * ファイルの指定された領域を、コピー先の同じ位置にコピーする。
+     *
+     * @param in
+     *                 コピー元のチャネル
+     * @param out
+     *                 コピー先のチャネル
+     * @param position
+     *                 領域の開始位置
+     * @param length
+     *                 領域の長さ
+     * @param limiter
+     *                 帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    protected abstract void copyRegion(FileChannel in, FileChannel out, long position, long length,
+            ThroughputLimiter limiter) throws IOException;
+}
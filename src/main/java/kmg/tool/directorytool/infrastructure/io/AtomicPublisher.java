@@ -0,0 +1,194 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * コピー先のファイルを一時ファイルに書き込んだ後、名前の変更で公開するクラス。<br>
+ * <p>
+ * 一時ファイルはコピー先と同じディレクトリの隠しファイル（{@value #TEMPORARY_PREFIX}＋ファイル名＋{@value #TEMPORARY_SUFFIX}）とし、
+ * 書き込みの完了後に{@link StandardCopyOption#ATOMIC_MOVE}でコピー先の名前に変更する。
+ * 同じファイルシステム内の名前の変更は原子的であるため、コピー先を読む側には、以前の内容か完全な新しい内容のどちらかのみが見える。
+ * </p>
+ * <p>
+ * メタデータの操作を増やさないよう、一時ファイルの名前はコピー先から一意に決め、存在の確認や一意な名前の探索を行わない。
+ * 名前の変更は、事前の属性の取得を伴わない1回のrenameとなる。<br>
+ * 中断した処理の一時ファイルは、同じファイルを再度コピーすると上書きされ、残ったものは{@link #cleanUp(Path)}で削除する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class AtomicPublisher {
+
+    /** ロガー */
+    private static final Logger logger = LoggerFactory.getLogger(AtomicPublisher.class);
+
+    /** 一時ファイルの名前の接頭辞 */
+    public static final String TEMPORARY_PREFIX = ".directorytool-";
+
+    /** 一時ファイルの名前の接尾辞 */
+    public static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /** 一時ファイルの名前にそのまま使用するファイル名の最大の長さ。ファイル名の上限（255バイト）を超えないようにする */
+    private static final int MAX_NAME_LENGTH = 64;
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private AtomicPublisher() {
+
+        // 処理なし
+    }
+
+    /**
+     * コピー先に対応する一時ファイルのパスを返す。<br>
+     * 長いファイル名は、先頭の一部とファイル名のハッシュ値で一時ファイルの名前を作成する。
+     *
+     * @param target
+     *               コピー先のファイル
+     * @return 一時ファイルのパス
+     */
+    public static Path temporaryPath(final Path target) {
+
+        final String name = target.getFileName().toString();
+        final String base = name.length() <= AtomicPublisher.MAX_NAME_LENGTH ? name
+                : name.substring(0, AtomicPublisher.MAX_NAME_LENGTH) + '-' + Integer.toHexString(name.hashCode());
+
+        final Path result = target.resolveSibling(AtomicPublisher.TEMPORARY_PREFIX + base
+                + AtomicPublisher.TEMPORARY_SUFFIX);
+        return result;
+
+    }
+
+    /**
+     * 指定されたパスが一時ファイルであるかを判定する。
+     *
+     * @param path
+     *             判定対象のパス
+     * @return 一時ファイルの場合true
+     */
+    public static boolean isTemporaryFile(final Path path) {
+
+        final Path fileName = path.getFileName();
+
+        final boolean result = (fileName != null) && fileName.toString().startsWith(AtomicPublisher.TEMPORARY_PREFIX)
+                && fileName.toString().endsWith(AtomicPublisher.TEMPORARY_SUFFIX);
+        return result;
+
+    }
+
+    /**
+     * 書き込みが完了した一時ファイルを、コピー先の名前に原子的に変更する。既存のコピー先は置き換える。
+     *
+     * @param temporary
+     *                  一時ファイル
+     * @param target
+     *                  コピー先のファイル
+     * @throws IOException
+     *                     名前の変更に失敗した場合。一時ファイルは削除する
+     */
+    public static void publish(final Path temporary, final Path target) throws IOException {
+
+        try {
+
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (final IOException e) {
+
+            AtomicPublisher.discard(temporary, e);
+            throw e;
+
+        }
+
+    }
+
+    /**
+     * 書き込みに失敗した一時ファイルを削除する。削除の失敗は元の例外に追加する。
+     *
+     * @param temporary
+     *                  一時ファイル
+     * @param cause
+     *                  書き込みまたは名前の変更の失敗
+     */
+    public static void discard(final Path temporary, final IOException cause) {
+
+        try {
+
+            Files.deleteIfExists(temporary);
+
+        } catch (final IOException e) {
+
+            cause.addSuppressed(e);
+
+        }
+
+    }
+
+    /**
+     * ディレクトリ内に残った一時ファイルをすべて削除する。<br>
+     * ディレクトリ全体を走査するため、前回の処理が中断した場合のみ呼び出す。
+     *
+     * @param root
+     *             ルートディレクトリ
+     * @return 削除した一時ファイル数
+     * @throws IOException
+     *                     走査または削除に失敗した場合
+     */
+    public static int cleanUp(final Path root) throws IOException {
+
+        final int result = AtomicPublisher.cleanUp(root, Integer.MAX_VALUE, path -> true);
+        return result;
+
+    }
+
+    /**
+     * ディレクトリ内の指定された範囲に残った一時ファイルを削除する。<br>
+     * 同じディレクトリを並行して処理する他のプロセスの一時ファイルを削除しないよう、処理の範囲に限定して使用する。
+     *
+     * @param root
+     *                 ルートディレクトリ
+     * @param maxDepth
+     *                 走査の深さの上限
+     * @param scope
+     *                 ルートからの相対パスを受け取り、削除の対象とする場合にtrueを返す条件
+     * @return 削除した一時ファイル数
+     * @throws IOException
+     *                     走査または削除に失敗した場合
+     */
+    public static int cleanUp(final Path root, final int maxDepth, final Predicate<Path> scope) throws IOException {
+
+        final List<Path> temporaries;
+
+        try (Stream<Path> stream = Files.walk(root, maxDepth)) {
+
+            temporaries = stream.filter(AtomicPublisher::isTemporaryFile).filter(path -> scope.test(root.relativize(path)))
+                    .filter(Files::isRegularFile).toList();
+
+        }
+
+        for (final Path temporary : temporaries) {
+
+            Files.deleteIfExists(temporary);
+
+        }
+
+        if (!temporaries.isEmpty()) {
+
+            AtomicPublisher.logger.info("前回の処理で残った一時ファイルを{}件削除しました。: {}", temporaries.size(), root);
+
+        }
+
+        final int result = temporaries.size();
+        return result;
+
+    }
+}
@@ -0,0 +1,502 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kmg.tool.directorytool.domain.model.DiffEntry;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
+
+/**
+ * 差分レポートをファイルに逐次出力するクラス。<br>
+ * <p>
+ * 比較ワーカーはキューに差分を投入するだけで、ファイルへの書き込みは専用の書き込みスレッド1つが行う。<br>
+ * そのため、レポート出力によって比較ワーカーがファイルI/Oを待つことはない。
+ * キューは{@link #QUEUE_CAPACITY}件までに制限し、書き込みが追いつかない場合は比較ワーカーを待たせてメモリの使用量を抑える。
+ * </p>
+ * <p>
+ * 書き込みに失敗した場合、書き込みスレッドは残りの差分を破棄しながらキューを空にし、以降の{@link #write(DiffEntry)}は例外をスローする。<br>
+ * 書き込みスレッドが割り込みなどで終了した場合に投入と終了が待ち続けないよう、キューへの投入は{@value #OFFER_INTERVAL_MILLIS}ミリ秒ごとに
+ * 書き込みスレッドの状態を確認しながら待つ。
+ * </p>
+ * <p>
+ * 出力形式は{@link ReportFormatTypes}で指定する。
+ * </p>
+ * <ul>
+ * <li>JSONL: {"category":"content-diff","path":"a/b.txt","type":"file","sourceSize":1,"sourceMtime":"...",...}
+ * <li>CSV: category,path,type,source_size,source_mtime,target_size,target_mtime
+ * </ul>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class DiffReportWriter implements AutoCloseable {
+
+    /** 書き込みの終了を表す番兵 */
+    private static final DiffEntry END = new DiffEntry(null, null, false, null, null, null, null);
+
+    /** 書き込み待ちの差分の上限件数 */
+    private static final int QUEUE_CAPACITY = 8192;
+
+    /** キューの空きを待つ間に書き込みスレッドの状態を確認する間隔（ミリ秒） */
+    private static final long OFFER_INTERVAL_MILLIS = 100;
+
+    /** CSVのヘッダ行 */
+    private static final String CSV_HEADER = "category,path,type,source_size,source_mtime,target_size,target_mtime";
+
+    /** 出力形式 */
+    private final ReportFormatTypes format;
+
+    /** 書き込み待ちの差分 */
+    private final BlockingQueue<DiffEntry> queue;
+
+    /** 出力先 */
+    private final BufferedWriter writer;
+
+    /** 書き込みスレッド */
+    private final Thread writerThread;
+
+    /** 受け付けた差分の件数 */
+    private final AtomicLong count;
+
+    /** 書き込みスレッドで発生した例外 */
+    private volatile IOException failure;
+
+    /**
+     * 差分レポートの出力を開始する。
+     *
+     * @param file
+     *               出力先のファイル。既に存在する場合は上書きする
+     * @param format
+     *               出力形式
+     * @throws IOException
+     *                     出力先のファイルを開けない場合
+     */
+    public DiffReportWriter(final Path file, final ReportFormatTypes format) throws IOException {
+
+        this.format = format;
+        this.queue = new ArrayBlockingQueue<>(DiffReportWriter.QUEUE_CAPACITY);
+        this.count = new AtomicLong();
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+
+        if (format == ReportFormatTypes.CSV) {
+
+            this.writer.write(DiffReportWriter.CSV_HEADER);
+            this.writer.newLine();
+
+        }
+
+        this.writerThread = Thread.ofPlatform().name("diff-report-writer-" + file.getFileName()).daemon()
+                .start(this::drain);
+
+    }
+
+    /**
+     * シャードごとに出力した差分レポートを1つのレポートに結合する。<br>
+     * <p>
+     * シャードはソースの最上位のエントリを重複なく分担するため、各レポートの差分は重複しない。
+     * 差分の行はそのまま連結し、CSVのヘッダ行は先頭に1行のみ出力する。差分の順序はシャードの順序のままとする。
+     * </p>
+     *
+     * @param parts
+     *               結合するレポート
+     * @param output
+     *               出力先のファイル。既に存在する場合は上書きする
+     * @param format
+     *               レポートの形式。結合するレポートはすべて同じ形式であること
+     * @return 結合した差分の件数
+     * @throws IOException
+     *                     レポートの読み込み、または出力に失敗した場合。CSVのヘッダ行が一致しない場合
+     */
+    public static long merge(final List<Path> parts, final Path output, final ReportFormatTypes format)
+            throws IOException {
+
+        long count = 0;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+
+            if (format == ReportFormatTypes.CSV) {
+
+                writer.write(DiffReportWriter.CSV_HEADER);
+                writer.newLine();
+
+            }
+
+            for (final Path part : parts) {
+
+                try (BufferedReader reader = Files.newBufferedReader(part, StandardCharsets.UTF_8)) {
+
+                    if ((format == ReportFormatTypes.CSV) && !DiffReportWriter.CSV_HEADER.equals(reader.readLine())) {
+
+                        throw new IOException(String.format("CSVの差分レポートではありません。: %s", part));
+
+                    }
+
+                    String line;
+
+                    while ((line = reader.readLine()) != null) {
+
+                        writer.write(line);
+                        writer.newLine();
+                        count++;
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        final long result = count;
+        return result;
+
+    }
+
+    /**
+     * 差分を出力キューに投入する。<br>
+     * <p>
+     * 書き込みは非同期に行われる。キューが上限に達している場合は空きができるまで待つ。
+     * </p>
+     *
+     * @param entry
+     *              差分
+     * @throws UncheckedIOException
+     *                              書き込みに失敗している場合、書き込みスレッドが終了している場合、または投入の待機中に割り込まれた場合
+     */
+    public void write(final DiffEntry entry) {
+
+        if (this.failure != null) {
+
+            throw new UncheckedIOException("差分レポートの書き込みに失敗しています。", this.failure);
+
+        }
+
+        try {
+
+            if (!this.enqueue(entry)) {
+
+                throw new UncheckedIOException(this.getTerminationCause());
+
+            }
+
+        } catch (final InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("差分レポートへの投入が中断されました。", e));
+
+        }
+        this.count.incrementAndGet();
+
+    }
+
+    /**
+     * 受け付けた差分の件数を返す。
+     *
+     * @return 差分の件数
+     */
+    public long getCount() {
+
+        final long result = this.count.get();
+        return result;
+
+    }
+
+    /**
+     * 投入済みの差分をすべて書き込んでから出力を終了する。<br>
+     * 書き込みスレッドが既に終了している場合は、終了の番兵を投入せずに出力を閉じる。
+     *
+     * @throws IOException
+     *                     書き込みに失敗した場合、書き込みスレッドが途中で終了していた場合、または終了待ちが中断された場合
+     */
+    @Override
+    public void close() throws IOException {
+
+        final boolean accepted;
+
+        try {
+
+            accepted = this.enqueue(DiffReportWriter.END);
+            this.writerThread.join();
+
+        } catch (final InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IOException("差分レポートの書き込み終了待ちが中断されました。", e);
+
+        } finally {
+
+            this.writer.close();
+
+        }
+
+        if (!accepted) {
+
+            throw this.getTerminationCause();
+
+        }
+
+        if (this.failure != null) {
+
+            throw this.failure;
+
+        }
+
+    }
+
+    /**
+     * 書き込みスレッドが動作している間、キューに空きができるまで待って投入する。
+     *
+     * @param entry
+     *              差分または終了の番兵
+     * @return 投入した場合true。書き込みスレッドが終了しているため投入しなかった場合false
+     * @throws InterruptedException
+     *                              待機中に割り込まれた場合
+     */
+    private boolean enqueue(final DiffEntry entry) throws InterruptedException {
+
+        while (!this.queue.offer(entry, DiffReportWriter.OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+
+            if (!this.writerThread.isAlive()) {
+
+                return false;
+
+            }
+
+        }
+        return true;
+
+    }
+
+    /**
+     * 書き込みスレッドが終了した原因を返す。
+     *
+     * @return 書き込みスレッドで発生した例外。記録されていない場合は終了を表す例外
+     */
+    private IOException getTerminationCause() {
+
+        final IOException result = this.failure != null ? this.failure
+                : new IOException("差分レポートの書き込みスレッドが終了しています。");
+        return result;
+
+    }
+
+    /**
+     * 書き込みスレッドの処理。キューから差分を取り出して書き込む。<br>
+     * <p>
+     * 書き込みに失敗した場合も終了の番兵まで取り出しを続け、残りの差分は破棄する。
+     * 途中で終了すると、キューに空きを待つ比較ワーカーが待ち続けるためである。
+     * </p>
+     */
+    private void drain() {
+
+        DiffEntry entry;
+
+        try {
+
+            while ((entry = this.queue.take()) != DiffReportWriter.END) {
+
+                if (this.failure != null) {
+
+                    continue;
+
+                }
+
+                try {
+
+                    this.writer.write(this.format == ReportFormatTypes.CSV ? DiffReportWriter.toCsv(entry)
+                            : DiffReportWriter.toJson(entry));
+                    this.writer.newLine();
+
+                } catch (final IOException e) {
+
+                    this.failure = e;
+
+                } catch (final RuntimeException e) {
+
+                    this.failure = new IOException("差分レポートの書き込みに失敗しました。", e);
+
+                }
+
+            }
+
+        } catch (final InterruptedException e) {
+
+            this.failure = new IOException("差分レポートの書き込みが中断されました。", e);
+            this.queue.clear();
+            Thread.currentThread().interrupt();
+            return;
+
+        }
+
+        if (this.failure != null) {
+
+            return;
+
+        }
+
+        try {
+
+            this.writer.flush();
+
+        } catch (final IOException e) {
+
+            this.failure = e;
+
+        }
+
+    }
+
+    /**
+     * 差分をJSONオブジェクトの文字列に変換する。
+     *
+     * @param entry
+     *              差分
+     * @return JSONオブジェクトの文字列
+     */
+    private static String toJson(final DiffEntry entry) {
+
+        final StringBuilder result = new StringBuilder(128);
+        result.append("{\"category\":\"").append(entry.category().get()).append('"');
+        result.append(",\"path\":");
+        DiffReportWriter.appendJsonString(result, entry.path());
+        result.append(",\"type\":\"").append(entry.directory() ? "directory" : "file").append('"');
+        result.append(",\"sourceSize\":").append(entry.sourceSize());
+        result.append(",\"sourceMtime\":");
+        DiffReportWriter.appendJsonString(result, DiffReportWriter.toIsoString(entry.sourceLastModified()));
+        result.append(",\"targetSize\":").append(entry.targetSize());
+        result.append(",\"targetMtime\":");
+        DiffReportWriter.appendJsonString(result, DiffReportWriter.toIsoString(entry.targetLastModified()));
+        result.append('}');
+        return result.toString();
+
+    }
+
+    /**
+     * 差分をCSVの行に変換する。
+     *
+     * @param entry
+     *              差分
+     * @return CSVの行
+     */
+    private static String toCsv(final DiffEntry entry) {
+
+        final String result = String.join(",", entry.category().get(), DiffReportWriter.toCsvField(entry.path()),
+                entry.directory() ? "directory" : "file", DiffReportWriter.toCsvField(entry.sourceSize()),
+                DiffReportWriter.toCsvField(DiffReportWriter.toIsoString(entry.sourceLastModified())),
+                DiffReportWriter.toCsvField(entry.targetSize()),
+                DiffReportWriter.toCsvField(DiffReportWriter.toIsoString(entry.targetLastModified())));
+        return result;
+
+    }
+
+    /**
+     * JSON文字列としてエスケープして追加する。nullの場合はnullリテラルを追加する。
+     *
+     * @param builder
+     *                追加先
+     * @param value
+     *                値
+     */
+    private static void appendJsonString(final StringBuilder builder, final String value) {
+
+        if (value == null) {
+
+            builder.append("null");
+            return;
+
+        }
+
+        builder.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+
+            final char c = value.charAt(i);
+
+            switch (c) {
+
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+
+                    if (c < 0x20) {
+
+                        builder.append(String.format("\\u%04x", (int) c));
+
+                    } else {
+
+                        builder.append(c);
+
+                    }
+
+                }
+
+            }
+
+        }
+        builder.append('"');
+
+    }
+
+    /**
+     * CSVのフィールドに変換する。必要な場合は二重引用符で囲む。nullの場合は空文字列とする。
+     *
+     * @param value
+     *              値
+     * @return CSVのフィールド
+     */
+    private static String toCsvField(final Object value) {
+
+        if (value == null) {
+
+            return "";
+
+        }
+
+        final String text = value.toString();
+
+        if ((text.indexOf(',') < 0) && (text.indexOf('"') < 0) && (text.indexOf('\n') < 0)
+                && (text.indexOf('\r') < 0)) {
+
+            return text;
+
+        }
+
+        final String result = String.format("\"%s\"", text.replace("\"", "\"\""));
+        return result;
+
+    }
+
+    /**
+     * エポックミリ秒をISO-8601形式の文字列に変換する。
+     *
+     * @param epochMillis
+     *                    エポックミリ秒
+     * @return ISO-8601形式の文字列。nullの場合はnull
+     */
+    private static String toIsoString(final Long epochMillis) {
+
+        if (epochMillis == null) {
+
+            return null;
+
+        }
+
+        final String result = Instant.ofEpochMilli(epochMillis).toString();
+        return result;
+
+    }
+}
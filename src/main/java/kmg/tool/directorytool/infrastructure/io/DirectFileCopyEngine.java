@@ -0,0 +1,475 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * ページキャッシュを経由せずにコピーするダイレクトI/O（O_DIRECT）のコピーエンジン。<br>
+ * <p>
+ * ソースを{@link NativeIo#openDirect(Path)}、コピー先を{@link NativeIo#createDirect(Path, int)}でO_DIRECTを指定して開き、
+ * ストレージとの間で直接読み書きする。コピー先はソースのパーミッションで作成する。
+ * 数TB規模の移行などで、コピーしたデータがページキャッシュを占有せず、カーネルでのコピーのCPU負荷も発生しない。
+ * </p>
+ * <p>
+ * ダイレクトI/Oでは、バッファのアドレス、読み書きの位置と長さをファイルシステムのブロックサイズに揃える必要がある。
+ * </p>
+ * <ul>
+ * <li>バッファは{@value #BUFFER_ALIGNMENT}バイト境界に揃えたダイレクトバッファをエンジンごとにプールし、ファイルをまたいで再利用する
+ * <li>ブロックサイズはファイルシステムのブロックサイズの倍数に切り上げる
+ * <li>末尾の端数のブロックはブロック全体を書き込み、最後にファイルサイズを切り詰める
+ * </ul>
+ * <p>
+ * 1ファイルにつきキューの深さの数だけ位置指定の読み書き（ブロックの読み込みと書き込み）を並行して発行し、ストレージのキューを埋める。
+ * 並行する読み書きは、呼び出し元のスレッドと、エンジンごとのキューの深さの数のプラットフォームスレッドで実行する。
+ * pread/pwriteはネイティブな呼び出しの間キャリアスレッドを占有するため、仮想スレッドは使用しない。
+ * 複数のワーカーが同時にコピーしてスレッドが不足する場合も、呼び出し元のスレッドがすべてのブロックを読み書きできるため、コピーは停止しない。
+ * </p>
+ * <p>
+ * ネイティブなファイル操作を使用できない場合（Linux以外、または--enable-previewなしで起動した場合）、
+ * ファイルシステムがO_DIRECTに対応していない場合（ファイルを開けない場合）、またはブロックサイズが{@value #BUFFER_ALIGNMENT}バイトを超える場合は、
+ * {@link FilesCopyEngine}でコピーする。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class DirectFileCopyEngine implements FileCopyEngine {
+
+    /** ロガー */
+    private static final Logger logger = LoggerFactory.getLogger(DirectFileCopyEngine.class);
+
+    /** キューの深さのデフォルト値 */
+    public static final int DEFAULT_QUEUE_DEPTH = 4;
+
+    /** バッファのアドレスを揃える境界（バイト） */
+    private static final int BUFFER_ALIGNMENT = 4096;
+
+    /** ファイルシステムのブロックサイズを取得できない場合の値 */
+    private static final int DEFAULT_ALIGNMENT = 4096;
+
+    /** 並行する読み書きのスレッドを、使用されない場合に終了するまでの時間（秒） */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /** ブロックサイズ */
+    private final int blockSize;
+
+    /** キューの深さ */
+    private final int queueDepth;
+
+    /** ダイレクトI/Oを使用できない場合のコピーエンジン */
+    private final FileCopyEngine fallback;
+
+    /** アドレスを揃えたバッファのプール */
+    private final Queue<ByteBuffer> buffers;
+
+    /** 並行する読み書きを実行するスレッドのプール。使用されないスレッドは終了する */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * コピーエンジンを作成する。
+     *
+     * @param blockSize
+     *                   1回の読み書きのブロックサイズ（バイト）
+     * @param queueDepth
+     *                   1ファイルにつき並行して発行する読み書きの数
+     * @throws IllegalArgumentException
+     *                                  ブロックサイズが範囲外の場合、またはキューの深さが1未満の場合
+     */
+    public DirectFileCopyEngine(final int blockSize, final int queueDepth) {
+
+        if ((blockSize < BufferedFileCopyEngine.MIN_BLOCK_SIZE) || (blockSize > BufferedFileCopyEngine.MAX_BLOCK_SIZE)) {
+
+            throw new IllegalArgumentException(String.format("ブロックサイズは%dバイトから%dバイトの範囲で指定してください。: %d",
+                    BufferedFileCopyEngine.MIN_BLOCK_SIZE, BufferedFileCopyEngine.MAX_BLOCK_SIZE, blockSize));
+
+        }
+
+        if (queueDepth < 1) {
+
+            throw new IllegalArgumentException(String.format("キューの深さは1以上で指定してください。: %d", queueDepth));
+
+        }
+
+        this.blockSize = blockSize;
+        this.queueDepth = queueDepth;
+        this.fallback = new FilesCopyEngine();
+        this.buffers = new ConcurrentLinkedQueue<>();
+        this.executor = new ThreadPoolExecutor(queueDepth, queueDepth, DirectFileCopyEngine.KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+
+                    final Thread thread = new Thread(task, "direct-io");
+                    thread.setDaemon(true);
+                    return thread;
+
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+    }
+
+    /**
+     * ブロックサイズを返す。
+     *
+     * @return ブロックサイズ（バイト）
+     */
+    public int getBlockSize() {
+
+        final int result = this.blockSize;
+        return result;
+
+    }
+
+    /**
+     * キューの深さを返す。
+     *
+     * @return 1ファイルにつき並行して発行する読み書きの数
+     */
+    public int getQueueDepth() {
+
+        final int result = this.queueDepth;
+        return result;
+
+    }
+
+    /**
+     * ファイルをダイレクトI/Oでコピーする。既存のファイルは削除してから、ソースのパーミッションで作成する。<br>
+     * ネイティブなファイル操作を使用できない場合、またはダイレクトI/Oでファイルを開けない場合は、{@link FilesCopyEngine}でコピーする。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    @Override
+    public void copy(final Path source, final Path target, final ThroughputLimiter limiter) throws IOException {
+
+        if (!NativeIo.isAvailable()) {
+
+            this.fallback.copy(source, target, limiter);
+            return;
+
+        }
+
+        final int alignment = Math.max(DirectFileCopyEngine.getAlignment(source),
+                DirectFileCopyEngine.getAlignment(target.toAbsolutePath().getParent()));
+
+        if (alignment > DirectFileCopyEngine.BUFFER_ALIGNMENT) {
+
+            this.fallback.copy(source, target, limiter);
+            return;
+
+        }
+
+        final NativeIo.FileStatus status = NativeIo.stat(source);
+
+        if (status == null) {
+
+            throw new NoSuchFileException(source.toString());
+
+        }
+
+        final DirectIoFile in;
+        final DirectIoFile out;
+
+        try {
+
+            in = NativeIo.openDirect(source);
+
+        } catch (final IOException e) {
+
+            DirectFileCopyEngine.logger.debug("ダイレクトI/Oで開けないため、通常の方式でコピーします。: {}: {}", source, e.toString());
+            this.fallback.copy(source, target, limiter);
+            return;
+
+        }
+
+        try (in) {
+
+            try {
+
+                out = NativeIo.createDirect(target, status.mode());
+
+            } catch (final IOException e) {
+
+                DirectFileCopyEngine.logger.debug("ダイレクトI/Oで開けないため、通常の方式でコピーします。: {}: {}", target,
+                        e.toString());
+                this.fallback.copy(source, target, limiter);
+                return;
+
+            }
+
+            try (out) {
+
+                final long size = status.size();
+                this.copyBlocks(in, out, size, Math.ceilDiv(this.blockSize, alignment) * alignment, alignment,
+                        limiter);
+
+                // 末尾の端数のブロックで書き込んだ余分な領域を切り詰める
+                out.truncate(size);
+
+            }
+
+        }
+        NativeIo.restoreMode(target, status.mode());
+
+    }
+
+    /**
+     * ファイルをブロックに分け、キューの深さの数の読み書きを並行して実行してコピーする。<br>
+     * 1つは呼び出し元のスレッドで実行し、残りをスレッドのプールで実行する。
+     *
+     * @param in
+     *                  コピー元のファイル
+     * @param out
+     *                  コピー先のファイル
+     * @param size
+     *                  ファイルサイズ
+     * @param block
+     *                  ブロックサイズ（アラインメントの倍数）
+     * @param alignment
+     *                  アラインメント
+     * @param limiter
+     *                  帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    private void copyBlocks(final DirectIoFile in, final DirectIoFile out, final long size, final int block,
+            final int alignment, final ThroughputLimiter limiter) throws IOException {
+
+        final long blocks = Math.ceilDiv(size, block);
+
+        if (blocks == 0) {
+
+            return;
+
+        }
+
+        final AtomicLong    nextBlock = new AtomicLong();
+        final AtomicBoolean failed    = new AtomicBoolean();
+        final int           depth     = (int) Math.min(this.queueDepth, blocks);
+
+        final Callable<Void> lane = () -> {
+
+            long index = nextBlock.getAndIncrement();
+
+            // 他の読み書きがすべてのブロックを処理した後に開始した場合は、バッファを取り出さない
+            if (index >= blocks) {
+
+                return null;
+
+            }
+
+            final ByteBuffer buffer = this.takeBuffer(block);
+
+            try {
+
+                while (!failed.get() && (index < blocks)) {
+
+                    DirectFileCopyEngine.copyBlock(in, out, index * block, block, size, alignment, buffer, limiter);
+                    index = nextBlock.getAndIncrement();
+
+                }
+
+            } catch (final IOException | RuntimeException e) {
+
+                failed.set(true);
+                throw e;
+
+            } finally {
+
+                this.buffers.offer(buffer);
+
+            }
+            return null;
+
+        };
+
+        final List<Future<Void>> futures = new ArrayList<>(depth - 1);
+
+        for (int i = 1; i < depth; i++) {
+
+            futures.add(this.executor.submit(lane));
+
+        }
+
+        IOException exception = null;
+
+        try {
+
+            lane.call();
+
+        } catch (final IOException e) {
+
+            exception = e;
+
+        } catch (final Exception e) {
+
+            exception = new IOException("ダイレクトI/Oでのコピーに失敗しました。", e);
+
+        }
+
+        for (final Future<Void> future : futures) {
+
+            try {
+
+                future.get();
+
+            } catch (final InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                failed.set(true);
+                exception = new IOException("ダイレクトI/Oでのコピー中に割り込まれました。", e);
+
+            } catch (final ExecutionException e) {
+
+                if (exception == null) {
+
+                    exception = e.getCause() instanceof final IOException ioException ? ioException
+                            : new IOException("ダイレクトI/Oでのコピーに失敗しました。", e.getCause());
+
+                }
+
+            }
+
+        }
+
+        if (exception != null) {
+
+            throw exception;
+
+        }
+
+    }
+
+    /**
+     * 1ブロックを読み込み、コピー先の同じ位置に書き込む。<br>
+     * 末尾の端数のブロックは、読み込んだ長さをアラインメントの倍数に切り上げて書き込む。
+     *
+     * @param in
+     *                  コピー元のファイル
+     * @param out
+     *                  コピー先のファイル
+     * @param position
+     *                  ブロックの開始位置
+     * @param block
+     *                  ブロックサイズ
+     * @param size
+     *                  ファイルサイズ
+     * @param alignment
+     *                  アラインメント
+     * @param buffer
+     *                  アドレスを揃えたバッファ
+     * @param limiter
+     *                  帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     読み書き中にエラーが発生した場合
+     */
+    private static void copyBlock(final DirectIoFile in, final DirectIoFile out, final long position, final int block,
+            final long size, final int alignment, final ByteBuffer buffer, final ThroughputLimiter limiter)
+            throws IOException {
+
+        final long expected = Math.min(block, size - position);
+        buffer.clear().limit(block);
+
+        while (buffer.position() < expected) {
+
+            if (in.read(buffer, position + buffer.position()) <= 0) {
+
+                // 途中までのコピーを成功とみなさない
+                throw new IOException("コピー中にコピー元のファイルが切り詰められました。");
+
+            }
+
+        }
+
+        final int read = buffer.position();
+
+        if (read == 0) {
+
+            return;
+
+        }
+
+        if ((limiter != null) && limiter.isBandwidthLimited()) {
+
+            limiter.acquireBytes(read);
+
+        }
+
+        buffer.flip().limit(Math.ceilDiv(read, alignment) * alignment);
+
+        while (buffer.hasRemaining()) {
+
+            out.write(buffer, position + buffer.position());
+
+        }
+
+    }
+
+    /**
+     * プールからバッファを取り出す。プールが空の場合、または容量が不足する場合は確保する。
+     *
+     * @param block
+     *              ブロックサイズ
+     * @return アドレスを揃えたダイレクトバッファ
+     */
+    private ByteBuffer takeBuffer(final int block) {
+
+        ByteBuffer result = this.buffers.poll();
+
+        if ((result == null) || (result.capacity() < block)) {
+
+            result = ByteBuffer.allocateDirect(block + DirectFileCopyEngine.BUFFER_ALIGNMENT)
+                    .alignedSlice(DirectFileCopyEngine.BUFFER_ALIGNMENT);
+
+        }
+        return result;
+
+    }
+
+    /**
+     * パスのファイルシステムのブロックサイズを返す。
+     *
+     * @param path
+     *             パス
+     * @return ブロックサイズ。取得できない場合は{@value #DEFAULT_ALIGNMENT}
+     */
+    private static int getAlignment(final Path path) {
+
+        try {
+
+            final int result = Math.toIntExact(Files.getFileStore(path).getBlockSize());
+            return result;
+
+        } catch (final IOException | UnsupportedOperationException | ArithmeticException e) {
+
+            DirectFileCopyEngine.logger.debug("ブロックサイズを取得できません。: {}: {}", path, e.toString());
+            return DirectFileCopyEngine.DEFAULT_ALIGNMENT;
+
+        }
+
+    }
+}
@@ -0,0 +1,97 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * O_DIRECTで開いたファイルを、ページキャッシュを経由せずに位置指定で読み書きするクラス。<br>
+ * <p>
+ * ファイル記述子は{@link NativeIo#openDirect(Path)}または{@link NativeIo#createDirect(Path, int)}で開き、{@link #close()}で閉じる。
+ * 読み書きは位置指定（pread/pwrite）のため、複数のスレッドから並行して呼び出せる。
+ * </p>
+ * <p>
+ * バッファはダイレクトバッファとし、アドレス、読み書きの位置と長さをファイルシステムのブロックサイズに揃えること。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class DirectIoFile implements Closeable {
+
+    /** ファイル記述子 */
+    private final int fd;
+
+    /**
+     * O_DIRECTで開いたファイル記述子で初期化する。
+     *
+     * @param fd
+     *           ファイル記述子
+     */
+    DirectIoFile(final int fd) {
+
+        this.fd = fd;
+
+    }
+
+    /**
+     * 指定した位置からバッファの残りの領域に読み込み、読み込んだバイト数だけバッファの位置を進める。
+     *
+     * @param buffer
+     *                 読み込み先のダイレクトバッファ
+     * @param position
+     *                 読み込みの開始位置
+     * @return 読み込んだバイト数。ファイルの末尾の場合は0
+     * @throws IOException
+     *                     読み込みに失敗した場合
+     */
+    public int read(final ByteBuffer buffer, final long position) throws IOException {
+
+        final int result = LinuxNativeIo.read(this.fd, buffer, position);
+        return result;
+
+    }
+
+    /**
+     * バッファの残りの領域を指定した位置に書き込み、書き込んだバイト数だけバッファの位置を進める。
+     *
+     * @param buffer
+     *                 書き込むダイレクトバッファ
+     * @param position
+     *                 書き込みの開始位置
+     * @return 書き込んだバイト数
+     * @throws IOException
+     *                     書き込みに失敗した場合
+     */
+    public int write(final ByteBuffer buffer, final long position) throws IOException {
+
+        final int result = LinuxNativeIo.write(this.fd, buffer, position);
+        return result;
+
+    }
+
+    /**
+     * ファイルサイズを設定する。
+     *
+     * @param size
+     *             ファイルサイズ
+     * @throws IOException
+     *                     ファイルサイズを設定できない場合
+     */
+    public void truncate(final long size) throws IOException {
+
+        LinuxNativeIo.truncate(this.fd, size);
+
+    }
+
+    /**
+     * ファイルを閉じる。
+     */
+    @Override
+    public void close() {
+
+        LinuxNativeIo.closeFile(this.fd);
+
+    }
+}
@@ -0,0 +1,309 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+
+/**
+ * ファイル内容を段階的に比較するクラス。<br>
+ * <p>
+ * 比較は以下の段階で行い、差異が見つかった時点で打ち切る。
+ * </p>
+ * <ol>
+ * <li>ファイルサイズ
+ * <li>先頭・末尾・ランダムな位置からサンプリングしたブロック
+ * <li>ファイル全体（大きなファイルはメモリマップしたウィンドウ単位で並列に比較する）
+ * </ol>
+ * <p>
+ * どの段階まで行うかは{@link CompareDepthTypes}で指定する。<br>
+ * 内容が異なる大きなファイルの多くは先頭または末尾で差異が見つかるため、サンプリングによって全体の読み込みを避けられる。
+ * </p>
+ * <p>
+ * 大きなファイルのウィンドウ単位の比較は、呼び出し元のスレッドと、呼び出し元から渡されたエグゼキュータの補助ワーカーで行う。
+ * 処理ごとのタスクと同じエグゼキュータを渡すことで、ワーカープールの同時実行数の上限の範囲で比較する。
+ * エグゼキュータを渡さない場合は、呼び出し元のスレッドのみで比較する。
+ * </p>
+ * <p>
+ * ページキャッシュの保護を指定した場合、{@value #CACHE_DROP_THRESHOLD}バイト以上のファイルの全体を比較した後は、
+ * 両方のファイルのページキャッシュを解放する（{@link NativeIo#dropCache(Path)}）。
+ * 一度しか読まないファイルで、他のファイルのキャッシュが追い出されることを防ぐ。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class FileComparator {
+
+    /** サンプリングするブロックのサイズ */
+    private static final int SAMPLE_BLOCK_SIZE = 64 * 1024;
+
+    /** 先頭・末尾以外にサンプリングするブロックの数 */
+    private static final int RANDOM_SAMPLE_COUNT = 4;
+
+    /** メモリマップによる並列比較を行うファイルサイズの下限 */
+    private static final long PARALLEL_THRESHOLD = 64L * 1024 * 1024;
+
+    /** 全体の比較後にページキャッシュを解放するファイルサイズの下限 */
+    public static final long CACHE_DROP_THRESHOLD = 8L * 1024 * 1024;
+
+    /** 並列比較で1ワーカーが担当するウィンドウのサイズ */
+    private static final int WINDOW_SIZE = 16 * 1024 * 1024;
+
+    /** 並列比較で使用するワーカーの最大数 */
+    private static final int MAX_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private FileComparator() {
+
+        // 処理なし
+    }
+
+    /**
+     * 2つのファイルの内容を指定された深度で比較する。
+     *
+     * @param file1
+     *              比較対象のファイル1
+     * @param file2
+     *              比較対象のファイル2
+     * @param depth
+     *              比較深度
+     * @return 指定された深度で差異が見つからなかった場合true、それ以外の場合false
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合
+     */
+    public static boolean compare(final Path file1, final Path file2, final CompareDepthTypes depth)
+            throws IOException {
+
+        final boolean result = FileComparator.compare(file1, file2, depth, false);
+        return result;
+
+    }
+
+    /**
+     * 2つのファイルの内容を指定された深度で比較する。
+     *
+     * @param file1
+     *                     比較対象のファイル1
+     * @param file2
+     *                     比較対象のファイル2
+     * @param depth
+     *                     比較深度
+     * @param cacheHygiene
+     *                     大きなファイルの全体を比較した後にページキャッシュを解放する場合true
+     * @return 指定された深度で差異が見つからなかった場合true、それ以外の場合false
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合
+     */
+    public static boolean compare(final Path file1, final Path file2, final CompareDepthTypes depth,
+            final boolean cacheHygiene) throws IOException {
+
+        final boolean result = FileComparator.compare(file1, file2, depth, cacheHygiene, null);
+        return result;
+
+    }
+
+    /**
+     * 2つのファイルの内容を指定された深度で比較する。
+     *
+     * @param file1
+     *                     比較対象のファイル1
+     * @param file2
+     *                     比較対象のファイル2
+     * @param depth
+     *                     比較深度
+     * @param cacheHygiene
+     *                     大きなファイルの全体を比較した後にページキャッシュを解放する場合true
+     * @param executor
+     *                     大きなファイルのウィンドウ単位の比較で補助ワーカーを実行するエグゼキュータ。nullの場合は呼び出し元のスレッドのみで比較する
+     * @return 指定された深度で差異が見つからなかった場合true、それ以外の場合false
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合
+     */
+    public static boolean compare(final Path file1, final Path file2, final CompareDepthTypes depth,
+            final boolean cacheHygiene, final Executor executor) throws IOException {
+
+        final long size = Files.size(file1);
+
+        if (size != Files.size(file2)) {
+
+            return false;
+
+        }
+
+        if (depth == CompareDepthTypes.QUICK) {
+
+            return true;
+
+        }
+
+        final boolean result;
+
+        try (FileChannel channel1 = FileChannel.open(file1, StandardOpenOption.READ);
+                FileChannel channel2 = FileChannel.open(file2, StandardOpenOption.READ)) {
+
+            if (!FileComparator.compareSamples(channel1, channel2, size)) {
+
+                return false;
+
+            }
+
+            if ((depth == CompareDepthTypes.SAMPLED) || (size <= FileComparator.SAMPLE_BLOCK_SIZE * 2L)) {
+
+                // サンプリングのみ、または先頭と末尾のブロックでファイル全体を比較済み
+                return true;
+
+            }
+
+            if (size < FileComparator.PARALLEL_THRESHOLD) {
+
+                result = Files.mismatch(file1, file2) == -1;
+
+            } else {
+
+                // 補助ワーカーは開始が遅れても処理すべきウィンドウが無ければ即座に終了するため、呼び出し元と同じエグゼキュータで実行できる
+                final MappedFileComparator comparator = executor == null
+                        ? new MappedFileComparator(Runnable::run, 1, FileComparator.WINDOW_SIZE)
+                        : new MappedFileComparator(executor, FileComparator.MAX_PARALLELISM, FileComparator.WINDOW_SIZE);
+                result = comparator.compare(channel1, channel2, size);
+
+            }
+
+        }
+
+        if (cacheHygiene && (size >= FileComparator.CACHE_DROP_THRESHOLD)) {
+
+            NativeIo.dropCache(file1);
+            NativeIo.dropCache(file2);
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 先頭・末尾・ランダムな位置のブロックを比較する。<br>
+     * <p>
+     * ランダムな位置はファイルサイズを種とするため、同じサイズのファイルでは常に同じ位置が選ばれる。
+     * </p>
+     *
+     * @param channel1
+     *                 比較対象のファイル1のチャネル
+     * @param channel2
+     *                 比較対象のファイル2のチャネル
+     * @param size
+     *                 ファイルサイズ
+     * @return すべてのブロックが一致する場合true
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合
+     */
+    private static boolean compareSamples(final FileChannel channel1, final FileChannel channel2, final long size)
+            throws IOException {
+
+        final ByteBuffer buffer1 = ByteBuffer.allocate(FileComparator.SAMPLE_BLOCK_SIZE);
+        final ByteBuffer buffer2 = ByteBuffer.allocate(FileComparator.SAMPLE_BLOCK_SIZE);
+
+        final List<Long> positions = new ArrayList<>();
+        positions.add(0L);
+        positions.add(Math.max(0L, size - FileComparator.SAMPLE_BLOCK_SIZE));
+
+        if (size > FileComparator.SAMPLE_BLOCK_SIZE * 2L) {
+
+            final SplittableRandom random = new SplittableRandom(size);
+
+            for (int i = 0; i < FileComparator.RANDOM_SAMPLE_COUNT; i++) {
+
+                positions.add(random.nextLong(size - FileComparator.SAMPLE_BLOCK_SIZE));
+
+            }
+
+        }
+
+        for (final long position : positions) {
+
+            final int length = (int) Math.min(FileComparator.SAMPLE_BLOCK_SIZE, size - position);
+
+            if (!FileComparator.compareRange(channel1, channel2, position, length, buffer1, buffer2)) {
+
+                return false;
+
+            }
+
+        }
+        return true;
+
+    }
+
+    /**
+     * 指定された範囲を位置指定読み込みで比較する。
+     *
+     * @param channel1
+     *                 比較対象のファイル1のチャネル
+     * @param channel2
+     *                 比較対象のファイル2のチャネル
+     * @param position
+     *                 範囲の開始位置
+     * @param length
+     *                 範囲の長さ
+     * @param buffer1
+     *                 ファイル1の読み込みバッファ
+     * @param buffer2
+     *                 ファイル2の読み込みバッファ
+     * @return 範囲内の内容が一致する場合true
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合
+     */
+    private static boolean compareRange(final FileChannel channel1, final FileChannel channel2, final long position,
+            final int length, final ByteBuffer buffer1, final ByteBuffer buffer2) throws IOException {
+
+        FileComparator.readFully(channel1, position, length, buffer1);
+        FileComparator.readFully(channel2, position, length, buffer2);
+
+        final boolean result = buffer1.mismatch(buffer2) == -1;
+        return result;
+
+    }
+
+    /**
+     * 指定された位置から指定された長さを読み込む。
+     *
+     * @param channel
+     *                 読み込むチャネル
+     * @param position
+     *                 読み込み開始位置
+     * @param length
+     *                 読み込む長さ
+     * @param buffer
+     *                 読み込み先のバッファ。読み込み後は読み込んだ内容を指すように反転される
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合、またはファイルが途中で短くなった場合
+     */
+    private static void readFully(final FileChannel channel, final long position, final int length,
+            final ByteBuffer buffer) throws IOException {
+
+        buffer.clear().limit(length);
+
+        while (buffer.hasRemaining()) {
+
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+
+                throw new IOException("比較中にファイルが短くなりました。");
+
+            }
+
+        }
+        buffer.flip();
+
+    }
+}
@@ -0,0 +1,82 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.types.CopyEngineTypes;
+
+/**
+ * ファイルの内容をコピーするエンジンのインタフェース。<br>
+ * <p>
+ * COPYとファイルシステムをまたぐMOVEで使用する。コピー先の既存のファイルは上書きする。<br>
+ * 実装はスレッドセーフであり、複数のワーカーから同時に呼び出せる。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ * @see CopyEngineTypes
+ */
+public interface FileCopyEngine {
+
+    /**
+     * 指定された種類のコピーエンジンを作成する。
+     *
+     * @param type
+     *                  コピーエンジンの種類
+     * @param blockSize
+     *                  1回の読み書きのブロックサイズ（バイト）。ブロック単位でコピーするエンジンのみ使用する
+     * @return コピーエンジン
+     * @throws IllegalArgumentException
+     *                                  種類が指定されていない場合、またはブロックサイズが範囲外の場合
+     */
+    static FileCopyEngine create(final CopyEngineTypes type, final int blockSize) {
+
+        final FileCopyEngine result = FileCopyEngine.create(type, blockSize, false);
+        return result;
+
+    }
+
+    /**
+     * 指定された種類のコピーエンジンを作成する。
+     *
+     * @param type
+     *                     コピーエンジンの種類
+     * @param blockSize
+     *                     1回の読み書きのブロックサイズ（バイト）。ブロック単位でコピーするエンジンのみ使用する
+     * @param cacheHygiene
+     *                     コピーしたファイルのページキャッシュを解放するキャッシュ保護モードの場合true。
+     *                     ページキャッシュを経由しないダイレクトI/Oでは使用しない
+     * @return コピーエンジン
+     * @throws IllegalArgumentException
+     *                                  種類が指定されていない場合、またはブロックサイズが範囲外の場合
+     */
+    static FileCopyEngine create(final CopyEngineTypes type, final int blockSize, final boolean cacheHygiene) {
+
+        final FileCopyEngine result = switch (type) {
+
+            case FILES -> new FilesCopyEngine(cacheHygiene);
+            case BUFFERED -> new BufferedFileCopyEngine(blockSize, cacheHygiene);
+            case CLONE -> new CloneFileCopyEngine(cacheHygiene);
+            case DIRECT -> new DirectFileCopyEngine(blockSize, DirectFileCopyEngine.DEFAULT_QUEUE_DEPTH);
+            default -> throw new IllegalArgumentException(String.format("コピーエンジンの種類が不正です。: %s", type));
+
+        };
+        return result;
+
+    }
+
+    /**
+     * ファイルをコピーする。既存のファイルは上書きする。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    void copy(Path source, Path target, ThroughputLimiter limiter) throws IOException;
+}
@@ -0,0 +1,432 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
+
+/**
+ * 処理が完了したファイルを、永続性の種類に応じてストレージに同期（fsync）するクラス。<br>
+ * <p>
+ * 永続性の種類ごとに、{@link #completed(Path)}で通知されたファイルを次のように同期する。
+ * </p>
+ * <ul>
+ * <li>同期なし（{@link DurabilityTypes#NO_SYNC}）: 同期しない
+ * <li>ファイルごと（{@link DurabilityTypes#FILE}）: 呼び出し元のスレッドで、ファイルと親ディレクトリを同期してから戻る
+ * <li>一括（{@link DurabilityTypes#BATCH}）: ファイルを保留し、{@value #GROUP_SIZE}件ごと、または{@value #GROUP_INTERVAL_MILLIS}ミリ秒ごとに、
+ * バックグラウンドのスレッドで保留したファイルを同期した後、それらの親ディレクトリを1回ずつ同期する
+ * </ul>
+ * <p>
+ * 名前の変更で公開するファイルは、{@link #syncContent(Path)}で一時ファイルの内容を呼び出し元のスレッドで同期してから公開し、
+ * {@link #published(Path)}で通知した親ディレクトリを、永続性の種類に応じて同期する。
+ * 同期していない内容がコピー先の名前で永続化されることはない。
+ * </p>
+ * <p>
+ * {@link #close()}は保留しているファイルをすべて同期し、同期したファイルの親ディレクトリから処理のルートまでのディレクトリを同期する。
+ * 新しく作成したディレクトリのエントリも永続化されるため、{@link #close()}が正常に戻った時点で、通知したファイルはクラッシュ後も失われない。<br>
+ * バックグラウンドのスレッドで発生した同期の失敗は、{@link #close()}でスローする。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class FileSyncer implements Closeable {
+
+    /** 一括で同期するファイル数 */
+    public static final int GROUP_SIZE = 256;
+
+    /** 保留しているファイルを同期する間隔（ミリ秒） */
+    public static final long GROUP_INTERVAL_MILLIS = 100;
+
+    /** 永続性の種類 */
+    private final DurabilityTypes durability;
+
+    /** 処理のルートディレクトリ */
+    private final Path root;
+
+    /** 同期を保留しているファイル */
+    private List<Path> pending;
+
+    /** 同期を保留している、公開したファイルの親ディレクトリ */
+    private Set<Path> pendingDirectories;
+
+    /** 同期したファイルの親ディレクトリ */
+    private final Set<Path> directories;
+
+    /** 一括で同期するスレッド。一括以外の場合はnull */
+    private final ScheduledExecutorService scheduler;
+
+    /** バックグラウンドのスレッドで最初に発生した同期の失敗 */
+    private final AtomicReference<IOException> failure;
+
+    /** 同期した回数 */
+    private final LongAdder syncCount;
+
+    /**
+     * 同期を開始する。
+     *
+     * @param durability
+     *                   永続性の種類
+     * @param root
+     *                   処理のルートディレクトリ。終了時にこのディレクトリまでのディレクトリを同期する
+     */
+    public FileSyncer(final DurabilityTypes durability, final Path root) {
+
+        this.durability = durability;
+        this.root = root.toAbsolutePath().normalize();
+        this.pending = new ArrayList<>();
+        this.pendingDirectories = new HashSet<>();
+        this.directories = ConcurrentHashMap.newKeySet();
+        this.failure = new AtomicReference<>();
+        this.syncCount = new LongAdder();
+
+        if (durability != DurabilityTypes.BATCH) {
+
+            this.scheduler = null;
+            return;
+
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+
+            final Thread thread = new Thread(task, "file-syncer");
+            thread.setDaemon(true);
+            return thread;
+
+        });
+        this.scheduler.scheduleWithFixedDelay(this::syncPending, FileSyncer.GROUP_INTERVAL_MILLIS,
+                FileSyncer.GROUP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * 同期する場合trueを返す。
+     *
+     * @return 同期なし以外の場合true
+     */
+    public boolean isEnabled() {
+
+        final boolean result = (this.durability == DurabilityTypes.FILE) || (this.durability == DurabilityTypes.BATCH);
+        return result;
+
+    }
+
+    /**
+     * ファイルの処理の完了を通知する。<br>
+     * ファイルごとの場合は同期してから戻り、一括の場合は同期を保留して即座に戻る。
+     *
+     * @param file
+     *             処理が完了したファイル
+     * @throws IOException
+     *                     ファイルごとの同期に失敗した場合
+     */
+    public void completed(final Path file) throws IOException {
+
+        switch (this.durability) {
+
+            case FILE -> this.sync(file);
+            case BATCH -> this.defer(file);
+            default -> {
+
+                // 同期しない
+            }
+
+        }
+
+    }
+
+    /**
+     * 名前の変更で公開する一時ファイルの内容を、呼び出し元のスレッドで同期する。<br>
+     * 一括の場合も保留せずに同期するため、名前の変更の前に内容の永続化が完了する。公開した後は{@link #published(Path)}を呼び出す。
+     *
+     * @param temporary
+     *                  書き込みが完了した一時ファイル
+     * @throws IOException
+     *                     同期に失敗した場合
+     */
+    public void syncContent(final Path temporary) throws IOException {
+
+        if (!this.isEnabled()) {
+
+            return;
+
+        }
+
+        FileSyncer.force(temporary, false);
+        this.syncCount.increment();
+
+    }
+
+    /**
+     * 内容を同期した一時ファイルの公開の完了を通知する。<br>
+     * 名前の変更を永続化するため、ファイルごとの場合は親ディレクトリを同期してから戻り、一括の場合は親ディレクトリの同期を保留して即座に戻る。
+     *
+     * @param target
+     *               公開したファイル
+     * @throws IOException
+     *                     ファイルごとの同期に失敗した場合
+     */
+    public void published(final Path target) throws IOException {
+
+        final Path parent = target.toAbsolutePath().normalize().getParent();
+
+        switch (this.durability) {
+
+            case FILE -> {
+
+                FileSyncer.force(parent, true);
+                this.syncCount.increment();
+                this.directories.add(parent);
+
+            }
+            case BATCH -> {
+
+                synchronized (this) {
+
+                    this.pendingDirectories.add(parent);
+
+                }
+
+            }
+            default -> {
+
+                // 同期しない
+            }
+
+        }
+
+    }
+
+    /**
+     * ファイルの同期を保留し、保留したファイルが{@value #GROUP_SIZE}件に達した場合はバックグラウンドのスレッドで同期する。
+     *
+     * @param file
+     *             同期を保留するファイル
+     */
+    private void defer(final Path file) {
+
+        final boolean full;
+
+        synchronized (this) {
+
+            this.pending.add(file);
+            full = this.pending.size() >= FileSyncer.GROUP_SIZE;
+
+        }
+
+        if (full) {
+
+            this.scheduler.execute(this::syncPending);
+
+        }
+
+    }
+
+    /**
+     * ファイルと親ディレクトリを呼び出し元のスレッドで同期する。<br>
+     * 一括の場合も保留せずに同期するため、ソースの削除前など、続く処理の前に永続化が必要な場合に使用する。
+     *
+     * @param file
+     *             同期するファイル
+     * @throws IOException
+     *                     同期に失敗した場合
+     */
+    public void sync(final Path file) throws IOException {
+
+        if (!this.isEnabled()) {
+
+            return;
+
+        }
+
+        FileSyncer.force(file, false);
+        this.syncCount.increment();
+
+        // 新しいエントリを永続化するため、親ディレクトリは毎回同期する
+        final Path parent = file.toAbsolutePath().normalize().getParent();
+        FileSyncer.force(parent, true);
+        this.syncCount.increment();
+        this.directories.add(parent);
+
+    }
+
+    /**
+     * 同期した回数を返す。
+     *
+     * @return ファイルとディレクトリを同期した回数
+     */
+    public long getSyncCount() {
+
+        final long result = this.syncCount.sum();
+        return result;
+
+    }
+
+    /**
+     * 保留しているファイルをすべて同期し、同期したファイルの親ディレクトリからルートまでのディレクトリを同期する。
+     *
+     * @throws IOException
+     *                     同期に失敗した場合、またはバックグラウンドのスレッドで同期に失敗していた場合
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (this.scheduler != null) {
+
+            try {
+
+                // 単一のスレッドで実行するため、投入済みの同期もすべて完了している
+                this.scheduler.submit(this::syncPending).get();
+
+            } catch (final InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                throw new IOException("ファイルの同期の完了を待機中に割り込まれました。", e);
+
+            } catch (final ExecutionException e) {
+
+                throw new IOException("ファイルの同期に失敗しました。", e.getCause());
+
+            } finally {
+
+                this.scheduler.shutdownNow();
+
+            }
+
+        }
+
+        final IOException exception = this.failure.get();
+
+        if (exception != null) {
+
+            throw exception;
+
+        }
+
+        if (!this.isEnabled()) {
+
+            return;
+
+        }
+
+        // 新しく作成したディレクトリのエントリを永続化するため、親ディレクトリの上位からルートまでを深い階層から同期する
+        final Set<Path> ancestors = new HashSet<>();
+
+        for (final Path directory : this.directories) {
+
+            Path ancestor = directory.getParent();
+
+            while ((ancestor != null) && ancestor.startsWith(this.root) && ancestors.add(ancestor)) {
+
+                ancestor = ancestor.getParent();
+
+            }
+
+        }
+
+        final List<Path> sorted = new ArrayList<>(ancestors);
+        sorted.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+
+        for (final Path directory : sorted) {
+
+            FileSyncer.force(directory, true);
+            this.syncCount.increment();
+
+        }
+
+    }
+
+    /**
+     * 保留しているファイルを同期した後、それらの親ディレクトリと保留している公開したファイルの親ディレクトリを1回ずつ同期する。<br>
+     * 失敗した場合は最初の失敗を記録し、{@link #close()}でスローする。
+     */
+    private void syncPending() {
+
+        final List<Path> files;
+        final Set<Path>  parents;
+
+        synchronized (this) {
+
+            if (this.pending.isEmpty() && this.pendingDirectories.isEmpty()) {
+
+                return;
+
+            }
+            files = this.pending;
+            parents = this.pendingDirectories;
+            this.pending = new ArrayList<>();
+            this.pendingDirectories = new HashSet<>();
+
+        }
+
+        try {
+
+            for (final Path file : files) {
+
+                FileSyncer.force(file, false);
+                this.syncCount.increment();
+                parents.add(file.toAbsolutePath().normalize().getParent());
+
+            }
+
+            for (final Path parent : parents) {
+
+                FileSyncer.force(parent, true);
+                this.syncCount.increment();
+                this.directories.add(parent);
+
+            }
+
+        } catch (final IOException e) {
+
+            this.failure.compareAndSet(null, e);
+
+        }
+
+    }
+
+    /**
+     * ファイルまたはディレクトリの内容とメタデータをストレージに同期する。<br>
+     * ディレクトリを開けないプラットフォーム（Windowsなど）では、ディレクトリの同期を行わない。
+     *
+     * @param path
+     *                  同期するパス
+     * @param directory
+     *                  ディレクトリの場合true
+     * @throws IOException
+     *                     同期に失敗した場合
+     */
+    private static void force(final Path path, final boolean directory) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            channel.force(true);
+
+        } catch (final AccessDeniedException e) {
+
+            if (!directory) {
+
+                throw e;
+
+            }
+
+        }
+
+    }
+}
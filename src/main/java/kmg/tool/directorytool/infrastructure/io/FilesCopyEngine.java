@@ -0,0 +1,148 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}でコピーする標準のコピーエンジン。<br>
+ * <p>
+ * 帯域を制限している場合は、{@link ThroughputLimiter#copy(Path, Path)}でチャンクごとに転送枠を取得しながらコピーする。<br>
+ * 事前割り当てとホールの検出を行う大きなファイルは、データ領域ごとにcopy_file_range（{@link NativeIo#copyRegions}）でコピーする。
+ * データはユーザー空間を経由せず、コピー後にソースのページキャッシュを解放する。
+ * copy_file_rangeを使用できない場合は、カーネル内での転送（{@link FileChannel#transferTo}）でコピーする。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class FilesCopyEngine extends AbstractFileCopyEngine {
+
+    /**
+     * コピーエンジンを作成する。
+     */
+    public FilesCopyEngine() {
+
+        this(false);
+
+    }
+
+    /**
+     * コピーエンジンを作成する。
+     *
+     * @param cacheHygiene
+     *                     キャッシュ保護モードの場合true
+     */
+    public FilesCopyEngine(final boolean cacheHygiene) {
+
+        super(cacheHygiene);
+
+    }
+
+    /**
+     * ファイル全体をコピーする。既存のファイルは上書きする。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    @Override
+    protected void copyFile(final Path source, final Path target, final ThroughputLimiter limiter)
+            throws IOException {
+
+        if ((limiter != null) && limiter.isBandwidthLimited()) {
+
+            limiter.copy(source, target);
+            return;
+
+        }
+
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+
+    }
+
+    /**
+     * データ領域をcopy_file_rangeでコピーする。使用できない場合、またはキャッシュ保護モードの場合はカーネル内での転送でコピーする。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル
+     * @param regions
+     *                コピーするデータ領域
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    @Override
+    protected void copyRegions(final Path source, final Path target, final List<NativeIo.Region> regions,
+            final ThroughputLimiter limiter) throws IOException {
+
+        if (!this.isCacheHygiene() && NativeIo.copyRegions(source, target, regions, limiter)) {
+
+            return;
+
+        }
+
+        super.copyRegions(source, target, regions, limiter);
+
+    }
+
+    /**
+     * ファイルの指定された領域を、コピー先の同じ位置にカーネル内での転送でコピーする。
+     *
+     * @param in
+     *                 コピー元のチャネル
+     * @param out
+     *                 コピー先のチャネル
+     * @param position
+     *                 領域の開始位置
+     * @param length
+     *                 領域の長さ
+     * @param limiter
+     *                 帯域のリミッタ。nullの場合は制限しない
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    @Override
+    protected void copyRegion(final FileChannel in, final FileChannel out, final long position, final long length,
+            final ThroughputLimiter limiter) throws IOException {
+
+        if ((limiter != null) && limiter.isBandwidthLimited()) {
+
+            limiter.transfer(in, out, position, length);
+            return;
+
+        }
+
+        final long end     = position + length;
+        long       current = position;
+        out.position(position);
+
+        while (current < end) {
+
+            final long transferred = in.transferTo(current, end - current, out);
+
+            if (transferred <= 0) {
+
+                // 途中までのコピーを成功とみなさない
+                throw new IOException("コピー中にコピー元のファイルが切り詰められました。");
+
+            }
+            current += transferred;
+
+        }
+
+    }
+}
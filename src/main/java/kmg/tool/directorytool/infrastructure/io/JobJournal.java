@@ -0,0 +1,701 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * COPY/MOVEの処理が完了したファイルを記録し、中断した処理を再開するためのジョブのジャーナル。<br>
+ * <p>
+ * ジャーナルはターゲットディレクトリ直下の{@value #FILE_NAME}に、追記のみで書き込む。
+ * 処理が完了したファイルの相対パスを{@value #BATCH_SIZE}件ごとにまとめ、1回の位置指定の書き込みでファイルの末尾に追記する。
+ * 書き込みはページキャッシュに反映されるため、プロセスが異常終了しても書き込み済みの記録は失われない。
+ * ファイルはメモリにマップしないため、閉じた直後に削除できる。
+ * </p>
+ * <p>
+ * 形式は、ヘッダ（マジックナンバー、バージョン、段階、ジョブの識別子）に続けて、相対パスごとに2バイトの長さとUTF-8のバイト列を並べる。
+ * 書き込み途中で中断した記録はファイルの末尾を越えるため、読み込み時に末尾として扱い、続きから追記する前に切り詰める。
+ * </p>
+ * <p>
+ * ジョブの識別子はジョブの名前（操作モードなど）とソースディレクトリの絶対パスで、再開時に一致しない場合は記録を破棄して最初から処理する。
+ * </p>
+ * <p>
+ * 処理が完了したファイルの集合は、再開する場合のみ前回までの記録を読み込んで保持する。今回の処理で記録したファイルはメモリに保持しない。
+ * </p>
+ * <p>
+ * 段階はトランザクションのMOVEで使用し、ステージング中か、ソースの削除による確定を開始したかを記録する。
+ * 段階はヘッダ内の固定の位置を上書きし、確定の開始は必ずストレージに同期してから戻る。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class JobJournal implements Closeable {
+
+    /** ロガー */
+    private static final Logger logger = LoggerFactory.getLogger(JobJournal.class);
+
+    /** ジャーナルのファイル名 */
+    public static final String FILE_NAME = ".directorytool.journal";
+
+    /** まとめて書き込む記録の件数 */
+    public static final int BATCH_SIZE = 256;
+
+    /** マジックナンバー（"DJRN"） */
+    private static final int MAGIC = 0x444A524E;
+
+    /** 形式のバージョン */
+    private static final int VERSION = 2;
+
+    /** ヘッダ内の段階の位置 */
+    private static final int PHASE_OFFSET = Integer.BYTES * 2;
+
+    /** ジョブの識別子を除くヘッダのバイト数 */
+    private static final int HEADER_SIZE = Integer.BYTES * 4;
+
+    /** 段階: ステージング中 */
+    private static final int PHASE_STAGING = 0;
+
+    /** 段階: 確定中 */
+    private static final int PHASE_COMMITTING = 1;
+
+    /** 記録の長さのバイト数 */
+    private static final int LENGTH_SIZE = Short.BYTES;
+
+    /** 記録できるパスの最大のバイト数 */
+    private static final int MAX_PATH_LENGTH = 0xFFFF;
+
+    /** 記録を読み込むバッファのサイズ。最大の記録を含められること */
+    private static final int READ_BUFFER_SIZE = 128 * 1024;
+
+    /** ジャーナルのファイル */
+    private final Path file;
+
+    /** ジャーナルのチャネル */
+    private final FileChannel channel;
+
+    /** 書き込みのたびにストレージに同期する場合true */
+    private final boolean force;
+
+    /** 前回までに処理が完了したファイルの相対パス。再開しない場合は空 */
+    private final Set<String> completed;
+
+    /** 最初の記録の位置 */
+    private final long recordsStart;
+
+    /** 書き込みを待つ記録 */
+    private List<String> pending;
+
+    /** 次の記録を書き込む位置 */
+    private long position;
+
+    /** 確定を開始したか */
+    private boolean committing;
+
+    /**
+     * ジャーナルを開く。
+     *
+     * @param file
+     *                     ジャーナルのファイル
+     * @param channel
+     *                     ジャーナルのチャネル
+     * @param force
+     *                     書き込みのたびにストレージに同期する場合true
+     * @param completed
+     *                     前回までに処理が完了したファイルの相対パス
+     * @param recordsStart
+     *                     最初の記録の位置
+     * @param position
+     *                     次の記録を書き込む位置
+     * @param committing
+     *                     確定を開始している場合true
+     */
+    private JobJournal(final Path file, final FileChannel channel, final boolean force, final Set<String> completed,
+            final long recordsStart, final long position, final boolean committing) {
+
+        this.file = file;
+        this.channel = channel;
+        this.force = force;
+        this.completed = completed;
+        this.recordsStart = recordsStart;
+        this.pending = new ArrayList<>();
+        this.position = position;
+        this.committing = committing;
+
+    }
+
+    /**
+     * ターゲットディレクトリのジャーナルを開く。<br>
+     * <p>
+     * 再開する場合は、同じジョブのジャーナルが存在すれば記録を読み込み、続きから追記する。
+     * それ以外の場合は、既存のジャーナルを破棄して新しいジャーナルを作成する。
+     * </p>
+     *
+     * @param destination
+     *                    ターゲットディレクトリ
+     * @param source
+     *                    ソースディレクトリ
+     * @param job
+     *                    ジョブの名前（操作モードなど）
+     * @param resume
+     *                    前回の記録から再開する場合true
+     * @param force
+     *                    書き込みのたびにストレージに同期する場合true
+     * @return ジャーナル
+     * @throws IOException
+     *                     ジャーナルの読み込みまたは作成に失敗した場合
+     */
+    public static JobJournal open(final Path destination, final Path source, final String job, final boolean resume,
+            final boolean force) throws IOException {
+
+        final JobJournal result = JobJournal.open(destination, source, job, null, resume, force);
+        return result;
+
+    }
+
+    /**
+     * ターゲットディレクトリのシャードのジャーナルを開く。<br>
+     * <p>
+     * 同じターゲットディレクトリに複数のシャードを並行して処理する場合に、シャードごとに異なるファイルを使用する。
+     * </p>
+     *
+     * @param destination
+     *                    ターゲットディレクトリ
+     * @param source
+     *                    ソースディレクトリ
+     * @param job
+     *                    ジョブの名前（操作モードなど）
+     * @param shard
+     *                    シャードの名前。分割しない場合はnull
+     * @param resume
+     *                    前回の記録から再開する場合true
+     * @param force
+     *                    書き込みのたびにストレージに同期する場合true
+     * @return ジャーナル
+     * @throws IOException
+     *                     ジャーナルの読み込みまたは作成に失敗した場合
+     * @see #fileName(String)
+     */
+    public static JobJournal open(final Path destination, final Path source, final String job, final String shard,
+            final boolean resume, final boolean force) throws IOException {
+
+        final Path   file   = destination.resolve(JobJournal.fileName(shard));
+        final byte[] jobKey = JobJournal.toJobKey(source, job);
+
+        if (resume) {
+
+            final JobJournal existing = JobJournal.load(file, jobKey, force, true);
+
+            if (existing != null) {
+
+                JobJournal.logger.info("ジャーナルから処理済みのファイルを{}件読み込みました。続きから再開します。: {}",
+                        existing.getCompletedCount(), file);
+                return existing;
+
+            }
+
+            if (Files.exists(file)) {
+
+                JobJournal.logger.warn("ジャーナルのジョブが一致しないため、最初から処理します。: {}", file);
+
+            }
+
+        }
+
+        // 新しいジャーナルを作成し、ヘッダを書き込む
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        try {
+
+            final ByteBuffer header = ByteBuffer.allocate(JobJournal.HEADER_SIZE + jobKey.length);
+            header.putInt(JobJournal.MAGIC).putInt(JobJournal.VERSION).putInt(JobJournal.PHASE_STAGING)
+                    .putInt(jobKey.length).put(jobKey).flip();
+            JobJournal.writeFully(channel, header, 0);
+
+            final JobJournal result = new JobJournal(file, channel, force, Set.of(), header.capacity(),
+                    header.capacity(), false);
+            return result;
+
+        } catch (final IOException e) {
+
+            channel.close();
+            throw e;
+
+        }
+
+    }
+
+    /**
+     * ターゲットディレクトリの同じジョブのジャーナルを、破棄せずに開く。復旧に使用する。
+     *
+     * @param destination
+     *                    ターゲットディレクトリ
+     * @param source
+     *                    ソースディレクトリ
+     * @param job
+     *                    ジョブの名前
+     * @param force
+     *                    書き込みのたびにストレージに同期する場合true
+     * @return ジャーナル。存在しない場合、またはジョブが一致しない場合はnull
+     * @throws IOException
+     *                     ジャーナルの読み込みに失敗した場合
+     */
+    public static JobJournal openExisting(final Path destination, final Path source, final String job,
+            final boolean force) throws IOException {
+
+        final JobJournal result = JobJournal.openExisting(destination, source, job, null, force);
+        return result;
+
+    }
+
+    /**
+     * ターゲットディレクトリの同じジョブのシャードのジャーナルを、破棄せずに開く。復旧に使用する。
+     *
+     * @param destination
+     *                    ターゲットディレクトリ
+     * @param source
+     *                    ソースディレクトリ
+     * @param job
+     *                    ジョブの名前
+     * @param shard
+     *                    シャードの名前。分割しない場合はnull
+     * @param force
+     *                    書き込みのたびにストレージに同期する場合true
+     * @return ジャーナル。存在しない場合、またはジョブが一致しない場合はnull
+     * @throws IOException
+     *                     ジャーナルの読み込みに失敗した場合
+     */
+    public static JobJournal openExisting(final Path destination, final Path source, final String job,
+            final String shard, final boolean force) throws IOException {
+
+        final JobJournal result = JobJournal.load(destination.resolve(JobJournal.fileName(shard)),
+                JobJournal.toJobKey(source, job), force, false);
+        return result;
+
+    }
+
+    /**
+     * ジャーナルのファイル名を返す。
+     *
+     * @param shard
+     *              シャードの名前。分割しない場合はnull
+     * @return ジャーナルのファイル名。シャードの場合は{@value #FILE_NAME}にシャードの名前を付加する（例: .directorytool.journal.2-of-4）
+     */
+    public static String fileName(final String shard) {
+
+        final String result = shard == null ? JobJournal.FILE_NAME : JobJournal.FILE_NAME + '.' + shard;
+        return result;
+
+    }
+
+    /**
+     * 指定されたパスがジャーナルのファイル（シャードのジャーナルを含む）であるかを判定する。
+     *
+     * @param root
+     *             ルートディレクトリのパス
+     * @param path
+     *             判定対象のパス
+     * @return ジャーナルのファイルの場合true
+     */
+    public static boolean isJournalFile(final Path root, final Path path) {
+
+        final Path fileName = path.getFileName();
+
+        final boolean result = (fileName != null) && fileName.toString().startsWith(JobJournal.FILE_NAME)
+                && root.equals(path.getParent());
+        return result;
+
+    }
+
+    /**
+     * 処理が完了したファイルであるかを判定する。
+     *
+     * @param relativePath
+     *                     ソースディレクトリからの相対パス
+     * @return 前回までの処理で完了している場合true。再開しない場合は常にfalse
+     */
+    public boolean isCompleted(final String relativePath) {
+
+        final boolean result = this.completed.contains(relativePath);
+        return result;
+
+    }
+
+    /**
+     * 前回までに処理が完了したファイル数を返す。
+     *
+     * @return 再開時に読み込んだファイル数。再開しない場合は0
+     */
+    public int getCompletedCount() {
+
+        final int result = this.completed.size();
+        return result;
+
+    }
+
+    /**
+     * 処理が完了したファイルの相対パスを返す。<br>
+     * 書き込みを待つ記録を書き込んだ後、ジャーナルから前回までと今回の記録をすべて読み込む。
+     *
+     * @return 前回までと今回の処理で完了したファイルの相対パス
+     * @throws IOException
+     *                     ジャーナルの読み込み、または書き込みに失敗した場合
+     */
+    public synchronized Set<String> getCompletedPaths() throws IOException {
+
+        this.flush();
+
+        final Set<String> paths = new HashSet<>();
+        JobJournal.readRecords(this.channel, this.recordsStart, paths);
+
+        final Set<String> result = Collections.unmodifiableSet(paths);
+        return result;
+
+    }
+
+    /**
+     * 確定を開始したかを返す。
+     *
+     * @return 確定中の場合true
+     */
+    public synchronized boolean isCommitting() {
+
+        final boolean result = this.committing;
+        return result;
+
+    }
+
+    /**
+     * 書き込みを待つ記録を書き込み、確定の開始を記録してストレージに同期する。
+     *
+     * @throws IOException
+     *                     ジャーナルへの書き込みに失敗した場合
+     */
+    public synchronized void markCommitting() throws IOException {
+
+        this.flush();
+        JobJournal.writeFully(this.channel, ByteBuffer.allocate(Integer.BYTES).putInt(0, JobJournal.PHASE_COMMITTING),
+                JobJournal.PHASE_OFFSET);
+        this.channel.force(false);
+        this.committing = true;
+
+    }
+
+    /**
+     * 処理が完了したファイルを記録する。<br>
+     * 記録は{@value #BATCH_SIZE}件ごとにまとめてジャーナルに書き込む。
+     *
+     * @param relativePath
+     *                     ソースディレクトリからの相対パス
+     * @throws IOException
+     *                     ジャーナルへの書き込みに失敗した場合
+     */
+    public synchronized void record(final String relativePath) throws IOException {
+
+        this.pending.add(relativePath);
+
+        if (this.pending.size() >= JobJournal.BATCH_SIZE) {
+
+            this.flush();
+
+        }
+
+    }
+
+    /**
+     * 書き込みを待つ記録をジャーナルの末尾に追記する。
+     *
+     * @throws IOException
+     *                     ジャーナルへの書き込みに失敗した場合
+     */
+    public synchronized void flush() throws IOException {
+
+        if (this.pending.isEmpty()) {
+
+            return;
+
+        }
+
+        final List<byte[]> records = new ArrayList<>(this.pending.size());
+        int                size    = 0;
+
+        for (final String relativePath : this.pending) {
+
+            final byte[] bytes = relativePath.getBytes(StandardCharsets.UTF_8);
+
+            if (bytes.length > JobJournal.MAX_PATH_LENGTH) {
+
+                throw new IOException(String.format("ジャーナルに記録できないパスの長さです。: %s", relativePath));
+
+            }
+            records.add(bytes);
+            size += JobJournal.LENGTH_SIZE + bytes.length;
+
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        for (final byte[] bytes : records) {
+
+            buffer.putShort((short) bytes.length).put(bytes);
+
+        }
+        buffer.flip();
+
+        JobJournal.writeFully(this.channel, buffer, this.position);
+        this.position += size;
+        this.pending = new ArrayList<>();
+
+        if (this.force) {
+
+            this.channel.force(false);
+
+        }
+
+    }
+
+    /**
+     * 書き込みを待つ記録を書き込み、ジャーナルを閉じる。
+     *
+     * @throws IOException
+     *                     ジャーナルへの書き込みに失敗した場合
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            this.flush();
+
+        } finally {
+
+            this.channel.close();
+
+        }
+
+    }
+
+    /**
+     * ジャーナルを閉じて削除する。処理がすべて完了した場合に使用する。
+     *
+     * @throws IOException
+     *                     ジャーナルの削除に失敗した場合
+     */
+    public synchronized void delete() throws IOException {
+
+        this.pending.clear();
+        this.channel.close();
+        Files.deleteIfExists(this.file);
+
+    }
+
+    /**
+     * バッファの残りをすべて指定した位置に書き込む。
+     *
+     * @param channel
+     *                 ジャーナルのチャネル
+     * @param buffer
+     *                 書き込むバッファ
+     * @param position
+     *                 書き込みの開始位置
+     * @throws IOException
+     *                     書き込みに失敗した場合
+     */
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+
+        long offset = position;
+
+        while (buffer.hasRemaining()) {
+
+            offset += channel.write(buffer, offset);
+
+        }
+
+    }
+
+    /**
+     * ジョブの名前とソースディレクトリの絶対パスから、ジョブの識別子を作成する。
+     *
+     * @param source
+     *               ソースディレクトリ
+     * @param job
+     *               ジョブの名前
+     * @return ジョブの識別子
+     */
+    private static byte[] toJobKey(final Path source, final String job) {
+
+        final byte[] result = (job + ':' + source.toAbsolutePath().normalize()).getBytes(StandardCharsets.UTF_8);
+        return result;
+
+    }
+
+    /**
+     * 既存のジャーナルが同じジョブのものであれば、記録の末尾を確認して開く。<br>
+     * 書き込み途中で中断した末尾の記録は切り詰める。
+     *
+     * @param file
+     *                      ジャーナルのファイル
+     * @param jobKey
+     *                      ジョブの識別子
+     * @param force
+     *                      書き込みのたびにストレージに同期する場合true
+     * @param loadCompleted
+     *                      処理が完了したファイルの集合を読み込んで保持する場合true
+     * @return ジャーナル。存在しない場合、またはジョブが一致しない場合はnull
+     * @throws IOException
+     *                     ジャーナルの読み込みに失敗した場合
+     */
+    private static JobJournal load(final Path file, final byte[] jobKey, final boolean force,
+            final boolean loadCompleted) throws IOException {
+
+        if (!Files.exists(file)) {
+
+            return null;
+
+        }
+
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+
+            final ByteBuffer header = ByteBuffer.allocate(JobJournal.HEADER_SIZE + jobKey.length);
+
+            while (header.hasRemaining() && (channel.read(header, header.position()) > 0)) {
+
+                // ヘッダをすべて読み込むまで繰り返す
+            }
+            header.flip();
+
+            if ((header.remaining() < JobJournal.HEADER_SIZE) || (header.getInt() != JobJournal.MAGIC)
+                    || (header.getInt() != JobJournal.VERSION) || (header.getInt() < 0)
+                    || (header.getInt() != jobKey.length) || (header.remaining() < jobKey.length)) {
+
+                channel.close();
+                return null;
+
+            }
+
+            final byte[] actualKey = new byte[jobKey.length];
+            header.get(actualKey);
+
+            if (!Arrays.equals(jobKey, actualKey)) {
+
+                channel.close();
+                return null;
+
+            }
+
+            final boolean     committing = header.getInt(JobJournal.PHASE_OFFSET) == JobJournal.PHASE_COMMITTING;
+            final Set<String> completed  = loadCompleted ? new HashSet<>() : null;
+            final long        end        = JobJournal.readRecords(channel, header.capacity(), completed);
+
+            // 書き込み途中で中断した記録の後ろに追記しないよう切り詰める
+            channel.truncate(end);
+
+            final JobJournal result = new JobJournal(file, channel, force,
+                    completed == null ? Set.of() : Collections.unmodifiableSet(completed), header.capacity(), end,
+                    committing);
+            return result;
+
+        } catch (final IOException e) {
+
+            channel.close();
+            throw e;
+
+        }
+
+    }
+
+    /**
+     * ジャーナルの記録を先頭から順に読み込む。<br>
+     * 長さが0の記録、またはファイルの末尾を越える記録を末尾として扱う。
+     *
+     * @param channel
+     *                     ジャーナルのチャネル
+     * @param recordsStart
+     *                     最初の記録の位置
+     * @param paths
+     *                     読み込んだ相対パスを追加するセット。末尾の位置のみを求める場合はnull
+     * @return 最後の完全な記録の次の位置
+     * @throws IOException
+     *                     ジャーナルの読み込みに失敗した場合
+     */
+    private static long readRecords(final FileChannel channel, final long recordsStart, final Set<String> paths)
+            throws IOException {
+
+        final ByteBuffer buffer   = ByteBuffer.allocate(JobJournal.READ_BUFFER_SIZE).limit(0);
+        long             readFrom = recordsStart;
+        long             position = recordsStart;
+        boolean          eof      = false;
+
+        while (true) {
+
+            // 最大の記録を含められるよう、残りが少なくなったらバッファを補充する
+            if (!eof && (buffer.remaining() < (JobJournal.LENGTH_SIZE + JobJournal.MAX_PATH_LENGTH))) {
+
+                buffer.compact();
+
+                while (buffer.hasRemaining()) {
+
+                    final int read = channel.read(buffer, readFrom);
+
+                    if (read < 0) {
+
+                        eof = true;
+                        break;
+
+                    }
+                    readFrom += read;
+
+                }
+                buffer.flip();
+
+            }
+
+            if (buffer.remaining() < JobJournal.LENGTH_SIZE) {
+
+                break;
+
+            }
+
+            final int length = Short.toUnsignedInt(buffer.getShort(buffer.position()));
+
+            if ((length == 0) || (buffer.remaining() < (JobJournal.LENGTH_SIZE + length))) {
+
+                break;
+
+            }
+
+            final byte[] bytes = new byte[length];
+            buffer.position(buffer.position() + JobJournal.LENGTH_SIZE).get(bytes);
+            position += JobJournal.LENGTH_SIZE + length;
+
+            if (paths != null) {
+
+                paths.add(new String(bytes, StandardCharsets.UTF_8));
+
+            }
+
+        }
+
+        final long result = position;
+        return result;
+
+    }
+}
@@ -0,0 +1,1448 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout.PathElement;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * Foreign Function &amp; Memory APIでLinuxのシステムコールを呼び出すクラス。<br>
+ * <p>
+ * Java 21ではFFM APIはプレビュー機能のため、このクラスのみプレビュー機能を使用する。
+ * JVMを--enable-previewなしで起動した場合はクラスの読み込みに失敗し、{@link NativeIo}はNIOの処理に切り替える。
+ * </p>
+ * <p>
+ * ファイル記述子はこのクラスの中で開いて閉じ、呼び出し元には公開しない。
+ * ファイル記述子を保持して操作するクラス（{@link PageCacheHygiene}、{@link DirectIoFile}）のみ、このクラスのメソッドで開いて閉じる。
+ * </p>
+ * <p>
+ * copy_file_rangeとstatxは古いglibcには存在しないため、見つからない場合はハンドルをnullとし、呼び出し元にNIOの処理を使用させる。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ * @see NativeIo
+ */
+final class LinuxNativeIo {
+
+    /** O_RDONLY */
+    private static final int O_RDONLY = 0;
+
+    /** O_WRONLY */
+    private static final int O_WRONLY = 1;
+
+    /** O_CREAT */
+    private static final int O_CREAT = 0100;
+
+    /** O_TRUNC */
+    private static final int O_TRUNC = 01000;
+
+    /** O_CLOEXEC */
+    private static final int O_CLOEXEC = 02000000;
+
+    /** O_DIRECT。aarch64とそれ以外で値が異なる */
+    private static final int O_DIRECT = "aarch64".equals(System.getProperty("os.arch")) ? 0200000 : 040000;
+
+    /** SEEK_DATA */
+    private static final int SEEK_DATA = 3;
+
+    /** SEEK_HOLE */
+    private static final int SEEK_HOLE = 4;
+
+    /** ENXIO。SEEK_DATAでオフセット以降にデータがない場合 */
+    private static final int ENXIO = 6;
+
+    /** EINTR */
+    private static final int EINTR = 4;
+
+    /** EOPNOTSUPP。ファイルシステムが事前割り当てに対応していない場合 */
+    private static final int EOPNOTSUPP = 95;
+
+    /** ENOSYS。カーネルがシステムコールに対応していない場合 */
+    private static final int ENOSYS = 38;
+
+    /** EXDEV。copy_file_rangeがファイルシステムをまたぐコピーに対応していない場合 */
+    private static final int EXDEV = 18;
+
+    /** EINVAL。copy_file_rangeがファイルの種類に対応していない場合 */
+    private static final int EINVAL = 22;
+
+    /** ESPIPE */
+    private static final int ESPIPE = 29;
+
+    /** SYNC_FILE_RANGE_WAIT_BEFORE */
+    private static final int SYNC_FILE_RANGE_WAIT_BEFORE = 1;
+
+    /** SYNC_FILE_RANGE_WRITE */
+    private static final int SYNC_FILE_RANGE_WRITE = 2;
+
+    /** SYNC_FILE_RANGE_WAIT_AFTER */
+    private static final int SYNC_FILE_RANGE_WAIT_AFTER = 4;
+
+    /** POSIX_FADV_SEQUENTIAL */
+    private static final int POSIX_FADV_SEQUENTIAL = 2;
+
+    /** POSIX_FADV_DONTNEED */
+    private static final int POSIX_FADV_DONTNEED = 4;
+
+    /** AT_FDCWD */
+    private static final int AT_FDCWD = -100;
+
+    /** statxで取得する項目（STATX_TYPE | STATX_MODE | STATX_MTIME | STATX_SIZE | STATX_BLOCKS） */
+    private static final int STATX_MASK = 0x1 | 0x2 | 0x40 | 0x200 | 0x400;
+
+    /** STATX_BLOCKS */
+    private static final int STATX_BLOCKS = 0x400;
+
+    /** struct statxのサイズ */
+    private static final long STATX_SIZE = 256;
+
+    /** struct statxのstx_maskのオフセット */
+    private static final long STX_MASK_OFFSET = 0;
+
+    /** struct statxのstx_modeのオフセット */
+    private static final long STX_MODE_OFFSET = 28;
+
+    /** struct statxのstx_sizeのオフセット */
+    private static final long STX_SIZE_OFFSET = 40;
+
+    /** struct statxのstx_blocksのオフセット */
+    private static final long STX_BLOCKS_OFFSET = 48;
+
+    /** struct statxのstx_mtime.tv_secのオフセット */
+    private static final long STX_MTIME_SEC_OFFSET = 112;
+
+    /** struct statxのstx_mtime.tv_nsecのオフセット */
+    private static final long STX_MTIME_NSEC_OFFSET = 120;
+
+    /** ファイルの種類のビット（S_IFMT） */
+    private static final int S_IFMT = 0170000;
+
+    /** ディレクトリ（S_IFDIR） */
+    private static final int S_IFDIR = 0040000;
+
+    /** 通常のファイル（S_IFREG） */
+    private static final int S_IFREG = 0100000;
+
+    /** パーミッションのビット */
+    private static final int PERMISSION_BITS = 07777;
+
+    /** 所有者の書き込み権限（S_IWUSR） */
+    private static final int S_IWUSR = 0200;
+
+    /** stx_blocksの単位（バイト） */
+    private static final long BLOCK_SIZE = 512;
+
+    /** FICLONE（_IOW(0x94, 9, int)）。コピー先をソースと同じデータブロックを共有するクローンにする */
+    private static final long FICLONE = 0x40049409L;
+
+    /** 帯域を制限しない場合のcopy_file_rangeの1回の転送量。割り込みに応答できるよう分割する */
+    private static final long COPY_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    /** errnoを受け取る領域のレイアウト */
+    private static final StructLayout CAPTURE_LAYOUT = Linker.Option.captureStateLayout();
+
+    /** errnoの値 */
+    private static final VarHandle ERRNO = LinuxNativeIo.CAPTURE_LAYOUT
+            .varHandle(PathElement.groupElement("errno"));
+
+    /** int open(const char *path, int flags, ...) */
+    private static final MethodHandle OPEN;
+
+    /** int close(int fd) */
+    private static final MethodHandle CLOSE;
+
+    /** off_t lseek(int fd, off_t offset, int whence) */
+    private static final MethodHandle LSEEK;
+
+    /** int fallocate(int fd, int mode, off_t offset, off_t len) */
+    private static final MethodHandle FALLOCATE;
+
+    /** int ftruncate(int fd, off_t length) */
+    private static final MethodHandle FTRUNCATE;
+
+    /** int ioctl(int fd, unsigned long request, ...) */
+    private static final MethodHandle IOCTL;
+
+    /** int posix_fadvise(int fd, off_t offset, off_t len, int advice) */
+    private static final MethodHandle POSIX_FADVISE;
+
+    /** int sync_file_range(int fd, off_t offset, off_t nbytes, unsigned int flags) */
+    private static final MethodHandle SYNC_FILE_RANGE;
+
+    /** ssize_t pread(int fd, void *buf, size_t count, off_t offset) */
+    private static final MethodHandle PREAD;
+
+    /** ssize_t pwrite(int fd, const void *buf, size_t count, off_t offset) */
+    private static final MethodHandle PWRITE;
+
+    /** ssize_t copy_file_range(int fd_in, off_t *off_in, int fd_out, off_t *off_out, size_t len, unsigned int flags) */
+    private static final MethodHandle COPY_FILE_RANGE;
+
+    /** int statx(int dirfd, const char *path, int flags, unsigned int mask, struct statx *buf) */
+    private static final MethodHandle STATX;
+
+    /** chmod */
+    private static final MethodHandle CHMOD;
+
+    static {
+
+        final Linker       linker = Linker.nativeLinker();
+        final SymbolLookup libc   = linker.defaultLookup();
+        final Linker.Option errno = Linker.Option.captureCallState("errno");
+
+        OPEN = linker.downcallHandle(libc.find("open").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                        ValueLayout.JAVA_INT),
+                Linker.Option.firstVariadicArg(2), errno);
+        CLOSE = linker.downcallHandle(libc.find("close").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+        LSEEK = linker.downcallHandle(libc.find("lseek").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG,
+                        ValueLayout.JAVA_INT),
+                errno);
+        FALLOCATE = linker.downcallHandle(libc.find("fallocate").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT,
+                        ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG),
+                errno);
+        FTRUNCATE = linker.downcallHandle(libc.find("ftruncate").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG), errno);
+        IOCTL = linker.downcallHandle(libc.find("ioctl").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG,
+                        ValueLayout.JAVA_INT),
+                Linker.Option.firstVariadicArg(2), errno);
+        POSIX_FADVISE = linker.downcallHandle(libc.find("posix_fadvise").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG,
+                        ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT));
+        SYNC_FILE_RANGE = linker.downcallHandle(libc.find("sync_file_range").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG,
+                        ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT),
+                errno);
+        PREAD = linker.downcallHandle(libc.find("pread").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS,
+                        ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG),
+                errno);
+        PWRITE = linker.downcallHandle(libc.find("pwrite").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS,
+                        ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG),
+                errno);
+        CHMOD = linker.downcallHandle(libc.find("chmod").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT), errno);
+        COPY_FILE_RANGE = libc.find("copy_file_range")
+                .map(address -> linker.downcallHandle(address,
+                        FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS,
+                                ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG,
+                                ValueLayout.JAVA_INT),
+                        errno))
+                .orElse(null);
+        STATX = libc.find("statx")
+                .map(address -> linker.downcallHandle(address,
+                        FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS,
+                                ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS),
+                        errno))
+                .orElse(null);
+
+    }
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private LinuxNativeIo() {
+
+        // 処理なし
+    }
+
+    /**
+     * SEEK_DATAとSEEK_HOLEでファイルのデータ領域を列挙する。
+     *
+     * @param file
+     *             ファイル
+     * @param size
+     *             ファイルサイズ
+     * @return データ領域。ホールを含まない場合はファイル全体の1領域
+     * @throws IOException
+     *                     ファイルを開けない場合、またはシークに失敗した場合
+     */
+    static List<NativeIo.Region> dataRegions(final Path file, final long size) throws IOException {
+
+        final List<NativeIo.Region> result = new ArrayList<>();
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final int           fd    = LinuxNativeIo.open(arena, state, file, LinuxNativeIo.O_RDONLY, 0);
+
+            try {
+
+                long position = 0;
+
+                while (position < size) {
+
+                    final long dataStart = LinuxNativeIo.lseek(state, fd, position, LinuxNativeIo.SEEK_DATA);
+
+                    if (dataStart < 0) {
+
+                        // 以降はすべてホール
+                        break;
+
+                    }
+
+                    long dataEnd = LinuxNativeIo.lseek(state, fd, dataStart, LinuxNativeIo.SEEK_HOLE);
+
+                    if ((dataEnd < 0) || (dataEnd > size)) {
+
+                        dataEnd = size;
+
+                    }
+
+                    result.add(new NativeIo.Region(dataStart, dataEnd - dataStart));
+                    position = dataEnd;
+
+                }
+
+            } finally {
+
+                LinuxNativeIo.close(fd);
+
+            }
+
+        }
+
+        return result;
+
+    }
+
+    /**
+     * コピー先のファイルを作成し、データ領域を事前に割り当ててから最終的なサイズに設定する。<br>
+     * ファイルシステムが事前割り当てに対応していない場合は、割り当てずにサイズのみ設定する。
+     * <p>
+     * 既存のファイルは、Files.copyのREPLACE_EXISTINGと同様に削除してから作成する。
+     * データ領域は作成後に開き直して書き込むため、所有者の書き込み権限を付けて作成する。
+     * コピー後に{@link #restoreMode(Path, int)}で指定されたパーミッションに戻すこと。
+     * </p>
+     *
+     * @param file
+     *                ファイル
+     * @param regions
+     *                割り当てるデータ領域
+     * @param size
+     *                最終的なファイルサイズ
+     * @param mode
+     *                作成するファイルのパーミッション（umaskを適用する前）
+     * @return 事前割り当てを行った場合true
+     * @throws IOException
+     *                     既存のファイルを削除できない場合、ファイルを作成できない場合、または割り当てやサイズの設定に失敗した場合
+     */
+    static boolean prepareTarget(final Path file, final List<NativeIo.Region> regions, final long size,
+            final int mode) throws IOException {
+
+        boolean result = true;
+
+        Files.deleteIfExists(file);
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final int           fd    = LinuxNativeIo.open(arena, state, file,
+                    LinuxNativeIo.O_WRONLY | LinuxNativeIo.O_CREAT | LinuxNativeIo.O_TRUNC,
+                    mode | LinuxNativeIo.S_IWUSR);
+
+            try {
+
+                for (final NativeIo.Region region : regions) {
+
+                    final int errno = LinuxNativeIo.fallocate(state, fd, region.position(), region.length());
+
+                    if (errno == LinuxNativeIo.EOPNOTSUPP) {
+
+                        result = false;
+                        break;
+
+                    }
+
+                    if (errno != 0) {
+
+                        throw new IOException(String.format("事前割り当てに失敗しました。: %s (errno=%d)", file, errno));
+
+                    }
+
+                }
+
+                if (LinuxNativeIo.ftruncate(state, fd, size) != 0) {
+
+                    throw new IOException(String.format("ファイルサイズの設定に失敗しました。: %s (errno=%d)", file,
+                            LinuxNativeIo.errno(state)));
+
+                }
+
+            } finally {
+
+                LinuxNativeIo.close(fd);
+
+            }
+
+        }
+
+        return result;
+
+    }
+
+    /**
+     * {@link #prepareTarget(Path, List, long, int)}と{@link #createDirect(Path, int)}で付けた所有者の書き込み権限を、指定されたパーミッションにない場合は外す。<br>
+     * <p>
+     * 作成時に適用されたumaskを保つため、現在のパーミッションから書き込み権限のみを外す。
+     * </p>
+     *
+     * @param file
+     *             ファイル
+     * @param mode
+     *             作成時に指定したパーミッション
+     * @throws IOException
+     *                     パーミッションの変更に失敗した場合
+     */
+    static void restoreMode(final Path file, final int mode) throws IOException {
+
+        if ((mode & LinuxNativeIo.S_IWUSR) != 0) {
+
+            return;
+
+        }
+
+        final NativeIo.FileStatus status = LinuxNativeIo.stat(file);
+
+        if (status == null) {
+
+            throw new IOException(String.format("パーミッションを取得できませんでした。: %s", file));
+
+        }
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final MemorySegment path  = arena.allocateUtf8String(file.toString());
+            final int           returnValue;
+
+            try {
+
+                returnValue = (int) LinuxNativeIo.CHMOD.invokeExact(state, path,
+                        status.mode() & ~LinuxNativeIo.S_IWUSR);
+
+            } catch (final Throwable e) {
+
+                throw LinuxNativeIo.unexpected(e);
+
+            }
+
+            if (returnValue != 0) {
+
+                throw new IOException(String.format("パーミッションの変更に失敗しました。: %s (errno=%d)", file,
+                        LinuxNativeIo.errno(state)));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * FICLONEでコピー先をソースのクローン（reflink）にする。<br>
+     * <p>
+     * コピー先はソースとデータブロックを共有し、データは読み書きしない。いずれかを変更した時点で、変更したブロックのみが複製される。<br>
+     * ファイルシステムがクローンに対応していない場合、またはソースと異なるファイルシステムの場合はfalseを返す。
+     * この場合、作成したコピー先は削除する。
+     * </p>
+     * <p>
+     * 既存のファイルは、Files.copyのREPLACE_EXISTINGと同様に削除してから作成する。
+     * 作成時に開いたファイル記述子でクローンするため、書き込み権限のないパーミッションでも作成できる。
+     * </p>
+     *
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル
+     * @param mode
+     *               作成するファイルのパーミッション（umaskを適用する前）
+     * @return クローンを作成した場合true
+     * @throws IOException
+     *                     ファイルを開けない場合、または既存のファイルや作成したファイルを削除できない場合
+     */
+    static boolean cloneFile(final Path source, final Path target, final int mode) throws IOException {
+
+        boolean result = false;
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final int           in    = LinuxNativeIo.open(arena, state, source, LinuxNativeIo.O_RDONLY, 0);
+
+            try {
+
+                Files.deleteIfExists(target);
+                final int out = LinuxNativeIo.open(arena, state, target,
+                        LinuxNativeIo.O_WRONLY | LinuxNativeIo.O_CREAT | LinuxNativeIo.O_TRUNC, mode);
+
+                try {
+
+                    while (true) {
+
+                        final int returnValue;
+
+                        try {
+
+                            returnValue = (int) LinuxNativeIo.IOCTL.invokeExact(state, out, LinuxNativeIo.FICLONE,
+                                    in);
+
+                        } catch (final Throwable e) {
+
+                            throw LinuxNativeIo.unexpected(e);
+
+                        }
+
+                        if (returnValue == 0) {
+
+                            result = true;
+                            break;
+
+                        }
+
+                        if (LinuxNativeIo.errno(state) != LinuxNativeIo.EINTR) {
+
+                            // EOPNOTSUPP、EXDEV、EINVAL、ENOTTYなど。呼び出し元がデータをコピーする
+                            break;
+
+                        }
+
+                    }
+
+                } finally {
+
+                    LinuxNativeIo.close(out);
+
+                }
+
+            } finally {
+
+                LinuxNativeIo.close(in);
+
+            }
+
+        }
+
+        if (!result) {
+
+            // 書き込み権限のない空のファイルを残すと、呼び出し元のコピーで切り詰められないため削除する
+            Files.deleteIfExists(target);
+
+        }
+
+        return result;
+
+    }
+
+    /**
+     * copy_file_rangeでファイルのデータ領域をコピー先の同じ位置にコピーする。<br>
+     * <p>
+     * データはカーネル内で転送し、ユーザー空間を経由しない。ソースには順次読み込みを通知する。
+     * ページキャッシュの解放は、ページキャッシュの保護を指定した場合のみ{@link PageCacheHygiene}で行う。
+     * </p>
+     * <p>
+     * copy_file_rangeが存在しない場合、または最初の呼び出しでファイルシステムが対応していないことが分かった場合は、何もコピーせずにfalseを返す。
+     * </p>
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル。作成済みで、最終的なサイズに設定されていること
+     * @param regions
+     *                コピーするデータ領域
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @return コピーした場合true
+     * @throws IOException
+     *                     ファイルを開けない場合、コピー中にエラーが発生した場合、コピー中にコピー元のファイルが切り詰められた場合、
+     *                     または待機中に割り込まれた場合
+     */
+    static boolean copyRegions(final Path source, final Path target, final List<NativeIo.Region> regions,
+            final ThroughputLimiter limiter) throws IOException {
+
+        if (LinuxNativeIo.COPY_FILE_RANGE == null) {
+
+            return false;
+
+        }
+
+        final boolean limited = (limiter != null) && limiter.isBandwidthLimited();
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state     = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final MemorySegment inOffset  = arena.allocate(ValueLayout.JAVA_LONG);
+            final MemorySegment outOffset = arena.allocate(ValueLayout.JAVA_LONG);
+            final int           in        = LinuxNativeIo.open(arena, state, source, LinuxNativeIo.O_RDONLY, 0);
+
+            try {
+
+                final int out = LinuxNativeIo.open(arena, state, target, LinuxNativeIo.O_WRONLY, 0);
+
+                try {
+
+                    LinuxNativeIo.fadvise(in, 0, 0, LinuxNativeIo.POSIX_FADV_SEQUENTIAL);
+                    boolean first = true;
+
+                    for (final NativeIo.Region region : regions) {
+
+                        final long end     = region.position() + region.length();
+                        long       current = region.position();
+
+                        while (current < end) {
+
+                            final long chunk = Math.min(
+                                    limited ? limiter.getChunkSize() : LinuxNativeIo.COPY_CHUNK_SIZE, end - current);
+
+                            if (limited) {
+
+                                limiter.acquireBytes(chunk);
+
+                            }
+
+                            inOffset.set(ValueLayout.JAVA_LONG, 0, current);
+                            outOffset.set(ValueLayout.JAVA_LONG, 0, current);
+                            final long copied = LinuxNativeIo.copyFileRange(state, in, inOffset, out, outOffset,
+                                    chunk);
+
+                            if (copied < 0) {
+
+                                final int errno = LinuxNativeIo.errno(state);
+
+                                if (first && ((errno == LinuxNativeIo.ENOSYS) || (errno == LinuxNativeIo.EXDEV)
+                                        || (errno == LinuxNativeIo.EINVAL) || (errno == LinuxNativeIo.EOPNOTSUPP))) {
+
+                                    return false;
+
+                                }
+                                throw new IOException(
+                                        String.format("コピーに失敗しました。: %s -> %s (errno=%d)", source, target, errno));
+
+                            }
+                            first = false;
+
+                            if (copied == 0) {
+
+                                // 途中までのコピーを成功とみなさない
+                                throw new IOException(
+                                        String.format("コピー中にコピー元のファイルが切り詰められました。: %s", source));
+
+                            }
+                            current += copied;
+
+                        }
+
+                    }
+
+                } finally {
+
+                    LinuxNativeIo.close(out);
+
+                }
+
+            } finally {
+
+                LinuxNativeIo.close(in);
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * ファイルのページキャッシュのうち、書き戻し済みのページを解放する。
+     *
+     * @param file
+     *             ファイル
+     * @throws IOException
+     *                     ファイルを開けない場合
+     */
+    static void dropCache(final Path file) throws IOException {
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final int           fd    = LinuxNativeIo.open(arena, state, file, LinuxNativeIo.O_RDONLY, 0);
+
+            try {
+
+                LinuxNativeIo.fadvise(fd, 0, 0, LinuxNativeIo.POSIX_FADV_DONTNEED);
+
+            } finally {
+
+                LinuxNativeIo.close(fd);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * コピーしたファイルのページキャッシュを解放する。書き戻しの完了は待機しない。<br>
+     * ソースのページを解放し、コピー先は書き戻しを開始したうえで、書き戻し済みのページを解放する。
+     *
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル
+     * @throws IOException
+     *                     ファイルを開けない場合、または書き戻しに失敗した場合
+     */
+    static void releaseCache(final Path source, final Path target) throws IOException {
+
+        final int in = LinuxNativeIo.openFile(source, false);
+
+        try {
+
+            LinuxNativeIo.dropPages(in, 0, 0);
+
+        } finally {
+
+            LinuxNativeIo.closeFile(in);
+
+        }
+
+        // 書き込み権限のないパーミッションでコピーされた場合も開けるよう、読み込み用に開く。書き戻しは読み込み用の記述子でも開始できる
+        final int out = LinuxNativeIo.openFile(target, false);
+
+        try {
+
+            LinuxNativeIo.startWriteback(out, 0, 0);
+            LinuxNativeIo.dropPages(out, 0, 0);
+
+        } finally {
+
+            LinuxNativeIo.closeFile(out);
+
+        }
+
+    }
+
+    /**
+     * ファイル記述子を操作するクラス（{@link PageCacheHygiene}）のために、ファイルを開く。
+     *
+     * @param file
+     *              ファイル
+     * @param write
+     *              書き込み用に開く場合true
+     * @return ファイル記述子
+     * @throws IOException
+     *                     ファイルを開けない場合
+     */
+    static int openFile(final Path file, final boolean write) throws IOException {
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state  = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final int           result = LinuxNativeIo.open(arena, state, file,
+                    write ? LinuxNativeIo.O_WRONLY : LinuxNativeIo.O_RDONLY, 0);
+            return result;
+
+        }
+
+    }
+
+    /**
+     * {@link #openFile(Path, boolean)}で開いたファイル記述子を閉じる。
+     *
+     * @param fd
+     *           ファイル記述子
+     */
+    static void closeFile(final int fd) {
+
+        LinuxNativeIo.close(fd);
+
+    }
+
+    /**
+     * ファイルの範囲の書き戻しを開始する。完了は待機しない。
+     *
+     * @param fd
+     *               ファイル記述子
+     * @param offset
+     *               範囲の開始位置
+     * @param length
+     *               範囲の長さ。0の場合はファイルの末尾まで
+     * @throws IOException
+     *                     書き戻しに失敗した場合
+     */
+    static void startWriteback(final int fd, final long offset, final long length) throws IOException {
+
+        LinuxNativeIo.syncFileRange(fd, offset, length, LinuxNativeIo.SYNC_FILE_RANGE_WRITE);
+
+    }
+
+    /**
+     * ファイルの範囲を書き戻し、完了まで待機する。
+     *
+     * @param fd
+     *               ファイル記述子
+     * @param offset
+     *               範囲の開始位置
+     * @param length
+     *               範囲の長さ
+     * @throws IOException
+     *                     書き戻しに失敗した場合
+     */
+    static void waitWriteback(final int fd, final long offset, final long length) throws IOException {
+
+        LinuxNativeIo.syncFileRange(fd, offset, length, LinuxNativeIo.SYNC_FILE_RANGE_WAIT_BEFORE
+                | LinuxNativeIo.SYNC_FILE_RANGE_WRITE | LinuxNativeIo.SYNC_FILE_RANGE_WAIT_AFTER);
+
+    }
+
+    /**
+     * ファイルの範囲のページキャッシュのうち、書き戻し済みのページを解放する。
+     *
+     * @param fd
+     *               ファイル記述子
+     * @param offset
+     *               範囲の開始位置
+     * @param length
+     *               範囲の長さ。0の場合はファイルの末尾まで
+     */
+    static void dropPages(final int fd, final long offset, final long length) {
+
+        LinuxNativeIo.fadvise(fd, offset, length, LinuxNativeIo.POSIX_FADV_DONTNEED);
+
+    }
+
+    /**
+     * ダイレクトI/Oの読み書きをするクラス（{@link DirectIoFile}）のために、ファイルを読み込み用にO_DIRECTで開く。
+     *
+     * @param file
+     *             ファイル
+     * @return ファイル記述子
+     * @throws IOException
+     *                     ファイルを開けない場合。ファイルシステムがO_DIRECTに対応していない場合を含む
+     */
+    static int openDirect(final Path file) throws IOException {
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state  = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final int           result = LinuxNativeIo.open(arena, state, file,
+                    LinuxNativeIo.O_RDONLY | LinuxNativeIo.O_DIRECT, 0);
+            return result;
+
+        }
+
+    }
+
+    /**
+     * ダイレクトI/Oの読み書きをするクラス（{@link DirectIoFile}）のために、ファイルを作成して書き込み用にO_DIRECTで開く。<br>
+     * <p>
+     * 既存のファイルは、{@link #prepareTarget(Path, List, long, int)}と同様に削除してから作成する。
+     * 書き込み用に開くため所有者の書き込み権限を付けて作成し、コピー後に{@link #restoreMode(Path, int)}で指定されたパーミッションに戻すこと。
+     * </p>
+     *
+     * @param file
+     *             ファイル
+     * @param mode
+     *             作成するファイルのパーミッション（umaskを適用する前）
+     * @return ファイル記述子
+     * @throws IOException
+     *                     既存のファイルを削除できない場合、またはファイルを開けない場合。ファイルシステムがO_DIRECTに対応していない場合を含む
+     */
+    static int createDirect(final Path file, final int mode) throws IOException {
+
+        Files.deleteIfExists(file);
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state  = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final int           result = LinuxNativeIo.open(arena, state, file,
+                    LinuxNativeIo.O_WRONLY | LinuxNativeIo.O_CREAT | LinuxNativeIo.O_TRUNC | LinuxNativeIo.O_DIRECT,
+                    mode | LinuxNativeIo.S_IWUSR);
+            return result;
+
+        }
+
+    }
+
+    /**
+     * 指定した位置からバッファの残りの領域に読み込む。割り込まれた場合は再試行する。<br>
+     * 読み込んだバイト数だけバッファの位置を進める。
+     *
+     * @param fd
+     *                 ファイル記述子
+     * @param buffer
+     *                 読み込み先のダイレクトバッファ
+     * @param position
+     *                 読み込みの開始位置
+     * @return 読み込んだバイト数。ファイルの末尾の場合は0
+     * @throws IOException
+     *                     読み込みに失敗した場合
+     */
+    static int read(final int fd, final ByteBuffer buffer, final long position) throws IOException {
+
+        final int result = LinuxNativeIo.transfer(LinuxNativeIo.PREAD, fd, buffer, position, "読み込み");
+        return result;
+
+    }
+
+    /**
+     * バッファの残りの領域を指定した位置に書き込む。割り込まれた場合は再試行する。<br>
+     * 書き込んだバイト数だけバッファの位置を進める。
+     *
+     * @param fd
+     *                 ファイル記述子
+     * @param buffer
+     *                 書き込むダイレクトバッファ
+     * @param position
+     *                 書き込みの開始位置
+     * @return 書き込んだバイト数
+     * @throws IOException
+     *                     書き込みに失敗した場合
+     */
+    static int write(final int fd, final ByteBuffer buffer, final long position) throws IOException {
+
+        final int result = LinuxNativeIo.transfer(LinuxNativeIo.PWRITE, fd, buffer, position, "書き込み");
+        return result;
+
+    }
+
+    /**
+     * ファイル記述子のファイルサイズを設定する。
+     *
+     * @param fd
+     *               ファイル記述子
+     * @param length
+     *               ファイルサイズ
+     * @throws IOException
+     *                     ファイルサイズを設定できない場合
+     */
+    static void truncate(final int fd, final long length) throws IOException {
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+
+            if (LinuxNativeIo.ftruncate(state, fd, length) != 0) {
+
+                throw new IOException(
+                        String.format("ファイルサイズを設定できませんでした。(errno=%d)", LinuxNativeIo.errno(state)));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * statxを使用できるかを返す。
+     *
+     * @return 使用できる場合true
+     */
+    static boolean isStatxSupported() {
+
+        final boolean result = LinuxNativeIo.STATX != null;
+        return result;
+
+    }
+
+    /**
+     * statxでファイルの属性を取得する。シンボリックリンクはリンク先の属性を取得する。
+     *
+     * @param file
+     *             ファイル
+     * @return ファイルの属性。存在しない、または属性を取得できない場合はnull
+     */
+    static NativeIo.FileStatus stat(final Path file) {
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state  = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+            final MemorySegment path   = arena.allocateUtf8String(file.toString());
+            final MemorySegment buffer = arena.allocate(LinuxNativeIo.STATX_SIZE, Long.BYTES);
+            final int           returnValue;
+
+            try {
+
+                returnValue = (int) LinuxNativeIo.STATX.invokeExact(state, LinuxNativeIo.AT_FDCWD, path, 0,
+                        LinuxNativeIo.STATX_MASK, buffer);
+
+            } catch (final Throwable e) {
+
+                throw LinuxNativeIo.unexpected(e);
+
+            }
+
+            if (returnValue != 0) {
+
+                return null;
+
+            }
+
+            final int  mask      = buffer.get(ValueLayout.JAVA_INT, LinuxNativeIo.STX_MASK_OFFSET);
+            final int  mode      = Short.toUnsignedInt(buffer.get(ValueLayout.JAVA_SHORT, LinuxNativeIo.STX_MODE_OFFSET));
+            final long size      = buffer.get(ValueLayout.JAVA_LONG, LinuxNativeIo.STX_SIZE_OFFSET);
+            final long allocated = (mask & LinuxNativeIo.STATX_BLOCKS) != 0
+                    ? buffer.get(ValueLayout.JAVA_LONG, LinuxNativeIo.STX_BLOCKS_OFFSET) * LinuxNativeIo.BLOCK_SIZE
+                    : size;
+
+            final long     seconds  = buffer.get(ValueLayout.JAVA_LONG, LinuxNativeIo.STX_MTIME_SEC_OFFSET);
+            final long     nanos    = Integer
+                    .toUnsignedLong(buffer.get(ValueLayout.JAVA_INT, LinuxNativeIo.STX_MTIME_NSEC_OFFSET));
+            final FileTime modified = FileTime.from(Instant.ofEpochSecond(seconds, nanos));
+
+            final NativeIo.FileStatus result = new NativeIo.FileStatus(
+                    (mode & LinuxNativeIo.S_IFMT) == LinuxNativeIo.S_IFDIR,
+                    (mode & LinuxNativeIo.S_IFMT) == LinuxNativeIo.S_IFREG, size, allocated,
+                    mode & LinuxNativeIo.PERMISSION_BITS, modified);
+            return result;
+
+        }
+
+    }
+
+    /**
+     * ファイルを開く。
+     *
+     * @param arena
+     *              パスの文字列を確保する領域
+     * @param state
+     *              errnoを受け取る領域
+     * @param file
+     *              ファイル
+     * @param flags
+     *              openのフラグ
+     * @param mode
+     *              新規作成する場合のパーミッション
+     * @return ファイル記述子
+     * @throws IOException
+     *                     ファイルを開けない場合
+     */
+    private static int open(final Arena arena, final MemorySegment state, final Path file, final int flags,
+            final int mode) throws IOException {
+
+        final MemorySegment path = arena.allocateUtf8String(file.toString());
+
+        while (true) {
+
+            final int result;
+
+            try {
+
+                result = (int) LinuxNativeIo.OPEN.invokeExact(state, path, flags | LinuxNativeIo.O_CLOEXEC, mode);
+
+            } catch (final Throwable e) {
+
+                throw LinuxNativeIo.unexpected(e);
+
+            }
+
+            if (result >= 0) {
+
+                return result;
+
+            }
+
+            final int errno = LinuxNativeIo.errno(state);
+
+            if (errno != LinuxNativeIo.EINTR) {
+
+                throw new IOException(String.format("ファイルを開けませんでした。: %s (errno=%d)", file, errno));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * ファイル記述子を閉じる。
+     *
+     * @param fd
+     *           ファイル記述子
+     */
+    private static void close(final int fd) {
+
+        try {
+
+            // 読み込み専用、または書き込み後に閉じるのみのため、closeの失敗は無視する
+            @SuppressWarnings("unused")
+            final int ignored = (int) LinuxNativeIo.CLOSE.invokeExact(fd);
+
+        } catch (final Throwable e) {
+
+            throw LinuxNativeIo.unexpected(e);
+
+        }
+
+    }
+
+    /**
+     * ファイルのオフセットを移動する。
+     *
+     * @param state
+     *               errnoを受け取る領域
+     * @param fd
+     *               ファイル記述子
+     * @param offset
+     *               オフセット
+     * @param whence
+     *               SEEK_DATAまたはSEEK_HOLE
+     * @return 移動後のオフセット。SEEK_DATAで以降にデータがない場合は-1
+     * @throws IOException
+     *                     シークに失敗した場合
+     */
+    private static long lseek(final MemorySegment state, final int fd, final long offset, final int whence)
+            throws IOException {
+
+        final long result;
+
+        try {
+
+            result = (long) LinuxNativeIo.LSEEK.invokeExact(state, fd, offset, whence);
+
+        } catch (final Throwable e) {
+
+            throw LinuxNativeIo.unexpected(e);
+
+        }
+
+        if ((result < 0) && (LinuxNativeIo.errno(state) != LinuxNativeIo.ENXIO)) {
+
+            throw new IOException(String.format("シークに失敗しました。(errno=%d)", LinuxNativeIo.errno(state)));
+
+        }
+        return result;
+
+    }
+
+    /**
+     * ファイルの領域を事前に割り当てる。
+     *
+     * @param state
+     *               errnoを受け取る領域
+     * @param fd
+     *               ファイル記述子
+     * @param offset
+     *               領域の開始位置
+     * @param length
+     *               領域の長さ
+     * @return 成功した場合は0、失敗した場合はerrno
+     */
+    private static int fallocate(final MemorySegment state, final int fd, final long offset, final long length) {
+
+        while (true) {
+
+            final int returnValue;
+
+            try {
+
+                returnValue = (int) LinuxNativeIo.FALLOCATE.invokeExact(state, fd, 0, offset, length);
+
+            } catch (final Throwable e) {
+
+                throw LinuxNativeIo.unexpected(e);
+
+            }
+
+            if (returnValue == 0) {
+
+                return 0;
+
+            }
+
+            final int result = LinuxNativeIo.errno(state);
+
+            if (result != LinuxNativeIo.EINTR) {
+
+                return result;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * ファイルサイズを設定する。
+     *
+     * @param state
+     *               errnoを受け取る領域
+     * @param fd
+     *               ファイル記述子
+     * @param length
+     *               ファイルサイズ
+     * @return 成功した場合は0、失敗した場合は-1
+     */
+    private static int ftruncate(final MemorySegment state, final int fd, final long length) {
+
+        try {
+
+            final int result = (int) LinuxNativeIo.FTRUNCATE.invokeExact(state, fd, length);
+            return result;
+
+        } catch (final Throwable e) {
+
+            throw LinuxNativeIo.unexpected(e);
+
+        }
+
+    }
+
+    /**
+     * ファイルの範囲のアクセスパターンをカーネルに通知する。通知の失敗は無視する。
+     *
+     * @param fd
+     *               ファイル記述子
+     * @param offset
+     *               範囲の開始位置
+     * @param length
+     *               範囲の長さ。0の場合はファイルの末尾まで
+     * @param advice
+     *               POSIX_FADV_SEQUENTIALまたはPOSIX_FADV_DONTNEED
+     */
+    private static void fadvise(final int fd, final long offset, final long length, final int advice) {
+
+        try {
+
+            // 通知は性能のためのヒントのため、失敗してもコピーや比較の結果には影響しない
+            @SuppressWarnings("unused")
+            final int ignored = (int) LinuxNativeIo.POSIX_FADVISE.invokeExact(fd, offset, length, advice);
+
+        } catch (final Throwable e) {
+
+            throw LinuxNativeIo.unexpected(e);
+
+        }
+
+    }
+
+    /**
+     * sync_file_rangeでファイルの範囲の書き戻しを開始、または完了を待機する。割り込まれた場合は再試行する。
+     *
+     * @param fd
+     *               ファイル記述子
+     * @param offset
+     *               範囲の開始位置
+     * @param length
+     *               範囲の長さ
+     * @param flags
+     *               SYNC_FILE_RANGE_WAIT_BEFORE、SYNC_FILE_RANGE_WRITE、SYNC_FILE_RANGE_WAIT_AFTERの組み合わせ
+     * @throws IOException
+     *                     書き戻しに失敗した場合
+     */
+    private static void syncFileRange(final int fd, final long offset, final long length, final int flags)
+            throws IOException {
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+
+            while (true) {
+
+                final int returnValue;
+
+                try {
+
+                    returnValue = (int) LinuxNativeIo.SYNC_FILE_RANGE.invokeExact(state, fd, offset, length, flags);
+
+                } catch (final Throwable e) {
+
+                    throw LinuxNativeIo.unexpected(e);
+
+                }
+
+                if (returnValue == 0) {
+
+                    return;
+
+                }
+
+                final int errno = LinuxNativeIo.errno(state);
+
+                if ((errno == LinuxNativeIo.EINVAL) || (errno == LinuxNativeIo.ESPIPE)) {
+
+                    // ファイルシステムが対応していない場合は、通常の書き戻しに任せる
+                    return;
+
+                }
+
+                if (errno != LinuxNativeIo.EINTR) {
+
+                    throw new IOException(String.format("書き戻しに失敗しました。(errno=%d)", errno));
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * preadまたはpwriteで、バッファの残りの領域を読み書きする。割り込まれた場合は再試行する。
+     *
+     * @param handle
+     *                  PREADまたはPWRITE
+     * @param fd
+     *                  ファイル記述子
+     * @param buffer
+     *                  ダイレクトバッファ
+     * @param position
+     *                  読み書きの開始位置
+     * @param operation
+     *                  エラーメッセージに含める操作の名前
+     * @return 読み書きしたバイト数
+     * @throws IOException
+     *                     読み書きに失敗した場合
+     */
+    private static int transfer(final MethodHandle handle, final int fd, final ByteBuffer buffer,
+            final long position, final String operation) throws IOException {
+
+        final MemorySegment segment = MemorySegment.ofBuffer(buffer);
+
+        try (Arena arena = Arena.ofConfined()) {
+
+            final MemorySegment state = arena.allocate(LinuxNativeIo.CAPTURE_LAYOUT);
+
+            while (true) {
+
+                final long transferred;
+
+                try {
+
+                    transferred = (long) handle.invokeExact(state, fd, segment, segment.byteSize(), position);
+
+                } catch (final Throwable e) {
+
+                    throw LinuxNativeIo.unexpected(e);
+
+                }
+
+                if (transferred >= 0) {
+
+                    final int result = (int) transferred;
+                    buffer.position(buffer.position() + result);
+                    return result;
+
+                }
+
+                final int errno = LinuxNativeIo.errno(state);
+
+                if (errno != LinuxNativeIo.EINTR) {
+
+                    throw new IOException(String.format("ダイレクトI/Oの%sに失敗しました。(errno=%d)", operation, errno));
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * copy_file_rangeでファイルの範囲をコピーする。割り込まれた場合は再試行する。
+     *
+     * @param state
+     *                  errnoを受け取る領域
+     * @param in
+     *                  コピー元のファイル記述子
+     * @param inOffset
+     *                  コピー元の位置
+     * @param out
+     *                  コピー先のファイル記述子
+     * @param outOffset
+     *                  コピー先の位置
+     * @param length
+     *                  コピーする長さ
+     * @return コピーしたバイト数。失敗した場合は-1
+     */
+    private static long copyFileRange(final MemorySegment state, final int in, final MemorySegment inOffset,
+            final int out, final MemorySegment outOffset, final long length) {
+
+        while (true) {
+
+            final long result;
+
+            try {
+
+                result = (long) LinuxNativeIo.COPY_FILE_RANGE.invokeExact(state, in, inOffset, out, outOffset, length,
+                        0);
+
+            } catch (final Throwable e) {
+
+                throw LinuxNativeIo.unexpected(e);
+
+            }
+
+            if ((result >= 0) || (LinuxNativeIo.errno(state) != LinuxNativeIo.EINTR)) {
+
+                return result;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 直前のシステムコールのerrnoを返す。
+     *
+     * @param state
+     *              errnoを受け取った領域
+     * @return errno
+     */
+    private static int errno(final MemorySegment state) {
+
+        final int result = (int) LinuxNativeIo.ERRNO.get(state);
+        return result;
+
+    }
+
+    /**
+     * ネイティブ関数の呼び出しで発生した想定外の例外を非チェック例外に変換する。
+     *
+     * @param e
+     *          例外
+     * @return 非チェック例外
+     */
+    private static RuntimeException unexpected(final Throwable e) {
+
+        if (e instanceof final RuntimeException runtimeException) {
+
+            return runtimeException;
+
+        }
+
+        if (e instanceof final Error error) {
+
+            throw error;
+
+        }
+
+        final RuntimeException result = new IllegalStateException("ネイティブ関数の呼び出しに失敗しました。", e);
+        return result;
+
+    }
+}
@@ -0,0 +1,254 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * メモリマップを用いてファイル全体を並列に比較するクラス。<br>
+ * <p>
+ * 両方のファイルを固定サイズのウィンドウ単位で{@link FileChannel#map}によりマップし、ウィンドウ同士を複数のワーカーで並列に比較する。<br>
+ * 最初の不一致が見つかった時点で停止フラグを立て、すべてのワーカーは処理中のウィンドウも含めて比較を打ち切る。
+ * </p>
+ * <p>
+ * 呼び出し元のスレッド自身もワーカーとしてウィンドウを処理し、未処理のウィンドウが無くなるまで取得を続ける。<br>
+ * 補助ワーカーは{@link Executor}に投入されるが、開始が遅れた補助ワーカーは処理すべきウィンドウが無いため即座に終了する。<br>
+ * そのため、呼び出し元と同じスレッドプール上で実行しても、空きスレッドを待ってデッドロックすることはない。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public class MappedFileComparator {
+
+    /** デフォルトのウィンドウサイズ */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /** 停止フラグを確認する間隔（ウィンドウ内の比較単位） */
+    private static final int SLICE_SIZE = 1024 * 1024;
+
+    /** 補助ワーカーを実行するエグゼキュータ */
+    private final Executor executor;
+
+    /** 呼び出し元を含むワーカーの最大数 */
+    private final int parallelism;
+
+    /** ウィンドウサイズ */
+    private final int windowSize;
+
+    /**
+     * 比較エンジンを作成する。
+     *
+     * @param executor
+     *                    補助ワーカーを実行するエグゼキュータ
+     * @param parallelism
+     *                    呼び出し元を含むワーカーの最大数。1の場合は呼び出し元のみで比較する
+     * @param windowSize
+     *                    1回にマップするウィンドウのサイズ
+     */
+    public MappedFileComparator(final Executor executor, final int parallelism, final int windowSize) {
+
+        if (parallelism <= 0) {
+
+            throw new IllegalArgumentException(String.format("ワーカー数は1以上で指定してください。: %d", parallelism));
+
+        }
+
+        if (windowSize <= 0) {
+
+            throw new IllegalArgumentException(String.format("ウィンドウサイズは1以上で指定してください。: %d", windowSize));
+
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.windowSize = windowSize;
+
+    }
+
+    /**
+     * 2つのファイルの内容を比較する。
+     *
+     * @param file1
+     *              比較対象のファイル1
+     * @param file2
+     *              比較対象のファイル2
+     * @return ファイル内容が完全に一致する場合true、それ以外の場合false
+     * @throws IOException
+     *                     ファイルの読み取り中にエラーが発生した場合
+     */
+    public boolean compare(final Path file1, final Path file2) throws IOException {
+
+        final long size = Files.size(file1);
+
+        if (size != Files.size(file2)) {
+
+            return false;
+
+        }
+
+        try (FileChannel channel1 = FileChannel.open(file1, StandardOpenOption.READ);
+                FileChannel channel2 = FileChannel.open(file2, StandardOpenOption.READ)) {
+
+            final boolean result = this.compare(channel1, channel2, size);
+            return result;
+
+        }
+
+    }
+
+    /**
+     * 同じサイズの2つのチャネルの内容を比較する。
+     *
+     * @param channel1
+     *                 比較対象のファイル1のチャネル
+     * @param channel2
+     *                 比較対象のファイル2のチャネル
+     * @param size
+     *                 ファイルサイズ
+     * @return 内容が完全に一致する場合true、それ以外の場合false
+     * @throws IOException
+     *                     マップまたは比較中にエラーが発生した場合、または比較が中断された場合
+     */
+    public boolean compare(final FileChannel channel1, final FileChannel channel2, final long size)
+            throws IOException {
+
+        if (size == 0) {
+
+            return true;
+
+        }
+
+        final long                         windowCount = ((size - 1) / this.windowSize) + 1;
+        final AtomicLong                   nextWindow  = new AtomicLong();
+        final AtomicBoolean                stopFlag    = new AtomicBoolean();
+        final AtomicBoolean                mismatch    = new AtomicBoolean();
+        final AtomicReference<IOException> failure     = new AtomicReference<>();
+        final CountDownLatch               finished    = new CountDownLatch((int) windowCount);
+
+        final Runnable worker = () -> {
+
+            long window;
+
+            while ((window = nextWindow.getAndIncrement()) < windowCount) {
+
+                try {
+
+                    if (!stopFlag.get() && !this.compareWindow(channel1, channel2, window, size, stopFlag)) {
+
+                        mismatch.set(true);
+                        stopFlag.set(true);
+
+                    }
+
+                } catch (final IOException e) {
+
+                    failure.compareAndSet(null, e);
+                    stopFlag.set(true);
+
+                } finally {
+
+                    finished.countDown();
+
+                }
+
+            }
+
+        };
+
+        final long helperCount = Math.min(this.parallelism, windowCount) - 1;
+
+        for (long i = 0; i < helperCount; i++) {
+
+            try {
+
+                this.executor.execute(worker);
+
+            } catch (@SuppressWarnings("unused") final RejectedExecutionException e) {
+
+                // 補助ワーカーを投入できない場合は呼び出し元のみで処理を継続する
+                break;
+
+            }
+
+        }
+
+        // 呼び出し元もワーカーとして未処理のウィンドウを処理する
+        worker.run();
+
+        try {
+
+            finished.await();
+
+        } catch (final InterruptedException e) {
+
+            stopFlag.set(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("ファイルの比較が中断されました。", e);
+
+        }
+
+        if (failure.get() != null) {
+
+            throw failure.get();
+
+        }
+
+        final boolean result = !mismatch.get();
+        return result;
+
+    }
+
+    /**
+     * 1つのウィンドウをマップして比較する。<br>
+     * <p>
+     * ウィンドウ内は一定サイズごとに停止フラグを確認し、他のワーカーが不一致を見つけた場合は比較を打ち切る。
+     * </p>
+     *
+     * @param channel1
+     *                 比較対象のファイル1のチャネル
+     * @param channel2
+     *                 比較対象のファイル2のチャネル
+     * @param window
+     *                 ウィンドウの番号
+     * @param size
+     *                 ファイルサイズ
+     * @param stopFlag
+     *                 停止フラグ
+     * @return ウィンドウ内で不一致が見つからなかった場合true
+     * @throws IOException
+     *                     マップ中にエラーが発生した場合
+     */
+    private boolean compareWindow(final FileChannel channel1, final FileChannel channel2, final long window,
+            final long size, final AtomicBoolean stopFlag) throws IOException {
+
+        final long position = window * this.windowSize;
+        final int  length   = (int) Math.min(this.windowSize, size - position);
+
+        final MappedByteBuffer buffer1 = channel1.map(FileChannel.MapMode.READ_ONLY, position, length);
+        final MappedByteBuffer buffer2 = channel2.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+        for (int offset = 0; (offset < length) && !stopFlag.get(); offset += MappedFileComparator.SLICE_SIZE) {
+
+            final int sliceLength = Math.min(MappedFileComparator.SLICE_SIZE, length - offset);
+
+            if (buffer1.slice(offset, sliceLength).mismatch(buffer2.slice(offset, sliceLength)) != -1) {
+
+                return false;
+
+            }
+
+        }
+        return true;
+
+    }
+}
@@ -0,0 +1,401 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * OSのネイティブなファイル操作を呼び出すクラス。<br>
+ * <p>
+ * Linuxで、JVMを{@code --enable-preview}付きで起動した場合のみ、{@link LinuxNativeIo}でシステムコールを呼び出す。<br>
+ * それ以外の環境では{@link #isAvailable()}がfalseを返し、呼び出し元はNIOの処理を使用する。
+ * </p>
+ * <p>
+ * {@link #stat(Path)}と{@link #dropCache(Path)}はどの環境でも呼び出せ、ネイティブなファイル操作を使用できない場合はNIOの処理、または何もしない処理となる。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class NativeIo {
+
+    /** ロガー */
+    private static final Logger logger = LoggerFactory.getLogger(NativeIo.class);
+
+    /** ネイティブなファイル操作を使用できるか */
+    private static final boolean AVAILABLE = NativeIo.probe();
+
+    /**
+     * ファイルのデータ領域。
+     *
+     * @param position
+     *                 開始位置
+     * @param length
+     *                 長さ
+     */
+    public record Region(long position, long length) {
+        // 処理なし
+    }
+
+    /**
+     * ファイルの属性。
+     *
+     * @param directory
+     *                         ディレクトリの場合true
+     * @param regularFile
+     *                         通常のファイルの場合true
+     * @param size
+     *                         ファイルサイズ
+     * @param allocatedSize
+     *                         割り当て済みのサイズ。取得できない場合はファイルサイズ
+     * @param mode
+     *                         パーミッション。取得できない場合は0
+     * @param lastModifiedTime
+     *                         更新日時
+     */
+    public record FileStatus(boolean directory, boolean regularFile, long size, long allocatedSize, int mode,
+            FileTime lastModifiedTime) {
+        // 処理なし
+    }
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private NativeIo() {
+
+        // 処理なし
+    }
+
+    /**
+     * ネイティブなファイル操作を使用できるかを返す。
+     *
+     * @return 使用できる場合true
+     */
+    public static boolean isAvailable() {
+
+        final boolean result = NativeIo.AVAILABLE;
+        return result;
+
+    }
+
+    /**
+     * ファイルのデータ領域を列挙する。ホールは含まない。
+     *
+     * @param file
+     *             ファイル
+     * @param size
+     *             ファイルサイズ
+     * @return データ領域
+     * @throws IOException
+     *                     ファイルの読み取りに失敗した場合
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static List<Region> dataRegions(final Path file, final long size) throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        final List<Region> result = LinuxNativeIo.dataRegions(file, size);
+        return result;
+
+    }
+
+    /**
+     * コピー先のファイルを作成し、データ領域を事前に割り当ててから最終的なサイズに設定する。<br>
+     * 割り当てない領域はホールとなる。既存のファイルは削除してから作成する。<br>
+     * 所有者の書き込み権限を付けて作成するため、コピー後に{@link #restoreMode(Path, int)}でパーミッションを戻すこと。
+     *
+     * @param file
+     *                ファイル
+     * @param regions
+     *                割り当てるデータ領域
+     * @param size
+     *                最終的なファイルサイズ
+     * @param mode
+     *                作成するファイルのパーミッション
+     * @return 事前割り当てを行った場合true。ファイルシステムが対応していない場合はfalse
+     * @throws IOException
+     *                     ファイルの作成、割り当て、またはサイズの設定に失敗した場合
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static boolean prepareTarget(final Path file, final List<Region> regions, final long size, final int mode)
+            throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        final boolean result = LinuxNativeIo.prepareTarget(file, regions, size, mode);
+        return result;
+
+    }
+
+    /**
+     * {@link #prepareTarget(Path, List, long, int)}または{@link #createDirect(Path, int)}で作成したファイルのパーミッションを、
+     * 作成時に指定したパーミッションに戻す。
+     *
+     * @param file
+     *             ファイル
+     * @param mode
+     *             作成時に指定したパーミッション
+     * @throws IOException
+     *                     パーミッションの変更に失敗した場合
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static void restoreMode(final Path file, final int mode) throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        LinuxNativeIo.restoreMode(file, mode);
+
+    }
+
+    /**
+     * FICLONEでコピー先をソースのクローン（reflink）にする。データは読み書きせず、ソースとデータブロックを共有する。<br>
+     * 既存のファイルは削除してから作成する。クローンを作成できない場合、作成したコピー先は削除する。
+     *
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル
+     * @param mode
+     *               作成するファイルのパーミッション
+     * @return クローンを作成した場合true。ファイルシステムが対応していない場合、または異なるファイルシステムの場合はfalse
+     * @throws IOException
+     *                     ファイルを開けない場合
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static boolean cloneFile(final Path source, final Path target, final int mode) throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        final boolean result = LinuxNativeIo.cloneFile(source, target, mode);
+        return result;
+
+    }
+
+    /**
+     * copy_file_rangeでファイルのデータ領域をコピー先の同じ位置にカーネル内でコピーする。<br>
+     * ソースには順次読み込みを通知する。
+     *
+     * @param source
+     *                コピー元のファイル
+     * @param target
+     *                コピー先のファイル。{@link #prepareTarget(Path, List, long, int)}で作成済みであること
+     * @param regions
+     *                コピーするデータ領域
+     * @param limiter
+     *                帯域のリミッタ。nullの場合は制限しない
+     * @return コピーした場合true。copy_file_rangeを使用できない場合は何もコピーせずにfalse
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合、または待機中に割り込まれた場合
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static boolean copyRegions(final Path source, final Path target, final List<Region> regions,
+            final ThroughputLimiter limiter) throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        final boolean result = LinuxNativeIo.copyRegions(source, target, regions, limiter);
+        return result;
+
+    }
+
+    /**
+     * ファイルのページキャッシュのうち、書き戻し済みのページを解放する。<br>
+     * 一度しか読まないファイルを読み込んだ後に呼び出し、他のファイルのキャッシュが追い出されることを防ぐ。<br>
+     * ネイティブなファイル操作を使用できない場合は何もしない。
+     *
+     * @param file
+     *             ファイル
+     * @throws IOException
+     *                     ファイルを開けない場合
+     */
+    public static void dropCache(final Path file) throws IOException {
+
+        if (!NativeIo.AVAILABLE) {
+
+            return;
+
+        }
+
+        LinuxNativeIo.dropCache(file);
+
+    }
+
+    /**
+     * コピーしたファイルのページキャッシュを解放する。コピー先は書き戻しを開始し、完了は待機しない。<br>
+     * ネイティブなファイル操作を使用できない場合は何もしない。
+     *
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル
+     * @throws IOException
+     *                     ファイルを開けない場合、または書き戻しに失敗した場合
+     */
+    public static void releaseCache(final Path source, final Path target) throws IOException {
+
+        if (!NativeIo.AVAILABLE) {
+
+            return;
+
+        }
+
+        LinuxNativeIo.releaseCache(source, target);
+
+    }
+
+    /**
+     * コピー中のファイルのページキャッシュをチャンクごとに解放するオブジェクトを作成する。
+     *
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル。作成済みであること
+     * @return ページキャッシュを解放するオブジェクト
+     * @throws IOException
+     *                     ファイルを開けない場合
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static PageCacheHygiene openPageCacheHygiene(final Path source, final Path target) throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        final PageCacheHygiene result = new PageCacheHygiene(source, target);
+        return result;
+
+    }
+
+    /**
+     * ファイルを読み込み用にO_DIRECTで開き、ページキャッシュを経由せずに読み込むオブジェクトを作成する。
+     *
+     * @param file
+     *             ファイル
+     * @return ダイレクトI/Oで読み込むオブジェクト
+     * @throws IOException
+     *                     ファイルを開けない場合。ファイルシステムがO_DIRECTに対応していない場合を含む
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static DirectIoFile openDirect(final Path file) throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        final DirectIoFile result = new DirectIoFile(LinuxNativeIo.openDirect(file));
+        return result;
+
+    }
+
+    /**
+     * ファイルを作成して書き込み用にO_DIRECTで開き、ページキャッシュを経由せずに書き込むオブジェクトを作成する。<br>
+     * 既存のファイルは削除してから作成する。
+     * 所有者の書き込み権限を付けて作成するため、コピー後に{@link #restoreMode(Path, int)}でパーミッションを戻すこと。
+     *
+     * @param file
+     *             ファイル
+     * @param mode
+     *             作成するファイルのパーミッション（umaskを適用する前）
+     * @return ダイレクトI/Oで書き込むオブジェクト
+     * @throws IOException
+     *                     既存のファイルを削除できない場合、またはファイルを開けない場合。ファイルシステムがO_DIRECTに対応していない場合を含む
+     * @throws UnsupportedOperationException
+     *                                       ネイティブなファイル操作を使用できない場合
+     */
+    public static DirectIoFile createDirect(final Path file, final int mode) throws IOException {
+
+        NativeIo.ensureAvailable();
+
+        final DirectIoFile result = new DirectIoFile(LinuxNativeIo.createDirect(file, mode));
+        return result;
+
+    }
+
+    /**
+     * ファイルの属性を取得する。シンボリックリンクはリンク先の属性を取得する。<br>
+     * ネイティブなファイル操作を使用できる場合はstatxを1回呼び出し、使用できない場合はNIOで取得する。
+     *
+     * @param file
+     *             ファイル
+     * @return ファイルの属性。存在しない、または属性を取得できない場合はnull
+     */
+    public static FileStatus stat(final Path file) {
+
+        if (NativeIo.AVAILABLE && LinuxNativeIo.isStatxSupported()) {
+
+            final FileStatus result = LinuxNativeIo.stat(file);
+            return result;
+
+        }
+
+        final BasicFileAttributes attributes;
+
+        try {
+
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        } catch (@SuppressWarnings("unused") final IOException e) {
+
+            return null;
+
+        }
+
+        final FileStatus result = new FileStatus(attributes.isDirectory(), attributes.isRegularFile(),
+                attributes.size(), attributes.size(), 0, attributes.lastModifiedTime());
+        return result;
+
+    }
+
+    /**
+     * ネイティブなファイル操作を使用できない場合は例外を投げる。
+     */
+    private static void ensureAvailable() {
+
+        if (!NativeIo.AVAILABLE) {
+
+            throw new UnsupportedOperationException("ネイティブなファイル操作は使用できません。");
+
+        }
+
+    }
+
+    /**
+     * ネイティブなファイル操作を使用できるかを確認する。
+     *
+     * @return 使用できる場合true
+     */
+    private static boolean probe() {
+
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux")) {
+
+            return false;
+
+        }
+
+        try {
+
+            // クラスを初期化し、システムコールのハンドルを作成できることを確認する
+            Class.forName(LinuxNativeIo.class.getName(), true, NativeIo.class.getClassLoader());
+            return true;
+
+        } catch (final ClassNotFoundException | LinkageError | RuntimeException e) {
+
+            NativeIo.logger.debug("ネイティブなファイル操作は使用できません。NIOの処理を使用します。: {}", e.toString());
+            return false;
+
+        }
+
+    }
+}
@@ -0,0 +1,151 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * コピー中のファイルのページキャッシュを、チャンクごとに解放するクラス。<br>
+ * <p>
+ * 大きなファイルのコピーでは、読み込んだソースと書き込んだコピー先のページがキャッシュを占有し、
+ * 同じホストで動作するデータベースなどの頻繁に参照されるページを追い出す。<br>
+ * このクラスはコピーしたチャンクごとに{@link #release(long, long)}で次の処理を行う。
+ * </p>
+ * <ol>
+ * <li>ソースのチャンクのページを解放する（fadvise DONTNEED）
+ * <li>コピー先のチャンクの書き戻しを開始する（sync_file_range WRITE）。完了は待機しない
+ * <li>書き戻しを開始したが完了を確認していない量が{@value #DIRTY_BATCH_SIZE}バイトに達した場合、その範囲の書き戻しの完了を待機し、ページを解放する
+ * </ol>
+ * <p>
+ * 書き戻されていないページの量を一定に抑えるため、コピー先のダーティページがメモリを圧迫してから一斉に書き戻されることもない。<br>
+ * ファイル記述子は{@link NativeIo#openPageCacheHygiene(Path, Path)}で開き、{@link #close()}で残りの範囲を書き戻して閉じる。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class PageCacheHygiene implements Closeable {
+
+    /** 書き戻しの完了を待機せずに保持するコピー先の量の上限（32MB） */
+    public static final long DIRTY_BATCH_SIZE = 32L * 1024 * 1024;
+
+    /** ソースのファイル記述子 */
+    private final int sourceFd;
+
+    /** コピー先のファイル記述子 */
+    private final int targetFd;
+
+    /** 書き戻しの完了を確認していない範囲の開始位置。範囲がない場合は-1 */
+    private long pendingStart;
+
+    /** 書き戻しの完了を確認していない範囲の終了位置 */
+    private long pendingEnd;
+
+    /** 書き戻しの完了を確認していない量 */
+    private long pendingBytes;
+
+    /**
+     * ソースとコピー先を開く。
+     *
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル。作成済みであること
+     * @throws IOException
+     *                     ファイルを開けない場合
+     */
+    PageCacheHygiene(final Path source, final Path target) throws IOException {
+
+        this.sourceFd = LinuxNativeIo.openFile(source, false);
+
+        try {
+
+            this.targetFd = LinuxNativeIo.openFile(target, true);
+
+        } catch (final IOException e) {
+
+            LinuxNativeIo.closeFile(this.sourceFd);
+            throw e;
+
+        }
+
+        this.pendingStart = -1;
+
+    }
+
+    /**
+     * コピーしたチャンクのページキャッシュを解放する。チャンクは開始位置の昇順に渡す。
+     *
+     * @param position
+     *                 チャンクの開始位置
+     * @param length
+     *                 チャンクの長さ
+     * @throws IOException
+     *                     書き戻しに失敗した場合
+     */
+    public void release(final long position, final long length) throws IOException {
+
+        LinuxNativeIo.dropPages(this.sourceFd, position, length);
+        LinuxNativeIo.startWriteback(this.targetFd, position, length);
+
+        if (this.pendingStart < 0) {
+
+            this.pendingStart = position;
+
+        }
+        this.pendingEnd = position + length;
+        this.pendingBytes += length;
+
+        if (this.pendingBytes >= PageCacheHygiene.DIRTY_BATCH_SIZE) {
+
+            this.flush();
+
+        }
+
+    }
+
+    /**
+     * 残りの範囲の書き戻しの完了を待機してページを解放し、ファイルを閉じる。
+     *
+     * @throws IOException
+     *                     書き戻しに失敗した場合
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+
+            this.flush();
+
+        } finally {
+
+            LinuxNativeIo.closeFile(this.targetFd);
+            LinuxNativeIo.closeFile(this.sourceFd);
+
+        }
+
+    }
+
+    /**
+     * 書き戻しの完了を確認していない範囲の完了を待機し、コピー先のページを解放する。
+     *
+     * @throws IOException
+     *                     書き戻しに失敗した場合
+     */
+    private void flush() throws IOException {
+
+        if (this.pendingStart < 0) {
+
+            return;
+
+        }
+
+        final long length = this.pendingEnd - this.pendingStart;
+        LinuxNativeIo.waitWriteback(this.targetFd, this.pendingStart, length);
+        LinuxNativeIo.dropPages(this.targetFd, this.pendingStart, length);
+
+        this.pendingStart = -1;
+        this.pendingBytes = 0;
+
+    }
+}
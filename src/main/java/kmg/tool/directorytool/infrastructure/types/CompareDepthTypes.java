@@ -0,0 +1,192 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 比較深度の種類<br>
+ * <p>
+ * 差分比較でファイル内容をどこまで比較するかを表す列挙型。<br>
+ * 比較は常にサイズ、サンプリングしたブロック、全体の順に行い、深度によってどの段階で打ち切るかが決まる。<br>
+ * このenumは、コマンドライン引数として受け取った比較深度をアプリケーション内部で扱うための型安全な表現を提供する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public enum CompareDepthTypes implements Supplier<String> {
+
+    /* 定義：開始 */
+
+    /** 指定無し */
+    NONE("指定無し", null),
+
+    /** 簡易。ファイルサイズのみを比較する。 */
+    QUICK("簡易", "quick"),
+
+    /** サンプリング。ファイルサイズに加え、先頭・末尾・ランダムな位置のブロックを比較する。サンプルが一致すれば同一とみなす。 */
+    SAMPLED("サンプリング", "sampled"),
+
+    /** 完全。サンプリングで差異が見つからない場合、ファイル全体を比較する。 */
+    FULL("完全", "full"),
+
+    /* 定義：終了 */
+    ;
+
+    /** 名称 */
+    private final String name;
+
+    /** 値 */
+    private final String value;
+
+    /** 種類のマップ */
+    private static final Map<String, CompareDepthTypes> VALUES_MAP = new HashMap<>();
+
+    static {
+
+        /* 種類のマップにプット */
+        for (final CompareDepthTypes type : CompareDepthTypes.values()) {
+
+            CompareDepthTypes.VALUES_MAP.put(type.get(), type);
+
+        }
+
+    }
+
+    /**
+     * コンストラクタ<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param name
+     *              名称
+     * @param value
+     *              値
+     */
+    CompareDepthTypes(final String name, final String value) {
+
+        this.name = name;
+        this.value = value;
+
+    }
+
+    /**
+     * 値に該当する種類を返す<br>
+     * <p>
+     * 但し、値が存在しない場合は、指定無し（NONE）を返す。
+     * </p>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param value
+     *              値
+     * @return 種類。指定無し（NONE）：値が存在しない場合。
+     */
+    public static CompareDepthTypes getEnum(final String value) {
+
+        CompareDepthTypes result = CompareDepthTypes.VALUES_MAP.get(value);
+
+        if (result == null) {
+
+            result = NONE;
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 初期値の種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 初期値
+     */
+    public static CompareDepthTypes getInitValue() {
+
+        final CompareDepthTypes result = NONE;
+        return result;
+
+    }
+
+    /**
+     * デフォルトの種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return デフォルト値
+     */
+    public static CompareDepthTypes getDefault() {
+
+        final CompareDepthTypes result = FULL;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    @Override
+    public String toString() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 名称を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 名称
+     */
+    public String getName() {
+
+        final String result = this.name;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    public String getValue() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 種類の値<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 種類の値
+     */
+    @Override
+    public String get() {
+
+        final String result = this.value;
+        return result;
+
+    }
+}
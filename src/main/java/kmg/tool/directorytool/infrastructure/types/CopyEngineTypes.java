@@ -0,0 +1,194 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * コピーエンジンの種類<br>
+ * <p>
+ * COPYとファイルシステムをまたぐMOVEで、ファイルの内容をコピーする方式を表す列挙型。<br>
+ * このenumは、コマンドライン引数として受け取ったコピーエンジンをアプリケーション内部で扱うための型安全な表現を提供する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public enum CopyEngineTypes implements Supplier<String> {
+
+    /* 定義：開始 */
+
+    /** 指定無し */
+    NONE("指定無し", null),
+
+    /** 標準。{@link java.nio.file.Files#copy}でコピーする。 */
+    FILES("標準", "files"),
+
+    /** バッファ。ワーカーごとに再利用するダイレクトバッファで、指定されたブロックサイズごとに位置指定の読み書きを行う。 */
+    BUFFERED("バッファ", "buffered"),
+
+    /** クローン。reflinkに対応したファイルシステム（btrfs、XFSなど）ではクローンを作成し、対応していない場合は標準の方式でコピーする。 */
+    CLONE("クローン", "clone"),
+
+    /** ダイレクトI/O。ページキャッシュを経由せず、アドレスを揃えたバッファで複数のブロックを並行して読み書きする。 */
+    DIRECT("ダイレクトI/O", "direct"),
+
+    /* 定義：終了 */
+    ;
+
+    /** 名称 */
+    private final String name;
+
+    /** 値 */
+    private final String value;
+
+    /** 種類のマップ */
+    private static final Map<String, CopyEngineTypes> VALUES_MAP = new HashMap<>();
+
+    static {
+
+        /* 種類のマップにプット */
+        for (final CopyEngineTypes type : CopyEngineTypes.values()) {
+
+            CopyEngineTypes.VALUES_MAP.put(type.get(), type);
+
+        }
+
+    }
+
+    /**
+     * コンストラクタ<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param name
+     *              名称
+     * @param value
+     *              値
+     */
+    CopyEngineTypes(final String name, final String value) {
+
+        this.name = name;
+        this.value = value;
+
+    }
+
+    /**
+     * 値に該当する種類を返す<br>
+     * <p>
+     * 但し、値が存在しない場合は、指定無し（NONE）を返す。
+     * </p>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param value
+     *              値
+     * @return 種類。指定無し（NONE）：値が存在しない場合。
+     */
+    public static CopyEngineTypes getEnum(final String value) {
+
+        CopyEngineTypes result = CopyEngineTypes.VALUES_MAP.get(value);
+
+        if (result == null) {
+
+            result = NONE;
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 初期値の種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 初期値
+     */
+    public static CopyEngineTypes getInitValue() {
+
+        final CopyEngineTypes result = NONE;
+        return result;
+
+    }
+
+    /**
+     * デフォルトの種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return デフォルト値
+     */
+    public static CopyEngineTypes getDefault() {
+
+        final CopyEngineTypes result = FILES;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    @Override
+    public String toString() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 名称を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 名称
+     */
+    public String getName() {
+
+        final String result = this.name;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    public String getValue() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 種類の値<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 種類の値
+     */
+    @Override
+    public String get() {
+
+        final String result = this.value;
+        return result;
+
+    }
+}
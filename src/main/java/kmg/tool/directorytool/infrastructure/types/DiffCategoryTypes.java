@@ -0,0 +1,194 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 差分の分類の種類<br>
+ * <p>
+ * 差分比較で検出した差分の分類を表す列挙型。<br>
+ * 値は差分レポートに出力される分類名となる。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public enum DiffCategoryTypes implements Supplier<String> {
+
+    /* 定義：開始 */
+
+    /** 指定無し */
+    NONE("指定無し", null),
+
+    /** ソースのみ。ソースディレクトリのみに存在するパス。 */
+    SOURCE_ONLY("ソースのみ", "source-only"),
+
+    /** ターゲットのみ。ターゲットディレクトリのみに存在するパス。 */
+    TARGET_ONLY("ターゲットのみ", "target-only"),
+
+    /** 種別の不一致。一方がファイルで、もう一方がディレクトリのパス。 */
+    TYPE_MISMATCH("種別の不一致", "type-mismatch"),
+
+    /** 内容の差異。両方に存在するが内容が異なるファイル。 */
+    CONTENT_DIFF("内容の差異", "content-diff"),
+
+    /* 定義：終了 */
+    ;
+
+    /** 名称 */
+    private final String name;
+
+    /** 値 */
+    private final String value;
+
+    /** 種類のマップ */
+    private static final Map<String, DiffCategoryTypes> VALUES_MAP = new HashMap<>();
+
+    static {
+
+        /* 種類のマップにプット */
+        for (final DiffCategoryTypes type : DiffCategoryTypes.values()) {
+
+            DiffCategoryTypes.VALUES_MAP.put(type.get(), type);
+
+        }
+
+    }
+
+    /**
+     * コンストラクタ<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param name
+     *              名称
+     * @param value
+     *              値
+     */
+    DiffCategoryTypes(final String name, final String value) {
+
+        this.name = name;
+        this.value = value;
+
+    }
+
+    /**
+     * 値に該当する種類を返す<br>
+     * <p>
+     * 但し、値が存在しない場合は、指定無し（NONE）を返す。
+     * </p>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param value
+     *              値
+     * @return 種類。指定無し（NONE）：値が存在しない場合。
+     */
+    public static DiffCategoryTypes getEnum(final String value) {
+
+        DiffCategoryTypes result = DiffCategoryTypes.VALUES_MAP.get(value);
+
+        if (result == null) {
+
+            result = NONE;
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 初期値の種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 初期値
+     */
+    public static DiffCategoryTypes getInitValue() {
+
+        final DiffCategoryTypes result = NONE;
+        return result;
+
+    }
+
+    /**
+     * デフォルトの種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return デフォルト値
+     */
+    public static DiffCategoryTypes getDefault() {
+
+        final DiffCategoryTypes result = NONE;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    @Override
+    public String toString() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 名称を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 名称
+     */
+    public String getName() {
+
+        final String result = this.name;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    public String getValue() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 種類の値<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 種類の値
+     */
+    @Override
+    public String get() {
+
+        final String result = this.value;
+        return result;
+
+    }
+}
@@ -0,0 +1,191 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 永続性の種類<br>
+ * <p>
+ * COPY/MOVEで処理したファイルを、ストレージに同期（fsync）する方式を表す列挙型。<br>
+ * このenumは、コマンドライン引数として受け取った永続性をアプリケーション内部で扱うための型安全な表現を提供する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public enum DurabilityTypes implements Supplier<String> {
+
+    /* 定義：開始 */
+
+    /** 指定無し */
+    NONE("指定無し", null),
+
+    /** 同期なし。ファイルの書き込みをOSに任せ、同期しない。 */
+    NO_SYNC("同期なし", "none"),
+
+    /** ファイルごと。ファイルの処理が完了するたびに、ファイルと親ディレクトリを同期する。 */
+    FILE("ファイルごと", "file"),
+
+    /** 一括。処理が完了したファイルを、バックグラウンドのスレッドでディレクトリとともにまとめて同期する。 */
+    BATCH("一括", "batch"),
+
+    /* 定義：終了 */
+    ;
+
+    /** 名称 */
+    private final String name;
+
+    /** 値 */
+    private final String value;
+
+    /** 種類のマップ */
+    private static final Map<String, DurabilityTypes> VALUES_MAP = new HashMap<>();
+
+    static {
+
+        /* 種類のマップにプット */
+        for (final DurabilityTypes type : DurabilityTypes.values()) {
+
+            DurabilityTypes.VALUES_MAP.put(type.get(), type);
+
+        }
+
+    }
+
+    /**
+     * コンストラクタ<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param name
+     *              名称
+     * @param value
+     *              値
+     */
+    DurabilityTypes(final String name, final String value) {
+
+        this.name = name;
+        this.value = value;
+
+    }
+
+    /**
+     * 値に該当する種類を返す<br>
+     * <p>
+     * 但し、値が存在しない場合は、指定無し（NONE）を返す。
+     * </p>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param value
+     *              値
+     * @return 種類。指定無し（NONE）：値が存在しない場合。
+     */
+    public static DurabilityTypes getEnum(final String value) {
+
+        DurabilityTypes result = DurabilityTypes.VALUES_MAP.get(value);
+
+        if (result == null) {
+
+            result = NONE;
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 初期値の種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 初期値
+     */
+    public static DurabilityTypes getInitValue() {
+
+        final DurabilityTypes result = NONE;
+        return result;
+
+    }
+
+    /**
+     * デフォルトの種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return デフォルト値
+     */
+    public static DurabilityTypes getDefault() {
+
+        final DurabilityTypes result = NO_SYNC;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    @Override
+    public String toString() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 名称を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 名称
+     */
+    public String getName() {
+
+        final String result = this.name;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    public String getValue() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 種類の値<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 種類の値
+     */
+    @Override
+    public String get() {
+
+        final String result = this.value;
+        return result;
+
+    }
+}
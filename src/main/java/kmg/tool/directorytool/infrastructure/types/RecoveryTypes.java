@@ -0,0 +1,188 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 復旧の種類<br>
+ * <p>
+ * 中断したトランザクションのMOVEを、ジャーナルから復旧する方法を表す列挙型。<br>
+ * このenumは、コマンドライン引数として受け取った復旧の方法をアプリケーション内部で扱うための型安全な表現を提供する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public enum RecoveryTypes implements Supplier<String> {
+
+    /* 定義：開始 */
+
+    /** 指定無し */
+    NONE("指定無し", null),
+
+    /** 完了。残りのファイルをステージングし、検証した後にソースを削除して移動を完了する。 */
+    COMMIT("完了", "commit"),
+
+    /** 取り消し。ステージングしたファイルをターゲットから削除し、移動前の状態に戻す。 */
+    ROLLBACK("取り消し", "rollback"),
+
+    /* 定義：終了 */
+    ;
+
+    /** 名称 */
+    private final String name;
+
+    /** 値 */
+    private final String value;
+
+    /** 種類のマップ */
+    private static final Map<String, RecoveryTypes> VALUES_MAP = new HashMap<>();
+
+    static {
+
+        /* 種類のマップにプット */
+        for (final RecoveryTypes type : RecoveryTypes.values()) {
+
+            RecoveryTypes.VALUES_MAP.put(type.get(), type);
+
+        }
+
+    }
+
+    /**
+     * コンストラクタ<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param name
+     *              名称
+     * @param value
+     *              値
+     */
+    RecoveryTypes(final String name, final String value) {
+
+        this.name = name;
+        this.value = value;
+
+    }
+
+    /**
+     * 値に該当する種類を返す<br>
+     * <p>
+     * 但し、値が存在しない場合は、指定無し（NONE）を返す。
+     * </p>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @param value
+     *              値
+     * @return 種類。指定無し（NONE）：値が存在しない場合。
+     */
+    public static RecoveryTypes getEnum(final String value) {
+
+        RecoveryTypes result = RecoveryTypes.VALUES_MAP.get(value);
+
+        if (result == null) {
+
+            result = NONE;
+
+        }
+        return result;
+
+    }
+
+    /**
+     * 初期値の種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 初期値
+     */
+    public static RecoveryTypes getInitValue() {
+
+        final RecoveryTypes result = NONE;
+        return result;
+
+    }
+
+    /**
+     * デフォルトの種類を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return デフォルト値
+     */
+    public static RecoveryTypes getDefault() {
+
+        final RecoveryTypes result = COMMIT;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    @Override
+    public String toString() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 名称を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 名称
+     */
+    public String getName() {
+
+        final String result = this.name;
+        return result;
+
+    }
+
+    /**
+     * 値を返す<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 値
+     */
+    public String getValue() {
+
+        final String result = this.value;
+        return result;
+
+    }
+
+    /**
+     * 種類の値<br>
+     *
+     * @author KenichiroArai
+     * @sine 1.0.0
+     * @version 1.0.0
+     * @return 種類の値
+     */
+    @Override
+    public String get() {
+
+        final String result = this.value;
+        return result;
+
+    }
+}
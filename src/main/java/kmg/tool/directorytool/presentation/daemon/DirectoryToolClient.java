@@ -0,0 +1,262 @@
+package kmg.tool.directorytool.presentation.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
+
+/**
+ * サーバーモードのプロセスにジョブ要求を送信する軽量クライアント。<br>
+ * <p>
+ * Springのコンテキストを起動せずに{@link DirectoryToolServer}へ接続し、ジョブのログを逐次出力して、ジョブの終了コードを返す。
+ * </p>
+ * <p>
+ * サーバーは別の作業ディレクトリで動作しているため、パスを表す引数はクライアントの作業ディレクトリを基準とした絶対パスに変換して送信する。
+ * </p>
+ * <p>
+ * サーバーのプロセス全体に作用するオプション（{@link DirectoryToolServer#PROCESS_OPTIONS}）は、送信せずに引数エラーとする。
+ * </p>
+ * <p>
+ * 使用方法：
+ * </p>
+ *
+ * <pre>
+ * java -jar directory-tool.jar --client[=<socket>] [オプション] <mode> <src> <dest>
+ * java -jar directory-tool.jar --client[=<socket>] --shutdown
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ * @see DirectoryToolServer
+ */
+public final class DirectoryToolClient {
+
+    /** クライアントとして実行するオプション */
+    public static final String CLIENT_OPTION = "--client";
+
+    /** 値がパスであるオプション */
+    private static final List<String> PATH_OPTIONS = List.of("--report-file=", "--batch=", "--merge-reports=");
+
+    /** 非オプション引数がすべてパスとなるオプション */
+    private static final String MERGE_REPORTS_OPTION = "--merge-reports";
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private DirectoryToolClient() {
+
+        // 処理なし
+    }
+
+    /**
+     * クライアントとして実行する引数かを返す。
+     *
+     * @param args
+     *             コマンドライン引数
+     * @return 最初の引数が--clientオプションの場合true
+     */
+    public static boolean isClientRequest(final String[] args) {
+
+        final boolean result = (args.length > 0) && (DirectoryToolClient.CLIENT_OPTION.equals(args[0])
+                || args[0].startsWith(DirectoryToolClient.CLIENT_OPTION + "="));
+        return result;
+
+    }
+
+    /**
+     * --clientオプションを解釈し、残りの引数をジョブ要求として送信する。
+     *
+     * @param args
+     *             コマンドライン引数。最初の引数は--clientオプション
+     * @param out
+     *             ジョブのログの出力先
+     * @return ジョブの終了コード。サーバーに接続できない場合は想定エラー、ジョブ要求に指定できないオプションがある場合は引数エラーの終了コード
+     */
+    public static int execute(final String[] args, final PrintStream out) {
+
+        final int          separator  = args[0].indexOf('=');
+        final Path         socketPath = separator < 0 ? DirectoryToolServer.getDefaultSocketPath()
+                : Path.of(args[0].substring(separator + 1));
+        final List<String> jobArgs    = Arrays.asList(args).subList(1, args.length);
+
+        final String processOption = DirectoryToolClient.findProcessOption(jobArgs);
+
+        if (processOption != null) {
+
+            out.printf("--%sはサーバーのプロセス全体に作用するため、ジョブ要求には指定できません。サーバーの起動時に指定してください。%n",
+                    processOption);
+            return ExitCodeTypes.ARGUMENT_ERROR.getValue();
+
+        }
+
+        try {
+
+            final int result = DirectoryToolClient.submit(socketPath, jobArgs, out);
+            return result;
+
+        } catch (final IOException e) {
+
+            out.printf("サーバーに接続できません。: %s (%s)%n", socketPath, e.getMessage());
+            return ExitCodeTypes.EXPECTED_ERROR.getValue();
+
+        }
+
+    }
+
+    /**
+     * ジョブ要求を送信し、ジョブが終了するまでログを出力する。<br>
+     * <p>
+     * パスを表す引数は、送信前にクライアントの作業ディレクトリを基準とした絶対パスに変換する（{@link #toAbsoluteArgs(List)}）。
+     * </p>
+     *
+     * @param socketPath
+     *                   サーバーのソケットファイルのパス
+     * @param jobArgs
+     *                   ジョブのコマンドライン引数
+     * @param out
+     *                   ジョブのログの出力先
+     * @return ジョブの終了コード。終了コードを受け取る前に切断された場合は想定外エラーの終了コード
+     * @throws IOException
+     *                     接続または通信に失敗した場合
+     */
+    public static int submit(final Path socketPath, final List<String> jobArgs, final PrintStream out)
+            throws IOException {
+
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+
+            final Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+
+            for (final String arg : DirectoryToolClient.toAbsoluteArgs(jobArgs)) {
+
+                writer.write(arg + "\n");
+
+            }
+            writer.write("\n");
+            writer.flush();
+
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String               line;
+
+            while ((line = reader.readLine()) != null) {
+
+                if (line.startsWith(DirectoryToolServer.EXIT_PREFIX)) {
+
+                    final int result = Integer.parseInt(line.substring(DirectoryToolServer.EXIT_PREFIX.length()));
+                    return result;
+
+                }
+
+                if (line.startsWith(DirectoryToolServer.OUTPUT_PREFIX)) {
+
+                    out.println(line.substring(DirectoryToolServer.OUTPUT_PREFIX.length()));
+
+                }
+
+            }
+
+        }
+
+        out.println("終了コードを受け取る前にサーバーとの接続が切断されました。");
+        return ExitCodeTypes.UNEXPECTED_ERROR.getValue();
+
+    }
+
+    /**
+     * ジョブ要求に指定できない、サーバーのプロセス全体に作用するオプションを探す。
+     *
+     * @param jobArgs
+     *                ジョブのコマンドライン引数
+     * @return 最初に見つかったオプションの名前。ない場合はnull
+     */
+    static String findProcessOption(final List<String> jobArgs) {
+
+        final String result = jobArgs.stream().filter(arg -> arg.startsWith("--"))
+                .map(arg -> arg.substring(2).split("=", 2)[0]).filter(DirectoryToolServer.PROCESS_OPTIONS::contains)
+                .findFirst().orElse(null);
+        return result;
+
+    }
+
+    /**
+     * パスを表す引数をクライアントの作業ディレクトリを基準とした絶対パスに変換する。<br>
+     * <p>
+     * 変換の対象は、非オプション引数のソースとターゲット（--merge-reportsの場合は結合するすべてのレポート）と、
+     * --report-file、--batch、--merge-reportsの値とする。空の値は変換しない。
+     * </p>
+     *
+     * @param jobArgs
+     *                ジョブのコマンドライン引数
+     * @return 変換後のコマンドライン引数
+     */
+    static List<String> toAbsoluteArgs(final List<String> jobArgs) {
+
+        final boolean mergeReports = jobArgs.stream()
+                .anyMatch(arg -> arg.startsWith(DirectoryToolClient.MERGE_REPORTS_OPTION + "="));
+
+        final List<String> result            = new ArrayList<>(jobArgs.size());
+        int                nonOptionArgCount = 0;
+
+        for (final String arg : jobArgs) {
+
+            if (!arg.startsWith("--")) {
+
+                // モードの引数（最初の非オプション引数）はパスではない
+                final boolean path = mergeReports || (nonOptionArgCount > 0);
+                result.add(path ? DirectoryToolClient.toAbsolutePath(arg) : arg);
+                nonOptionArgCount++;
+                continue;
+
+            }
+
+            final String option = DirectoryToolClient.PATH_OPTIONS.stream().filter(arg::startsWith).findFirst()
+                    .orElse(null);
+
+            if (option == null) {
+
+                result.add(arg);
+                continue;
+
+            }
+
+            result.add(option + DirectoryToolClient.toAbsolutePath(arg.substring(option.length())));
+
+        }
+        return result;
+
+    }
+
+    /**
+     * パスをクライアントの作業ディレクトリを基準とした絶対パスに変換する。
+     *
+     * @param path
+     *             パス
+     * @return 絶対パス。空の場合はそのまま
+     */
+    private static String toAbsolutePath(final String path) {
+
+        if (path.isEmpty()) {
+
+            return path;
+
+        }
+
+        final String result = Path.of(path).toAbsolutePath().normalize().toString();
+        return result;
+
+    }
+}
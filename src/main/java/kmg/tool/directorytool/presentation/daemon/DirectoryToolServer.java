@@ -0,0 +1,593 @@
+package kmg.tool.directorytool.presentation.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
+
+/**
+ * サーバーモードでジョブ要求を受け付けるクラス。<br>
+ * <p>
+ * Springのコンテキストを起動したまま、ローカルソケット（Unixドメインソケット）でジョブ要求を待ち受ける。<br>
+ * ジョブごとにJVMとSpringのコンテキストを起動しないため、起動時間とJITのウォームアップを繰り返さずに済む。
+ * </p>
+ * <p>
+ * プロトコル（UTF-8の行単位）：
+ * </p>
+ * <ul>
+ * <li>要求：コマンドライン引数を1行に1つずつ送信し、空行で終了する
+ * <li>応答：ジョブ実行中のログを「O 」を先頭に付けて逐次送信し、最後に「X 終了コード」を送信する
+ * <li>要求が「--shutdown」のみの場合はサーバーを停止する
+ * </ul>
+ * <p>
+ * ディレクトリ操作サービスの設定はジョブごとに変更されるため、ジョブは受け付けた順に1件ずつ実行する。
+ * </p>
+ * <p>
+ * ソケットファイルは所有者のみが読み書きできる権限（0600）とし、存在しない親ディレクトリは所有者のみが利用できる権限（0700）で作成する。
+ * デフォルトのソケットファイルは、他のユーザーと共有しないユーザーごとのディレクトリに作成する（{@link #getDefaultSocketPath()}）。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ * @see DirectoryToolClient
+ */
+public class DirectoryToolServer {
+
+    /** ロガー */
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryToolServer.class);
+
+    /** ログ出力の行の接頭辞 */
+    public static final String OUTPUT_PREFIX = "O ";
+
+    /** 終了コードの行の接頭辞 */
+    public static final String EXIT_PREFIX = "X ";
+
+    /** サーバーの停止要求 */
+    public static final String SHUTDOWN_REQUEST = "--shutdown";
+
+    /** ジョブ要求に指定できない、サーバーのプロセス全体に作用するオプション。サーバーの起動時に指定する */
+    public static final List<String> PROCESS_OPTIONS = List.of("bandwidth-limit", "iops-limit", "throttle-file",
+            "server");
+
+    /** デフォルトのソケットファイル名 */
+    private static final String DEFAULT_SOCKET_FILE_NAME = "directorytool.sock";
+
+    /** デフォルトのソケットファイルを配置するユーザーごとのディレクトリ名の接頭辞 */
+    private static final String DEFAULT_SOCKET_DIRECTORY_PREFIX = "directorytool-";
+
+    /** ユーザーごとの実行時ディレクトリを表す環境変数 */
+    private static final String RUNTIME_DIRECTORY_VARIABLE = "XDG_RUNTIME_DIR";
+
+    /** ソケットファイルを配置するディレクトリの権限 */
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+
+    /** ソケットファイルの権限 */
+    private static final Set<PosixFilePermission> SOCKET_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    /** ジョブのログを転送するロガーの名前 */
+    private static final String APPLICATION_LOGGER_NAME = "kmg.tool.directorytool";
+
+    /** ソケットファイルのパス */
+    private final Path socketPath;
+
+    /** ジョブを実行する処理 */
+    private final Function<ApplicationArguments, ExitCodeTypes> jobExecutor;
+
+    /**
+     * デフォルトのソケットファイルのパスを返す。<br>
+     * <p>
+     * 環境変数XDG_RUNTIME_DIRが設定されている場合はその直下、設定されていない場合は一時ディレクトリ直下のユーザーごとのディレクトリ
+     * （directorytool-ユーザー名）に配置する。
+     * </p>
+     *
+     * @return ユーザーごとのディレクトリ直下のソケットファイルのパス
+     */
+    public static Path getDefaultSocketPath() {
+
+        final String runtimeDirectory = System.getenv(DirectoryToolServer.RUNTIME_DIRECTORY_VARIABLE);
+
+        if ((runtimeDirectory != null) && !runtimeDirectory.isBlank() && Files.isDirectory(Path.of(runtimeDirectory))) {
+
+            final Path result = Path.of(runtimeDirectory, DirectoryToolServer.DEFAULT_SOCKET_FILE_NAME);
+            return result;
+
+        }
+
+        final Path result = DirectoryToolServer.getUserDirectory().resolve(DirectoryToolServer.DEFAULT_SOCKET_FILE_NAME);
+        return result;
+
+    }
+
+    /**
+     * 一時ディレクトリ直下のユーザーごとのディレクトリのパスを返す。
+     *
+     * @return ユーザーごとのディレクトリのパス
+     */
+    private static Path getUserDirectory() {
+
+        final Path result = Path.of(System.getProperty("java.io.tmpdir"),
+                DirectoryToolServer.DEFAULT_SOCKET_DIRECTORY_PREFIX + System.getProperty("user.name"));
+        return result;
+
+    }
+
+    /**
+     * サーバーを作成する。
+     *
+     * @param socketPath
+     *                    ソケットファイルのパス
+     * @param jobExecutor
+     *                    ジョブを実行し、終了コードを返す処理
+     */
+    public DirectoryToolServer(final Path socketPath, final Function<ApplicationArguments, ExitCodeTypes> jobExecutor) {
+
+        this.socketPath = socketPath;
+        this.jobExecutor = jobExecutor;
+
+    }
+
+    /**
+     * 停止要求を受け付けるまでジョブ要求を待ち受ける。
+     *
+     * @throws IOException
+     *                     ソケットを開けない場合、または既に別のサーバーが待ち受けている場合
+     */
+    public void serve() throws IOException {
+
+        final UnixDomainSocketAddress address = UnixDomainSocketAddress.of(this.socketPath);
+
+        DirectoryToolServer.prepareDirectory(this.socketPath.toAbsolutePath().getParent());
+
+        if (Files.exists(this.socketPath)) {
+
+            if (DirectoryToolServer.isListening(address)) {
+
+                throw new IOException(String.format("既に別のサーバーが待ち受けています。: %s", this.socketPath));
+
+            }
+
+            // 前回のサーバーが残したソケットファイルを削除する
+            Files.delete(this.socketPath);
+
+        }
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+
+            server.bind(address);
+
+            if (DirectoryToolServer.isPosix()) {
+
+                Files.setPosixFilePermissions(this.socketPath, DirectoryToolServer.SOCKET_PERMISSIONS);
+
+            }
+            DirectoryToolServer.logger.info("ジョブ要求の待ち受けを開始しました。: {}", this.socketPath);
+
+            boolean running = true;
+
+            while (running) {
+
+                try (SocketChannel channel = server.accept()) {
+
+                    running = this.handle(channel);
+
+                } catch (final IOException e) {
+
+                    DirectoryToolServer.logger.error("ジョブ要求の処理中にエラーが発生しました。", e);
+
+                }
+
+            }
+
+            DirectoryToolServer.logger.info("ジョブ要求の待ち受けを終了しました。");
+
+        } finally {
+
+            Files.deleteIfExists(this.socketPath);
+
+        }
+
+    }
+
+    /**
+     * ソケットファイルを配置するディレクトリを準備する。<br>
+     * <p>
+     * 存在しない場合は所有者のみが利用できる権限で作成する。
+     * デフォルトのユーザーごとのディレクトリが既に存在する場合は、他のユーザーが作成したものや他のユーザーが利用できるものを使用しない。
+     * </p>
+     *
+     * @param directory
+     *                  ソケットファイルを配置するディレクトリ
+     * @throws IOException
+     *                     ディレクトリを作成できない場合、またはデフォルトのディレクトリが安全でない場合
+     */
+    private static void prepareDirectory(final Path directory) throws IOException {
+
+        if (!DirectoryToolServer.isPosix()) {
+
+            Files.createDirectories(directory);
+            return;
+
+        }
+
+        if (Files.notExists(directory)) {
+
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(DirectoryToolServer.DIRECTORY_PERMISSIONS));
+            // umaskの影響を受けないよう、作成後に権限を設定する
+            Files.setPosixFilePermissions(directory, DirectoryToolServer.DIRECTORY_PERMISSIONS);
+            return;
+
+        }
+
+        if (!directory.equals(DirectoryToolServer.getUserDirectory().toAbsolutePath())) {
+
+            return;
+
+        }
+
+        final boolean owned      = System.getProperty("user.name").equals(Files.getOwner(directory).getName());
+        final boolean restricted = DirectoryToolServer.DIRECTORY_PERMISSIONS
+                .containsAll(Files.getPosixFilePermissions(directory));
+
+        if (!owned || !restricted) {
+
+            throw new IOException(String.format("ソケットファイルのディレクトリが他のユーザーから利用できます。: %s", directory));
+
+        }
+
+    }
+
+    /**
+     * POSIXのファイル権限を使用できるかを返す。
+     *
+     * @return デフォルトのファイルシステムがPOSIXのファイル権限に対応している場合true
+     */
+    private static boolean isPosix() {
+
+        final boolean result = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        return result;
+
+    }
+
+    /**
+     * 指定されたアドレスで別のサーバーが待ち受けているかを返す。
+     *
+     * @param address
+     *                ソケットのアドレス
+     * @return 接続できた場合true
+     */
+    private static boolean isListening(final UnixDomainSocketAddress address) {
+
+        try (SocketChannel channel = SocketChannel.open(address)) {
+
+            return true;
+
+        } catch (@SuppressWarnings("unused") final IOException e) {
+
+            return false;
+
+        }
+
+    }
+
+    /**
+     * 1件の接続を処理する。
+     *
+     * @param channel
+     *                クライアントとの接続
+     * @return 待ち受けを継続する場合true、停止要求を受け付けた場合false
+     * @throws IOException
+     *                     要求の読み込みまたは応答の書き込みに失敗した場合
+     */
+    private boolean handle(final SocketChannel channel) throws IOException {
+
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        final Writer         writer = new BufferedWriter(
+                new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+
+        final List<String> args = new ArrayList<>();
+        String             line;
+
+        while (((line = reader.readLine()) != null) && !line.isEmpty()) {
+
+            args.add(line);
+
+        }
+
+        if (args.equals(List.of(DirectoryToolServer.SHUTDOWN_REQUEST))) {
+
+            DirectoryToolServer.writeExitCode(writer, ExitCodeTypes.SUCCESS);
+            return false;
+
+        }
+
+        DirectoryToolServer.logger.info("ジョブ要求を受け付けました。: {}", args);
+
+        final JobOutputAppender appender = new JobOutputAppender(writer);
+        ExitCodeTypes           exitCode;
+
+        try {
+
+            appender.attach();
+            exitCode = this.jobExecutor.apply(new DefaultApplicationArguments(args.toArray(String[]::new)));
+
+        } catch (final RuntimeException e) {
+
+            DirectoryToolServer.logger.error("ジョブの実行中に予期しないエラーが発生しました。", e);
+            exitCode = ExitCodeTypes.UNEXPECTED_ERROR;
+
+        } finally {
+
+            appender.detach();
+
+        }
+
+        DirectoryToolServer.writeExitCode(writer, exitCode);
+        return true;
+
+    }
+
+    /**
+     * 終了コードの行を送信する。
+     *
+     * @param writer
+     *                 応答の書き込み先
+     * @param exitCode
+     *                 終了コードの種類
+     * @throws IOException
+     *                     書き込みに失敗した場合
+     */
+    private static void writeExitCode(final Writer writer, final ExitCodeTypes exitCode) throws IOException {
+
+        writer.write(DirectoryToolServer.EXIT_PREFIX + exitCode.getValue() + "\n");
+        writer.flush();
+
+    }
+
+    /**
+     * ジョブ実行中のアプリケーションのログをクライアントに転送するアペンダ。<br>
+     * <p>
+     * アプリケーションのロガーと、それ以下で上位に伝播しないロガー（イベントロガー）に追加する。<br>
+     * ログを出力したワーカーはキューに行を投入するだけで、クライアントへの書き込みは専用の送信スレッド1つが行う。
+     * そのため、クライアントの受信が遅くてもワーカーは待たされない。
+     * キューが上限に達した場合は行を破棄し、破棄した行数を次に送信する行の前に通知する。
+     * </p>
+     * <p>
+     * クライアントが切断した場合は転送のみを止め、ジョブは継続する。
+     * </p>
+     */
+    private static final class JobOutputAppender extends AppenderBase<ILoggingEvent> {
+
+        /** 送信待ちの行の上限数 */
+        private static final int QUEUE_CAPACITY = 10_000;
+
+        /** 送信の終了を表す番兵 */
+        private static final String END = new String();
+
+        /** 応答の書き込み先 */
+        private final Writer writer;
+
+        /** 追加先のロガー */
+        private final List<ch.qos.logback.classic.Logger> targets;
+
+        /** 送信待ちの行 */
+        private final BlockingQueue<String> queue;
+
+        /** キューが上限に達して破棄した行数 */
+        private final AtomicLong dropped;
+
+        /** 送信スレッド */
+        private Thread sender;
+
+        /** 転送に失敗したか */
+        private volatile boolean failed;
+
+        /**
+         * アペンダを作成する。
+         *
+         * @param writer
+         *               応答の書き込み先
+         */
+        JobOutputAppender(final Writer writer) {
+
+            this.writer = writer;
+            this.targets = new ArrayList<>();
+            this.queue = new LinkedBlockingQueue<>(JobOutputAppender.QUEUE_CAPACITY);
+            this.dropped = new AtomicLong();
+
+        }
+
+        /**
+         * 送信スレッドを開始し、アプリケーションのロガーに追加する。
+         */
+        void attach() {
+
+            final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            this.setContext(context);
+            this.setName("JOB_OUTPUT");
+            this.sender = Thread.ofPlatform().name("job-output-sender").daemon().start(this::send);
+            this.start();
+
+            for (final ch.qos.logback.classic.Logger target : context.getLoggerList()) {
+
+                final boolean applicationRoot = DirectoryToolServer.APPLICATION_LOGGER_NAME.equals(target.getName());
+                final boolean detached        = target.getName()
+                        .startsWith(DirectoryToolServer.APPLICATION_LOGGER_NAME + ".") && !target.isAdditive();
+
+                if (applicationRoot || detached) {
+
+                    target.addAppender(this);
+                    this.targets.add(target);
+
+                }
+
+            }
+
+            if (this.targets.isEmpty()) {
+
+                final ch.qos.logback.classic.Logger target = context
+                        .getLogger(DirectoryToolServer.APPLICATION_LOGGER_NAME);
+                target.addAppender(this);
+                this.targets.add(target);
+
+            }
+
+        }
+
+        /**
+         * 追加したロガーから取り除き、投入済みの行を送信し終えるまで待つ。
+         */
+        void detach() {
+
+            for (final ch.qos.logback.classic.Logger target : this.targets) {
+
+                target.detachAppender(this);
+
+            }
+            this.stop();
+
+            try {
+
+                this.queue.put(JobOutputAppender.END);
+                this.sender.join();
+
+            } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+
+        }
+
+        /**
+         * INFO以上のログを行に分けて送信キューに投入する。
+         */
+        @Override
+        protected void append(final ILoggingEvent event) {
+
+            if (this.failed || !event.getLevel().isGreaterOrEqual(Level.INFO)) {
+
+                return;
+
+            }
+
+            for (final String messageLine : event.getFormattedMessage().split("\\R")) {
+
+                this.enqueue(String.format("%s%-5s %s\n", DirectoryToolServer.OUTPUT_PREFIX, event.getLevel(),
+                        messageLine));
+
+            }
+
+            if (event.getThrowableProxy() != null) {
+
+                this.enqueue(String.format("%s%-5s %s: %s\n", DirectoryToolServer.OUTPUT_PREFIX, event.getLevel(),
+                        event.getThrowableProxy().getClassName(), event.getThrowableProxy().getMessage()));
+
+            }
+
+        }
+
+        /**
+         * 行を送信キューに投入する。キューが上限に達している場合は破棄する。
+         *
+         * @param line
+         *             送信する行
+         */
+        private void enqueue(final String line) {
+
+            if (!this.queue.offer(line)) {
+
+                this.dropped.incrementAndGet();
+
+            }
+
+        }
+
+        /**
+         * 送信スレッドの処理。終了の番兵を受け取るまでキューの行をクライアントに書き込む。<br>
+         * <p>
+         * キューが空になった時点でまとめて送信する。転送に失敗した後も番兵まで取り出しを続け、残りの行は破棄する。
+         * </p>
+         */
+        private void send() {
+
+            try {
+
+                String line;
+
+                while ((line = this.queue.take()) != JobOutputAppender.END) {
+
+                    if (this.failed) {
+
+                        continue;
+
+                    }
+
+                    try {
+
+                        final long droppedLines = this.dropped.getAndSet(0);
+
+                        if (droppedLines > 0) {
+
+                            this.writer.write(String.format("%sWARN  転送が追いつかないため%d行のログを破棄しました。\n",
+                                    DirectoryToolServer.OUTPUT_PREFIX, droppedLines));
+
+                        }
+                        this.writer.write(line);
+
+                        if (this.queue.isEmpty()) {
+
+                            this.writer.flush();
+
+                        }
+
+                    } catch (@SuppressWarnings("unused") final IOException e) {
+
+                        // クライアントが切断した場合は以降の転送を行わない
+                        this.failed = true;
+
+                    }
+
+                }
+
+            } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+
+        }
+    }
+}
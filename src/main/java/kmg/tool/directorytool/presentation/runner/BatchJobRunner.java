@@ -0,0 +1,229 @@
+package kmg.tool.directorytool.presentation.runner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import kmg.tool.directorytool.domain.service.DirectoryService;
+import kmg.tool.directorytool.infrastructure.concurrent.FairShareExecutor;
+import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
+
+/**
+ * マニフェストの複数のジョブを1つのJVMで並行して実行するクラス。<br>
+ * <p>
+ * すべてのジョブはワーカー数で上限を設けた1つの{@link FairShareExecutor}を共有し、ジョブごとのレーンにファイル単位のタスクを投入する。<br>
+ * ワーカーはレーンを順番に巡回するため、大きなジョブが小さなジョブを待たせ続けることはない。<br>
+ * 同時に実行するジョブの数もワーカー数までとし、呼び出し元のスレッドで処理するDIFFを含めて全体の並列度を抑える。
+ * </p>
+ * <p>
+ * ジョブの設定はジョブごとに取得した{@link DirectoryService}に保持するため、ジョブ間で設定が干渉することはない。<br>
+ * すべてのジョブが終了した後に、ジョブごとの結果と合計をまとめて出力する。
+ * </p>
+ *
+ * @author kmg
+ * @version 1.0
+ * @see BatchManifest
+ */
+public class BatchJobRunner {
+
+    /** ロガー */
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobRunner.class);
+
+    /** ジョブごとのディレクトリ操作サービスを取得する処理 */
+    private final Supplier<DirectoryService> directoryServiceSupplier;
+
+    /** 1件のジョブを実行し、終了コードを返す処理 */
+    private final BiFunction<ApplicationArguments, DirectoryService, ExitCodeTypes> jobExecutor;
+
+    /** ワーカー数 */
+    private final int workerCount;
+
+    /**
+     * ジョブの実行結果。
+     *
+     * @param entry
+     *                  ジョブ
+     * @param exitCode
+     *                  終了コードの種類
+     * @param elapsedMs
+     *                  処理時間（ミリ秒）
+     */
+    public record JobResult(BatchManifest.Entry entry, ExitCodeTypes exitCode, long elapsedMs) {
+        // 処理なし
+    }
+
+    /**
+     * バッチ実行を作成する。
+     *
+     * @param directoryServiceSupplier
+     *                                 ジョブごとのディレクトリ操作サービスを取得する処理
+     * @param jobExecutor
+     *                                 1件のジョブを実行し、終了コードを返す処理
+     * @param workerCount
+     *                                 全ジョブで共有するワーカー数
+     */
+    public BatchJobRunner(final Supplier<DirectoryService> directoryServiceSupplier,
+            final BiFunction<ApplicationArguments, DirectoryService, ExitCodeTypes> jobExecutor,
+            final int workerCount) {
+
+        this.directoryServiceSupplier = directoryServiceSupplier;
+        this.jobExecutor = jobExecutor;
+        this.workerCount = workerCount;
+
+    }
+
+    /**
+     * すべてのジョブを実行し、結果の要約を出力する。
+     *
+     * @param entries
+     *                ジョブのリスト
+     * @return 全ジョブが正常終了した場合は正常、それ以外は最も重い終了コードの種類
+     */
+    public ExitCodeTypes run(final List<BatchManifest.Entry> entries) {
+
+        final long            start   = System.nanoTime();
+        final List<JobResult> results = new ArrayList<>();
+
+        try (FairShareExecutor sharedExecutor = new FairShareExecutor(this.workerCount);
+                ExecutorService jobThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            final Semaphore               jobSlots = new Semaphore(this.workerCount, true);
+            final List<Future<JobResult>> futures  = new ArrayList<>();
+
+            for (final BatchManifest.Entry entry : entries) {
+
+                futures.add(jobThreads.submit(() -> this.runJob(entry, sharedExecutor, jobSlots)));
+
+            }
+
+            for (final Future<JobResult> future : futures) {
+
+                results.add(BatchJobRunner.getResult(future));
+
+            }
+
+        }
+
+        final long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        BatchJobRunner.logSummary(results, elapsedMs);
+
+        final ExitCodeTypes result = results.stream().map(JobResult::exitCode)
+                .max(Comparator.comparingInt(ExitCodeTypes::getValue)).orElse(ExitCodeTypes.SUCCESS);
+        return result;
+
+    }
+
+    /**
+     * 1件のジョブを実行する。
+     *
+     * @param entry
+     *                       ジョブ
+     * @param sharedExecutor
+     *                       全ジョブで共有するエグゼキュータ
+     * @param jobSlots
+     *                       同時に実行するジョブの数を制限するセマフォ
+     * @return ジョブの実行結果
+     * @throws InterruptedException
+     *                              実行枠の取得中に割り込まれた場合
+     */
+    private JobResult runJob(final BatchManifest.Entry entry, final FairShareExecutor sharedExecutor,
+            final Semaphore jobSlots) throws InterruptedException {
+
+        jobSlots.acquire();
+
+        try {
+
+            final long             start            = System.nanoTime();
+            final DirectoryService directoryService = this.directoryServiceSupplier.get();
+            directoryService.setExecutor(sharedExecutor.newLane());
+
+            ExitCodeTypes exitCode;
+
+            try {
+
+                exitCode = this.jobExecutor.apply(new DefaultApplicationArguments(entry.args().toArray(String[]::new)),
+                        directoryService);
+
+            } catch (final RuntimeException e) {
+
+                BatchJobRunner.logger.error(String.format("ジョブの実行中に予期しないエラーが発生しました。: %d行目", entry.lineNumber()),
+                        e);
+                exitCode = ExitCodeTypes.UNEXPECTED_ERROR;
+
+            }
+
+            final JobResult result = new JobResult(entry, exitCode, (System.nanoTime() - start) / 1_000_000);
+            return result;
+
+        } finally {
+
+            jobSlots.release();
+
+        }
+
+    }
+
+    /**
+     * ジョブの実行結果を取得する。
+     *
+     * @param future
+     *               ジョブの実行結果
+     * @return ジョブの実行結果
+     */
+    private static JobResult getResult(final Future<JobResult> future) {
+
+        try {
+
+            final JobResult result = future.get();
+            return result;
+
+        } catch (final InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("バッチ実行が中断されました。", e);
+
+        } catch (final ExecutionException e) {
+
+            throw new IllegalStateException("ジョブの実行に失敗しました。", e.getCause());
+
+        }
+
+    }
+
+    /**
+     * ジョブごとの結果と合計を出力する。
+     *
+     * @param results
+     *                  ジョブの実行結果
+     * @param elapsedMs
+     *                  全体の処理時間（ミリ秒）
+     */
+    private static void logSummary(final List<JobResult> results, final long elapsedMs) {
+
+        BatchJobRunner.logger.info("バッチ実行結果:");
+
+        for (final JobResult result : results) {
+
+            BatchJobRunner.logger.info("  {}行目: {} -> {} ({} ms)", result.entry().lineNumber(),
+                    String.join(" ", result.entry().args()), result.exitCode().getName(), result.elapsedMs());
+
+        }
+
+        final long succeeded = results.stream().filter(result -> result.exitCode() == ExitCodeTypes.SUCCESS).count();
+        BatchJobRunner.logger.info("合計: {}件, 成功: {}件, 失敗: {}件, 処理時間: {} ms", results.size(), succeeded,
+                results.size() - succeeded, elapsedMs);
+
+    }
+}
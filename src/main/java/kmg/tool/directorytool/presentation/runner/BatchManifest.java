@@ -0,0 +1,188 @@
+package kmg.tool.directorytool.presentation.runner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * バッチ実行のジョブ定義（マニフェスト）を読み込むクラス。<br>
+ * <p>
+ * マニフェストは1行に1ジョブを、コマンドラインと同じ引数の並びで記述する。
+ * </p>
+ *
+ * <pre>
+ * # コメント
+ * COPY /data/src1 /backup/dest1 --merkle
+ * DIFF "/data/src 2" /backup/dest2 --compare-depth=quick --report-file=diff2.jsonl
+ * </pre>
+ * <ul>
+ * <li>引数は空白で区切る。空白を含む引数はダブルクォートで囲む
+ * <li>空行と「#」で始まる行は無視する
+ * <li>プロセス全体に作用するオプション（{@link #PROCESS_OPTIONS}）はジョブごとに指定できない。コマンドラインで指定する
+ * </ul>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class BatchManifest {
+
+    /** ジョブごとに指定できない、プロセス全体に作用するオプション */
+    public static final List<String> PROCESS_OPTIONS = List.of("bandwidth-limit", "iops-limit", "throttle-file",
+            "server", "batch", "client", "merge-reports");
+
+    /**
+     * マニフェストの1ジョブ。
+     *
+     * @param lineNumber
+     *                   マニフェスト上の行番号
+     * @param args
+     *                   ジョブのコマンドライン引数
+     */
+    public record Entry(int lineNumber, List<String> args) {
+        // 処理なし
+    }
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private BatchManifest() {
+
+        // 処理なし
+    }
+
+    /**
+     * マニフェストを読み込む。
+     *
+     * @param manifestFile
+     *                     マニフェストのファイル
+     * @return ジョブのリスト
+     * @throws IOException
+     *                     ファイルの読み込みに失敗した場合
+     * @throws IllegalArgumentException
+     *                     引用符が閉じられていない行、またはジョブごとに指定できないオプションを含む行がある場合
+     */
+    public static List<Entry> parse(final Path manifestFile) throws IOException {
+
+        final List<Entry>  result = new ArrayList<>();
+        final List<String> lines  = Files.readAllLines(manifestFile, StandardCharsets.UTF_8);
+
+        for (int i = 0; i < lines.size(); i++) {
+
+            final String line = lines.get(i).strip();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+
+                continue;
+
+            }
+
+            final List<String> args = BatchManifest.tokenize(line, i + 1);
+            BatchManifest.checkOptions(args, i + 1);
+            result.add(new Entry(i + 1, args));
+
+        }
+        return result;
+
+    }
+
+    /**
+     * ジョブごとに指定できないオプションが含まれていないことを確認する。<br>
+     * <p>
+     * これらのオプションはバッチ実行の開始前にプロセス全体に対して解釈されるため、マニフェストの行に指定しても反映されない。
+     * </p>
+     *
+     * @param args
+     *                   ジョブの引数
+     * @param lineNumber
+     *                   行番号
+     * @throws IllegalArgumentException
+     *                                  ジョブごとに指定できないオプションが含まれている場合
+     */
+    private static void checkOptions(final List<String> args, final int lineNumber) {
+
+        for (final String arg : args) {
+
+            if (!arg.startsWith("--")) {
+
+                continue;
+
+            }
+
+            final int    separator = arg.indexOf('=');
+            final String name      = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+
+            if (BatchManifest.PROCESS_OPTIONS.contains(name)) {
+
+                throw new IllegalArgumentException(
+                        String.format("マニフェストの%d行目の--%sはジョブごとに指定できません。コマンドラインで指定してください。", lineNumber, name));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 1行を引数に分割する。
+     *
+     * @param line
+     *                   行
+     * @param lineNumber
+     *                   行番号
+     * @return 引数のリスト
+     * @throws IllegalArgumentException
+     *                     引用符が閉じられていない場合
+     */
+    private static List<String> tokenize(final String line, final int lineNumber) {
+
+        final List<String>  result  = new ArrayList<>();
+        final StringBuilder token   = new StringBuilder();
+        boolean             quoted  = false;
+        boolean             inToken = false;
+
+        for (int i = 0; i < line.length(); i++) {
+
+            final char c = line.charAt(i);
+
+            if (c == '"') {
+
+                quoted = !quoted;
+                inToken = true;
+
+            } else if (Character.isWhitespace(c) && !quoted) {
+
+                if (inToken) {
+
+                    result.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+
+                }
+
+            } else {
+
+                token.append(c);
+                inToken = true;
+
+            }
+
+        }
+
+        if (quoted) {
+
+            throw new IllegalArgumentException(String.format("マニフェストの%d行目の引用符が閉じられていません。", lineNumber));
+
+        }
+
+        if (inToken) {
+
+            result.add(token.toString());
+
+        }
+        return result;
+
+    }
+}
@@ -1,19 +1,39 @@
 package kmg.tool.directorytool.presentation.runner;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.ExitCodeExceptionMapper;
 import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
+import kmg.tool.directorytool.domain.service.AbstractDirectoryService;
 import kmg.tool.directorytool.domain.service.DirectoryService;
+import kmg.tool.directorytool.infrastructure.concurrent.ThrottleControlFile;
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.io.BufferedFileCopyEngine;
+import kmg.tool.directorytool.infrastructure.io.CloneFileCopyEngine;
+import kmg.tool.directorytool.infrastructure.io.DiffReportWriter;
+import kmg.tool.directorytool.infrastructure.io.FileCopyEngine;
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+import kmg.tool.directorytool.infrastructure.types.CopyEngineTypes;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
 import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
 import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+import kmg.tool.directorytool.infrastructure.types.RecoveryTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
+import kmg.tool.directorytool.presentation.daemon.DirectoryToolServer;
 
 /**
  * コマンドラインインターフェースを提供するクラス。 Spring Bootのコマンドラインランナーとして実装され、アプリケーションの起動時に コマンドライン引数を処理し、適切なディレクトリ操作を実行する。
@@ -21,7 +41,7 @@ import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
  * 基本的な使用方法：
  *
  * <pre>
- * java -jar directory-tool.jar <mode> <src> <dest>
+ * java -jar directory-tool.jar [オプション] <mode> <src> <dest>
  * </pre>
  * <p>
  * パラメータ：
@@ -31,6 +51,35 @@ import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
  * <li><dest> - 操作対象のターゲットディレクトリパス
  * </ul>
  * <p>
+ * オプション：
+ * <ul>
+ * <li>--thread-pool-size=<size> - 並列処理で使用するスレッド数
+ * <li>--merkle - マークル木による要約を使用する
+ * <li>--compare-depth=<depth> - DIFFでのファイル内容の比較深度（quick, sampled, full）
+ * <li>--report-file=<path> - DIFFの差分レポートの出力先
+ * <li>--report-format=<format> - 差分レポートの形式（jsonl, csv）
+ * <li>--copy-engine=<engine> - COPY/MOVEのコピーエンジン（files, buffered, clone, direct）
+ * <li>--copy-block-size=<size> - buffered/directのブロックサイズ（64KB～16MB）
+ * <li>--cache-hygiene - COPY/MOVEでコピーしたファイル、DIFFで全体を比較した大きなファイルのページキャッシュを解放する
+ * <li>--small-file-batch-count=<count> - 1つのタスクにまとめる小さいファイルの最大数（1以下でまとめない）
+ * <li>--small-file-batch-size=<size> - 1つのタスクにまとめる小さいファイルの合計サイズの上限（例: 128KB）
+ * <li>--durability=<level> - COPY/MOVEで処理したファイルの同期の方式（none, file, batch）
+ * <li>--resume - COPY/MOVEの完了したファイルをジャーナルに記録し、前回のジャーナルから再開する（{@link kmg.tool.directorytool.infrastructure.io.JobJournal}）
+ * <li>--transactional - MOVEをステージングと確定の2段階で行う
+ * <li>--recover[=<action>] - 中断したトランザクションのMOVEを復旧する（commit, rollback）
+ * <li>--atomic-publish - COPYで一時ファイルに書き込んだ後に名前の変更で公開する
+ * <li>--include=<rule> - COPY/MOVE/DIFFの対象とするファイルのルール（{@link PathFilter}）
+ * <li>--exclude=<rule> - COPY/MOVE/DIFFから除外するファイルとディレクトリのルール
+ * <li>--max-depth=<depth> - 走査の深さの上限（ソースの直下が1）
+ * <li>--shard=<k>/<N> - ソースの直下のエントリをN個に分割したk番目のみを処理する（{@link TraversalScope}）
+ * <li>--merge-reports=<output> - シャードごとの差分レポートを結合する
+ * <li>--server[=<socket>] - サーバーモードで起動する（{@link DirectoryToolServer}）
+ * <li>--batch=<manifest> - マニフェストの複数のジョブを実行する（{@link BatchManifest}）
+ * <li>--bandwidth-limit=<size> - COPY/MOVEの帯域の上限（1秒あたり。例: 50MB）
+ * <li>--iops-limit=<count> - COPY/MOVEの1秒あたりのファイル操作数の上限
+ * <li>--throttle-file=<path> - 上限を実行中に変更する制御ファイル（{@link ThrottleControlFile}）
+ * </ul>
+ * <p>
  * 使用例：
  *
  * <pre>
@@ -73,6 +122,12 @@ public class DirectoryToolAr implements ApplicationRunner, ExitCodeGenerator, Ex
     @Autowired
     private DirectoryService directoryService;
 
+    /** バッチ実行でジョブごとのディレクトリ操作サービスを取得する処理 */
+    private Supplier<DirectoryService> directoryServiceSupplier;
+
+    /** 帯域とファイル操作数のリミッタ */
+    private ThroughputLimiter throughputLimiter;
+
     /** 終了コードの種類 */
     private ExitCodeTypes exitCode;
 
@@ -85,6 +140,49 @@ public class DirectoryToolAr implements ApplicationRunner, ExitCodeGenerator, Ex
 
     }
 
+    /**
+     * Springのコンテキストを使用せずにサービスを指定してインスタンスを作成する。
+     *
+     * @param directoryService
+     *                                 ディレクトリ操作サービス
+     * @param directoryServiceSupplier
+     *                                 バッチ実行でジョブごとのディレクトリ操作サービスを取得する処理
+     */
+    public DirectoryToolAr(final DirectoryService directoryService,
+            final Supplier<DirectoryService> directoryServiceSupplier) {
+
+        this();
+        this.directoryService = directoryService;
+        this.directoryServiceSupplier = directoryServiceSupplier;
+
+    }
+
+    /**
+     * バッチ実行でジョブごとのディレクトリ操作サービスを取得するプロバイダを設定する。
+     *
+     * @param directoryServiceProvider
+     *                                 ディレクトリ操作サービスのプロバイダ
+     */
+    @Autowired
+    public void setDirectoryServiceProvider(final ObjectProvider<DirectoryService> directoryServiceProvider) {
+
+        this.directoryServiceSupplier = directoryServiceProvider::getObject;
+
+    }
+
+    /**
+     * すべてのジョブで共有する、帯域とファイル操作数のリミッタを設定する。
+     *
+     * @param throughputLimiter
+     *                          リミッタ
+     */
+    @Autowired(required = false)
+    public void setThroughputLimiter(final ThroughputLimiter throughputLimiter) {
+
+        this.throughputLimiter = throughputLimiter;
+
+    }
+
     /**
      * 終了コードを返す。
      */
@@ -111,7 +209,12 @@ public class DirectoryToolAr implements ApplicationRunner, ExitCodeGenerator, Ex
     /**
      * ディレクトリ操作を実行するメイン処理。
      * <p>
-     * コマンドライン引数を解析し、指定されたディレクトリ操作を実行する。
+     * コマンドライン引数を解析し、指定されたディレクトリ操作を実行する。<br>
+     * --serverオプションが指定された場合は、サーバーモードとしてローカルソケットでジョブ要求を待ち受ける。
+     * </p>
+     * <p>
+     * 帯域とファイル操作数の上限はプロセス全体で共有するため、ジョブごとではなくここで設定する。<br>
+     * --throttle-fileオプションが指定された場合は、実行中は制御ファイルを監視して上限を変更する。
      * </p>
      *
      * @param args
@@ -125,6 +228,325 @@ public class DirectoryToolAr implements ApplicationRunner, ExitCodeGenerator, Ex
     @Override
     public void run(final ApplicationArguments args) {
 
+        final ExitCodeTypes throttleResult = this.applyThroughputLimits(args);
+
+        if (throttleResult != ExitCodeTypes.SUCCESS) {
+
+            this.exitCode = throttleResult;
+            return;
+
+        }
+
+        if (!args.getOptionNames().contains("throttle-file")) {
+
+            this.dispatch(args);
+            return;
+
+        }
+
+        try (ThrottleControlFile controlFile = new ThrottleControlFile(
+                Path.of(args.getOptionValues("throttle-file").get(0)), this.throughputLimiter)) {
+
+            this.dispatch(args);
+
+        }
+
+    }
+
+    /**
+     * コマンドライン引数の帯域とファイル操作数の上限をリミッタに設定する。
+     *
+     * @param args
+     *             コマンドライン引数
+     * @return 正常に設定できた場合は正常、それ以外は引数エラー
+     */
+    private ExitCodeTypes applyThroughputLimits(final ApplicationArguments args) {
+
+        final boolean bandwidthSpecified = args.getOptionNames().contains("bandwidth-limit");
+        final boolean iopsSpecified      = args.getOptionNames().contains("iops-limit");
+        final boolean fileSpecified      = args.getOptionNames().contains("throttle-file");
+
+        if (!bandwidthSpecified && !iopsSpecified && !fileSpecified) {
+
+            return ExitCodeTypes.SUCCESS;
+
+        }
+
+        if (this.throughputLimiter == null) {
+
+            DirectoryToolAr.logger.error("スループットの上限を設定できません。リミッタが設定されていません。");
+            return ExitCodeTypes.UNEXPECTED_ERROR;
+
+        }
+
+        try {
+
+            if (bandwidthSpecified) {
+
+                this.throughputLimiter
+                        .setBandwidth(ThroughputLimiter.parseBandwidth(args.getOptionValues("bandwidth-limit").get(0)));
+
+            }
+
+            if (iopsSpecified) {
+
+                this.throughputLimiter
+                        .setOperationsPerSecond(Long.parseLong(args.getOptionValues("iops-limit").get(0).strip()));
+
+            }
+
+        } catch (final IllegalArgumentException e) {
+
+            DirectoryToolAr.logger.error("帯域は50MBのような形式、ファイル操作数は数値で指定してください。", e);
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        if (fileSpecified && args.getOptionValues("throttle-file").get(0).isEmpty()) {
+
+            DirectoryToolAr.logger.error("制御ファイルのパスを指定してください。: --throttle-file=<path>");
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        return ExitCodeTypes.SUCCESS;
+
+    }
+
+    /**
+     * 実行モードに応じて、単一のジョブ、バッチ実行、サーバーモード、または差分レポートの結合を実行する。
+     *
+     * @param args
+     *             コマンドライン引数
+     */
+    private void dispatch(final ApplicationArguments args) {
+
+        if (!args.getOptionNames().contains("server")) {
+
+            this.exitCode = this.runJob(args);
+            return;
+
+        }
+
+        // サーバーモード
+        final List<String> socketValues = args.getOptionValues("server");
+        final Path         socketPath   = socketValues.isEmpty() || socketValues.get(0).isEmpty()
+                ? DirectoryToolServer.getDefaultSocketPath()
+                : Path.of(socketValues.get(0));
+
+        try {
+
+            new DirectoryToolServer(socketPath, this::serveJob).serve();
+
+        } catch (final IOException e) {
+
+            this.exitCode = ExitCodeTypes.EXPECTED_ERROR;
+            DirectoryToolAr.logger.error("サーバーモードの実行中にエラーが発生しました。", e);
+
+        }
+
+    }
+
+    /**
+     * 単一のジョブ、バッチ実行、または差分レポートの結合を実行する。
+     *
+     * @param args
+     *             コマンドライン引数
+     * @return 終了コードの種類
+     */
+    private ExitCodeTypes runJob(final ApplicationArguments args) {
+
+        if (args.getOptionNames().contains("merge-reports")) {
+
+            final ExitCodeTypes result = DirectoryToolAr.mergeReports(args);
+            return result;
+
+        }
+
+        if (args.getOptionNames().contains("batch")) {
+
+            final ExitCodeTypes result = this.runBatch(args);
+            return result;
+
+        }
+
+        final ExitCodeTypes result = this.execute(args);
+        return result;
+
+    }
+
+    /**
+     * サーバーモードで受け付けたジョブ要求を、コマンドラインと同様に実行する。
+     * <p>
+     * 帯域とファイル操作数の上限はサーバーのプロセス全体で共有するため、
+     * {@link DirectoryToolServer#PROCESS_OPTIONS}を指定したジョブ要求は引数エラーとする。上限はサーバーの起動時に指定する。
+     * </p>
+     *
+     * @param args
+     *             ジョブ要求のコマンドライン引数
+     * @return 終了コードの種類
+     */
+    private ExitCodeTypes serveJob(final ApplicationArguments args) {
+
+        for (final String option : DirectoryToolServer.PROCESS_OPTIONS) {
+
+            if (args.getOptionNames().contains(option)) {
+
+                DirectoryToolAr.logger.error("--{}はサーバーのプロセス全体に作用するため、ジョブ要求には指定できません。サーバーの起動時に指定してください。",
+                        option);
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        final ExitCodeTypes result = this.runJob(args);
+        return result;
+
+    }
+
+    /**
+     * シャードごとに出力した差分レポートを1つのレポートに結合する。
+     *
+     * @param args
+     *             コマンドライン引数。--merge-reportsに出力先、非オプション引数に結合するレポート、--report-formatに形式を指定する
+     * @return 正常に結合できた場合は正常、それ以外は引数エラーまたは想定内のエラー
+     */
+    private static ExitCodeTypes mergeReports(final ApplicationArguments args) {
+
+        final List<String> outputValues = args.getOptionValues("merge-reports");
+        final List<String> parts        = args.getNonOptionArgs();
+
+        if (outputValues.isEmpty() || outputValues.get(0).isEmpty() || parts.isEmpty()) {
+
+            DirectoryToolAr.logger.error("使用方法: --merge-reports=<output> [--report-format=<format>] <report>...");
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        ReportFormatTypes reportFormat = ReportFormatTypes.getDefault();
+
+        if (args.getOptionNames().contains("report-format")) {
+
+            final String reportFormatStr = args.getOptionValues("report-format").get(0);
+            reportFormat = ReportFormatTypes.getEnum(reportFormatStr.toLowerCase());
+
+            if (reportFormat == ReportFormatTypes.NONE) {
+
+                DirectoryToolAr.logger.error("無効なレポート形式が指定されています。: [{}] 有効なレポート形式: jsonl, csv", reportFormatStr);
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        try {
+
+            final Path output = Path.of(outputValues.get(0));
+            final long count  = DiffReportWriter.merge(parts.stream().map(Path::of).toList(), output, reportFormat);
+            DirectoryToolAr.logger.info("{}件の差分レポートを結合しました。: {} ({}件)", parts.size(), output, count);
+
+        } catch (final IOException e) {
+
+            DirectoryToolAr.logger.error("差分レポートの結合に失敗しました。", e);
+            return ExitCodeTypes.EXPECTED_ERROR;
+
+        }
+
+        return ExitCodeTypes.SUCCESS;
+
+    }
+
+    /**
+     * マニフェストに記述された複数のジョブを共有のワーカーで並行して実行する。
+     *
+     * @param args
+     *             コマンドライン引数。--batchにマニフェストのパス、--thread-pool-sizeに全ジョブで共有するワーカー数を指定する
+     * @return 全ジョブが正常終了した場合は正常、それ以外は最も重い終了コードの種類
+     */
+    private ExitCodeTypes runBatch(final ApplicationArguments args) {
+
+        final List<String> manifestValues = args.getOptionValues("batch");
+
+        if (manifestValues.isEmpty() || manifestValues.get(0).isEmpty()) {
+
+            DirectoryToolAr.logger.error("マニフェストのパスを指定してください。: --batch=<manifest>");
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        int workerCount = Runtime.getRuntime().availableProcessors();
+
+        if (args.containsOption("thread-pool-size")) {
+
+            try {
+
+                workerCount = Integer.parseInt(args.getOptionValues("thread-pool-size").get(0));
+
+            } catch (final NumberFormatException e) {
+
+                DirectoryToolAr.logger.error("スレッドプールサイズは数値で指定してください。", e);
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        final List<BatchManifest.Entry> entries;
+
+        try {
+
+            entries = BatchManifest.parse(Path.of(manifestValues.get(0)));
+
+        } catch (final IOException e) {
+
+            DirectoryToolAr.logger.error("マニフェストの読み込みに失敗しました。", e);
+            return ExitCodeTypes.EXPECTED_ERROR;
+
+        } catch (final IllegalArgumentException e) {
+
+            DirectoryToolAr.logger.error(e.getMessage());
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        final ExitCodeTypes result = new BatchJobRunner(this.directoryServiceSupplier, this::execute,
+                Math.max(1, workerCount)).run(entries);
+        return result;
+
+    }
+
+    /**
+     * 1件のジョブとしてディレクトリ操作を実行する。
+     * <p>
+     * サーバーモードでは、クライアントから受け取った単一のジョブ要求ごとに呼び出される。
+     * </p>
+     *
+     * @param args
+     *             コマンドライン引数
+     * @return 終了コードの種類
+     */
+    public ExitCodeTypes execute(final ApplicationArguments args) {
+
+        final ExitCodeTypes result = this.execute(args, this.directoryService);
+        return result;
+
+    }
+
+    /**
+     * 指定されたディレクトリ操作サービスで1件のジョブとしてディレクトリ操作を実行する。
+     * <p>
+     * バッチ実行では、ジョブごとに取得したディレクトリ操作サービスで呼び出される。
+     * </p>
+     *
+     * @param args
+     *                         コマンドライン引数
+     * @param directoryService
+     *                         ディレクトリ操作サービス
+     * @return 終了コードの種類
+     */
+    public ExitCodeTypes execute(final ApplicationArguments args, final DirectoryService directoryService) {
+
         /* 引数の変換 */
 
         // スレッドプールサイズのオプションを取得
@@ -139,26 +561,202 @@ public class DirectoryToolAr implements ApplicationRunner, ExitCodeGenerator, Ex
             } catch (final NumberFormatException e) {
 
                 DirectoryToolAr.logger.error("スレッドプールサイズは数値で指定してください。", e);
-                this.exitCode = ExitCodeTypes.ARGUMENT_ERROR;
-                return;
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        // 比較深度のオプションを取得
+        CompareDepthTypes compareDepth = CompareDepthTypes.getDefault();
+
+        if (args.containsOption("compare-depth")) {
+
+            final String compareDepthStr = args.getOptionValues("compare-depth").get(0);
+            compareDepth = CompareDepthTypes.getEnum(compareDepthStr.toLowerCase());
+
+            if (compareDepth == CompareDepthTypes.NONE) {
+
+                DirectoryToolAr.logger.error("無効な比較深度が指定されています。: [{}] 有効な比較深度: quick, sampled, full", compareDepthStr);
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        // 差分レポートのオプションを取得
+        final Path reportFile = args.containsOption("report-file") ? Path.of(args.getOptionValues("report-file").get(0))
+                : null;
+        ReportFormatTypes reportFormat = ReportFormatTypes.getDefault();
+
+        if (args.containsOption("report-format")) {
+
+            final String reportFormatStr = args.getOptionValues("report-format").get(0);
+            reportFormat = ReportFormatTypes.getEnum(reportFormatStr.toLowerCase());
+
+            if (reportFormat == ReportFormatTypes.NONE) {
+
+                DirectoryToolAr.logger.error("無効なレポート形式が指定されています。: [{}] 有効なレポート形式: jsonl, csv", reportFormatStr);
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        // コピーエンジンのオプションを取得
+        final FileCopyEngine copyEngine = DirectoryToolAr.createCopyEngine(args);
+
+        if (copyEngine == null) {
+
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        // 小さいファイルのバッチ処理のオプションを取得
+        int  smallFileBatchCount = AbstractDirectoryService.DEFAULT_SMALL_FILE_BATCH_COUNT;
+        long smallFileBatchSize  = AbstractDirectoryService.DEFAULT_SMALL_FILE_BATCH_SIZE;
+
+        try {
+
+            if (args.getOptionNames().contains("small-file-batch-count")) {
+
+                smallFileBatchCount = Integer.parseInt(args.getOptionValues("small-file-batch-count").get(0).strip());
+
+            }
+
+            if (args.getOptionNames().contains("small-file-batch-size")) {
+
+                smallFileBatchSize = DataSize.parse(args.getOptionValues("small-file-batch-size").get(0)).toBytes();
+
+            }
+
+        } catch (final IllegalArgumentException e) {
+
+            DirectoryToolAr.logger.error("バッチのファイル数は数値で、合計サイズは128KBのような形式で指定してください。", e);
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        // 永続性のオプションを取得
+        DurabilityTypes durability = DurabilityTypes.getDefault();
+
+        if (args.getOptionNames().contains("durability")) {
+
+            final String durabilityStr = args.getOptionValues("durability").get(0);
+            durability = DurabilityTypes.getEnum(durabilityStr.toLowerCase());
+
+            if (durability == DurabilityTypes.NONE) {
+
+                DirectoryToolAr.logger.error("無効な永続性が指定されています。: [{}] 有効な永続性: none, file, batch", durabilityStr);
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        // 復旧のオプションを取得
+        RecoveryTypes recovery = RecoveryTypes.NONE;
+
+        if (args.getOptionNames().contains("recover")) {
+
+            final List<String> recoverValues = args.getOptionValues("recover");
+            final String       recoveryStr   = recoverValues.isEmpty() || recoverValues.get(0).isEmpty()
+                    ? RecoveryTypes.getDefault().getValue()
+                    : recoverValues.get(0);
+            recovery = RecoveryTypes.getEnum(recoveryStr.toLowerCase());
+
+            if (recovery == RecoveryTypes.NONE) {
+
+                DirectoryToolAr.logger.error("無効な復旧の種類が指定されています。: [{}] 有効な復旧の種類: commit, rollback", recoveryStr);
+                return ExitCodeTypes.ARGUMENT_ERROR;
+
+            }
+
+        }
+
+        // 対象の絞り込みのオプションを取得
+        PathFilter pathFilter = null;
+
+        if (args.getOptionNames().contains("include") || args.getOptionNames().contains("exclude")) {
+
+            final List<String> includes = args.getOptionNames().contains("include") ? args.getOptionValues("include")
+                    : List.of();
+            final List<String> excludes = args.getOptionNames().contains("exclude") ? args.getOptionValues("exclude")
+                    : List.of();
+
+            try {
+
+                pathFilter = PathFilter.compile(includes, excludes, System.currentTimeMillis());
+
+            } catch (final IllegalArgumentException e) {
+
+                DirectoryToolAr.logger.error("無効な絞り込みのルールが指定されています。", e);
+                return ExitCodeTypes.ARGUMENT_ERROR;
 
             }
 
         }
 
+        // 走査の範囲のオプションを取得
+        final TraversalScope traversalScope;
+
+        try {
+
+            traversalScope = TraversalScope.parse(
+                    args.getOptionNames().contains("max-depth") ? args.getOptionValues("max-depth").get(0) : null,
+                    args.getOptionNames().contains("shard") ? args.getOptionValues("shard").get(0) : null);
+
+        } catch (final IllegalArgumentException e) {
+
+            DirectoryToolAr.logger.error("走査の深さは1以上の数値で、シャードは2/4のような形式で指定してください。", e);
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
+        // マークル木の要約はツリー全体で1つのため、シャードごとに並行して更新できない
+        if (traversalScope.isSharded() && args.containsOption("merkle")) {
+
+            DirectoryToolAr.logger.error("マークル木による要約とシャードは同時に指定できません。");
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
         // 非オプション引数を取得
         final String[] nonOptionArgs = args.getNonOptionArgs().toArray(String[]::new);
 
         // 引数の数をチェック
         if (nonOptionArgs.length != 3) {
 
-            DirectoryToolAr.logger.error("使用方法: [--thread-pool-size=<size>] <mode> <src> <dest>");
+            DirectoryToolAr.logger.error("使用方法: [オプション] <mode> <src> <dest>");
             DirectoryToolAr.logger.error("モデルの種類: COPY, MOVE, DIFF");
             DirectoryToolAr.logger.error("オプション:");
             DirectoryToolAr.logger.error("  --thread-pool-size=<size>  並列処理で使用するスレッド数（デフォルト: 利用可能なCPUの論理コア数）");
-
-            this.exitCode = ExitCodeTypes.ARGUMENT_ERROR;
-            return;
+            DirectoryToolAr.logger.error("  --merkle                   マークル木による要約を使用する（DIFFは差分のあるサブツリーのみ比較、COPY/MOVEは要約を更新）");
+            DirectoryToolAr.logger.error("  --compare-depth=<depth>    DIFFでのファイル内容の比較深度（quick: サイズのみ, sampled: サンプリング, full: 全体。デフォルト: full）");
+            DirectoryToolAr.logger.error("  --report-file=<path>       DIFFの差分をログではなく指定したファイルにレポートとして出力する");
+            DirectoryToolAr.logger.error("  --report-format=<format>   差分レポートの形式（jsonl, csv。デフォルト: jsonl）");
+            DirectoryToolAr.logger.error("  --server[=<socket>]        サーバーモードで起動し、ローカルソケットでジョブ要求を待ち受ける");
+            DirectoryToolAr.logger.error("  --batch=<manifest>         マニフェストに記述した複数のジョブを共有のワーカーで並行して実行する");
+            DirectoryToolAr.logger.error("  --copy-engine=<engine>     COPY/MOVEのコピーエンジン（files: Files.copy, buffered: ダイレクトバッファ, clone: reflink, direct: O_DIRECT。デフォルト: files）");
+            DirectoryToolAr.logger.error("  --copy-block-size=<size>   buffered/directのブロックサイズ（64KB～16MB。デフォルト: 1MB）");
+            DirectoryToolAr.logger.error("  --cache-hygiene            コピー・比較したファイルのページキャッシュを解放し、コピーの書き戻しを一定量ごとに完了させる");
+            DirectoryToolAr.logger.error("  --small-file-batch-count=<count> 1つのタスクにまとめる同じディレクトリの小さいファイルの最大数（1以下でまとめない。デフォルト: 32）");
+            DirectoryToolAr.logger.error("  --small-file-batch-size=<size>   1つのタスクにまとめる小さいファイルの合計サイズの上限（デフォルト: 128KB）");
+            DirectoryToolAr.logger.error("  --durability=<level>       COPY/MOVEで処理したファイルの同期（none: 同期なし, file: ファイルごと, batch: 一括。デフォルト: none）");
+            DirectoryToolAr.logger.error("  --resume                   完了したファイルをジャーナルに記録し、中断したCOPY/MOVEの再開時は完了済みのファイルを読み飛ばす");
+            DirectoryToolAr.logger.error("  --transactional            MOVEをトランザクションで行う（すべてのファイルをコピーして検証した後にソースを削除する）");
+            DirectoryToolAr.logger.error("  --recover[=<action>]       中断したトランザクションのMOVEをジャーナルから復旧する（commit: 完了, rollback: 取り消し。デフォルト: commit）");
+            DirectoryToolAr.logger.error("  --atomic-publish           COPYで一時ファイルに書き込んだ後に名前の変更で公開し、書き込み途中のファイルを見せない");
+            DirectoryToolAr.logger.error("  --include=<rule>           COPY/MOVE/DIFFの対象とするファイルのルール（グロブ, regex:, size:, age:。複数指定可）");
+            DirectoryToolAr.logger.error("  --exclude=<rule>           COPY/MOVE/DIFFから除外するルール（例: node_modules, .git, *.tmp。ディレクトリは配下を走査しない。複数指定可）");
+            DirectoryToolAr.logger.error("  --max-depth=<depth>        走査の深さの上限（ソースの直下が1。デフォルト: 制限なし）");
+            DirectoryToolAr.logger.error("  --shard=<k>/<N>            ソースの直下のエントリをN個に分割し、k番目のみを処理する（例: 2/4）");
+            DirectoryToolAr.logger.error("  --merge-reports=<output>   シャードごとの差分レポート（非オプション引数）を1つに結合する");
+            DirectoryToolAr.logger.error("  --bandwidth-limit=<size>   COPY/MOVEの帯域の上限（1秒あたり。例: 50MB。デフォルト: 制限なし）");
+            DirectoryToolAr.logger.error("  --iops-limit=<count>       COPY/MOVEの1秒あたりのファイル操作数の上限（デフォルト: 制限なし）");
+            DirectoryToolAr.logger.error("  --throttle-file=<path>     実行中に上限を変更する制御ファイル（bandwidth=, iops=）を監視する");
+
+            return ExitCodeTypes.ARGUMENT_ERROR;
 
         }
 
@@ -175,16 +773,23 @@ public class DirectoryToolAr implements ApplicationRunner, ExitCodeGenerator, Ex
         } catch (final IllegalArgumentException e) {
 
             // 無効なモードが指定された場合
-            this.exitCode = ExitCodeTypes.ARGUMENT_ERROR;
 
             final String[] logMsgs = {
                     String.format("無効なモードが選択されています。: [%s]", modeStr), "有効なモードの種類: COPY, MOVE, DIFF",
             };
             final String   logMsg  = String.join(System.lineSeparator(), logMsgs);
             DirectoryToolAr.logger.error(logMsg, e);
-            return;
+            return ExitCodeTypes.ARGUMENT_ERROR;
 
         }
+
+        if ((recovery != RecoveryTypes.NONE) && (operationModeTypes != OperationModeTypes.MOVE)) {
+
+            DirectoryToolAr.logger.error("復旧はMOVEでのみ指定できます。: [{}]", modeStr);
+            return ExitCodeTypes.ARGUMENT_ERROR;
+
+        }
+
         // ソースディレクトリパス
         final String src = nonOptionArgs[1];
         // ターゲットディレクトリパス
@@ -194,16 +799,106 @@ public class DirectoryToolAr implements ApplicationRunner, ExitCodeGenerator, Ex
         try {
 
             // スレッドプールサイズを設定（設定されている場合のみ）
-            this.directoryService.setThreadPoolSize(threadPoolSize);
+            directoryService.setThreadPoolSize(threadPoolSize);
+            // マークル木による要約の使用有無を設定
+            directoryService.setMerkleEnabled(args.containsOption("merkle"));
+            // 比較深度を設定
+            directoryService.setCompareDepth(compareDepth);
+            // 比較後にページキャッシュを解放するかを設定
+            directoryService.setCacheHygiene(args.getOptionNames().contains("cache-hygiene"));
+            // 差分レポートの出力先と形式を設定
+            directoryService.setReport(reportFile, reportFormat);
+            // コピーエンジンを設定
+            directoryService.setCopyEngine(copyEngine);
+            // 小さいファイルのバッチ処理を設定
+            directoryService.setSmallFileBatch(smallFileBatchCount, smallFileBatchSize);
+            // 処理したファイルの同期の方式を設定
+            directoryService.setDurability(durability);
+            // 前回の処理のジャーナルから再開するかを設定
+            directoryService.setResume(args.getOptionNames().contains("resume"));
+            // MOVEをトランザクションで行うかを設定
+            directoryService.setTransactionalMove(args.getOptionNames().contains("transactional"));
+            // コピーしたファイルを原子的に公開するかを設定
+            directoryService.setAtomicPublish(args.getOptionNames().contains("atomic-publish"));
+            // 対象とするパスのフィルタを設定
+            directoryService.setPathFilter(pathFilter);
+            // 走査の範囲を設定
+            directoryService.setTraversalScope(traversalScope);
+
+            if (recovery != RecoveryTypes.NONE) {
+
+                // 中断したトランザクションのMOVEを復旧
+                directoryService.recoverMove(src, dest, recovery);
+
+            } else {
+
+                directoryService.processDirectory(src, dest, operationModeTypes);
+
+            }
 
-            this.directoryService.processDirectory(src, dest, operationModeTypes);
+            if (copyEngine instanceof final CloneFileCopyEngine cloneFileCopyEngine) {
+
+                DirectoryToolAr.logger.info("クローンを作成したファイル: {}件, データをコピーしたファイル: {}件",
+                        cloneFileCopyEngine.getClonedCount(), cloneFileCopyEngine.getCopiedCount());
+
+            }
             DirectoryToolAr.logger.info("ディレクトリ操作の処理が終了しました。");
 
         } catch (final IOException e) {
 
             // ディレクトリ操作中にエラーが発生した場合
-            this.exitCode = ExitCodeTypes.EXPECTED_ERROR;
             DirectoryToolAr.logger.error("ディレクトリ操作エラー", e);
+            return ExitCodeTypes.EXPECTED_ERROR;
+
+        }
+
+        return ExitCodeTypes.SUCCESS;
+
+    }
+
+    /**
+     * コマンドライン引数のコピーエンジンとブロックサイズからコピーエンジンを作成する。
+     *
+     * @param args
+     *             コマンドライン引数
+     * @return コピーエンジン。引数が不正な場合はnull
+     */
+    private static FileCopyEngine createCopyEngine(final ApplicationArguments args) {
+
+        CopyEngineTypes copyEngineType = CopyEngineTypes.getDefault();
+
+        if (args.getOptionNames().contains("copy-engine")) {
+
+            final String copyEngineStr = args.getOptionValues("copy-engine").get(0);
+            copyEngineType = CopyEngineTypes.getEnum(copyEngineStr.toLowerCase());
+
+            if (copyEngineType == CopyEngineTypes.NONE) {
+
+                DirectoryToolAr.logger.error("無効なコピーエンジンが指定されています。: [{}] 有効なコピーエンジン: files, buffered, clone, direct", copyEngineStr);
+                return null;
+
+            }
+
+        }
+
+        try {
+
+            int blockSize = BufferedFileCopyEngine.DEFAULT_BLOCK_SIZE;
+
+            if (args.getOptionNames().contains("copy-block-size")) {
+
+                blockSize = Math.toIntExact(DataSize.parse(args.getOptionValues("copy-block-size").get(0)).toBytes());
+
+            }
+
+            final FileCopyEngine result = FileCopyEngine.create(copyEngineType, blockSize,
+                    args.getOptionNames().contains("cache-hygiene"));
+            return result;
+
+        } catch (final IllegalArgumentException | ArithmeticException e) {
+
+            DirectoryToolAr.logger.error("ブロックサイズは64KBから16MBの範囲で、1MBのような形式で指定してください。", e);
+            return null;
 
         }
 
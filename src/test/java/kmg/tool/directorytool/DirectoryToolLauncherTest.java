@@ -0,0 +1,110 @@
+package kmg.tool.directorytool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.concurrent.WorkerPool;
+import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
+
+/**
+ * DirectoryToolLauncherのテストクラス。
+ */
+@SuppressWarnings("static-method")
+public class DirectoryToolLauncherTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Springのコンテキストを使用せずにコピーを実行し、正常終了の終了コードを返すことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作に失敗した場合
+     */
+    @Test
+    public void testRunCopy() throws IOException {
+
+        /* 期待値の定義 */
+        final int expected = ExitCodeTypes.SUCCESS.getValue();
+
+        /* 準備 */
+        final Path source = Files.createDirectories(this.tempDir.resolve("source"));
+        final Path target = Files.createDirectories(this.tempDir.resolve("target"));
+        Files.writeString(source.resolve("test.txt"), "test content");
+
+        /* テスト対象の実行 */
+        final int actual = DirectoryToolLauncher.run(new String[] {
+                "COPY", source.toString(), target.toString()
+        });
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "正常終了の終了コードが返されること");
+        Assertions.assertEquals("test content", Files.readString(target.resolve("test.txt")), "ファイルがコピーされること");
+
+    }
+
+    /**
+     * 引数が不正な場合に引数エラーの終了コードを返すことのテスト
+     */
+    @Test
+    public void testRunWithInvalidArguments() {
+
+        /* 期待値の定義 */
+        final int expected = ExitCodeTypes.ARGUMENT_ERROR.getValue();
+
+        /* テスト対象の実行 */
+        final int actual = DirectoryToolLauncher.run(new String[] {
+                "COPY"
+        });
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "引数エラーの終了コードが返されること");
+
+    }
+
+    /**
+     * 呼び出すたびに新しいディレクトリ操作サービスを作成することのテスト
+     */
+    @Test
+    public void testCreateDirectoryService() {
+
+        try (WorkerPool workerPool = new WorkerPool(1, 0, 0, 0, 0, 0)) {
+
+            /* 準備 */
+            final ThroughputLimiter limiter = new ThroughputLimiter("0", 0);
+
+            /* テスト対象の実行 */
+            final Object first  = DirectoryToolLauncher.createDirectoryService(workerPool, limiter);
+            final Object second = DirectoryToolLauncher.createDirectoryService(workerPool, limiter);
+
+            /* 検証の実施 */
+            Assertions.assertNotSame(first, second, "呼び出すたびに新しいインスタンスが作成されること");
+
+        }
+
+    }
+
+    /**
+     * application.ymlのリミッタの設定で処理を実行することのテスト
+     */
+    @Test
+    public void testRunWithThrottleProperties() {
+
+        /* 準備 */
+        final LauncherProperties properties = new LauncherProperties(Map.of("directorytool.throttle.bandwidth", "fast"));
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DirectoryToolLauncher.run(new String[] {
+                "COPY", this.tempDir.toString(), this.tempDir.toString()
+        }, properties), "設定された帯域でリミッタが作成されること");
+
+    }
+}
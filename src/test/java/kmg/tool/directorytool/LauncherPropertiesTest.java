@@ -0,0 +1,95 @@
+package kmg.tool.directorytool;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LauncherPropertiesのテストクラス。
+ */
+@SuppressWarnings("static-method")
+public class LauncherPropertiesTest {
+
+    /**
+     * 入れ子のキーがドットで連結され、後に読み込んだ設定が優先されることのテスト
+     */
+    @Test
+    public void testRead() {
+
+        /* 期待値の定義 */
+        final int    expectedSize  = 8;
+        final int    expectedLimit = 2;
+        final String expectedType  = "none";
+        final String expectedLevel = "DEBUG";
+
+        /* 準備 */
+        final Map<String, String> values = new HashMap<>();
+        final String base = """
+                spring.main.web-application-type: none
+                directorytool:
+                  worker-pool:
+                    size: 0
+                    network-store-limit: 2
+                logging:
+                  level:
+                    '[kmg.tool.directorytool]': DEBUG
+                """;
+        final String override = """
+                directorytool:
+                  worker-pool:
+                    size: 8
+                """;
+
+        /* テスト対象の実行 */
+        LauncherProperties.read(new ByteArrayInputStream(base.getBytes(StandardCharsets.UTF_8)), values);
+        LauncherProperties.read(new ByteArrayInputStream(override.getBytes(StandardCharsets.UTF_8)), values);
+        final LauncherProperties properties = new LauncherProperties(values);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedSize, properties.getInt("directorytool.worker-pool.size", 0),
+                "後に読み込んだ設定が優先されること");
+        Assertions.assertEquals(expectedLimit, properties.getInt("directorytool.worker-pool.network-store-limit", 0),
+                "入れ子のキーがドットで連結されること");
+        Assertions.assertEquals(expectedType, properties.getString("spring.main.web-application-type", null),
+                "ドットを含むキーがそのまま読み込まれること");
+        Assertions.assertEquals(expectedLevel, properties.getByPrefix("logging.level.").get("[kmg.tool.directorytool]"),
+                "接頭辞を除いたキーで返されること");
+        Assertions.assertEquals(0, properties.getInt("directorytool.worker-pool.copy-limit", 0), "設定がない場合は既定値を返すこと");
+
+    }
+
+    /**
+     * クラスパスのapplication.ymlとシステムプロパティが読み込まれることのテスト
+     */
+    @Test
+    public void testLoad() {
+
+        /* 期待値の定義 */
+        final int expectedLimit = 3;
+
+        /* 準備 */
+        System.setProperty("directorytool.worker-pool.network-store-limit", "3");
+
+        try {
+
+            /* テスト対象の実行 */
+            final LauncherProperties properties = LauncherProperties.load();
+
+            /* 検証の実施 */
+            Assertions.assertEquals("./logs/application.log", properties.getString("logging.file.name", null),
+                    "クラスパスのapplication.ymlが読み込まれること");
+            Assertions.assertEquals(expectedLimit,
+                    properties.getInt("directorytool.worker-pool.network-store-limit", 0), "システムプロパティが優先されること");
+
+        } finally {
+
+            System.clearProperty("directorytool.worker-pool.network-store-limit");
+
+        }
+
+    }
+}
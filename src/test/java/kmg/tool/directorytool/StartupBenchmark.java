@@ -0,0 +1,197 @@
+package kmg.tool.directorytool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CLIの起動時間のベンチマーク。<br>
+ * <p>
+ * 空のディレクトリ同士のDIFFを別プロセスで繰り返し起動し、プロセスの開始から終了までの時間を計測する。
+ * </p>
+ * <ul>
+ * <li>full: 遅延初期化と自動構成の除外を無効にした起動（従来の設定）
+ * <li>trimmed: application.ymlの設定（遅延初期化、自動構成なし）での起動
+ * <li>trimmed+cds: trimmedに加えてAppCDSのアーカイブを使用した起動（アーカイブを指定した場合のみ）
+ * <li>launcher: Springのコンテキストを使用しないDirectoryToolLauncherでの起動
+ * <li>launcher+cds: launcherに加えてAppCDSのアーカイブを使用した起動（アーカイブを指定した場合のみ）
+ * </ul>
+ * <p>
+ * 実行例（AppCDSのアーカイブは{@code mvn -Pappcds package}で作成する）：
+ * </p>
+ *
+ * <pre>
+ * mvn -Pappcds package
+ * java -cp target/test-classes -Dbenchmark.classpath=target/cds/directory-tool-1.0.0.jar \
+ *     kmg.tool.directorytool.StartupBenchmark 10 target/cds/application.jsa target/cds/launcher.jsa
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class StartupBenchmark {
+
+    /** デフォルトの計測回数 */
+    private static final int DEFAULT_ITERATIONS = 10;
+
+    /** Spring Bootで起動するメインクラス */
+    private static final String MAIN_CLASS = "kmg.tool.directorytool.DirectoryToolApplication";
+
+    /** Springのコンテキストを使用せずに起動するメインクラス */
+    private static final String LAUNCHER_CLASS = "kmg.tool.directorytool.DirectoryToolLauncher";
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private StartupBenchmark() {
+
+        // 処理なし
+    }
+
+    /**
+     * ベンチマークを実行する。
+     *
+     * @param args
+     *             計測回数（省略時は10）、AppCDSのアーカイブのパス（省略可）、DirectoryToolLauncher用のAppCDSのアーカイブのパス（省略可）。<br>
+     *             起動するクラスパスはシステムプロパティbenchmark.classpathで指定する（省略時は本プロセスのクラスパス）
+     * @throws Exception
+     *                   ベンチマーク中にエラーが発生した場合
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final int    iterations          = args.length > 0 ? Integer.parseInt(args[0])
+                : StartupBenchmark.DEFAULT_ITERATIONS;
+        final String archiveFile         = args.length > 1 ? args[1] : null;
+        final String launcherArchiveFile = args.length > 2 ? args[2] : null;
+        final String classpath           = System.getProperty("benchmark.classpath",
+                System.getProperty("java.class.path"));
+
+        final Path tempDir = Files.createTempDirectory("startup-benchmark");
+        final Path source  = Files.createDirectories(tempDir.resolve("source"));
+        final Path target  = Files.createDirectories(tempDir.resolve("target"));
+
+        try {
+
+            System.out.printf("iterations=%d%n", iterations);
+            System.out.printf("%15s %10s %10s%n", "variant", "avg(ms)", "min(ms)");
+
+            StartupBenchmark.report("full", iterations, classpath, StartupBenchmark.MAIN_CLASS, List.of(), List.of(
+                    "--spring.main.lazy-initialization=false", "--spring.boot.enableautoconfiguration=true"), source,
+                    target);
+            StartupBenchmark.report("trimmed", iterations, classpath, StartupBenchmark.MAIN_CLASS, List.of(), List.of(),
+                    source, target);
+
+            if (archiveFile != null) {
+
+                StartupBenchmark.report("trimmed+cds", iterations, classpath, StartupBenchmark.MAIN_CLASS,
+                        List.of("-XX:SharedArchiveFile=" + archiveFile), List.of(), source, target);
+
+            }
+
+            StartupBenchmark.report("launcher", iterations, classpath, StartupBenchmark.LAUNCHER_CLASS, List.of(),
+                    List.of(), source, target);
+
+            if (launcherArchiveFile != null) {
+
+                StartupBenchmark.report("launcher+cds", iterations, classpath, StartupBenchmark.LAUNCHER_CLASS,
+                        List.of("-XX:SharedArchiveFile=" + launcherArchiveFile), List.of(), source, target);
+
+            }
+
+        } finally {
+
+            Files.delete(source);
+            Files.delete(target);
+            Files.delete(tempDir);
+
+        }
+
+    }
+
+    /**
+     * 1つの起動方式を計測して結果を出力する。
+     *
+     * @param variant
+     *                   起動方式の名前
+     * @param iterations
+     *                   計測回数
+     * @param classpath
+     *                   クラスパス
+     * @param mainClass
+     *                   起動するメインクラス
+     * @param jvmArgs
+     *                   JVMの引数
+     * @param appArgs
+     *                   アプリケーションの追加の引数
+     * @param source
+     *                   ソースディレクトリ
+     * @param target
+     *                   ターゲットディレクトリ
+     * @throws IOException
+     *                              プロセスの起動に失敗した場合
+     * @throws InterruptedException
+     *                              プロセスの終了待ちで割り込まれた場合
+     */
+    private static void report(final String variant, final int iterations, final String classpath,
+            final String mainClass, final List<String> jvmArgs, final List<String> appArgs, final Path source, final Path target)
+            throws IOException, InterruptedException {
+
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classpath);
+        command.add(mainClass);
+        command.addAll(appArgs);
+        command.add("DIFF");
+        command.add(source.toString());
+        command.add(target.toString());
+
+        // 1回目はファイルキャッシュを温めるため計測しない
+        StartupBenchmark.launch(command);
+
+        long total = 0;
+        long min   = Long.MAX_VALUE;
+
+        for (int i = 0; i < iterations; i++) {
+
+            final long elapsed = StartupBenchmark.launch(command);
+            total += elapsed;
+            min = Math.min(min, elapsed);
+
+        }
+
+        System.out.printf("%15s %10.1f %10.1f%n", variant, total / 1_000_000.0 / iterations, min / 1_000_000.0);
+
+    }
+
+    /**
+     * プロセスを起動し、終了までの時間を返す。
+     *
+     * @param command
+     *                コマンド
+     * @return 起動から終了までの時間（ナノ秒）
+     * @throws IOException
+     *                              プロセスの起動に失敗した場合、またはプロセスが異常終了した場合
+     * @throws InterruptedException
+     *                              プロセスの終了待ちで割り込まれた場合
+     */
+    private static long launch(final List<String> command) throws IOException, InterruptedException {
+
+        final long    start   = System.nanoTime();
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        final int     exit    = process.waitFor();
+        final long    result  = System.nanoTime() - start;
+
+        if (exit != 0) {
+
+            throw new IOException(String.format("プロセスが異常終了しました。: %d %s", exit, command));
+
+        }
+        return result;
+
+    }
+}
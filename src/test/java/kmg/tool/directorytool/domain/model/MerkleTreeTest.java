@@ -0,0 +1,256 @@
+package kmg.tool.directorytool.domain.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * MerkleTreeのテストクラス。
+ */
+public class MerkleTreeTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /** テスト用のソースディレクトリ */
+    private Path sourceDir;
+
+    /** テスト用のターゲットディレクトリ */
+    private Path targetDir;
+
+    /**
+     * テストの前準備
+     *
+     * @throws IOException
+     *                     ディレクトリの作成に失敗した場合
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+
+        this.sourceDir = this.tempDir.resolve("source");
+        this.targetDir = this.tempDir.resolve("target");
+        Files.createDirectories(this.sourceDir);
+        Files.createDirectories(this.targetDir);
+
+    }
+
+    /**
+     * 同一内容のツリーのルートハッシュが一致し、差分が無いことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testIdenticalTrees() throws IOException {
+
+        /* 準備 */
+        for (final Path root : List.of(this.sourceDir, this.targetDir)) {
+
+            Files.createDirectories(root.resolve("sub"));
+            Files.writeString(root.resolve("sub/file.txt"), "content");
+            Files.writeString(root.resolve("root.txt"), "root");
+
+        }
+
+        /* テスト対象の実行 */
+        final MerkleTree            sourceTree = MerkleTree.build(this.sourceDir, null, null);
+        final MerkleTree            targetTree = MerkleTree.build(this.targetDir, null, null);
+        final MerkleTree.Difference actual     = MerkleTree.diff(sourceTree, targetTree);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(sourceTree.getRootHash(), targetTree.getRootHash(), "ルートハッシュが一致すること");
+        Assertions.assertTrue(actual.sourcePaths().isEmpty(), "ソース側の差分が無いこと");
+        Assertions.assertTrue(actual.targetOnlyPaths().isEmpty(), "ターゲット側の差分が無いこと");
+
+    }
+
+    /**
+     * 差分のあるサブツリーのみが検出されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testDiffDescendsOnlyIntoChangedSubtrees() throws IOException {
+
+        /* 期待値の定義 */
+        final List<String> expectedSourcePaths     = List.of("changed", "changed/file.txt", "source_only.txt");
+        final List<String> expectedTargetOnlyPaths = List.of("target_only", "target_only/file.txt");
+
+        /* 準備 */
+        for (final Path root : List.of(this.sourceDir, this.targetDir)) {
+
+            Files.createDirectories(root.resolve("same"));
+            Files.writeString(root.resolve("same/file.txt"), "same");
+            Files.createDirectories(root.resolve("changed"));
+
+        }
+        Files.writeString(this.sourceDir.resolve("changed/file.txt"), "source");
+        Files.writeString(this.targetDir.resolve("changed/file.txt"), "target");
+        Files.writeString(this.sourceDir.resolve("source_only.txt"), "source");
+        Files.createDirectories(this.targetDir.resolve("target_only"));
+        Files.writeString(this.targetDir.resolve("target_only/file.txt"), "target");
+
+        /* テスト対象の実行 */
+        final MerkleTree.Difference actual = MerkleTree.diff(MerkleTree.build(this.sourceDir, null, null),
+                MerkleTree.build(this.targetDir, null, null));
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedSourcePaths, actual.sourcePaths(), "ソース側の差分が正しいこと");
+        Assertions.assertEquals(expectedTargetOnlyPaths, actual.targetOnlyPaths(), "ターゲット側の差分が正しいこと");
+
+    }
+
+    /**
+     * 保存と読み込みで要約が復元されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("sub"));
+        Files.writeString(this.sourceDir.resolve("sub/file.txt"), "content");
+        final MerkleTree expected = MerkleTree.build(this.sourceDir, null, null);
+
+        /* テスト対象の実行 */
+        expected.save(this.sourceDir);
+        final MerkleTree actual = MerkleTree.load(this.sourceDir);
+
+        /* 検証の実施 */
+        Assertions.assertNotNull(actual, "要約が読み込まれること");
+        Assertions.assertEquals(expected.getRootHash(), actual.getRootHash(), "ルートハッシュが一致すること");
+        Assertions.assertEquals(expected.getNode("sub/file.txt"), actual.getNode("sub/file.txt"), "ファイルのノードが一致すること");
+        Assertions.assertEquals(expected.getRootHash(), MerkleTree.build(this.sourceDir, null, null).getRootHash(),
+                "要約ファイル自体はハッシュに含まれないこと");
+
+    }
+
+    /**
+     * 要約ファイルが存在しない場合にnullが返されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testLoadWithoutSummary() throws IOException {
+
+        /* テスト対象の実行 */
+        final MerkleTree actual = MerkleTree.load(this.sourceDir);
+
+        /* 検証の実施 */
+        Assertions.assertNull(actual, "要約が存在しない場合はnullであること");
+
+    }
+
+    /**
+     * ヒントのハッシュ値がサイズと更新日時が一致する場合、またはコピーした場合のみ再利用されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testBuildReusesHintHash() throws IOException {
+
+        /* 準備 */
+        final FileTime sourceTime = FileTime.fromMillis(1_700_000_000_000L);
+        Files.writeString(this.sourceDir.resolve("file.txt"), "abc");
+        Files.writeString(this.targetDir.resolve("file.txt"), "xyz");
+        Files.setLastModifiedTime(this.sourceDir.resolve("file.txt"), sourceTime);
+        Files.setLastModifiedTime(this.targetDir.resolve("file.txt"), FileTime.fromMillis(1_700_000_100_000L));
+        final MerkleTree hint = MerkleTree.build(this.sourceDir, null, null);
+
+        /* テスト対象の実行 */
+        final MerkleTree actualChanged = MerkleTree.build(this.targetDir, null, hint);
+        final MerkleTree actualCopied  = MerkleTree.build(this.targetDir, null, hint, Set.of(Path.of("file.txt")));
+        Files.setLastModifiedTime(this.targetDir.resolve("file.txt"), sourceTime);
+        final MerkleTree actualMoved = MerkleTree.build(this.targetDir, null, hint);
+
+        /* 検証の実施 */
+        Assertions.assertNotEquals(hint.getNode("file.txt").hash(), actualChanged.getNode("file.txt").hash(),
+                "更新日時が異なるファイルはサイズが同じでもヒントのハッシュ値が再利用されないこと");
+        Assertions.assertEquals(hint.getNode("file.txt").hash(), actualCopied.getNode("file.txt").hash(),
+                "コピーしたファイルはヒントのハッシュ値が再利用されること");
+        Assertions.assertEquals(hint.getNode("file.txt").hash(), actualMoved.getNode("file.txt").hash(),
+                "サイズと更新日時が一致するファイルはヒントのハッシュ値が再利用されること");
+
+    }
+
+    /**
+     * 保存済みの要約が古い場合に、再構築して変更が反映されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testLoadOrBuildRevalidatesSummary() throws IOException {
+
+        /* 準備 */
+        final Path file = this.sourceDir.resolve("file.txt");
+        Files.writeString(file, "abc");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L));
+        final MerkleTree stale = MerkleTree.loadOrBuild(this.sourceDir);
+        Files.writeString(file, "xyz");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_100_000L));
+
+        /* テスト対象の実行 */
+        final MerkleTree actual = MerkleTree.loadOrBuild(this.sourceDir);
+
+        /* 検証の実施 */
+        Assertions.assertNotEquals(stale.getRootHash(), actual.getRootHash(), "変更が反映されること");
+        Assertions.assertEquals(MerkleTree.build(this.sourceDir, null, null).getRootHash(), actual.getRootHash(),
+                "実際の内容と一致すること");
+        Assertions.assertEquals(actual.getRootHash(), MerkleTree.load(this.sourceDir).getRootHash(),
+                "再構築した要約が保存されること");
+
+    }
+
+    /**
+     * ソースの要約がターゲットに保存され、同じソースの再構築でのみハッシュ値が再利用されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testLoadOrBuildSourceReusesSummary() throws IOException {
+
+        /* 準備 */
+        final Path     file         = this.sourceDir.resolve("file.txt");
+        final FileTime lastModified = FileTime.fromMillis(1_700_000_000_000L);
+        Files.writeString(file, "abc");
+        Files.setLastModifiedTime(file, lastModified);
+        final MerkleTree first = MerkleTree.loadOrBuildSource(this.sourceDir, this.targetDir);
+
+        // サイズと更新日時を変えずに内容を変更し、ハッシュ値が再利用されたかを判別できるようにする
+        Files.writeString(file, "xyz");
+        Files.setLastModifiedTime(file, lastModified);
+        final Path otherSource = this.tempDir.resolve("other");
+        Files.createDirectories(otherSource);
+        Files.writeString(otherSource.resolve("file.txt"), "xyz");
+        Files.setLastModifiedTime(otherSource.resolve("file.txt"), lastModified);
+
+        /* テスト対象の実行 */
+        final MerkleTree reused = MerkleTree.loadOrBuildSource(this.sourceDir, this.targetDir);
+        final MerkleTree other  = MerkleTree.loadOrBuildSource(otherSource, this.targetDir);
+
+        /* 検証の実施 */
+        Assertions.assertFalse(Files.exists(this.sourceDir.resolve(MerkleTree.FILE_NAME)), "ソースに要約が書き込まれないこと");
+        Assertions.assertTrue(Files.exists(this.targetDir.resolve(MerkleTree.SOURCE_FILE_NAME)), "ターゲットに保存されること");
+        Assertions.assertNull(MerkleTree.load(this.targetDir), "ターゲット自身の要約とは別のファイルに保存されること");
+        Assertions.assertEquals(first.getRootHash(), reused.getRootHash(), "同じソースでは保存済みのハッシュ値が再利用されること");
+        Assertions.assertEquals(MerkleTree.build(otherSource, null, null).getRootHash(), other.getRootHash(),
+                "別のソースの要約は再利用されないこと");
+
+    }
+}
@@ -0,0 +1,140 @@
+package kmg.tool.directorytool.domain.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * PathFilterのテストクラス。
+ */
+public class PathFilterTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * ファイル名、拡張子、相対パス、グロブの除外のルールでディレクトリが除外されることのテスト
+     */
+    @Test
+    public void testExcludedDirectory() {
+
+        /* 準備 */
+        final PathFilter filter = PathFilter.compile(List.of(),
+                List.of("node_modules", ".git", "*.tmp", "build/output/", "cache-*", "docs/**/generated"),
+                System.currentTimeMillis());
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertTrue(filter.isExcludedDirectory(Path.of("node_modules")), "ファイル名のルールに一致すること");
+        Assertions.assertTrue(filter.isExcludedDirectory(Path.of("web/node_modules")), "どの階層でもファイル名のルールに一致すること");
+        Assertions.assertTrue(filter.isExcludedDirectory(Path.of("a/.git")), "ファイル名のルールに一致すること");
+        Assertions.assertTrue(filter.isExcludedDirectory(Path.of("work.tmp")), "拡張子のルールに一致すること");
+        Assertions.assertTrue(filter.isExcludedDirectory(Path.of("build/output")), "相対パスのルールに一致すること");
+        Assertions.assertTrue(filter.isExcludedDirectory(Path.of("cache-1")), "ファイル名のグロブに一致すること");
+        Assertions.assertTrue(filter.isExcludedDirectory(Path.of("docs/api/v1/generated")), "相対パスのグロブに一致すること");
+        Assertions.assertFalse(filter.isExcludedDirectory(Path.of("build")), "相対パスのルールの上位は一致しないこと");
+        Assertions.assertFalse(filter.isExcludedDirectory(Path.of("web/build/output")), "相対パスのルールはルートから照合すること");
+        Assertions.assertFalse(filter.isExcludedDirectory(Path.of("src")), "一致しないディレクトリは除外されないこと");
+
+    }
+
+    /**
+     * 除外のルールと包含のルールによるファイルの選択のテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testAccept() throws IOException {
+
+        /* 準備 */
+        final Path                file       = Files.writeString(this.tempDir.resolve("file.txt"), "content");
+        final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        final PathFilter filter = PathFilter.compile(List.of("*.java", "docs/**", "regex:.*/README\\.md"),
+                List.of("*.tmp", "build/output", "src/Generated*.java"), System.currentTimeMillis());
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertTrue(filter.accept(Path.of("src/Main.java"), attributes), "包含の拡張子に一致すること");
+        Assertions.assertTrue(filter.accept(Path.of("docs/guide/index.html"), attributes), "包含の相対パスのグロブに一致すること");
+        Assertions.assertTrue(filter.accept(Path.of("sub/README.md"), attributes), "包含の正規表現に一致すること");
+        Assertions.assertFalse(filter.accept(Path.of("src/Main.class"), attributes), "包含のルールに一致しないこと");
+        Assertions.assertFalse(filter.accept(Path.of("src/GeneratedParser.java"), attributes), "除外のルールを優先すること");
+        Assertions.assertFalse(filter.accept(Path.of("build/output/App.java"), attributes), "除外した相対パスの配下は選択しないこと");
+        Assertions.assertFalse(filter.accept(Path.of("docs/a.java.tmp"), attributes), "除外の拡張子に一致すること");
+
+    }
+
+    /**
+     * サイズと経過時間の条件によるファイルの選択のテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testSizeAndAgePredicates() throws IOException {
+
+        /* 準備 */
+        final long now   = System.currentTimeMillis();
+        final Path small = Files.write(this.tempDir.resolve("small.bin"), new byte[100]);
+        final Path large = Files.write(this.tempDir.resolve("large.bin"), new byte[4096]);
+        final Path old   = Files.write(this.tempDir.resolve("old.bin"), new byte[100]);
+        Files.setLastModifiedTime(old, FileTime.fromMillis(now - Duration.ofDays(40).toMillis()));
+
+        final PathFilter sizeFilter = PathFilter.compile(List.of(), List.of("size:>1KB"), now);
+        final PathFilter ageFilter  = PathFilter.compile(List.of("age:<30d"), List.of(), now);
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertTrue(sizeFilter.accept(Path.of("small.bin"), PathFilterTest.attributes(small)),
+                "上限以下のファイルは選択すること");
+        Assertions.assertFalse(sizeFilter.accept(Path.of("large.bin"), PathFilterTest.attributes(large)),
+                "上限を超えるファイルは除外すること");
+        Assertions.assertTrue(ageFilter.accept(Path.of("small.bin"), PathFilterTest.attributes(small)),
+                "新しいファイルは選択すること");
+        Assertions.assertFalse(ageFilter.accept(Path.of("old.bin"), PathFilterTest.attributes(old)),
+                "古いファイルは選択しないこと");
+        Assertions.assertFalse(sizeFilter.isExcludedDirectory(Path.of("large.bin")), "条件でディレクトリを除外しないこと");
+
+    }
+
+    /**
+     * 不正なルールが指定された場合に例外がスローされることのテスト
+     */
+    @Test
+    public void testInvalidRules() {
+
+        /* テスト対象の実行と検証の実施 */
+        for (final String rule : List.of("", "size:100MB", "size:>big", "age:>30w", "age:<", "regex:[", "glob:{a")) {
+
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> PathFilter.compile(List.of(), List.of(rule), System.currentTimeMillis()),
+                    String.format("不正なルールで例外がスローされること: %s", rule));
+
+        }
+
+    }
+
+    /**
+     * ファイルの属性を取得する。
+     *
+     * @param path
+     *             ファイル
+     * @return ファイルの属性
+     * @throws IOException
+     *                     属性の取得に失敗した場合
+     */
+    private static BasicFileAttributes attributes(final Path path) throws IOException {
+
+        final BasicFileAttributes result = Files.readAttributes(path, BasicFileAttributes.class);
+        return result;
+
+    }
+}
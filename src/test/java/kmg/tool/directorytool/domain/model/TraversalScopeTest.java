@@ -0,0 +1,96 @@
+package kmg.tool.directorytool.domain.model;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TraversalScopeのテストクラス。
+ */
+public class TraversalScopeTest {
+
+    /**
+     * すべてのシャードで、最上位のエントリがちょうど1つのシャードに割り当てられることのテスト
+     */
+    @Test
+    public void testShardsAreDisjointAndComplete() {
+
+        /* 準備 */
+        final int                  shardCount = 4;
+        final List<TraversalScope> scopes     = new ArrayList<>();
+
+        for (int i = 1; i <= shardCount; i++) {
+
+            scopes.add(TraversalScope.parse(null, i + "/" + shardCount));
+
+        }
+
+        /* テスト対象の実行と検証の実施 */
+        for (int i = 0; i < 200; i++) {
+
+            final Path entry = Path.of("entry" + i);
+            final long count = scopes.stream().filter(scope -> scope.contains(entry)).count();
+            Assertions.assertEquals(1, count, String.format("ちょうど1つのシャードに割り当てられること: %s", entry));
+
+            for (final TraversalScope scope : scopes) {
+
+                Assertions.assertEquals(scope.contains(entry), scope.contains(entry.resolve("sub/file.txt")),
+                        "配下のパスは最上位のエントリと同じシャードに割り当てられること");
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 深さの上限のテスト
+     */
+    @Test
+    public void testMaxDepth() {
+
+        /* 準備 */
+        final TraversalScope scope = TraversalScope.parse("2", null);
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertTrue(scope.contains(Path.of("")), "ルートは含まれること");
+        Assertions.assertTrue(scope.contains(Path.of("a/b")), "上限の深さは含まれること");
+        Assertions.assertFalse(scope.contains(Path.of("a/b/c")), "上限を超える深さは含まれないこと");
+        Assertions.assertTrue(scope.isDescendable(Path.of("a")), "上限未満のディレクトリは走査すること");
+        Assertions.assertFalse(scope.isDescendable(Path.of("a/b")), "上限のディレクトリは走査しないこと");
+        Assertions.assertTrue(scope.isLimited(), "範囲を限定していること");
+        Assertions.assertNull(scope.getShardName(), "分割しない場合はシャードの名前がないこと");
+
+    }
+
+    /**
+     * 範囲を限定しない場合のテスト
+     */
+    @Test
+    public void testAll() {
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertFalse(TraversalScope.ALL.isLimited(), "範囲を限定しないこと");
+        Assertions.assertTrue(TraversalScope.ALL.contains(Path.of("a/b/c/d")), "すべてのパスが含まれること");
+        Assertions.assertEquals("2-of-4", TraversalScope.parse(null, "2/4").getShardName(), "シャードの名前");
+
+    }
+
+    /**
+     * 不正な指定で例外がスローされることのテスト
+     */
+    @Test
+    public void testInvalid() {
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TraversalScope.parse("0", null), "深さが0");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TraversalScope.parse("x", null), "深さが数値でない");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TraversalScope.parse(null, "5/4"), "シャードが範囲外");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TraversalScope.parse(null, "0/4"), "シャードが範囲外");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TraversalScope.parse(null, "2"), "区切りがない");
+
+    }
+}
@@ -11,6 +11,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+
 /**
  * ディレクトリ操作サービスのテストのための基底クラス。<br>
  * <p>
@@ -82,6 +84,13 @@ public abstract class AbstractDirectoryServiceImplTest {
                 // テスト用の空実装
             }
 
+            @Override
+            protected OperationModeTypes getOperationMode() {
+
+                return OperationModeTypes.NONE;
+
+            }
+
             @Override
             public void setThreadPoolSize(final int threadPoolSize) {
 
@@ -319,6 +328,13 @@ public abstract class AbstractDirectoryServiceImplTest {
 
                 // 何もしない
             }
+
+            @Override
+            protected OperationModeTypes getOperationMode() {
+
+                return OperationModeTypes.NONE;
+
+            }
         };
         errorService.setThreadPoolSize(1);
 
@@ -369,6 +385,13 @@ public abstract class AbstractDirectoryServiceImplTest {
 
                 // 何もしない
             }
+
+            @Override
+            protected OperationModeTypes getOperationMode() {
+
+                return OperationModeTypes.NONE;
+
+            }
         };
         slowService.setThreadPoolSize(1);
 
@@ -3,10 +3,26 @@ package kmg.tool.directorytool.domain.service.impl;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import kmg.tool.directorytool.domain.model.MerkleTree;
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
+import kmg.tool.directorytool.infrastructure.concurrent.FairShareExecutor;
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.concurrent.WorkerPool;
+import kmg.tool.directorytool.infrastructure.io.AtomicPublisher;
+import kmg.tool.directorytool.infrastructure.io.JobJournal;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+
 /**
  * コピー操作を実行するサービスのテストクラス。
  */
@@ -159,4 +175,521 @@ public class CopyDirectoryServiceImplTest extends AbstractDirectoryServiceImplTe
         Assertions.assertTrue(actualEmpty2Exists, "empty2ディレクトリが存在すること");
 
     }
+
+    /**
+     * マークル木による要約を有効にしたコピーで、ターゲットの要約がソースと一致し、ソースに要約が書き込まれないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時に発生する可能性のあるIO例外
+     */
+    @Test
+    public void testCopyUpdatesMerkleTree() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("subdir"));
+        Files.writeString(this.sourceDir.resolve("subdir/file.txt"), "content");
+        this.service.setMerkleEnabled(true);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の準備 */
+        final MerkleTree expectedSourceTree = MerkleTree.build(this.sourceDir, null, null);
+        final MerkleTree actualTargetTree   = MerkleTree.load(this.targetDir);
+
+        /* 検証の実施 */
+        Assertions.assertNull(MerkleTree.load(this.sourceDir), "ソースに要約が書き込まれないこと");
+        Assertions.assertTrue(Files.exists(this.targetDir.resolve(MerkleTree.SOURCE_FILE_NAME)),
+                "ソースの要約がターゲットに保存されること");
+        Assertions.assertNotNull(actualTargetTree, "ターゲットの要約が保存されていること");
+        Assertions.assertEquals(expectedSourceTree.getRootHash(), actualTargetTree.getRootHash(), "ルートハッシュが一致すること");
+        Assertions.assertEquals(actualTargetTree.getRootHash(),
+                MerkleTree.build(this.targetDir, null, null).getRootHash(), "ターゲットの要約が実際の内容と一致すること");
+
+    }
+
+    /**
+     * 共有のエグゼキュータでコピーが行われることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithSharedExecutor() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("subdir"));
+        Files.writeString(this.sourceDir.resolve("subdir/file.txt"), "content");
+        Files.writeString(this.sourceDir.resolve("root.txt"), "root");
+
+        /* テスト対象の実行 */
+        try (FairShareExecutor executor = new FairShareExecutor(2)) {
+
+            this.service.setExecutor(executor.newLane());
+            this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        }
+
+        /* 検証の実施 */
+        Assertions.assertEquals("content", Files.readString(this.targetDir.resolve("subdir/file.txt")), "ファイルがコピーされること");
+        Assertions.assertEquals("root", Files.readString(this.targetDir.resolve("root.txt")), "ファイルがコピーされること");
+
+    }
+
+    /**
+     * ワーカープールを設定した場合に、複数回の処理で同じワーカーを再利用してコピーすることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時に発生する可能性のあるIO例外
+     */
+    @Test
+    public void testCopyWithWorkerPool() throws IOException {
+
+        /* 期待値の定義 */
+        final int expectedWorkerCount = 2;
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("subdir"));
+        Files.writeString(this.sourceDir.resolve("subdir/file.txt"), "content");
+        Files.writeString(this.sourceDir.resolve("root.txt"), "root");
+
+        try (WorkerPool workerPool = new WorkerPool(1, 1, 0, 0, 0, 0)) {
+
+            this.service.setWorkerPool(workerPool);
+            this.service.setThreadPoolSize(expectedWorkerCount);
+
+            /* テスト対象の実行 */
+            this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+            Files.writeString(this.sourceDir.resolve("root.txt"), "updated");
+            this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+            /* 検証の実施 */
+            Assertions.assertEquals(expectedWorkerCount, workerPool.getWorkerCount(), "ワーカーが処理間で再利用されること");
+
+        }
+
+        Assertions.assertEquals("content", Files.readString(this.targetDir.resolve("subdir/file.txt")), "ファイルがコピーされること");
+        Assertions.assertEquals("updated", Files.readString(this.targetDir.resolve("root.txt")), "2回目の処理でファイルが更新されること");
+
+    }
+
+    /**
+     * 帯域を制限したコピーのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithBandwidthLimit() throws IOException {
+
+        /* 期待値の定義 */
+        final byte[] expectedContent = new byte[200 * 1024];
+        new Random(1).nextBytes(expectedContent);
+
+        /* 準備 */
+        Files.write(this.sourceDir.resolve("large.bin"), expectedContent);
+        Files.writeString(this.targetDir.resolve("large.bin"), "old content that is replaced");
+        Files.writeString(this.sourceDir.resolve("small.txt"), "small");
+        this.service.setThroughputLimiter(new ThroughputLimiter("1MB", 1000));
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertArrayEquals(expectedContent, Files.readAllBytes(this.targetDir.resolve("large.bin")),
+                "チャンクに分けてコピーした内容が一致すること");
+        Assertions.assertEquals("small", Files.readString(this.targetDir.resolve("small.txt")), "小さいファイルもコピーされること");
+
+    }
+
+    /**
+     * ファイル操作数を制限し、1つのタスクの処理に30秒以上かかるコピーが成功することのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithSlowThrottledTask() throws IOException {
+
+        /* 期待値の定義 */
+        final int expectedFileCount = 33;
+
+        /* 準備 */
+        for (int i = 0; i < expectedFileCount; i++) {
+
+            Files.writeString(this.sourceDir.resolve("file" + i + ".txt"), "content" + i);
+
+        }
+        this.service.setThreadPoolSize(1);
+        this.service.setSmallFileBatch(expectedFileCount, 128 * 1024);
+        this.service.setThroughputLimiter(new ThroughputLimiter("0", 1));
+
+        /* テスト対象の実行 */
+        final long start = System.nanoTime();
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+        final long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+
+        /* 検証の実施 */
+        Assertions.assertTrue(elapsedSeconds >= 30, "1つのタスクの処理に30秒以上かかること");
+
+        for (int i = 0; i < expectedFileCount; i++) {
+
+            Assertions.assertEquals("content" + i, Files.readString(this.targetDir.resolve("file" + i + ".txt")),
+                    "すべてのファイルがコピーされること");
+
+        }
+
+    }
+
+    /**
+     * 同じディレクトリの小さいファイルが1つのタスクにまとめてコピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithSmallFileBatch() throws IOException {
+
+        /* 期待値の定義 */
+        // ルート、サブディレクトリ、小さいファイル10件を4件ずつまとめた3件、まとめない大きいファイル1件
+        final int expectedBatchedTaskCount = 6;
+        // ルート、サブディレクトリ、ファイル11件
+        final int expectedUnbatchedTaskCount = 13;
+
+        /* 準備 */
+        final Path subDir = this.sourceDir.resolve("subdir");
+        Files.createDirectories(subDir);
+
+        for (int i = 0; i < 10; i++) {
+
+            Files.writeString(subDir.resolve("file" + i + ".txt"), "content" + i);
+
+        }
+        Files.write(this.sourceDir.resolve("large.bin"), new byte[200 * 1024]);
+
+        final AtomicInteger taskCount = new AtomicInteger();
+        this.service.setExecutor(task -> {
+
+            taskCount.incrementAndGet();
+            task.run();
+
+        });
+
+        /* テスト対象の実行 */
+        this.service.setSmallFileBatch(4, 128 * 1024);
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+        final int actualBatchedTaskCount = taskCount.getAndSet(0);
+
+        this.service.setSmallFileBatch(1, 128 * 1024);
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+        final int actualUnbatchedTaskCount = taskCount.get();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedBatchedTaskCount, actualBatchedTaskCount, "小さいファイルがまとめて処理されること");
+        Assertions.assertEquals(expectedUnbatchedTaskCount, actualUnbatchedTaskCount, "1件以下の指定ではまとめないこと");
+
+        for (int i = 0; i < 10; i++) {
+
+            Assertions.assertEquals("content" + i, Files.readString(this.targetDir.resolve("subdir/file" + i + ".txt")),
+                    "まとめたファイルがすべてコピーされること");
+
+        }
+        Assertions.assertEquals(200 * 1024, Files.size(this.targetDir.resolve("large.bin")), "大きいファイルがコピーされること");
+
+    }
+
+    /**
+     * 一括で同期するコピーのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithBatchDurability() throws IOException {
+
+        /* 準備 */
+        final Path subDir = this.sourceDir.resolve("subdir/nested");
+        Files.createDirectories(subDir);
+
+        for (int i = 0; i < 20; i++) {
+
+            Files.writeString(subDir.resolve("file" + i + ".txt"), "content" + i);
+
+        }
+        this.service.setDurability(DurabilityTypes.BATCH);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        for (int i = 0; i < 20; i++) {
+
+            Assertions.assertEquals("content" + i,
+                    Files.readString(this.targetDir.resolve("subdir/nested/file" + i + ".txt")), "ファイルがコピーされること");
+
+        }
+
+    }
+
+    /**
+     * 再開を指定しない場合にジャーナルを作成しないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithoutJournal() throws IOException {
+
+        /* 準備 */
+        Files.writeString(this.sourceDir.resolve("file.txt"), "content");
+        final Path          journalFile = this.targetDir.resolve(JobJournal.FILE_NAME);
+        final AtomicInteger journals    = new AtomicInteger();
+
+        final CopyDirectoryServiceImpl service = new CopyDirectoryServiceImpl() {
+
+            @Override
+            protected void processPath(final Path sourcePath, final Path targetPath, final Path relativePath)
+                    throws IOException {
+
+                if (Files.exists(journalFile)) {
+
+                    journals.incrementAndGet();
+
+                }
+                super.processPath(sourcePath, targetPath, relativePath);
+
+            }
+        };
+
+        /* テスト対象の実行 */
+        service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals(0, journals.get(), "処理中にジャーナルが存在しないこと");
+        Assertions.assertEquals("content", Files.readString(this.targetDir.resolve("file.txt")), "ファイルがコピーされること");
+
+    }
+
+    /**
+     * ジャーナルから再開するコピーのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithResume() throws IOException {
+
+        /* 準備 */
+        Files.writeString(this.sourceDir.resolve("done.txt"), "source");
+        Files.writeString(this.sourceDir.resolve("remaining.txt"), "remaining");
+        Files.createDirectories(this.targetDir);
+        Files.writeString(this.targetDir.resolve("done.txt"), "copied before");
+
+        // 前回の処理でdone.txtまで完了して中断したジャーナルを作成
+        try (JobJournal journal = JobJournal.open(this.targetDir, this.sourceDir, OperationModeTypes.COPY.getValue(),
+                false, false)) {
+
+            journal.record("done.txt");
+
+        }
+        this.service.setResume(true);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals("copied before", Files.readString(this.targetDir.resolve("done.txt")),
+                "完了済みのファイルは処理されないこと");
+        Assertions.assertEquals("remaining", Files.readString(this.targetDir.resolve("remaining.txt")),
+                "残りのファイルがコピーされること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve(JobJournal.FILE_NAME)), "完了後にジャーナルが削除されること");
+
+    }
+
+    /**
+     * 原子的に公開するコピーのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithAtomicPublish() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("subdir"));
+        Files.writeString(this.sourceDir.resolve("subdir/file.txt"), "new content");
+        Files.createDirectories(this.targetDir.resolve("subdir"));
+        Files.writeString(this.targetDir.resolve("subdir/file.txt"), "old content");
+        ((CopyDirectoryServiceImpl) this.service).setAtomicPublish(true);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals("new content", Files.readString(this.targetDir.resolve("subdir/file.txt")),
+                "既存のファイルが置き換えられること");
+
+        try (Stream<Path> stream = Files.walk(this.targetDir)) {
+
+            Assertions.assertTrue(stream.noneMatch(AtomicPublisher::isTemporaryFile), "一時ファイルが残らないこと");
+
+        }
+
+    }
+
+    /**
+     * 原子的に公開する場合、ジャーナルがなくても中断した処理の一時ファイルが削除され、同期してコピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testAtomicPublishCleansUpWithoutJournal() throws IOException {
+
+        /* 準備 */
+        Files.writeString(this.sourceDir.resolve("file.txt"), "content");
+        final Path leftover = AtomicPublisher.temporaryPath(this.targetDir.resolve("subdir/removed.txt"));
+        Files.createDirectories(leftover.getParent());
+        Files.writeString(leftover, "partial");
+        ((CopyDirectoryServiceImpl) this.service).setAtomicPublish(true);
+        this.service.setDurability(DurabilityTypes.FILE);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertFalse(Files.exists(leftover), "残った一時ファイルが削除されること");
+        Assertions.assertEquals("content", Files.readString(this.targetDir.resolve("file.txt")), "ファイルがコピーされること");
+
+    }
+
+    /**
+     * すべてのシャードでコピーすると、各エントリがちょうど1回コピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithShards() throws IOException {
+
+        /* 準備 */
+        for (int i = 0; i < 12; i++) {
+
+            Files.createDirectories(this.sourceDir.resolve("dir" + i));
+            Files.writeString(this.sourceDir.resolve("dir" + i + "/file.txt"), "content" + i);
+
+        }
+
+        final int[] copiedPerShard = new int[3];
+
+        /* テスト対象の実行 */
+        for (int shard = 1; shard <= 3; shard++) {
+
+            this.service.setTraversalScope(TraversalScope.parse(null, shard + "/3"));
+            this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+            try (Stream<Path> stream = Files.list(this.targetDir)) {
+
+                copiedPerShard[shard - 1] = (int) stream.count();
+
+            }
+
+        }
+
+        /* 検証の実施 */
+        for (int i = 0; i < 12; i++) {
+
+            Assertions.assertEquals("content" + i, Files.readString(this.targetDir.resolve("dir" + i + "/file.txt")),
+                    "すべてのエントリがいずれかのシャードでコピーされること");
+
+        }
+        Assertions.assertTrue(copiedPerShard[0] < 12, "1つのシャードではすべてのエントリをコピーしないこと");
+
+    }
+
+    /**
+     * 深さの上限のディレクトリを作成し、配下をコピーしないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithMaxDepth() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("a/b"));
+        Files.writeString(this.sourceDir.resolve("top.txt"), "top");
+        Files.writeString(this.sourceDir.resolve("a/b/deep.txt"), "deep");
+        this.service.setTraversalScope(TraversalScope.parse("1", null));
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals("top", Files.readString(this.targetDir.resolve("top.txt")), "直下のファイルがコピーされること");
+        Assertions.assertTrue(Files.isDirectory(this.targetDir.resolve("a")), "上限の深さのディレクトリが作成されること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve("a/b")), "上限を超えるディレクトリはコピーされないこと");
+
+    }
+
+    /**
+     * 除外したディレクトリを走査せず、選択されないファイルをコピーしないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyWithPathFilter() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("web/node_modules/lib"));
+        Files.writeString(this.sourceDir.resolve("web/node_modules/lib/index.js"), "module");
+        Files.writeString(this.sourceDir.resolve("web/app.js"), "app");
+        Files.writeString(this.sourceDir.resolve("web/work.tmp"), "work");
+        this.service.setPathFilter(
+                PathFilter.compile(List.of(), List.of("node_modules", "*.tmp"), System.currentTimeMillis()));
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals("app", Files.readString(this.targetDir.resolve("web/app.js")), "選択したファイルがコピーされること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve("web/node_modules")), "除外したディレクトリが作成されないこと");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve("web/work.tmp")), "除外したファイルがコピーされないこと");
+
+    }
+
+    /**
+     * 中断した処理の一時ファイルが次の処理で削除されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCleanUpTemporaryFilesAfterInterruption() throws IOException {
+
+        /* 準備 */
+        Files.writeString(this.sourceDir.resolve("file.txt"), "content");
+        final Path leftover = AtomicPublisher.temporaryPath(this.targetDir.resolve("subdir/removed.txt"));
+        Files.createDirectories(leftover.getParent());
+        Files.writeString(leftover, "partial");
+
+        // 中断した処理のジャーナルを残す
+        try (JobJournal journal = JobJournal.open(this.targetDir, this.sourceDir, OperationModeTypes.COPY.getValue(),
+                false, false)) {
+
+            journal.record("other.txt");
+
+        }
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertFalse(Files.exists(leftover), "残った一時ファイルが削除されること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve(JobJournal.FILE_NAME)),
+                "再開しない場合は前回のジャーナルが破棄されること");
+        Assertions.assertEquals("content", Files.readString(this.targetDir.resolve("file.txt")), "ファイルがコピーされること");
+
+    }
 }
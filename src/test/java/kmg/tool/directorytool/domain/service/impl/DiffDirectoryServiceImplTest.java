@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -19,7 +20,12 @@ import org.slf4j.LoggerFactory;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import kmg.tool.directorytool.domain.model.MerkleTree;
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
 import kmg.tool.directorytool.domain.service.DiffDirectoryService;
+import kmg.tool.directorytool.infrastructure.io.DiffReportWriter;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
 
 /**
  * 差分検出操作を実行するサービスのテストクラス。
@@ -411,4 +417,269 @@ public class DiffDirectoryServiceImplTest extends AbstractDirectoryServiceImplTe
         Assertions.assertTrue(actualException.getCause() instanceof IOException, "原因例外がIOExceptionであること");
 
     }
+
+    /**
+     * マークル木による要約を使用した差分検出のテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testMerkleDiffOperation() throws IOException {
+
+        /* 期待値の定義 */
+        final String expectedSourceOnlyMessage = "ソースのみに存在: source_only.txt";
+        final String expectedDifferentMessage  = "差異あり: different.txt";
+        final String expectedTargetOnlyMessage = "ターゲットのみに存在: target_only.txt";
+        final String unexpectedSameFileName    = "same.txt";
+
+        /* 準備 */
+        Files.writeString(this.sourceDir.resolve("source_only.txt"), "source content");
+        Files.writeString(this.sourceDir.resolve("different.txt"), "source content");
+        Files.writeString(this.targetDir.resolve("different.txt"), "target content");
+        Files.writeString(this.targetDir.resolve("target_only.txt"), "target content");
+        Files.writeString(this.sourceDir.resolve(unexpectedSameFileName), "same content");
+        Files.writeString(this.targetDir.resolve(unexpectedSameFileName), "same content");
+        this.service.setMerkleEnabled(true);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の準備 */
+        final List<String> logMessages = this.listAppender.list.stream().map(ILoggingEvent::getFormattedMessage)
+                .collect(Collectors.toList());
+
+        /* 検証の実施 */
+        Assertions.assertTrue(logMessages.contains(expectedSourceOnlyMessage), "ソースディレクトリにのみ存在するファイルが検出されること");
+        Assertions.assertTrue(logMessages.contains(expectedDifferentMessage), "内容が異なるファイルが検出されること");
+        Assertions.assertTrue(logMessages.contains(expectedTargetOnlyMessage), "ターゲットディレクトリにのみ存在するファイルが検出されること");
+        Assertions.assertFalse(logMessages.stream().anyMatch(msg -> msg.contains(unexpectedSameFileName)),
+                "同一内容のファイルは差分として報告されないこと");
+        Assertions.assertFalse(logMessages.stream().anyMatch(msg -> msg.contains(MerkleTree.FILE_NAME)),
+                "要約ファイルは差分として報告されないこと");
+        Assertions.assertFalse(Files.exists(this.sourceDir.resolve(MerkleTree.FILE_NAME)), "ソースに要約が書き込まれないこと");
+        Assertions.assertTrue(Files.exists(this.targetDir.resolve(MerkleTree.SOURCE_FILE_NAME)),
+                "ソースの要約がターゲットに保存されること");
+        Assertions.assertTrue(Files.exists(this.targetDir.resolve(MerkleTree.FILE_NAME)), "ターゲットの要約が保存されること");
+
+    }
+
+    /**
+     * 差分レポートをJSON Lines形式で出力するテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testJsonLinesReport() throws IOException {
+
+        /* 期待値の定義 */
+        final String expectedSourceOnly = "\"category\":\"source-only\",\"path\":\"source_only.txt\",\"type\":\"file\",\"sourceSize\":6";
+        final String expectedDifferent  = "\"category\":\"content-diff\",\"path\":\"different.txt\"";
+        final String expectedTargetOnly = "\"category\":\"target-only\",\"path\":\"target_only.txt\"";
+
+        /* 準備 */
+        final Path reportFile = this.tempDir.resolve("report.jsonl");
+        Files.writeString(this.sourceDir.resolve("source_only.txt"), "source");
+        Files.writeString(this.sourceDir.resolve("different.txt"), "source");
+        Files.writeString(this.targetDir.resolve("different.txt"), "target");
+        Files.writeString(this.targetDir.resolve("target_only.txt"), "target");
+        ((DiffDirectoryService) this.service).setReport(reportFile, ReportFormatTypes.JSONL);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の準備 */
+        final List<String> actualLines = Files.readAllLines(reportFile);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(3, actualLines.size(), "差分が3件出力されること");
+        Assertions.assertTrue(actualLines.stream().anyMatch(line -> line.contains(expectedSourceOnly)), "ソースのみの差分が出力されること");
+        Assertions.assertTrue(actualLines.stream().anyMatch(line -> line.contains(expectedDifferent)), "内容の差異が出力されること");
+        Assertions.assertTrue(actualLines.stream().anyMatch(line -> line.contains(expectedTargetOnly)), "ターゲットのみの差分が出力されること");
+        Assertions.assertFalse(this.listAppender.list.stream().anyMatch(event -> event.getFormattedMessage().contains("差異あり")),
+                "差分がログに出力されないこと");
+
+    }
+
+    /**
+     * 差分レポートをCSV形式で出力するテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testCsvReport() throws IOException {
+
+        /* 期待値の定義 */
+        final String expectedHeader = "category,path,type,source_size,source_mtime,target_size,target_mtime";
+        final String expectedPrefix = "type-mismatch,\"a,b\",directory,0,";
+
+        /* 準備 */
+        final Path reportFile = this.tempDir.resolve("report.csv");
+        Files.createDirectories(this.sourceDir.resolve("a,b"));
+        Files.writeString(this.targetDir.resolve("a,b"), "file");
+        ((DiffDirectoryService) this.service).setReport(reportFile, ReportFormatTypes.CSV);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の準備 */
+        final List<String> actualLines = Files.readAllLines(reportFile);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedHeader, actualLines.get(0), "ヘッダ行が出力されること");
+        Assertions.assertEquals(2, actualLines.size(), "差分が1件出力されること");
+        Assertions.assertTrue(actualLines.get(1).startsWith(expectedPrefix), "種別の不一致がCSVとして出力されること");
+
+    }
+
+    /**
+     * シャードごとの差分レポートを結合すると、分割しない場合と同じ差分になることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testShardedReportsMerge() throws IOException {
+
+        /* 準備 */
+        for (int i = 0; i < 20; i++) {
+
+            Files.createDirectories(this.sourceDir.resolve("dir" + i));
+            Files.writeString(this.sourceDir.resolve("dir" + i + "/file.txt"), "source" + i);
+            Files.writeString(this.sourceDir.resolve("file" + i + ".txt"), "source");
+
+        }
+        Files.writeString(this.targetDir.resolve("target_only.txt"), "target");
+
+        final Path                 fullReport  = this.tempDir.resolve("full.jsonl");
+        final List<Path>           parts       = new ArrayList<>();
+        final DiffDirectoryService diffService = (DiffDirectoryService) this.service;
+
+        diffService.setReport(fullReport, ReportFormatTypes.JSONL);
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* テスト対象の実行 */
+        for (int shard = 1; shard <= 3; shard++) {
+
+            final Path part = this.tempDir.resolve("shard" + shard + ".jsonl");
+            diffService.setReport(part, ReportFormatTypes.JSONL);
+            diffService.setTraversalScope(TraversalScope.parse(null, shard + "/3"));
+            this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+            parts.add(part);
+
+        }
+        final Path merged = this.tempDir.resolve("merged.jsonl");
+        DiffReportWriter.merge(parts, merged, ReportFormatTypes.JSONL);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(Set.copyOf(Files.readAllLines(fullReport)), Set.copyOf(Files.readAllLines(merged)),
+                "分割しない場合と同じ差分となること");
+        Assertions.assertEquals(Files.readAllLines(fullReport).size(), Files.readAllLines(merged).size(),
+                "差分が重複しないこと");
+
+    }
+
+    /**
+     * 深さの上限を超えるパスの差分を検出しないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testMaxDepth() throws IOException {
+
+        /* 準備 */
+        final Path reportFile = this.tempDir.resolve("report.jsonl");
+        Files.createDirectories(this.sourceDir.resolve("a/b"));
+        Files.createDirectories(this.targetDir.resolve("a"));
+        Files.writeString(this.sourceDir.resolve("a/b/deep.txt"), "deep");
+        Files.writeString(this.sourceDir.resolve("top.txt"), "top");
+        ((DiffDirectoryService) this.service).setReport(reportFile, ReportFormatTypes.JSONL);
+        this.service.setTraversalScope(TraversalScope.parse("2", null));
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        final List<String> actualLines = Files.readAllLines(reportFile);
+        Assertions.assertEquals(2, actualLines.size(), "上限以下の差分のみが出力されること");
+        Assertions.assertTrue(actualLines.stream().anyMatch(line -> line.contains("\"path\":\"a/b\"")),
+                "上限の深さのディレクトリは比較すること");
+        Assertions.assertTrue(actualLines.stream().noneMatch(line -> line.contains("deep.txt")), "上限を超えるファイルは比較しないこと");
+
+    }
+
+    /**
+     * 包含と除外のルールに一致しないファイルと、除外したディレクトリの配下の差分を検出しないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testPathFilter() throws IOException {
+
+        /* 準備 */
+        final Path reportFile = this.tempDir.resolve("report.jsonl");
+        Files.createDirectories(this.sourceDir.resolve("build"));
+        Files.createDirectories(this.targetDir.resolve("build"));
+        Files.writeString(this.sourceDir.resolve("x.java"), "source");
+        Files.writeString(this.sourceDir.resolve("y.txt"), "source");
+        Files.writeString(this.sourceDir.resolve("build/z.java"), "source");
+        Files.writeString(this.targetDir.resolve("w.java"), "target");
+        Files.writeString(this.targetDir.resolve("v.txt"), "target");
+        Files.writeString(this.targetDir.resolve("build/u.java"), "target");
+        ((DiffDirectoryService) this.service).setReport(reportFile, ReportFormatTypes.JSONL);
+        this.service.setPathFilter(PathFilter.compile(List.of("*.java"), List.of("build"), System.currentTimeMillis()));
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        final List<String> actualLines = Files.readAllLines(reportFile);
+        Assertions.assertEquals(2, actualLines.size(), "選択されたファイルの差分のみが出力されること");
+        Assertions.assertTrue(actualLines.stream().anyMatch(line -> line.contains("\"path\":\"x.java\"")),
+                "ソースのみに存在する選択されたファイルを検出すること");
+        Assertions.assertTrue(actualLines.stream().anyMatch(line -> line.contains("\"path\":\"w.java\"")),
+                "ターゲットのみに存在する選択されたファイルを検出すること");
+
+    }
+
+    /**
+     * マークル木による要約を使用した場合も、包含と除外のルールを差分に適用することのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testPathFilterWithMerkleTree() throws IOException {
+
+        /* 期待値の定義 */
+        final String expectedMessage = "ソースのみに存在: x.java";
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("build"));
+        Files.writeString(this.sourceDir.resolve("x.java"), "source");
+        Files.writeString(this.sourceDir.resolve("y.txt"), "source");
+        Files.writeString(this.sourceDir.resolve("build/z.java"), "source");
+        Files.writeString(this.targetDir.resolve("v.txt"), "target");
+        this.service.setMerkleEnabled(true);
+        this.service.setPathFilter(PathFilter.compile(List.of("*.java"), List.of("build"), System.currentTimeMillis()));
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の準備 */
+        final List<String> logMessages = this.listAppender.list.stream().map(ILoggingEvent::getFormattedMessage)
+                .collect(Collectors.toList());
+
+        /* 検証の実施 */
+        Assertions.assertTrue(logMessages.contains(expectedMessage), "選択されたファイルの差分を検出すること");
+        Assertions.assertFalse(logMessages.stream().anyMatch(msg -> msg.contains("y.txt") || msg.contains("v.txt")),
+                "包含のルールに一致しないファイルは報告されないこと");
+        Assertions.assertFalse(logMessages.stream().anyMatch(msg -> msg.contains("build")),
+                "除外したディレクトリは報告されないこと");
+
+    }
 }
@@ -0,0 +1,278 @@
+package kmg.tool.directorytool.domain.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.util.FileSize;
+
+/**
+ * 差分のログ出力方式によるDIFFの処理時間のベンチマーク。<br>
+ * <p>
+ * すべてのファイルが異なるディレクトリを作成し、差分のイベントログを以下の方式で出力した場合のDIFFの処理時間を計測する。
+ * </p>
+ * <ul>
+ * <li>sync: ファイルアペンダに同期的に出力し、1件ごとにフラッシュする（従来の設定）
+ * <li>async: logback-spring.xmlのイベントログと同じ設定（専用キューの非同期アペンダ、フラッシュなし）
+ * </ul>
+ * <p>
+ * asyncはDIFFの処理時間に加え、キューに残ったログをすべて書き終えるまでの時間も出力する。
+ * </p>
+ * <p>
+ * 実行例：
+ * </p>
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) kmg.tool.directorytool.domain.service.impl.DiffLoggingBenchmark 20000
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class DiffLoggingBenchmark {
+
+    /** デフォルトのファイル数 */
+    private static final int DEFAULT_FILE_COUNT = 20000;
+
+    /** 1ディレクトリあたりのファイル数 */
+    private static final int FILES_PER_DIRECTORY = 1000;
+
+    /** 計測前のウォームアップ回数 */
+    private static final int WARMUP_ITERATIONS = 1;
+
+    /** 計測回数 */
+    private static final int MEASURE_ITERATIONS = 3;
+
+    /** イベントロガーの名前 */
+    private static final String EVENT_LOGGER_NAME = DiffDirectoryServiceImpl.class.getName() + ".event";
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private DiffLoggingBenchmark() {
+
+        // 処理なし
+    }
+
+    /**
+     * ベンチマークを実行する。
+     *
+     * @param args
+     *             差分のあるファイル数。省略時は20000
+     * @throws Exception
+     *                   ベンチマーク中にエラーが発生した場合
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final int[] fileCounts = args.length == 0 ? new int[] {
+                DiffLoggingBenchmark.DEFAULT_FILE_COUNT
+        } : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        final Path tempDir = Files.createTempDirectory("logging-benchmark");
+
+        try {
+
+            System.out.printf("%10s %15s %15s %20s%n", "files", "sync(ms)", "async(ms)", "async+flush(ms)");
+
+            for (final int fileCount : fileCounts) {
+
+                final Path source = tempDir.resolve("source");
+                final Path target = tempDir.resolve("target");
+                DiffLoggingBenchmark.createTree(source, fileCount, "source");
+                DiffLoggingBenchmark.createTree(target, fileCount, "target");
+
+                final Path     logFile = tempDir.resolve("event.log");
+                final double   syncMs  = DiffLoggingBenchmark.measure(source, target, logFile, false)[0];
+                final double[] asyncMs = DiffLoggingBenchmark.measure(source, target, logFile, true);
+
+                System.out.printf("%10d %15.1f %15.1f %20.1f%n", fileCount, syncMs, asyncMs[0], asyncMs[1]);
+
+                DiffLoggingBenchmark.deleteTree(source);
+                DiffLoggingBenchmark.deleteTree(target);
+                Files.deleteIfExists(logFile);
+
+            }
+
+        } finally {
+
+            DiffLoggingBenchmark.deleteTree(tempDir);
+
+        }
+
+    }
+
+    /**
+     * 指定された方式でイベントログを出力し、DIFFの平均処理時間を計測する。
+     *
+     * @param source
+     *                ソースディレクトリ
+     * @param target
+     *                ターゲットディレクトリ
+     * @param logFile
+     *                イベントログの出力先
+     * @param async
+     *                非同期で出力する場合true
+     * @return DIFFの平均処理時間と、ログを書き終えるまでを含めた平均処理時間（ミリ秒）
+     * @throws IOException
+     *                     DIFF中にエラーが発生した場合
+     */
+    private static double[] measure(final Path source, final Path target, final Path logFile, final boolean async)
+            throws IOException {
+
+        for (int i = 0; i < DiffLoggingBenchmark.WARMUP_ITERATIONS; i++) {
+
+            DiffLoggingBenchmark.runDiff(source, target, logFile, async);
+
+        }
+
+        final double[] result = new double[2];
+
+        for (int i = 0; i < DiffLoggingBenchmark.MEASURE_ITERATIONS; i++) {
+
+            final double[] elapsed = DiffLoggingBenchmark.runDiff(source, target, logFile, async);
+            result[0] += elapsed[0] / DiffLoggingBenchmark.MEASURE_ITERATIONS;
+            result[1] += elapsed[1] / DiffLoggingBenchmark.MEASURE_ITERATIONS;
+
+        }
+        return result;
+
+    }
+
+    /**
+     * イベントロガーにアペンダを設定してDIFFを1回実行する。
+     *
+     * @param source
+     *                ソースディレクトリ
+     * @param target
+     *                ターゲットディレクトリ
+     * @param logFile
+     *                イベントログの出力先
+     * @param async
+     *                非同期で出力する場合true
+     * @return DIFFの処理時間と、ログを書き終えるまでを含めた処理時間（ミリ秒）
+     * @throws IOException
+     *                     DIFF中にエラーが発生した場合
+     */
+    private static double[] runDiff(final Path source, final Path target, final Path logFile, final boolean async)
+            throws IOException {
+
+        Files.deleteIfExists(logFile);
+
+        final LoggerContext context     = (LoggerContext) LoggerFactory.getILoggerFactory();
+        final Logger        eventLogger = context.getLogger(DiffLoggingBenchmark.EVENT_LOGGER_NAME);
+
+        final PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        final FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(logFile.toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.setImmediateFlush(!async);
+
+        Appender<ILoggingEvent> appender = fileAppender;
+
+        if (async) {
+
+            fileAppender.setBufferSize(FileSize.valueOf("256KB"));
+
+            final AsyncAppender asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(context);
+            asyncAppender.setQueueSize(65536);
+            asyncAppender.setDiscardingThreshold(0);
+            asyncAppender.setMaxFlushTime(10000);
+            asyncAppender.addAppender(fileAppender);
+            appender = asyncAppender;
+
+        }
+        fileAppender.start();
+        appender.start();
+
+        eventLogger.detachAndStopAllAppenders();
+        eventLogger.setAdditive(false);
+        eventLogger.addAppender(appender);
+
+        final long start = System.nanoTime();
+
+        new DiffDirectoryServiceImpl().processDirectory(source.toString(), target.toString());
+        final long finished = System.nanoTime();
+
+        // 非同期の場合はキューに残ったログの書き込みを待つ
+        eventLogger.detachAndStopAllAppenders();
+        fileAppender.stop();
+        final long flushed = System.nanoTime();
+
+        final double[] result = {
+                (finished - start) / 1_000_000.0, (flushed - start) / 1_000_000.0,
+        };
+        return result;
+
+    }
+
+    /**
+     * 指定された数のファイルを持つディレクトリを作成する。
+     *
+     * @param root
+     *                ルートディレクトリ
+     * @param count
+     *                ファイル数
+     * @param content
+     *                ファイルの内容
+     * @throws IOException
+     *                     ファイルの作成に失敗した場合
+     */
+    private static void createTree(final Path root, final int count, final String content) throws IOException {
+
+        for (int i = 0; i < count; i++) {
+
+            final Path directory = root.resolve(String.format("dir%04d", i / DiffLoggingBenchmark.FILES_PER_DIRECTORY));
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve(String.format("file%06d.txt", i)), content);
+
+        }
+
+    }
+
+    /**
+     * ディレクトリを再帰的に削除する。
+     *
+     * @param root
+     *             削除するディレクトリ
+     * @throws IOException
+     *                     削除に失敗した場合
+     */
+    private static void deleteTree(final Path root) throws IOException {
+
+        if (!Files.exists(root)) {
+
+            return;
+
+        }
+
+        try (Stream<Path> paths = Files.walk(root)) {
+
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+
+                Files.delete(path);
+
+            }
+
+        }
+
+    }
+}
@@ -1,6 +1,9 @@
 package kmg.tool.directorytool.domain.service.impl;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +14,13 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import kmg.tool.directorytool.domain.model.PathFilter;
 import kmg.tool.directorytool.domain.service.CopyDirectoryService;
 import kmg.tool.directorytool.domain.service.DiffDirectoryService;
 import kmg.tool.directorytool.domain.service.DirectoryService;
 import kmg.tool.directorytool.domain.service.MoveDirectoryService;
 import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
 
 /**
  * DirectoryServiceのファサードパターンの機能をテストするクラス。 <br>
@@ -227,4 +232,76 @@ public class DirectoryServiceImplTest {
         Mockito.verify(this.diffService).setThreadPoolSize(expectedThreadPoolSize);
 
     }
+
+    /**
+     * マークル木による要約の使用有無が各サービスに正しく反映されることを検証します。
+     */
+    @Test
+    public void testSetMerkleEnabled() {
+
+        /* テスト対象の実行 */
+        this.directoryService.setMerkleEnabled(true);
+
+        /* 検証の実施 */
+        Mockito.verify(this.copyService).setMerkleEnabled(true);
+        Mockito.verify(this.moveService).setMerkleEnabled(true);
+        Mockito.verify(this.diffService).setMerkleEnabled(true);
+
+    }
+
+    /**
+     * パスのフィルタが各サービスに正しく反映されることを検証します。
+     */
+    @Test
+    public void testSetPathFilter() {
+
+        /* 準備 */
+        final PathFilter pathFilter = PathFilter.compile(List.of("*.java"), List.of(), System.currentTimeMillis());
+
+        /* テスト対象の実行 */
+        this.directoryService.setPathFilter(pathFilter);
+
+        /* 検証の実施 */
+        Mockito.verify(this.copyService).setPathFilter(pathFilter);
+        Mockito.verify(this.moveService).setPathFilter(pathFilter);
+        Mockito.verify(this.diffService).setPathFilter(pathFilter);
+
+    }
+
+    /**
+     * 差分レポートの設定が差分比較サービスに委譲されることのテスト
+     */
+    @Test
+    public void testSetReport() {
+
+        /* 準備 */
+        final Path reportFile = Path.of("report.jsonl");
+
+        /* テスト対象の実行 */
+        this.directoryService.setReport(reportFile, ReportFormatTypes.JSONL);
+
+        /* 検証の実施 */
+        Mockito.verify(this.diffService).setReport(reportFile, ReportFormatTypes.JSONL);
+        Mockito.verifyNoInteractions(this.copyService, this.moveService);
+
+    }
+
+    /**
+     * 共有のエグゼキュータがすべての操作サービスに設定されることのテスト
+     */
+    @Test
+    public void testSetExecutor() {
+
+        /* 準備 */
+        final Executor executor = Runnable::run;
+
+        /* テスト対象の実行 */
+        this.directoryService.setExecutor(executor);
+
+        /* 検証の実施 */
+        Mockito.verify(this.copyService).setExecutor(executor);
+        Mockito.verify(this.moveService).setExecutor(executor);
+        Mockito.verify(this.diffService).setExecutor(executor);
+
+    }
 }
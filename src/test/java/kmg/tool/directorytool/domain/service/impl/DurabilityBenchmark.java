@@ -0,0 +1,201 @@
+package kmg.tool.directorytool.domain.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
+
+/**
+ * 永続性の種類によるCOPYのスループットのベンチマーク。<br>
+ * <p>
+ * 指定されたサイズのファイルを多数持つディレクトリを作成し、同期なし、ファイルごとの同期、一括の同期でCOPYを実行して、
+ * 1秒あたりのファイル数とMB/s、同期なしに対する比率を出力する。処理時間は、すべての同期が完了するまでを含む。
+ * </p>
+ * <p>
+ * 同期のコストはストレージ（書き込みキャッシュの有無、ジャーナルの方式）に大きく依存するため、対象のストレージ上のディレクトリを指定して実行する。
+ * </p>
+ * <p>
+ * 実行例：
+ * </p>
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) kmg.tool.directorytool.domain.service.impl.DurabilityBenchmark /data/tmp 2000 64
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class DurabilityBenchmark {
+
+    /** デフォルトのファイル数 */
+    private static final int DEFAULT_FILE_COUNT = 2000;
+
+    /** デフォルトのファイルサイズ（KB） */
+    private static final int DEFAULT_FILE_KB = 64;
+
+    /** 1ディレクトリあたりのファイル数 */
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    /** 計測回数 */
+    private static final int MEASURE_ITERATIONS = 3;
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private DurabilityBenchmark() {
+
+        // 処理なし
+    }
+
+    /**
+     * ベンチマークを実行する。
+     *
+     * @param args
+     *             第1引数: 計測に使用するディレクトリ（省略時は一時ディレクトリ）、第2引数: ファイル数（省略時は2000）、
+     *             第3引数: ファイルサイズ（KB。省略時は64）
+     * @throws Exception
+     *                   ベンチマーク中にエラーが発生した場合
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final Path baseDir   = args.length == 0 ? null : Path.of(args[0]);
+        final int  fileCount = args.length <= 1 ? DurabilityBenchmark.DEFAULT_FILE_COUNT : Integer.parseInt(args[1]);
+        final int  fileKb    = args.length <= 2 ? DurabilityBenchmark.DEFAULT_FILE_KB : Integer.parseInt(args[2]);
+
+        final Path tempDir = baseDir == null ? Files.createTempDirectory("durability-benchmark")
+                : Files.createTempDirectory(baseDir, "durability-benchmark");
+        final Path source  = tempDir.resolve("source");
+        final Path target  = tempDir.resolve("target");
+
+        try {
+
+            DurabilityBenchmark.createTree(source, fileCount, fileKb * 1024);
+
+            System.out.printf("%-10s %10s %12s %12s %10s%n", "level", "files", "files/s", "MB/s", "relative");
+
+            double baseline = 0;
+
+            for (final DurabilityTypes durability : new DurabilityTypes[] {
+                    DurabilityTypes.NO_SYNC, DurabilityTypes.FILE, DurabilityTypes.BATCH,
+            }) {
+
+                final double filesPerSecond = DurabilityBenchmark.measure(durability, source, target, fileCount);
+
+                if (durability == DurabilityTypes.NO_SYNC) {
+
+                    baseline = filesPerSecond;
+
+                }
+                System.out.printf("%-10s %10d %12.0f %12.1f %9.2fx%n", durability.getValue(), fileCount, filesPerSecond,
+                        (filesPerSecond * fileKb) / 1024, filesPerSecond / baseline);
+
+            }
+
+        } finally {
+
+            DurabilityBenchmark.deleteTree(tempDir);
+
+        }
+
+    }
+
+    /**
+     * 指定された永続性でCOPYを実行し、1秒あたりの平均ファイル数を計測する。
+     *
+     * @param durability
+     *                   永続性の種類
+     * @param source
+     *                   ソースディレクトリ
+     * @param target
+     *                   ターゲットディレクトリ。実行ごとに作り直す
+     * @param fileCount
+     *                   ファイル数
+     * @return 1秒あたりの平均ファイル数
+     * @throws IOException
+     *                     COPY中にエラーが発生した場合
+     */
+    private static double measure(final DurabilityTypes durability, final Path source, final Path target,
+            final int fileCount) throws IOException {
+
+        final CopyDirectoryServiceImpl service = new CopyDirectoryServiceImpl();
+        service.setDurability(durability);
+
+        double totalSeconds = 0;
+
+        for (int i = 0; i < DurabilityBenchmark.MEASURE_ITERATIONS; i++) {
+
+            DurabilityBenchmark.deleteTree(target);
+            Files.createDirectories(target);
+
+            final long start = System.nanoTime();
+            service.processDirectory(source.toString(), target.toString());
+            totalSeconds += (System.nanoTime() - start) / 1_000_000_000.0;
+
+        }
+
+        final double result = (fileCount * DurabilityBenchmark.MEASURE_ITERATIONS) / totalSeconds;
+        return result;
+
+    }
+
+    /**
+     * 指定された数とサイズのファイルを持つディレクトリを作成する。
+     *
+     * @param root
+     *              ルートディレクトリ
+     * @param count
+     *              ファイル数
+     * @param size
+     *              ファイルサイズ
+     * @throws IOException
+     *                     ファイルの作成に失敗した場合
+     */
+    private static void createTree(final Path root, final int count, final int size) throws IOException {
+
+        final SplittableRandom random  = new SplittableRandom(count);
+        final byte[]           content = new byte[size];
+
+        for (int i = 0; i < count; i++) {
+
+            final Path directory = root.resolve(String.format("dir%04d", i / DurabilityBenchmark.FILES_PER_DIRECTORY));
+            Files.createDirectories(directory);
+            random.nextBytes(content);
+            Files.write(directory.resolve(String.format("file%06d.bin", i)), content);
+
+        }
+
+    }
+
+    /**
+     * ディレクトリを再帰的に削除する。
+     *
+     * @param root
+     *             削除するディレクトリ
+     * @throws IOException
+     *                     削除に失敗した場合
+     */
+    private static void deleteTree(final Path root) throws IOException {
+
+        if (!Files.exists(root)) {
+
+            return;
+
+        }
+
+        try (Stream<Path> paths = Files.walk(root)) {
+
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+
+                Files.delete(path);
+
+            }
+
+        }
+
+    }
+}
@@ -3,6 +3,8 @@ package kmg.tool.directorytool.domain.service.impl;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -18,6 +20,13 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
+import kmg.tool.directorytool.infrastructure.io.AtomicPublisher;
+import kmg.tool.directorytool.infrastructure.io.JobJournal;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
+import kmg.tool.directorytool.infrastructure.types.RecoveryTypes;
+
 /**
  * 移動操作を実行するサービスのテストクラス。
  */
@@ -279,4 +288,228 @@ public class MoveDirectoryServiceImplTest extends AbstractDirectoryServiceImplTe
 
     }
 
+    /**
+     * ファイルごとに同期する移動のテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testMoveWithFileDurability() throws IOException {
+
+        /* 期待値の定義 */
+        final String expectedContent = "durable content";
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("subdir"));
+        Files.writeString(this.sourceDir.resolve("subdir/test.txt"), expectedContent);
+        this.service.setDurability(DurabilityTypes.FILE);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedContent, Files.readString(this.targetDir.resolve("subdir/test.txt")),
+                "ファイルが移動されること");
+        Assertions.assertFalse(Files.exists(this.sourceDir.resolve("subdir/test.txt")), "元のファイルが削除されていること");
+
+    }
+
+    /**
+     * トランザクションの移動のテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testTransactionalMove() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("subdir"));
+        Files.writeString(this.sourceDir.resolve("a.txt"), "a");
+        Files.writeString(this.sourceDir.resolve("subdir/b.txt"), "b");
+        ((MoveDirectoryServiceImpl) this.service).setTransactional(true);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals("a", Files.readString(this.targetDir.resolve("a.txt")), "ファイルが移動されること");
+        Assertions.assertEquals("b", Files.readString(this.targetDir.resolve("subdir/b.txt")), "ファイルが移動されること");
+        Assertions.assertFalse(Files.exists(this.sourceDir.resolve("subdir")), "確定後にソースが削除されること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve(JobJournal.FILE_NAME)), "完了後にジャーナルが削除されること");
+
+    }
+
+    /**
+     * 除外したファイルとディレクトリがソースに残ることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testMoveWithPathFilter() throws IOException {
+
+        /* 準備 */
+        Files.createDirectories(this.sourceDir.resolve("subdir/.git"));
+        Files.createDirectories(this.sourceDir.resolve("empty/.git"));
+        Files.writeString(this.sourceDir.resolve("subdir/.git/HEAD"), "head");
+        Files.writeString(this.sourceDir.resolve("subdir/a.txt"), "a");
+        Files.writeString(this.sourceDir.resolve("subdir/b.tmp"), "b");
+        this.service.setPathFilter(PathFilter.compile(List.of(), List.of(".git", "*.tmp"), System.currentTimeMillis()));
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        Assertions.assertEquals("a", Files.readString(this.targetDir.resolve("subdir/a.txt")), "選択したファイルが移動されること");
+        Assertions.assertFalse(Files.exists(this.sourceDir.resolve("subdir/a.txt")), "移動したファイルがソースから削除されること");
+        Assertions.assertTrue(Files.exists(this.sourceDir.resolve("subdir/.git/HEAD")), "除外したディレクトリがソースに残ること");
+        Assertions.assertTrue(Files.exists(this.sourceDir.resolve("subdir/b.tmp")), "除外したファイルがソースに残ること");
+        Assertions.assertTrue(Files.isDirectory(this.sourceDir.resolve("empty/.git")), "除外した空のディレクトリがソースに残ること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve("subdir/.git")), "除外したディレクトリが移動されないこと");
+
+    }
+
+    /**
+     * シャードで移動した場合、他のシャードのエントリがソースに残ることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testMoveWithShard() throws IOException {
+
+        /* 準備 */
+        for (int i = 0; i < 8; i++) {
+
+            Files.createDirectories(this.sourceDir.resolve("dir" + i + "/empty"));
+            Files.writeString(this.sourceDir.resolve("dir" + i + "/file.txt"), "content" + i);
+
+        }
+        final TraversalScope scope = TraversalScope.parse(null, "1/2");
+        this.service.setTraversalScope(scope);
+
+        /* テスト対象の実行 */
+        this.service.processDirectory(this.sourceDir.toString(), this.targetDir.toString());
+
+        /* 検証の実施 */
+        for (int i = 0; i < 8; i++) {
+
+            final Path    entry   = Path.of("dir" + i);
+            final boolean inShard = scope.contains(entry);
+            Assertions.assertEquals(inShard, Files.exists(this.targetDir.resolve(entry).resolve("file.txt")),
+                    "シャードのエントリのみが移動されること");
+            Assertions.assertEquals(!inShard, Files.isDirectory(this.sourceDir.resolve(entry).resolve("empty")),
+                    "他のシャードの空のディレクトリがソースに残ること");
+
+        }
+
+    }
+
+    /**
+     * 中断したトランザクションの移動を完了で復旧するテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testRecoverCommit() throws IOException {
+
+        /* 準備 */
+        final MoveDirectoryServiceImpl moveService = this.createInterruptedMove();
+
+        /* テスト対象の実行 */
+        moveService.recover(this.sourceDir.toString(), this.targetDir.toString(), RecoveryTypes.COMMIT);
+
+        /* 検証の実施 */
+        Assertions.assertEquals("staged", Files.readString(this.targetDir.resolve("staged.txt")), "ステージング済みのファイルが残ること");
+        Assertions.assertEquals("remaining", Files.readString(this.targetDir.resolve("remaining.txt")),
+                "残りのファイルが移動されること");
+        Assertions.assertFalse(Files.exists(this.sourceDir.resolve("staged.txt")), "ソースが削除されること");
+        Assertions.assertFalse(Files.exists(this.sourceDir.resolve("remaining.txt")), "ソースが削除されること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve(JobJournal.FILE_NAME)), "完了後にジャーナルが削除されること");
+        Assertions.assertFalse(Files.exists(AtomicPublisher.temporaryPath(this.targetDir.resolve("interrupted.txt"))),
+                "コピー中に中断した一時ファイルが削除されること");
+
+    }
+
+    /**
+     * 中断したトランザクションの移動を取り消しで復旧するテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testRecoverRollback() throws IOException {
+
+        /* 準備 */
+        final MoveDirectoryServiceImpl moveService = this.createInterruptedMove();
+
+        /* テスト対象の実行 */
+        moveService.recover(this.sourceDir.toString(), this.targetDir.toString(), RecoveryTypes.ROLLBACK);
+
+        /* 検証の実施 */
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve("staged.txt")), "ステージングしたファイルが削除されること");
+        Assertions.assertEquals("staged", Files.readString(this.sourceDir.resolve("staged.txt")), "ソースが残ること");
+        Assertions.assertEquals("remaining", Files.readString(this.sourceDir.resolve("remaining.txt")), "ソースが残ること");
+        Assertions.assertFalse(Files.exists(this.targetDir.resolve(JobJournal.FILE_NAME)), "取り消し後にジャーナルが削除されること");
+        Assertions.assertFalse(Files.exists(AtomicPublisher.temporaryPath(this.targetDir.resolve("interrupted.txt"))),
+                "コピー中に中断した一時ファイルが削除されること");
+
+    }
+
+    /**
+     * 確定を開始したトランザクションの移動は取り消せないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testRecoverRollbackAfterCommitStarted() throws IOException {
+
+        /* 準備 */
+        final MoveDirectoryServiceImpl moveService = this.createInterruptedMove();
+
+        try (JobJournal journal = JobJournal.openExisting(this.targetDir, this.sourceDir, moveService.getJobName(),
+                false)) {
+
+            journal.markCommitting();
+
+        }
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertThrows(IOException.class,
+                () -> moveService.recover(this.sourceDir.toString(), this.targetDir.toString(), RecoveryTypes.ROLLBACK),
+                "取り消せないこと");
+        Assertions.assertTrue(Files.exists(this.targetDir.resolve(JobJournal.FILE_NAME)), "ジャーナルが残ること");
+
+    }
+
+    /**
+     * staged.txtのみをステージングし、interrupted.txtのコピー中に中断したトランザクションの移動の状態を作成する。
+     *
+     * @return トランザクションの移動を設定したサービス
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    private MoveDirectoryServiceImpl createInterruptedMove() throws IOException {
+
+        Files.writeString(this.sourceDir.resolve("staged.txt"), "staged");
+        Files.writeString(this.sourceDir.resolve("remaining.txt"), "remaining");
+        Files.copy(this.sourceDir.resolve("staged.txt"), this.targetDir.resolve("staged.txt"),
+                StandardCopyOption.COPY_ATTRIBUTES);
+        Files.writeString(AtomicPublisher.temporaryPath(this.targetDir.resolve("interrupted.txt")), "partial");
+
+        final MoveDirectoryServiceImpl result = (MoveDirectoryServiceImpl) this.service;
+        result.setTransactional(true);
+
+        try (JobJournal journal = JobJournal.open(this.targetDir, this.sourceDir, result.getJobName(), false, false)) {
+
+            journal.record("staged.txt");
+
+        }
+        return result;
+
+    }
 }
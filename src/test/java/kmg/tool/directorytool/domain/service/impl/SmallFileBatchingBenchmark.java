@@ -0,0 +1,256 @@
+package kmg.tool.directorytool.domain.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import kmg.tool.directorytool.domain.service.AbstractDirectoryService;
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+
+/**
+ * 小さいファイルのバッチ処理によるCOPYのスループットのベンチマーク。<br>
+ * <p>
+ * 1KBのファイルを多数持つディレクトリを作成し、ファイルごとにタスクを作成する場合（batch=1）と、
+ * 同じディレクトリの小さいファイルをデフォルトの設定でまとめる場合の処理時間を計測し、1秒あたりのファイル数を出力する。
+ * </p>
+ * <ul>
+ * <li>copy: COPYを実行する。ファイルの作成と書き込みのコストを含む
+ * <li>dispatch: ファイルごとの処理を何もしないサービスで実行し、走査とタスクのスケジューリングのコストのみを計測する
+ * </ul>
+ * <p>
+ * 実行例：
+ * </p>
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) kmg.tool.directorytool.domain.service.impl.SmallFileBatchingBenchmark 20000
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class SmallFileBatchingBenchmark {
+
+    /** デフォルトのファイル数 */
+    private static final int DEFAULT_FILE_COUNT = 20000;
+
+    /** 1ディレクトリあたりのファイル数 */
+    private static final int FILES_PER_DIRECTORY = 200;
+
+    /** ファイルサイズ */
+    private static final int FILE_SIZE = 1024;
+
+    /** 計測前のウォームアップ回数 */
+    private static final int WARMUP_ITERATIONS = 1;
+
+    /** 計測回数 */
+    private static final int MEASURE_ITERATIONS = 3;
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private SmallFileBatchingBenchmark() {
+
+        // 処理なし
+    }
+
+    /**
+     * ベンチマークを実行する。
+     *
+     * @param args
+     *             ファイル数。省略時は20000
+     * @throws Exception
+     *                   ベンチマーク中にエラーが発生した場合
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final int[] fileCounts = args.length == 0 ? new int[] {
+                SmallFileBatchingBenchmark.DEFAULT_FILE_COUNT
+        } : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        final Path tempDir = Files.createTempDirectory("batching-benchmark");
+
+        try {
+
+            System.out.printf("%-10s %10s %18s %18s %10s%n", "mode", "files", "batch=1(files/s)", "batched(files/s)",
+                    "speedup");
+
+            for (final int fileCount : fileCounts) {
+
+                final Path source = tempDir.resolve("source");
+                final Path target = tempDir.resolve("target");
+                SmallFileBatchingBenchmark.createTree(source, fileCount);
+
+                SmallFileBatchingBenchmark.report("copy", CopyDirectoryServiceImpl::new, source, target, fileCount);
+                SmallFileBatchingBenchmark.report("dispatch", NoOperationService::new, source, target, fileCount);
+
+                SmallFileBatchingBenchmark.deleteTree(source);
+
+            }
+
+        } finally {
+
+            SmallFileBatchingBenchmark.deleteTree(tempDir);
+
+        }
+
+    }
+
+    /**
+     * ファイルごとにタスクを作成する場合と、まとめる場合のスループットを計測して出力する。
+     *
+     * @param mode
+     *                  表示するモードの名前
+     * @param factory
+     *                  計測するサービスの生成処理
+     * @param source
+     *                  ソースディレクトリ
+     * @param target
+     *                  ターゲットディレクトリ
+     * @param fileCount
+     *                  ファイル数
+     * @throws IOException
+     *                     処理中にエラーが発生した場合
+     */
+    private static void report(final String mode, final Supplier<AbstractDirectoryServiceImpl> factory,
+            final Path source, final Path target, final int fileCount) throws IOException {
+
+        final double unbatched = SmallFileBatchingBenchmark.measure(factory.get(), source, target, fileCount, 1);
+        final double batched   = SmallFileBatchingBenchmark.measure(factory.get(), source, target, fileCount,
+                AbstractDirectoryService.DEFAULT_SMALL_FILE_BATCH_COUNT);
+
+        System.out.printf("%-10s %10d %18.0f %18.0f %9.2fx%n", mode, fileCount, unbatched, batched,
+                batched / unbatched);
+
+    }
+
+    /**
+     * 指定されたバッチのファイル数でディレクトリの処理を実行し、1秒あたりの平均ファイル数を計測する。
+     *
+     * @param service
+     *                   計測するサービス
+     * @param source
+     *                   ソースディレクトリ
+     * @param target
+     *                   ターゲットディレクトリ。実行ごとに作り直す
+     * @param fileCount
+     *                   ファイル数
+     * @param batchCount
+     *                   1つのタスクにまとめるファイルの最大数
+     * @return 1秒あたりの平均ファイル数
+     * @throws IOException
+     *                     処理中にエラーが発生した場合
+     */
+    private static double measure(final AbstractDirectoryServiceImpl service, final Path source, final Path target,
+            final int fileCount, final int batchCount) throws IOException {
+
+        service.setSmallFileBatch(batchCount, AbstractDirectoryService.DEFAULT_SMALL_FILE_BATCH_SIZE);
+
+        double totalSeconds = 0;
+
+        for (int i = 0; i < (SmallFileBatchingBenchmark.WARMUP_ITERATIONS
+                + SmallFileBatchingBenchmark.MEASURE_ITERATIONS); i++) {
+
+            SmallFileBatchingBenchmark.deleteTree(target);
+            Files.createDirectories(target);
+
+            final long start = System.nanoTime();
+            service.processDirectory(source.toString(), target.toString());
+            final double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            if (i >= SmallFileBatchingBenchmark.WARMUP_ITERATIONS) {
+
+                totalSeconds += seconds;
+
+            }
+
+        }
+
+        final double result = (fileCount * SmallFileBatchingBenchmark.MEASURE_ITERATIONS) / totalSeconds;
+        return result;
+
+    }
+
+    /**
+     * 指定された数の小さいファイルを持つディレクトリを作成する。
+     *
+     * @param root
+     *              ルートディレクトリ
+     * @param count
+     *              ファイル数
+     * @throws IOException
+     *                     ファイルの作成に失敗した場合
+     */
+    private static void createTree(final Path root, final int count) throws IOException {
+
+        final byte[] content = new byte[SmallFileBatchingBenchmark.FILE_SIZE];
+
+        for (int i = 0; i < count; i++) {
+
+            final Path directory = root
+                    .resolve(String.format("dir%04d", i / SmallFileBatchingBenchmark.FILES_PER_DIRECTORY));
+            Files.createDirectories(directory);
+            Files.write(directory.resolve(String.format("file%06d.bin", i)), content);
+
+        }
+
+    }
+
+    /**
+     * ディレクトリを再帰的に削除する。
+     *
+     * @param root
+     *             削除するディレクトリ
+     * @throws IOException
+     *                     削除に失敗した場合
+     */
+    private static void deleteTree(final Path root) throws IOException {
+
+        if (!Files.exists(root)) {
+
+            return;
+
+        }
+
+        try (Stream<Path> paths = Files.walk(root)) {
+
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+
+                Files.delete(path);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * ファイルごとの処理を何もしないサービス。走査とタスクのスケジューリングのコストの計測に使用する。
+     */
+    private static final class NoOperationService extends AbstractDirectoryServiceImpl {
+
+        @Override
+        protected void processPath(final Path sourcePath, final Path targetPath, final Path relativePath) {
+
+            // 処理なし
+        }
+
+        @Override
+        protected void postProcess(final Path source, final Path destination) {
+
+            // 処理なし
+        }
+
+        @Override
+        protected OperationModeTypes getOperationMode() {
+
+            final OperationModeTypes result = OperationModeTypes.COPY;
+            return result;
+
+        }
+    }
+}
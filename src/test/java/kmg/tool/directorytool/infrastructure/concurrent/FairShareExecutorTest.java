@@ -0,0 +1,243 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * FairShareExecutorのテストクラス。
+ */
+public class FairShareExecutorTest {
+
+    /**
+     * 後から投入したジョブのタスクが、先に大量に投入されたジョブのタスクを待たずに実行されることのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に例外が発生した場合
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testLanesAreServedInTurn() throws Exception {
+
+        /* 期待値の定義 */
+        final List<String> expected = List.of("A0", "B0", "A1", "B1", "A2", "A3", "A4");
+
+        /* 準備 */
+        final List<String>   actual  = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch gate    = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+
+        /* テスト対象の実行 */
+        try (FairShareExecutor executor = new FairShareExecutor(1)) {
+
+            // ワーカーを止めている間に2つのジョブのタスクを投入する
+            executor.newLane().execute(() -> {
+
+                started.countDown();
+                FairShareExecutorTest.await(gate);
+
+            });
+            Assertions.assertTrue(started.await(10, TimeUnit.SECONDS), "ワーカーが開始すること");
+
+            final Executor laneA = executor.newLane();
+            final Executor laneB = executor.newLane();
+
+            for (int i = 0; i < 5; i++) {
+
+                final String name = "A" + i;
+                laneA.execute(() -> actual.add(name));
+
+            }
+
+            for (int i = 0; i < 2; i++) {
+
+                final String name = "B" + i;
+                laneB.execute(() -> actual.add(name));
+
+            }
+            gate.countDown();
+
+        }
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "レーンが交互に実行されること");
+
+    }
+
+    /**
+     * 同時に実行されるタスクの数がワーカー数を超えず、停止時に投入済みのタスクがすべて実行されることのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testConcurrencyIsBoundedAndCloseDrains() {
+
+        /* 期待値の定義 */
+        final int expectedWorkers = 2;
+        final int expectedTasks   = 200;
+
+        /* 準備 */
+        final AtomicInteger running    = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger completed  = new AtomicInteger();
+        final FairShareExecutor executor = new FairShareExecutor(expectedWorkers);
+
+        /* テスト対象の実行 */
+        for (int lane = 0; lane < 4; lane++) {
+
+            final Executor laneExecutor = executor.newLane();
+
+            for (int i = 0; i < (expectedTasks / 4); i++) {
+
+                laneExecutor.execute(() -> {
+
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.onSpinWait();
+                    running.decrementAndGet();
+                    completed.incrementAndGet();
+
+                });
+
+            }
+
+        }
+        executor.close();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedTasks, completed.get(), "すべてのタスクが実行されること");
+        Assertions.assertTrue(maxRunning.get() <= expectedWorkers, "同時実行数がワーカー数以下であること");
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.newLane().execute(() -> {
+            // 処理なし
+        }), "停止後のタスクは拒否されること");
+
+    }
+
+    /**
+     * ワーカー数を増やした場合に、追加したワーカーでもタスクが実行されることのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に例外が発生した場合
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testEnsureWorkerCount() throws Exception {
+
+        /* 期待値の定義 */
+        final int expectedWorkers = 3;
+
+        /* 準備 */
+        final CountDownLatch allRunning = new CountDownLatch(expectedWorkers);
+        final CountDownLatch gate       = new CountDownLatch(1);
+
+        try (FairShareExecutor executor = new FairShareExecutor(1)) {
+
+            /* テスト対象の実行 */
+            executor.ensureWorkerCount(expectedWorkers);
+            executor.ensureWorkerCount(2);
+
+            final Executor lane = executor.newLane();
+
+            for (int i = 0; i < expectedWorkers; i++) {
+
+                lane.execute(() -> {
+
+                    allRunning.countDown();
+                    FairShareExecutorTest.await(gate);
+
+                });
+
+            }
+
+            /* 検証の実施 */
+            Assertions.assertTrue(allRunning.await(10, TimeUnit.SECONDS), "追加したワーカーでタスクが同時に実行されること");
+            Assertions.assertEquals(expectedWorkers, executor.getWorkerCount(), "ワーカー数が減らないこと");
+            gate.countDown();
+
+        }
+
+    }
+
+    /**
+     * 上限に達したレーンがワーカーを占有せず、他のレーンのタスクが実行されることのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に例外が発生した場合
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testLimitedLaneDoesNotBlockOtherLanes() throws Exception {
+
+        /* 期待値の定義 */
+        final int expectedOtherTasks = 10;
+
+        /* 準備 */
+        final CountDownLatch   slowStarted = new CountDownLatch(1);
+        final CountDownLatch   gate        = new CountDownLatch(1);
+        final CountDownLatch   otherDone   = new CountDownLatch(expectedOtherTasks);
+        final AtomicInteger    slowRunning = new AtomicInteger();
+        final AtomicInteger    slowMax     = new AtomicInteger();
+        final ConcurrencyLimit limit       = new ConcurrencyLimit(1);
+
+        try (FairShareExecutor executor = new FairShareExecutor(2)) {
+
+            final Executor slowLane  = executor.newLane(limit);
+            final Executor otherLane = executor.newLane();
+
+            /* テスト対象の実行 */
+            for (int i = 0; i < 3; i++) {
+
+                slowLane.execute(() -> {
+
+                    slowMax.accumulateAndGet(slowRunning.incrementAndGet(), Math::max);
+                    slowStarted.countDown();
+                    FairShareExecutorTest.await(gate);
+                    slowRunning.decrementAndGet();
+
+                });
+
+            }
+            Assertions.assertTrue(slowStarted.await(10, TimeUnit.SECONDS), "上限のあるレーンのタスクが開始すること");
+
+            for (int i = 0; i < expectedOtherTasks; i++) {
+
+                otherLane.execute(otherDone::countDown);
+
+            }
+
+            /* 検証の実施 */
+            Assertions.assertTrue(otherDone.await(10, TimeUnit.SECONDS), "上限に達したレーンがあっても他のレーンのタスクが実行されること");
+            gate.countDown();
+
+        }
+
+        Assertions.assertEquals(1, slowMax.get(), "上限のあるレーンの同時実行数が上限以下であること");
+
+    }
+
+    /**
+     * ラッチが開くまで待機する。
+     *
+     * @param latch
+     *              ラッチ
+     */
+    private static void await(final CountDownLatch latch) {
+
+        try {
+
+            latch.await(10, TimeUnit.SECONDS);
+
+        } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        }
+
+    }
+}
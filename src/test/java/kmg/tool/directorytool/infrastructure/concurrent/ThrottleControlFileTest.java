@@ -0,0 +1,64 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ThrottleControlFileのテストクラス。
+ */
+public class ThrottleControlFileTest {
+
+    /**
+     * 制御ファイルの変更が読み込まれ、不正な値は無視されることのテスト
+     *
+     * @param tempDir
+     *                テスト用の一時ディレクトリ
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testReloadIfModified(@TempDir final Path tempDir) throws IOException {
+
+        /* 期待値の定義 */
+        final long expectedBandwidth = 2L * 1024 * 1024;
+        final long expectedIops      = 50;
+
+        /* 準備 */
+        final Path              controlFile = tempDir.resolve("throttle.properties");
+        final ThroughputLimiter limiter     = new ThroughputLimiter("0", 0);
+        Files.writeString(controlFile, "bandwidth=2MB\niops=50\n");
+
+        try (ThrottleControlFile watcher = new ThrottleControlFile(controlFile, limiter)) {
+
+            /* 検証の実施 */
+            Assertions.assertEquals(expectedBandwidth, limiter.getBandwidth(), "開始時に帯域が読み込まれること");
+            Assertions.assertEquals(expectedIops, limiter.getOperationsPerSecond(), "開始時にファイル操作数が読み込まれること");
+
+            /* テスト対象の実行 */
+            Files.writeString(controlFile, "bandwidth=fast\n");
+            Files.setLastModifiedTime(controlFile, FileTime.fromMillis(1000));
+            watcher.reloadIfModified();
+
+            /* 検証の実施 */
+            Assertions.assertEquals(expectedBandwidth, limiter.getBandwidth(), "不正な値の場合は上限を維持すること");
+
+            /* テスト対象の実行 */
+            Files.writeString(controlFile, "iops=0\n");
+            Files.setLastModifiedTime(controlFile, FileTime.fromMillis(2000));
+            watcher.reloadIfModified();
+
+            /* 検証の実施 */
+            Assertions.assertEquals(expectedBandwidth, limiter.getBandwidth(), "記述のない上限は変更しないこと");
+            Assertions.assertEquals(0, limiter.getOperationsPerSecond(), "ファイル操作数の制限が解除されること");
+
+        }
+
+    }
+}
@@ -0,0 +1,101 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TokenBucketのテストクラス。
+ */
+public class TokenBucketTest {
+
+    /**
+     * 蓄積分を超えて取得した場合に、不足分が補充されるまで待機することのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に例外が発生した場合
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testAcquireWaitsForRefill() throws Exception {
+
+        /* 期待値の定義 */
+        final long expectedMinNanos = TimeUnit.MILLISECONDS.toNanos(400);
+
+        /* 準備 */
+        final TokenBucket bucket = new TokenBucket(1000);
+
+        /* テスト対象の実行 */
+        final long start = System.nanoTime();
+        bucket.acquire(1000);
+        bucket.acquire(500);
+        final long actualNanos = System.nanoTime() - start;
+
+        /* 検証の実施 */
+        Assertions.assertTrue(actualNanos >= expectedMinNanos, "蓄積分を超えた量が補充されるまで待機すること");
+
+    }
+
+    /**
+     * 前借りした分が後続の呼び出しの待機時間に反映されることのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testReserveAccumulatesDebt() {
+
+        /* 準備 */
+        final TokenBucket bucket = new TokenBucket(100);
+        bucket.reserve(100);
+
+        /* テスト対象の実行 */
+        final long first  = bucket.reserve(50);
+        final long second = bucket.reserve(50);
+
+        /* 検証の実施 */
+        Assertions.assertTrue(first > 0, "蓄積分を使い切った後は待機が必要となること");
+        Assertions.assertTrue(second > first, "前借りが重なるほど待機時間が長くなること");
+
+    }
+
+    /**
+     * レートが0の場合は制限しないことのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testUnlimited() {
+
+        /* 準備 */
+        final TokenBucket bucket = new TokenBucket(0);
+
+        /* テスト対象の実行 */
+        final long actual = bucket.reserve(Long.MAX_VALUE / 2);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(0, actual, "待機しないこと");
+
+    }
+
+    /**
+     * 実行中にレートを変更できることのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testSetRate() {
+
+        /* 準備 */
+        final TokenBucket bucket = new TokenBucket(0);
+
+        /* テスト対象の実行 */
+        bucket.setRate(10);
+        final long limited = bucket.reserve(20);
+        bucket.setRate(0);
+        final long unlimited = bucket.reserve(20);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(0, bucket.getRate(), "制限を解除したレートは0となること");
+        Assertions.assertTrue(limited > 0, "制限なしから変更した直後は蓄積がないため待機が必要となること");
+        Assertions.assertEquals(0, unlimited, "制限を解除した後は待機しないこと");
+
+    }
+}
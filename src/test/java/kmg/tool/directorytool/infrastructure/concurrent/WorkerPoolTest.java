@@ -0,0 +1,218 @@
+package kmg.tool.directorytool.infrastructure.concurrent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+
+/**
+ * WorkerPoolのテストクラス。
+ */
+public class WorkerPoolTest {
+
+    /**
+     * 操作モードごとの上限が、同じ操作モードの複数の処理の合計に適用されることのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testOperationLimitIsSharedAcrossCalls() {
+
+        /* 期待値の定義 */
+        final int expectedLimit = 2;
+        final int expectedTasks = 100;
+
+        /* 準備 */
+        final AtomicInteger running    = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger completed  = new AtomicInteger();
+        final WorkerPool    workerPool = new WorkerPool(4, expectedLimit, 0, 0, 0, 0);
+
+        /* テスト対象の実行 */
+        final Executor first  = workerPool.newExecutor(OperationModeTypes.COPY, 4, null);
+        final Executor second = workerPool.newExecutor(OperationModeTypes.COPY, 4, null);
+
+        for (int i = 0; i < (expectedTasks / 2); i++) {
+
+            for (final Executor executor : new Executor[] {
+                    first, second
+            }) {
+
+                executor.execute(() -> {
+
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    WorkerPoolTest.sleep();
+                    running.decrementAndGet();
+                    completed.incrementAndGet();
+
+                });
+
+            }
+
+        }
+        workerPool.close();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedTasks, completed.get(), "すべてのタスクが実行されること");
+        Assertions.assertTrue(maxRunning.get() <= expectedLimit, "同時実行数が操作モードの上限以下であること");
+
+    }
+
+    /**
+     * 処理ごとの上限に応じてワーカーを追加し、上限まで同時に実行することのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に例外が発生した場合
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testCallConcurrencyAddsWorkers() throws Exception {
+
+        /* 期待値の定義 */
+        final int expectedConcurrency = 3;
+
+        /* 準備 */
+        final CountDownLatch allRunning = new CountDownLatch(expectedConcurrency);
+        final CountDownLatch gate       = new CountDownLatch(1);
+
+        try (WorkerPool workerPool = new WorkerPool(1, 0, 0, 0, 0, 0)) {
+
+            /* テスト対象の実行 */
+            final Executor executor = workerPool.newExecutor(OperationModeTypes.DIFF, expectedConcurrency, null);
+
+            for (int i = 0; i < expectedConcurrency; i++) {
+
+                executor.execute(() -> {
+
+                    allRunning.countDown();
+                    WorkerPoolTest.await(gate);
+
+                });
+
+            }
+
+            /* 検証の実施 */
+            Assertions.assertTrue(allRunning.await(10, TimeUnit.SECONDS), "処理ごとの上限まで同時に実行されること");
+            Assertions.assertEquals(expectedConcurrency, workerPool.getWorkerCount(), "不足分のワーカーが追加されること");
+            gate.countDown();
+
+        }
+
+    }
+
+    /**
+     * ファイルストアごとの上限が、処理ごとの上限より小さい場合にも適用され、同じファイルストアのタスクが1つのキューにまとめられることのテスト
+     *
+     * @param tempDir
+     *                テスト用の一時ディレクトリ
+     * @throws IOException
+     *                     ファイル操作に失敗した場合
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testStoreLimit(@TempDir final Path tempDir) throws IOException {
+
+        /* 期待値の定義 */
+        final int expectedLimit = 1;
+        final int expectedTasks = 20;
+
+        /* 準備 */
+        final AtomicInteger running    = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger completed  = new AtomicInteger();
+        final Path          subDir     = Files.createDirectories(tempDir.resolve("sub"));
+        final WorkerPool    workerPool = new WorkerPool(4, 0, 0, 0, expectedLimit, expectedLimit);
+
+        /* テスト対象の実行 */
+        final FileStoreExecutor executor = workerPool.newExecutor(OperationModeTypes.COPY, 4, null);
+
+        for (int i = 0; i < expectedTasks; i++) {
+
+            executor.execute((i % 2) == 0 ? tempDir.resolve("file" + i) : subDir.resolve("file" + i), () -> {
+
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                WorkerPoolTest.sleep();
+                running.decrementAndGet();
+                completed.incrementAndGet();
+
+            });
+
+        }
+        workerPool.close();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedTasks, completed.get(), "すべてのタスクが実行されること");
+        Assertions.assertTrue(maxRunning.get() <= expectedLimit, "同時実行数がファイルストアの上限以下であること");
+        Assertions.assertEquals(1, executor.getLaneCount(), "同じファイルストアのタスクは1つのキューにまとめられること");
+
+    }
+
+    /**
+     * 停止後は新しい処理を受け付けないことのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testCloseRejectsNewWork() {
+
+        /* 準備 */
+        final WorkerPool workerPool = new WorkerPool(1, 0, 0, 0, 0, 0);
+        final Executor   executor   = workerPool.newExecutor(OperationModeTypes.MOVE, 1, null);
+
+        /* テスト対象の実行 */
+        workerPool.close();
+
+        /* 検証の実施 */
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+            // 処理なし
+        }), "停止後のタスクは拒否されること");
+        Assertions.assertThrows(RejectedExecutionException.class,
+                () -> workerPool.newExecutor(OperationModeTypes.MOVE, 1, null), "停止後の処理は拒否されること");
+
+    }
+
+    /**
+     * 少しの間待機する。
+     */
+    private static void sleep() {
+
+        try {
+
+            Thread.sleep(1);
+
+        } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        }
+
+    }
+
+    /**
+     * ラッチが開くまで待機する。
+     *
+     * @param latch
+     *              ラッチ
+     */
+    private static void await(final CountDownLatch latch) {
+
+        try {
+
+            latch.await(10, TimeUnit.SECONDS);
+
+        } catch (@SuppressWarnings("unused") final InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        }
+
+    }
+}
@@ -0,0 +1,96 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * AtomicPublisherのテストクラス。
+ */
+public class AtomicPublisherTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * 一時ファイルがコピー先と同じディレクトリの隠しファイルとなることのテスト
+     */
+    @Test
+    public void testTemporaryPath() {
+
+        /* 準備 */
+        final Path target     = this.tempDir.resolve("dir/file.txt");
+        final Path longTarget = this.tempDir.resolve("x".repeat(250));
+
+        /* テスト対象の実行 */
+        final Path actual     = AtomicPublisher.temporaryPath(target);
+        final Path actualLong = AtomicPublisher.temporaryPath(longTarget);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(target.getParent(), actual.getParent(), "同じディレクトリとなること");
+        Assertions.assertTrue(actual.getFileName().toString().startsWith("."), "隠しファイルとなること");
+        Assertions.assertTrue(AtomicPublisher.isTemporaryFile(actual), "一時ファイルと判定されること");
+        Assertions.assertFalse(AtomicPublisher.isTemporaryFile(target), "コピー先は一時ファイルと判定されないこと");
+        Assertions.assertTrue(actualLong.getFileName().toString().length() < 255, "長いファイル名でも上限を超えないこと");
+        Assertions.assertEquals(actualLong, AtomicPublisher.temporaryPath(longTarget), "同じコピー先から同じ名前となること");
+
+    }
+
+    /**
+     * 一時ファイルの名前の変更で既存のファイルを置き換えることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testPublish() throws IOException {
+
+        /* 期待値の定義 */
+        final String expected = "new content";
+
+        /* 準備 */
+        final Path target    = this.tempDir.resolve("file.txt");
+        final Path temporary = AtomicPublisher.temporaryPath(target);
+        Files.writeString(target, "old content");
+        Files.writeString(temporary, expected);
+
+        /* テスト対象の実行 */
+        AtomicPublisher.publish(temporary, target);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, Files.readString(target), "新しい内容に置き換えられること");
+        Assertions.assertFalse(Files.exists(temporary), "一時ファイルが残らないこと");
+
+    }
+
+    /**
+     * 残った一時ファイルのみを削除することのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCleanUp() throws IOException {
+
+        /* 準備 */
+        final Path file = this.tempDir.resolve("sub/file.txt");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "content");
+        Files.writeString(AtomicPublisher.temporaryPath(file), "partial");
+        Files.writeString(AtomicPublisher.temporaryPath(this.tempDir.resolve("other.txt")), "partial");
+
+        /* テスト対象の実行 */
+        final int actual = AtomicPublisher.cleanUp(this.tempDir);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(2, actual, "一時ファイルが削除されること");
+        Assertions.assertFalse(Files.exists(AtomicPublisher.temporaryPath(file)), "一時ファイルが残らないこと");
+        Assertions.assertEquals("content", Files.readString(file), "通常のファイルは削除されないこと");
+
+    }
+}
@@ -0,0 +1,184 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * コピーエンジンのブロックサイズとファイルサイズの組み合わせによるスループットのベンチマーク。<br>
+ * <p>
+ * ファイルサイズごとにソースファイルを作成し、{@link FilesCopyEngine}と、各ブロックサイズの{@link BufferedFileCopyEngine}で
+ * 同じディレクトリにコピーした場合のスループット（MB/s）を表形式で出力する。<br>
+ * ソースは作成直後のためページキャッシュに載った状態での計測となる。ストレージの種類ごとに調整する場合は、
+ * 第1引数に対象のストレージ上のディレクトリを指定し、コールドキャッシュで計測する場合は各計測の前にキャッシュを破棄すること。
+ * </p>
+ * <p>
+ * 実行例：
+ * </p>
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes kmg.tool.directorytool.infrastructure.io.BufferedFileCopyEngineBenchmark /mnt/nfs/tmp 1 16 256
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class BufferedFileCopyEngineBenchmark {
+
+    /** デフォルトのファイルサイズ（MB） */
+    private static final long[] DEFAULT_SIZES_MB = {
+            1, 16, 256,
+    };
+
+    /** 計測するブロックサイズ（KB） */
+    private static final int[] BLOCK_SIZES_KB = {
+            64, 256, 1024, 4096, 16384,
+    };
+
+    /** 計測前のウォームアップ回数 */
+    private static final int WARMUP_ITERATIONS = 2;
+
+    /** 1回の計測でコピーする最小のデータ量（MB）。小さいファイルはこの量に達するまで繰り返しコピーする */
+    private static final long MIN_MEASURE_MB = 512;
+
+    /** 1MBのバイト数 */
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private BufferedFileCopyEngineBenchmark() {
+
+        // 処理なし
+    }
+
+    /**
+     * ベンチマークを実行する。
+     *
+     * @param args
+     *             第1引数: 計測に使用するディレクトリ（省略時は一時ディレクトリ）、第2引数以降: ファイルサイズ（MB。省略時は1, 16, 256）
+     * @throws Exception
+     *                   ベンチマーク中にエラーが発生した場合
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final Path   baseDir = args.length == 0 ? null : Path.of(args[0]);
+        final long[] sizesMb = args.length <= 1 ? BufferedFileCopyEngineBenchmark.DEFAULT_SIZES_MB
+                : Arrays.stream(args, 1, args.length).mapToLong(Long::parseLong).toArray();
+
+        final Path tempDir = baseDir == null ? Files.createTempDirectory("copy-benchmark")
+                : Files.createTempDirectory(baseDir, "copy-benchmark");
+
+        try {
+
+            System.out.printf("%10s %12s", "size(MB)", "files(MB/s)");
+
+            for (final int blockKb : BufferedFileCopyEngineBenchmark.BLOCK_SIZES_KB) {
+
+                System.out.printf(" %14s", String.format("%dKB(MB/s)", blockKb));
+
+            }
+            System.out.println();
+
+            for (final long sizeMb : sizesMb) {
+
+                final Path source = tempDir.resolve("source.bin");
+                final Path target = tempDir.resolve("target.bin");
+                BufferedFileCopyEngineBenchmark.writeRandomFile(source, sizeMb * BufferedFileCopyEngineBenchmark.MB);
+
+                System.out.printf("%10d %12.1f", sizeMb,
+                        BufferedFileCopyEngineBenchmark.measure(new FilesCopyEngine(), source, target, sizeMb));
+
+                for (final int blockKb : BufferedFileCopyEngineBenchmark.BLOCK_SIZES_KB) {
+
+                    final FileCopyEngine engine = new BufferedFileCopyEngine(blockKb * 1024);
+                    System.out.printf(" %14.1f",
+                            BufferedFileCopyEngineBenchmark.measure(engine, source, target, sizeMb));
+
+                }
+                System.out.println();
+
+                Files.delete(source);
+                Files.deleteIfExists(target);
+
+            }
+
+        } finally {
+
+            Files.deleteIfExists(tempDir);
+
+        }
+
+    }
+
+    /**
+     * コピーのスループットを計測する。
+     *
+     * @param engine
+     *               コピーエンジン
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル
+     * @param sizeMb
+     *               ファイルサイズ（MB）
+     * @return スループット（MB/s）
+     * @throws IOException
+     *                     コピー中にエラーが発生した場合
+     */
+    private static double measure(final FileCopyEngine engine, final Path source, final Path target,
+            final long sizeMb) throws IOException {
+
+        for (int i = 0; i < BufferedFileCopyEngineBenchmark.WARMUP_ITERATIONS; i++) {
+
+            engine.copy(source, target, null);
+
+        }
+
+        final long iterations = Math.max(1, BufferedFileCopyEngineBenchmark.MIN_MEASURE_MB / Math.max(1, sizeMb));
+        final long start      = System.nanoTime();
+
+        for (long i = 0; i < iterations; i++) {
+
+            engine.copy(source, target, null);
+
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        final double result  = (sizeMb * iterations) / seconds;
+        return result;
+
+    }
+
+    /**
+     * 乱数で埋めたファイルを作成する。
+     *
+     * @param file
+     *             作成するファイル
+     * @param size
+     *             ファイルサイズ
+     * @throws IOException
+     *                     ファイルの書き込みに失敗した場合
+     */
+    private static void writeRandomFile(final Path file, final long size) throws IOException {
+
+        final SplittableRandom random = new SplittableRandom(size);
+        final byte[]           block  = new byte[(int) BufferedFileCopyEngineBenchmark.MB];
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+
+            for (long written = 0; written < size; written += block.length) {
+
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+
+            }
+
+        }
+
+    }
+}
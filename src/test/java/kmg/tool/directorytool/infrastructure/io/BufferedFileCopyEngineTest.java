@@ -0,0 +1,118 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * BufferedFileCopyEngineのテストクラス。
+ */
+public class BufferedFileCopyEngineTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * ブロックサイズの境界をまたぐファイルが正しくコピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyAcrossBlocks() throws IOException {
+
+        /* 期待値の定義 */
+        final byte[] expected = new byte[(BufferedFileCopyEngine.MIN_BLOCK_SIZE * 3) + 123];
+        new Random(1).nextBytes(expected);
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source.bin");
+        final Path target = this.tempDir.resolve("target.bin");
+        Files.write(source, expected);
+
+        final BufferedFileCopyEngine engine = new BufferedFileCopyEngine(BufferedFileCopyEngine.MIN_BLOCK_SIZE);
+
+        /* テスト対象の実行 */
+        engine.copy(source, target, null);
+
+        /* 検証の実施 */
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(target), "内容が一致すること");
+
+    }
+
+    /**
+     * 既存のファイルが上書きされ、元のファイルより短い内容でも末尾が残らないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyOverwritesLongerFile() throws IOException {
+
+        /* 期待値の定義 */
+        final String expected = "short";
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source.txt");
+        final Path target = this.tempDir.resolve("target.txt");
+        Files.writeString(source, expected);
+        Files.writeString(target, "a much longer existing content");
+
+        final BufferedFileCopyEngine engine = new BufferedFileCopyEngine(BufferedFileCopyEngine.DEFAULT_BLOCK_SIZE);
+
+        /* テスト対象の実行 */
+        engine.copy(source, target, new ThroughputLimiter("1MB", 0));
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, Files.readString(target), "既存のファイルが上書きされること");
+
+    }
+
+    /**
+     * 空のファイルがコピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyEmptyFile() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("empty.txt");
+        final Path target = this.tempDir.resolve("copied.txt");
+        Files.createFile(source);
+
+        final BufferedFileCopyEngine engine = new BufferedFileCopyEngine(BufferedFileCopyEngine.MAX_BLOCK_SIZE);
+
+        /* テスト対象の実行 */
+        engine.copy(source, target, null);
+
+        /* 検証の実施 */
+        Assertions.assertTrue(Files.exists(target), "ファイルが作成されること");
+        Assertions.assertEquals(0, Files.size(target), "空のファイルであること");
+
+    }
+
+    /**
+     * 範囲外のブロックサイズが拒否されることのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testInvalidBlockSize() {
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BufferedFileCopyEngine(BufferedFileCopyEngine.MIN_BLOCK_SIZE - 1), "下限未満は拒否されること");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BufferedFileCopyEngine(BufferedFileCopyEngine.MAX_BLOCK_SIZE + 1), "上限超過は拒否されること");
+
+    }
+}
@@ -0,0 +1,78 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * CloneFileCopyEngineのテストクラス。
+ */
+public class CloneFileCopyEngineTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * クローンまたはデータのコピーで内容が一致し、いずれかとして数えられることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyCountsClonedOrCopied() throws IOException {
+
+        /* 期待値の定義 */
+        final byte[] expected = new byte[(2 * 1024 * 1024) + 123];
+        new Random(41).nextBytes(expected);
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source.bin");
+        final Path empty  = this.tempDir.resolve("empty.bin");
+        Files.write(source, expected);
+        Files.createFile(empty);
+
+        final CloneFileCopyEngine engine = new CloneFileCopyEngine();
+
+        /* テスト対象の実行 */
+        engine.copy(source, this.tempDir.resolve("target.bin"), null);
+        engine.copy(empty, this.tempDir.resolve("empty-target.bin"), null);
+
+        /* 検証の実施 */
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(this.tempDir.resolve("target.bin")), "内容が一致すること");
+        Assertions.assertEquals(0, Files.size(this.tempDir.resolve("empty-target.bin")), "空のファイルがコピーされること");
+        Assertions.assertEquals(2, engine.getClonedCount() + engine.getCopiedCount(), "すべてのファイルが数えられること");
+
+    }
+
+    /**
+     * 既存のファイルが上書きされ、元のファイルより短い内容でも末尾が残らないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyOverwritesLongerFile() throws IOException {
+
+        /* 期待値の定義 */
+        final String expected = "short";
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source.txt");
+        final Path target = this.tempDir.resolve("target.txt");
+        Files.writeString(source, expected);
+        Files.writeString(target, "much longer existing content");
+
+        /* テスト対象の実行 */
+        new CloneFileCopyEngine().copy(source, target, null);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, Files.readString(target), "内容が置き換えられること");
+
+    }
+}
@@ -0,0 +1,261 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.domain.model.DiffEntry;
+import kmg.tool.directorytool.infrastructure.types.DiffCategoryTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
+
+/**
+ * DiffReportWriterのテストクラス。
+ */
+public class DiffReportWriterTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * JSON Lines形式で特殊文字がエスケープされて出力されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testJsonLines() throws IOException {
+
+        /* 期待値の定義 */
+        final String expected = "{\"category\":\"content-diff\",\"path\":\"dir/\\\"quoted\\\".txt\",\"type\":\"file\","
+                + "\"sourceSize\":10,\"sourceMtime\":\"1970-01-01T00:00:00Z\",\"targetSize\":null,\"targetMtime\":null}";
+
+        /* 準備 */
+        final Path file = this.tempDir.resolve("report.jsonl");
+
+        /* テスト対象の実行 */
+        try (DiffReportWriter writer = new DiffReportWriter(file, ReportFormatTypes.JSONL)) {
+
+            writer.write(new DiffEntry(DiffCategoryTypes.CONTENT_DIFF, "dir/\"quoted\".txt", false, 10L, 0L, null,
+                    null));
+
+        }
+
+        /* 検証の実施 */
+        Assertions.assertEquals(List.of(expected), Files.readAllLines(file), "JSONオブジェクトが1行で出力されること");
+
+    }
+
+    /**
+     * CSV形式でヘッダと引用符付きのフィールドが出力されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testCsv() throws IOException {
+
+        /* 期待値の定義 */
+        final List<String> expected = List.of("category,path,type,source_size,source_mtime,target_size,target_mtime",
+                "target-only,\"a,\"\"b\"\"\",directory,,,0,1970-01-01T00:00:01Z");
+
+        /* 準備 */
+        final Path file = this.tempDir.resolve("report.csv");
+
+        /* テスト対象の実行 */
+        try (DiffReportWriter writer = new DiffReportWriter(file, ReportFormatTypes.CSV)) {
+
+            writer.write(new DiffEntry(DiffCategoryTypes.TARGET_ONLY, "a,\"b\"", true, null, null, 0L, 1000L));
+
+        }
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, Files.readAllLines(file), "ヘッダと差分の行が出力されること");
+
+    }
+
+    /**
+     * 複数のスレッドから投入した差分がすべて出力されることのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に例外が発生した場合
+     */
+    @Test
+    public void testConcurrentWrites() throws Exception {
+
+        /* 期待値の定義 */
+        final int expected = 4000;
+
+        /* 準備 */
+        final Path file = this.tempDir.resolve("report.jsonl");
+        long       actualCount;
+
+        /* テスト対象の実行 */
+        try (DiffReportWriter writer = new DiffReportWriter(file, ReportFormatTypes.JSONL)) {
+
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            for (int t = 0; t < 4; t++) {
+
+                final int thread = t;
+                executor.execute(() -> {
+
+                    for (int i = 0; i < (expected / 4); i++) {
+
+                        writer.write(new DiffEntry(DiffCategoryTypes.SOURCE_ONLY, thread + "/" + i, false, 1L, 0L,
+                                null, null));
+
+                    }
+
+                });
+
+            }
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "投入が完了すること");
+            actualCount = writer.getCount();
+
+        }
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actualCount, "受け付けた件数が正しいこと");
+        Assertions.assertEquals(expected, Files.readAllLines(file).size(), "すべての差分が出力されること");
+
+    }
+
+    /**
+     * シャードごとのCSVの差分レポートが、ヘッダ行を1行にして結合されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testMergeCsv() throws IOException {
+
+        /* 準備 */
+        final Path first  = this.tempDir.resolve("shard1.csv");
+        final Path second = this.tempDir.resolve("shard2.csv");
+        final Path output = this.tempDir.resolve("merged.csv");
+
+        try (DiffReportWriter writer = new DiffReportWriter(first, ReportFormatTypes.CSV)) {
+
+            writer.write(new DiffEntry(DiffCategoryTypes.SOURCE_ONLY, "a.txt", false, 1L, 0L, null, null));
+
+        }
+
+        try (DiffReportWriter writer = new DiffReportWriter(second, ReportFormatTypes.CSV)) {
+
+            writer.write(new DiffEntry(DiffCategoryTypes.TARGET_ONLY, "b.txt", false, null, null, 2L, 0L));
+            writer.write(new DiffEntry(DiffCategoryTypes.CONTENT_DIFF, "c.txt", false, 3L, 0L, 4L, 0L));
+
+        }
+
+        /* テスト対象の実行 */
+        final long count = DiffReportWriter.merge(List.of(first, second), output, ReportFormatTypes.CSV);
+
+        /* 検証の実施 */
+        final List<String> lines = Files.readAllLines(output);
+        Assertions.assertEquals(3, count, "すべての差分が結合されること");
+        Assertions.assertEquals(4, lines.size(), "ヘッダ行は1行のみであること");
+        Assertions.assertTrue(lines.get(0).startsWith("category,"), "先頭がヘッダ行であること");
+        Assertions.assertTrue(lines.get(1).contains("a.txt") && lines.get(3).contains("c.txt"), "シャードの順序で結合されること");
+
+    }
+
+    /**
+     * 形式の異なる差分レポートを結合した場合に例外がスローされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testMergeMismatchedFormat() throws IOException {
+
+        /* 準備 */
+        final Path part = this.tempDir.resolve("shard1.jsonl");
+
+        try (DiffReportWriter writer = new DiffReportWriter(part, ReportFormatTypes.JSONL)) {
+
+            writer.write(new DiffEntry(DiffCategoryTypes.SOURCE_ONLY, "a.txt", false, 1L, 0L, null, null));
+
+        }
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertThrows(IOException.class,
+                () -> DiffReportWriter.merge(List.of(part), this.tempDir.resolve("merged.csv"), ReportFormatTypes.CSV),
+                "CSVでない差分レポートは結合できないこと");
+
+    }
+
+    /**
+     * 書き込みに失敗した後も投入が待たされず、以降の投入と終了で例外がスローされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testWriteFailsFastAfterFailure() throws IOException {
+
+        /* 準備 */
+        final Path deviceFull = Path.of("/dev/full");
+        Assumptions.assumeTrue(Files.isWritable(deviceFull), "/dev/fullが利用できる環境のみ実行する");
+
+        final DiffReportWriter writer = new DiffReportWriter(deviceFull, ReportFormatTypes.JSONL);
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+
+            Assertions.assertThrows(UncheckedIOException.class, () -> {
+
+                for (int i = 0; i < 1_000_000; i++) {
+
+                    writer.write(new DiffEntry(DiffCategoryTypes.SOURCE_ONLY, "file" + i, false, 1L, 0L, null, null));
+
+                }
+
+            }, "書き込みに失敗した後の投入で例外がスローされること");
+
+        }, "キューが上限に達しても投入が待ち続けないこと");
+        Assertions.assertThrows(IOException.class, writer::close, "終了時に書き込みの失敗が通知されること");
+
+    }
+    /**
+     * 書き込みスレッドが割り込まれて終了した後も、投入と終了が待ち続けずに例外をスローすることのテスト
+     *
+     * @throws Exception
+     *                   ファイル操作時またはスレッドの待機中にエラーが発生した場合
+     */
+    @Test
+    public void testCloseAfterWriterInterrupted() throws Exception {
+
+        /* 準備 */
+        final Path             file   = this.tempDir.resolve("interrupted-report.jsonl");
+        final DiffReportWriter writer = new DiffReportWriter(file, ReportFormatTypes.JSONL);
+        final Thread writerThread = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("diff-report-writer-" + file.getFileName())).findFirst()
+                .orElseThrow();
+        writerThread.interrupt();
+        writerThread.join();
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+
+            Assertions.assertThrows(UncheckedIOException.class,
+                    () -> writer.write(new DiffEntry(DiffCategoryTypes.SOURCE_ONLY, "file", false, 1L, 0L, null, null)),
+                    "書き込みスレッドの終了後の投入で例外がスローされること");
+            Assertions.assertThrows(IOException.class, writer::close, "終了時に書き込みスレッドの終了が通知されること");
+
+        }, "書き込みスレッドの終了後に投入と終了が待ち続けないこと");
+
+    }
+}
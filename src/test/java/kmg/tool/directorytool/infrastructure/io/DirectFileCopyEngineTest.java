@@ -0,0 +1,92 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * DirectFileCopyEngineのテストクラス。
+ */
+public class DirectFileCopyEngineTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * ブロックの境界をまたぎ、末尾がアラインメントに揃わないファイルが正しくコピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyUnalignedSize() throws IOException {
+
+        /* 期待値の定義 */
+        final byte[] expected = new byte[(BufferedFileCopyEngine.MIN_BLOCK_SIZE * 9) + 123];
+        new Random(43).nextBytes(expected);
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source.bin");
+        final Path target = this.tempDir.resolve("target.bin");
+        Files.write(source, expected);
+
+        final DirectFileCopyEngine engine = new DirectFileCopyEngine(BufferedFileCopyEngine.MIN_BLOCK_SIZE, 4);
+
+        /* テスト対象の実行 */
+        engine.copy(source, target, null);
+
+        /* 検証の実施 */
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(target), "内容とサイズが一致すること");
+
+    }
+
+    /**
+     * 既存のファイルの上書き、空のファイル、帯域の制限のテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyOverwriteAndEmptyFile() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source.txt");
+        final Path empty  = this.tempDir.resolve("empty.txt");
+        final Path target = this.tempDir.resolve("target.txt");
+        Files.writeString(source, "short");
+        Files.createFile(empty);
+        Files.writeString(target, "much longer existing content");
+
+        final DirectFileCopyEngine engine = new DirectFileCopyEngine(BufferedFileCopyEngine.MIN_BLOCK_SIZE, 2);
+
+        /* テスト対象の実行 */
+        engine.copy(source, target, new ThroughputLimiter("100MB", 0));
+        engine.copy(empty, this.tempDir.resolve("empty-copy.txt"), null);
+
+        /* 検証の実施 */
+        Assertions.assertEquals("short", Files.readString(target), "内容が置き換えられること");
+        Assertions.assertEquals(0, Files.size(this.tempDir.resolve("empty-copy.txt")), "空のファイルがコピーされること");
+
+    }
+
+    /**
+     * 不正なキューの深さのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testInvalidQueueDepth() {
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new DirectFileCopyEngine(BufferedFileCopyEngine.DEFAULT_BLOCK_SIZE, 0), "例外が発生すること");
+
+    }
+}
@@ -0,0 +1,163 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+
+/**
+ * FileComparatorのテストクラス。
+ */
+public class FileComparatorTest {
+
+    /** 並列比較の対象となるファイルサイズ */
+    private static final long LARGE_FILE_SIZE = 72L * 1024 * 1024;
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * サイズが異なるファイルはすべての深度で不一致となることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testDifferentSizes() throws IOException {
+
+        /* 準備 */
+        final Path file1 = this.tempDir.resolve("file1.txt");
+        final Path file2 = this.tempDir.resolve("file2.txt");
+        Files.writeString(file1, "content");
+        Files.writeString(file2, "longer content");
+
+        /* テスト対象の実行と検証 */
+        for (final CompareDepthTypes depth : new CompareDepthTypes[] {
+                CompareDepthTypes.QUICK, CompareDepthTypes.SAMPLED, CompareDepthTypes.FULL,
+        }) {
+
+            Assertions.assertFalse(FileComparator.compare(file1, file2, depth), depth + "で不一致となること");
+
+        }
+
+    }
+
+    /**
+     * 同じサイズで内容が異なるファイルの深度ごとの結果のテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testSameSizeDifferentContent() throws IOException {
+
+        /* 準備 */
+        final Path file1 = this.tempDir.resolve("file1.txt");
+        final Path file2 = this.tempDir.resolve("file2.txt");
+        Files.writeString(file1, "content1");
+        Files.writeString(file2, "content2");
+
+        /* テスト対象の実行と検証 */
+        Assertions.assertTrue(FileComparator.compare(file1, file2, CompareDepthTypes.QUICK), "quickではサイズのみ比較すること");
+        Assertions.assertFalse(FileComparator.compare(file1, file2, CompareDepthTypes.SAMPLED), "sampledで差異を検出すること");
+        Assertions.assertFalse(FileComparator.compare(file1, file2, CompareDepthTypes.FULL), "fullで差異を検出すること");
+
+    }
+
+    /**
+     * サンプリングされない位置の差異はfullでのみ検出されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testLargeFileDifferenceOutsideSamples() throws IOException {
+
+        /* 準備 */
+        final Path file1 = this.createZeroFile("large1.bin", FileComparatorTest.LARGE_FILE_SIZE);
+        final Path file2 = this.createZeroFile("large2.bin", FileComparatorTest.LARGE_FILE_SIZE);
+
+        /* テスト対象の実行と検証 */
+        Assertions.assertTrue(FileComparator.compare(file1, file2, CompareDepthTypes.FULL), "同一内容の大きなファイルが一致すること");
+
+        // サンプリングされる範囲の外（先頭ブロックの直後）を変更
+        try (RandomAccessFile file = new RandomAccessFile(file2.toFile(), "rw")) {
+
+            file.seek(64 * 1024 + 1);
+            file.write(1);
+
+        }
+        Assertions.assertFalse(FileComparator.compare(file1, file2, CompareDepthTypes.FULL), "並列比較で差異を検出すること");
+
+    }
+
+    /**
+     * 大きなファイルの並列比較で、呼び出し元から渡されたエグゼキュータで補助ワーカーが実行されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testLargeFileUsesCallerExecutor() throws IOException {
+
+        /* 期待値の定義 */
+        // 16MBのウィンドウ5つを、呼び出し元と補助ワーカーで比較する
+        final int expectedHelpers = Math.min(Runtime.getRuntime().availableProcessors(), 5) - 1;
+
+        /* 準備 */
+        final Path          file1   = this.createZeroFile("large1.bin", FileComparatorTest.LARGE_FILE_SIZE);
+        final Path          file2   = this.createZeroFile("large2.bin", FileComparatorTest.LARGE_FILE_SIZE);
+        final AtomicInteger helpers = new AtomicInteger();
+
+        try (ExecutorService executorService = Executors.newFixedThreadPool(2)) {
+
+            /* テスト対象の実行 */
+            final boolean actual = FileComparator.compare(file1, file2, CompareDepthTypes.FULL, false, task -> {
+
+                helpers.incrementAndGet();
+                executorService.execute(task);
+
+            });
+
+            /* 検証の実施 */
+            Assertions.assertTrue(actual, "同一内容の大きなファイルが一致すること");
+            Assertions.assertEquals(expectedHelpers, helpers.get(), "補助ワーカーが渡されたエグゼキュータで実行されること");
+
+        }
+
+    }
+
+    /**
+     * 指定されたサイズのゼロで埋められたファイルを作成する。
+     *
+     * @param name
+     *             ファイル名
+     * @param size
+     *             ファイルサイズ
+     * @return 作成したファイルのパス
+     * @throws IOException
+     *                     ファイルの作成に失敗した場合
+     */
+    private Path createZeroFile(final String name, final long size) throws IOException {
+
+        final Path result = this.tempDir.resolve(name);
+
+        try (RandomAccessFile file = new RandomAccessFile(result.toFile(), "rw")) {
+
+            file.setLength(size);
+
+        }
+        return result;
+
+    }
+}
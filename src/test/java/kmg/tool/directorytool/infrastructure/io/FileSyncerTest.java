@@ -0,0 +1,192 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
+
+/**
+ * FileSyncerのテストクラス。
+ */
+public class FileSyncerTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * 一括の場合、保留したファイルとディレクトリが終了時までにまとめて同期されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testBatchSyncsOnClose() throws IOException {
+
+        /* 期待値の定義 */
+        // ファイル300件、グループごとの親ディレクトリ2回、ルートまでの上位のディレクトリ（sub）1件
+        final long expectedSyncCount = 300 + 2 + 1;
+
+        /* 準備 */
+        final Path directory = this.tempDir.resolve("sub/dir");
+        Files.createDirectories(directory);
+
+        final FileSyncer syncer = new FileSyncer(DurabilityTypes.BATCH, this.tempDir);
+
+        /* テスト対象の実行 */
+        for (int i = 0; i < 300; i++) {
+
+            final Path file = directory.resolve("file" + i + ".txt");
+            Files.writeString(file, "content" + i);
+            syncer.completed(file);
+
+        }
+        syncer.close();
+
+        /* 検証の実施 */
+        Assertions.assertTrue(syncer.getSyncCount() >= expectedSyncCount, "すべてのファイルと上位のディレクトリが同期されること");
+
+    }
+
+    /**
+     * ファイルごとの場合、通知した時点で同期されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testFileSyncsImmediately() throws IOException {
+
+        /* 期待値の定義 */
+        final long expectedSyncCount = 2;
+
+        /* 準備 */
+        final Path file = this.tempDir.resolve("file.txt");
+        Files.writeString(file, "content");
+
+        try (FileSyncer syncer = new FileSyncer(DurabilityTypes.FILE, this.tempDir)) {
+
+            /* テスト対象の実行 */
+            syncer.completed(file);
+
+            /* 検証の実施 */
+            Assertions.assertEquals(expectedSyncCount, syncer.getSyncCount(), "ファイルと親ディレクトリが同期されること");
+
+        }
+
+    }
+
+    /**
+     * 名前の変更で公開する場合、一時ファイルの内容が公開の前に、親ディレクトリが公開の後に同期されることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testSyncContentBeforePublish() throws IOException {
+
+        /* 期待値の定義 */
+        final long expectedContentSyncCount = 1;
+        final long expectedSyncCount        = 2;
+
+        /* 準備 */
+        final Path temporary = this.tempDir.resolve(".file.txt.tmp");
+        final Path target    = this.tempDir.resolve("file.txt");
+        Files.writeString(temporary, "content");
+
+        try (FileSyncer syncer = new FileSyncer(DurabilityTypes.FILE, this.tempDir)) {
+
+            /* テスト対象の実行 */
+            syncer.syncContent(temporary);
+            final long actualContentSyncCount = syncer.getSyncCount();
+            AtomicPublisher.publish(temporary, target);
+            syncer.published(target);
+
+            /* 検証の実施 */
+            Assertions.assertEquals(expectedContentSyncCount, actualContentSyncCount, "公開の前に一時ファイルが同期されること");
+            Assertions.assertEquals(expectedSyncCount, syncer.getSyncCount(), "公開の後に親ディレクトリが同期されること");
+
+        }
+
+    }
+
+    /**
+     * 一括の場合、公開したファイルの親ディレクトリの同期が終了時までに行われることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testBatchSyncsPublishedDirectoryOnClose() throws IOException {
+
+        /* 期待値の定義 */
+        // 一時ファイル1件、親ディレクトリ（sub）1回、ルートまでの上位のディレクトリ1件
+        final long expectedSyncCount = 1 + 1 + 1;
+
+        /* 準備 */
+        final Path directory = this.tempDir.resolve("sub");
+        Files.createDirectories(directory);
+        final Path temporary = directory.resolve(".file.txt.tmp");
+        final Path target    = directory.resolve("file.txt");
+        Files.writeString(temporary, "content");
+
+        final FileSyncer syncer = new FileSyncer(DurabilityTypes.BATCH, this.tempDir);
+
+        /* テスト対象の実行 */
+        syncer.syncContent(temporary);
+        AtomicPublisher.publish(temporary, target);
+        syncer.published(target);
+        syncer.close();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedSyncCount, syncer.getSyncCount(), "一時ファイルと公開したファイルの親ディレクトリが同期されること");
+
+    }
+
+    /**
+     * 同期なしの場合、存在しないファイルを通知しても同期しないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testNoSync() throws IOException {
+
+        /* 準備 */
+        final FileSyncer syncer = new FileSyncer(DurabilityTypes.NO_SYNC, this.tempDir);
+
+        /* テスト対象の実行 */
+        syncer.completed(this.tempDir.resolve("missing.txt"));
+        syncer.close();
+
+        /* 検証の実施 */
+        Assertions.assertFalse(syncer.isEnabled(), "同期しないこと");
+        Assertions.assertEquals(0, syncer.getSyncCount(), "同期しないこと");
+
+    }
+
+    /**
+     * 一括の場合、バックグラウンドのスレッドでの同期の失敗が終了時にスローされることのテスト
+     */
+    @Test
+    public void testBatchFailureOnClose() {
+
+        /* 準備 */
+        final FileSyncer syncer = new FileSyncer(DurabilityTypes.BATCH, this.tempDir);
+
+        /* テスト対象の実行と検証の実施 */
+        Assertions.assertThrows(NoSuchFileException.class, () -> {
+
+            syncer.completed(this.tempDir.resolve("missing.txt"));
+            syncer.close();
+
+        }, "同期の失敗が終了時にスローされること");
+
+    }
+}
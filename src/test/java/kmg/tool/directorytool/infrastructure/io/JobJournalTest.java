@@ -0,0 +1,308 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+
+/**
+ * JobJournalのテストクラス。
+ */
+public class JobJournalTest {
+
+    /** コピーのジョブの名前 */
+    private static final String COPY_JOB = OperationModeTypes.COPY.getValue();
+
+    /** 移動のジョブの名前 */
+    private static final String MOVE_JOB = OperationModeTypes.MOVE.getValue();
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * 記録したファイルを再開時に読み込めることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testResumeReadsRecords() throws IOException {
+
+        /* 期待値の定義 */
+        final int expectedCount = JobJournal.BATCH_SIZE + 10;
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source");
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, false, false)) {
+
+            for (int i = 0; i < expectedCount; i++) {
+
+                journal.record("dir/ファイル" + i + ".txt");
+
+            }
+
+        }
+
+        /* テスト対象の実行 */
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, true, false)) {
+
+            /* 検証の実施 */
+            Assertions.assertEquals(expectedCount, journal.getCompletedCount(), "記録したファイルをすべて読み込むこと");
+            Assertions.assertTrue(journal.isCompleted("dir/ファイル0.txt"), "記録したファイルが完了済みとなること");
+            Assertions.assertFalse(journal.isCompleted("dir/other.txt"), "記録していないファイルは完了済みとならないこと");
+
+        }
+
+    }
+
+    /**
+     * 再開後に追記した記録も読み込めることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testResumeAppends() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source");
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.MOVE_JOB, false, false)) {
+
+            journal.record("a.txt");
+
+        }
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.MOVE_JOB, true, false)) {
+
+            journal.record("b.txt");
+
+        }
+
+        /* テスト対象の実行 */
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.MOVE_JOB, true, false)) {
+
+            /* 検証の実施 */
+            Assertions.assertTrue(journal.isCompleted("a.txt"), "最初の記録を読み込むこと");
+            Assertions.assertTrue(journal.isCompleted("b.txt"), "再開後の記録を読み込むこと");
+
+        }
+
+    }
+
+    /**
+     * ジョブが一致しない場合と再開しない場合に、記録を破棄することのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testDiscardRecords() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source");
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, false, false)) {
+
+            journal.record("a.txt");
+
+        }
+
+        /* テスト対象の実行と検証の実施 */
+        try (JobJournal journal = JobJournal.open(this.tempDir, this.tempDir.resolve("other"), JobJournalTest.COPY_JOB,
+                true, false)) {
+
+            Assertions.assertEquals(0, journal.getCompletedCount(), "ソースが異なる場合は記録を破棄すること");
+
+        }
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, false, false)) {
+
+            Assertions.assertEquals(0, journal.getCompletedCount(), "再開しない場合は記録を破棄すること");
+
+        }
+
+    }
+
+    /**
+     * 確定の開始が記録され、破棄せずに開いたジャーナルから読み込めることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testOpenExistingCommitting() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source");
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.MOVE_JOB, false, false)) {
+
+            journal.record("a.txt");
+            Assertions.assertFalse(journal.isCommitting(), "作成時はステージング中であること");
+            journal.markCommitting();
+
+        }
+
+        /* テスト対象の実行 */
+        final JobJournal other = JobJournal.openExisting(this.tempDir, source, JobJournalTest.COPY_JOB, false);
+
+        try (JobJournal journal = JobJournal.openExisting(this.tempDir, source, JobJournalTest.MOVE_JOB, false)) {
+
+            /* 検証の実施 */
+            Assertions.assertNull(other, "ジョブが一致しない場合はnullが返されること");
+            Assertions.assertTrue(journal.isCommitting(), "確定中であること");
+            Assertions.assertTrue(journal.getCompletedPaths().contains("a.txt"), "記録を読み込むこと");
+
+        }
+
+    }
+
+    /**
+     * 書き込み途中で中断した末尾の記録を無視することのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testTornTail() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source");
+        final Path file   = this.tempDir.resolve(JobJournal.FILE_NAME);
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, false, false)) {
+
+            journal.record("a.txt");
+
+        }
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, true, false)) {
+
+            journal.record("b.txt");
+
+        }
+
+        // 最後の記録のパスが途中で切れた状態にする
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+
+            channel.truncate(channel.size() - 2);
+
+        }
+
+        /* テスト対象の実行 */
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, true, false)) {
+
+            /* 検証の実施 */
+            Assertions.assertTrue(journal.isCompleted("a.txt"), "完全な記録は読み込むこと");
+            Assertions.assertFalse(journal.isCompleted("b.txt"), "途中で切れた記録は読み込まないこと");
+            Assertions.assertFalse(journal.isCompleted("b.t"), "途中で切れた記録は読み込まないこと");
+            journal.record("c.txt");
+            Assertions.assertEquals(Set.of("a.txt", "c.txt"), journal.getCompletedPaths(),
+                    "途中で切れた記録を切り詰めて追記すること");
+
+        }
+
+    }
+
+    /**
+     * 再開しない場合は記録をメモリに保持せず、ジャーナルから読み込めることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCompletedPathsWithoutResume() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source");
+
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.MOVE_JOB, false, false)) {
+
+            /* テスト対象の実行 */
+            for (int i = 0; i < (JobJournal.BATCH_SIZE + 1); i++) {
+
+                journal.record("file" + i + ".txt");
+
+            }
+
+            /* 検証の実施 */
+            Assertions.assertEquals(0, journal.getCompletedCount(), "再開しない場合は完了済みのファイルを保持しないこと");
+            Assertions.assertFalse(journal.isCompleted("file0.txt"), "今回の記録は完了済みと判定しないこと");
+            Assertions.assertEquals(JobJournal.BATCH_SIZE + 1, journal.getCompletedPaths().size(),
+                    "書き込みを待つ記録を含めてジャーナルから読み込むこと");
+
+        }
+
+    }
+
+    /**
+     * 削除したジャーナルのファイルが存在しないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testDelete() throws IOException {
+
+        /* 準備 */
+        final JobJournal journal = JobJournal.open(this.tempDir, this.tempDir.resolve("source"),
+                JobJournalTest.COPY_JOB, false, false);
+        journal.record("a.txt");
+
+        /* テスト対象の実行 */
+        journal.delete();
+
+        /* 検証の実施 */
+        Assertions.assertFalse(Files.exists(this.tempDir.resolve(JobJournal.FILE_NAME)), "ジャーナルが削除されること");
+        Assertions.assertTrue(JobJournal.isJournalFile(this.tempDir, this.tempDir.resolve(JobJournal.FILE_NAME)),
+                "ジャーナルのファイルと判定されること");
+
+    }
+
+    /**
+     * シャードごとのジャーナルが互いに破棄されないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testShardJournals() throws IOException {
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source");
+
+        try (JobJournal first = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, "1-of-2", false, false);
+                JobJournal second = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, "2-of-2", false,
+                        false)) {
+
+            first.record("a.txt");
+            second.record("b.txt");
+
+        }
+
+        /* テスト対象の実行 */
+        try (JobJournal journal = JobJournal.open(this.tempDir, source, JobJournalTest.COPY_JOB, "1-of-2", true,
+                false)) {
+
+            /* 検証の実施 */
+            Assertions.assertTrue(journal.isCompleted("a.txt"), "同じシャードの記録を読み込むこと");
+            Assertions.assertFalse(journal.isCompleted("b.txt"), "他のシャードの記録を読み込まないこと");
+
+        }
+        Assertions.assertTrue(Files.exists(this.tempDir.resolve(JobJournal.fileName("2-of-2"))), "他のシャードのジャーナルが残ること");
+        Assertions.assertTrue(JobJournal.isJournalFile(this.tempDir, this.tempDir.resolve(JobJournal.fileName("2-of-2"))),
+                "シャードのジャーナルのファイルと判定されること");
+
+    }
+}
@@ -0,0 +1,196 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link MappedFileComparator}と{@link Files#mismatch(Path, Path)}の比較ベンチマーク。<br>
+ * <p>
+ * 同一内容の2ファイル（比較が最後まで必要な最悪ケース）を各サイズで作成し、それぞれの方式で比較にかかる時間を計測する。<br>
+ * ファイルは作成直後のためページキャッシュに載った状態での計測となる。コールドキャッシュで計測する場合は、各計測の前にキャッシュを破棄すること。
+ * </p>
+ * <p>
+ * 実行例：
+ * </p>
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes kmg.tool.directorytool.infrastructure.io.MappedFileComparatorBenchmark 64 256 1024
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class MappedFileComparatorBenchmark {
+
+    /** デフォルトのファイルサイズ（MB） */
+    private static final long[] DEFAULT_SIZES_MB = {
+            64, 256, 1024,
+    };
+
+    /** 計測前のウォームアップ回数 */
+    private static final int WARMUP_ITERATIONS = 2;
+
+    /** 計測回数 */
+    private static final int MEASURE_ITERATIONS = 5;
+
+    /** 1MBのバイト数 */
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private MappedFileComparatorBenchmark() {
+
+        // 処理なし
+    }
+
+    /**
+     * ベンチマークを実行する。
+     *
+     * @param args
+     *             計測するファイルサイズ（MB）。省略時は64, 256, 1024
+     * @throws Exception
+     *                   ベンチマーク中にエラーが発生した場合
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final long[] sizesMb = args.length == 0 ? MappedFileComparatorBenchmark.DEFAULT_SIZES_MB
+                : Arrays.stream(args).mapToLong(Long::parseLong).toArray();
+        final int    workers = Runtime.getRuntime().availableProcessors();
+
+        final Path tempDir = Files.createTempDirectory("compare-benchmark");
+
+        try (ExecutorService executorService = Executors.newFixedThreadPool(workers)) {
+
+            final MappedFileComparator comparator = new MappedFileComparator(executorService, workers,
+                    MappedFileComparator.DEFAULT_WINDOW_SIZE);
+
+            System.out.printf("workers=%d, window=%dMB%n", workers,
+                    MappedFileComparator.DEFAULT_WINDOW_SIZE / MappedFileComparatorBenchmark.MB);
+            System.out.printf("%10s %20s %20s%n", "size(MB)", "Files.mismatch(ms)", "mapped-parallel(ms)");
+
+            for (final long sizeMb : sizesMb) {
+
+                final Path file1 = tempDir.resolve("file1.bin");
+                final Path file2 = tempDir.resolve("file2.bin");
+                MappedFileComparatorBenchmark.writeRandomFile(file1, sizeMb * MappedFileComparatorBenchmark.MB);
+                Files.copy(file1, file2, StandardCopyOption.REPLACE_EXISTING);
+
+                final double mismatchMs = MappedFileComparatorBenchmark
+                        .measure(() -> Files.mismatch(file1, file2) == -1);
+                final double mappedMs   = MappedFileComparatorBenchmark.measure(() -> comparator.compare(file1, file2));
+
+                System.out.printf("%10d %20.1f %20.1f%n", sizeMb, mismatchMs, mappedMs);
+
+                Files.delete(file1);
+                Files.delete(file2);
+
+            }
+
+        } finally {
+
+            Files.deleteIfExists(tempDir);
+
+        }
+
+    }
+
+    /**
+     * 比較処理の平均実行時間を計測する。
+     *
+     * @param comparison
+     *                   比較処理
+     * @return 平均実行時間（ミリ秒）
+     * @throws IOException
+     *                     比較中にエラーが発生した場合
+     */
+    private static double measure(final Comparison comparison) throws IOException {
+
+        for (int i = 0; i < MappedFileComparatorBenchmark.WARMUP_ITERATIONS; i++) {
+
+            MappedFileComparatorBenchmark.check(comparison.compare());
+
+        }
+
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < MappedFileComparatorBenchmark.MEASURE_ITERATIONS; i++) {
+
+            MappedFileComparatorBenchmark.check(comparison.compare());
+
+        }
+
+        final double result = (System.nanoTime() - start) / 1_000_000.0
+                / MappedFileComparatorBenchmark.MEASURE_ITERATIONS;
+        return result;
+
+    }
+
+    /**
+     * 比較結果が一致であることを確認する。
+     *
+     * @param same
+     *             比較結果
+     */
+    private static void check(final boolean same) {
+
+        if (!same) {
+
+            throw new IllegalStateException("同一内容のファイルが不一致と判定されました。");
+
+        }
+
+    }
+
+    /**
+     * 乱数で埋めたファイルを作成する。
+     *
+     * @param file
+     *             作成するファイル
+     * @param size
+     *             ファイルサイズ
+     * @throws IOException
+     *                     ファイルの書き込みに失敗した場合
+     */
+    private static void writeRandomFile(final Path file, final long size) throws IOException {
+
+        final SplittableRandom random = new SplittableRandom(size);
+        final byte[]           block  = new byte[(int) MappedFileComparatorBenchmark.MB];
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+
+            for (long written = 0; written < size; written += block.length) {
+
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * 計測対象の比較処理。
+     */
+    @FunctionalInterface
+    private interface Comparison {
+
+        /**
+         * 比較を実行する。
+         *
+         * @return 一致する場合true
+         * @throws IOException
+         *                     比較中にエラーが発生した場合
+         */
+        boolean compare() throws IOException;
+    }
+}
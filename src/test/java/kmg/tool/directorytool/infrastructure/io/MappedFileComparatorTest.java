@@ -0,0 +1,125 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * MappedFileComparatorのテストクラス。
+ */
+public class MappedFileComparatorTest {
+
+    /** テスト用のウィンドウサイズ */
+    private static final int WINDOW_SIZE = 4 * 1024;
+
+    /** テスト用のファイルサイズ（ウィンドウの倍数にならないサイズ） */
+    private static final int FILE_SIZE = (MappedFileComparatorTest.WINDOW_SIZE * 10) + 123;
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * 同一内容のファイルが一致することのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testIdenticalFiles() throws Exception {
+
+        /* 準備 */
+        final byte[] content = MappedFileComparatorTest.createContent();
+        final Path   file1   = Files.write(this.tempDir.resolve("file1.bin"), content);
+        final Path   file2   = Files.write(this.tempDir.resolve("file2.bin"), content);
+
+        try (ExecutorService executorService = Executors.newFixedThreadPool(4)) {
+
+            final MappedFileComparator comparator = new MappedFileComparator(executorService, 4,
+                    MappedFileComparatorTest.WINDOW_SIZE);
+
+            /* テスト対象の実行と検証 */
+            Assertions.assertTrue(comparator.compare(file1, file2), "同一内容のファイルが一致すること");
+
+        }
+
+    }
+
+    /**
+     * 最後のウィンドウの差異が検出されることのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testDifferenceInLastWindow() throws Exception {
+
+        /* 準備 */
+        final byte[] content = MappedFileComparatorTest.createContent();
+        final Path   file1   = Files.write(this.tempDir.resolve("file1.bin"), content);
+        content[content.length - 1]++;
+        final Path file2 = Files.write(this.tempDir.resolve("file2.bin"), content);
+
+        try (ExecutorService executorService = Executors.newFixedThreadPool(4)) {
+
+            final MappedFileComparator comparator = new MappedFileComparator(executorService, 4,
+                    MappedFileComparatorTest.WINDOW_SIZE);
+
+            /* テスト対象の実行と検証 */
+            Assertions.assertFalse(comparator.compare(file1, file2), "最後のウィンドウの差異が検出されること");
+
+        }
+
+    }
+
+    /**
+     * 呼び出し元と同じ単一スレッドのプール上で実行してもデッドロックしないことのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testRunOnSaturatedPool() throws Exception {
+
+        /* 準備 */
+        final byte[] content = MappedFileComparatorTest.createContent();
+        final Path   file1   = Files.write(this.tempDir.resolve("file1.bin"), content);
+        final Path   file2   = Files.write(this.tempDir.resolve("file2.bin"), content);
+
+        try (ExecutorService executorService = Executors.newSingleThreadExecutor()) {
+
+            final MappedFileComparator comparator = new MappedFileComparator(executorService, 4,
+                    MappedFileComparatorTest.WINDOW_SIZE);
+
+            /* テスト対象の実行 */
+            final Future<Boolean> actual = executorService.submit(() -> comparator.compare(file1, file2));
+
+            /* 検証の実施 */
+            Assertions.assertTrue(actual.get(10, TimeUnit.SECONDS), "空きスレッドが無くても比較が完了すること");
+
+        }
+
+    }
+
+    /**
+     * テスト用の乱数で埋めた内容を作成する。
+     *
+     * @return 内容
+     */
+    private static byte[] createContent() {
+
+        final byte[] result = new byte[MappedFileComparatorTest.FILE_SIZE];
+        new Random(1L).nextBytes(result);
+        return result;
+
+    }
+}
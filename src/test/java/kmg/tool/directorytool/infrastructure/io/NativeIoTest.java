@@ -0,0 +1,184 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+
+/**
+ * {@link NativeIo}のテストクラス。
+ */
+public class NativeIoTest {
+
+    /** コピーするファイルのサイズ */
+    private static final int FILE_SIZE = 3 * 1024 * 1024 + 123;
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * ファイルの属性がNIOで取得した値と一致することのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testStatFile() throws IOException {
+
+        /* 準備 */
+        final Path file = this.tempDir.resolve("file.txt");
+        Files.writeString(file, "native stat");
+
+        /* テスト対象の実行 */
+        final NativeIo.FileStatus status = NativeIo.stat(file);
+
+        /* 検証の実施 */
+        Assertions.assertNotNull(status, "属性を取得できること");
+        Assertions.assertTrue(status.regularFile(), "通常のファイルであること");
+        Assertions.assertFalse(status.directory(), "ディレクトリではないこと");
+        Assertions.assertEquals(Files.size(file), status.size(), "サイズが一致すること");
+        Assertions.assertEquals(Files.getLastModifiedTime(file).toMillis(), status.lastModifiedTime().toMillis(),
+                "更新日時が一致すること");
+
+        if (NativeIo.isAvailable()) {
+
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r-----"));
+            Assertions.assertEquals(0640, NativeIo.stat(file).mode(), "パーミッションを取得できること");
+
+        }
+
+    }
+
+    /**
+     * ディレクトリと存在しないパスの属性のテスト
+     */
+    @Test
+    public void testStatDirectoryAndMissing() {
+
+        /* テスト対象の実行 */
+        final NativeIo.FileStatus directory = NativeIo.stat(this.tempDir);
+        final NativeIo.FileStatus missing   = NativeIo.stat(this.tempDir.resolve("missing"));
+
+        /* 検証の実施 */
+        Assertions.assertNotNull(directory, "ディレクトリの属性を取得できること");
+        Assertions.assertTrue(directory.directory(), "ディレクトリであること");
+        Assertions.assertFalse(directory.regularFile(), "通常のファイルではないこと");
+        Assertions.assertNull(missing, "存在しない場合はnullであること");
+
+    }
+
+    /**
+     * copy_file_rangeでデータ領域がコピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyRegions() throws IOException {
+
+        Assumptions.assumeTrue(NativeIo.isAvailable(), "ネイティブなファイル操作を使用できる環境のみ");
+
+        /* 準備 */
+        final Path   source = this.tempDir.resolve("source.bin");
+        final Path   target = this.tempDir.resolve("target.bin");
+        final byte[] data   = new byte[NativeIoTest.FILE_SIZE];
+        new Random(40).nextBytes(data);
+        Files.write(source, data);
+
+        final List<NativeIo.Region> regions = List.of(new NativeIo.Region(0, NativeIoTest.FILE_SIZE));
+        NativeIo.prepareTarget(target, regions, NativeIoTest.FILE_SIZE, 0644);
+
+        /* テスト対象の実行 */
+        final boolean copied = NativeIo.copyRegions(source, target, regions, new ThroughputLimiter("0", 0));
+
+        /* 検証の実施 */
+        Assumptions.assumeTrue(copied, "copy_file_rangeに対応したファイルシステムのみ");
+        Assertions.assertEquals(-1, Files.mismatch(source, target), "内容が一致すること");
+
+    }
+
+    /**
+     * O_DIRECTで開いたファイルを位置指定で読み書きできることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testDirectIo() throws IOException {
+
+        Assumptions.assumeTrue(NativeIo.isAvailable(), "ネイティブなファイル操作を使用できる環境のみ");
+
+        /* 期待値の定義 */
+        final byte[] expected = new byte[8192 + 100];
+        new Random(41).nextBytes(expected);
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("direct-source.bin");
+        final Path target = this.tempDir.resolve("direct-target.bin");
+        Files.write(source, expected);
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(16384 + 4096).alignedSlice(4096);
+
+        final DirectIoFile in;
+
+        try {
+
+            in = NativeIo.openDirect(source);
+
+        } catch (@SuppressWarnings("unused") final IOException e) {
+
+            Assumptions.abort("O_DIRECTに対応したファイルシステムのみ");
+            return;
+
+        }
+
+        /* テスト対象の実行 */
+        final int read;
+
+        try (in; DirectIoFile out = NativeIo.createDirect(target, 0644)) {
+
+            read = in.read(buffer, 0);
+            buffer.flip().limit(12288);
+            out.write(buffer, 0);
+            out.truncate(expected.length);
+
+        }
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected.length, read, "ファイルの末尾まで読み込まれること");
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(target), "内容とサイズが一致すること");
+
+    }
+
+    /**
+     * ページキャッシュの解放がファイルの内容に影響しないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testDropCache() throws IOException {
+
+        /* 準備 */
+        final Path file = this.tempDir.resolve("cached.txt");
+        Files.writeString(file, "cached");
+
+        /* テスト対象の実行 */
+        NativeIo.dropCache(file);
+
+        /* 検証の実施 */
+        Assertions.assertEquals("cached", Files.readString(file), "内容が変わらないこと");
+
+    }
+}
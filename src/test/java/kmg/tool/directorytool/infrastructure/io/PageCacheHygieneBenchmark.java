@@ -0,0 +1,244 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * キャッシュ保護モードが、コピーと並行してページキャッシュ上のファイルを読み込む処理に与える影響のベンチマーク。<br>
+ * <p>
+ * データベースの頻繁に参照されるページを模したファイル（ホットファイル）を読み込んでキャッシュに載せた後、
+ * 別のスレッドでホットファイルのランダムな位置を4KBずつ読み込みながら、大きなファイルを標準のモードとキャッシュ保護モードでコピーする。<br>
+ * コピーのスループット（MB/s）と、並行して読み込んだ処理のレイテンシ（中央値、99パーセンタイル、最大。マイクロ秒）を出力する。
+ * ホットファイルのページがコピーによって追い出されると、読み込みがストレージへのアクセスとなり、99パーセンタイルと最大が大きくなる。
+ * </p>
+ * <p>
+ * 影響はホットファイルとコピーするファイルの合計が空きメモリを上回る場合に現れるため、コピーするファイルのサイズはメモリ量より大きくすること。<br>
+ * ページキャッシュの解放にはネイティブなファイル操作を使用するため、{@code --enable-preview}を指定して実行する。
+ * </p>
+ * <p>
+ * 実行例：
+ * </p>
+ *
+ * <pre>
+ * mvn test-compile
+ * java --enable-preview --enable-native-access=ALL-UNNAMED -cp target/classes:target/test-classes \
+ *     kmg.tool.directorytool.infrastructure.io.PageCacheHygieneBenchmark /data/tmp 16384 512
+ * </pre>
+ *
+ * @author kmg
+ * @version 1.0
+ */
+public final class PageCacheHygieneBenchmark {
+
+    /** デフォルトのコピーするファイルのサイズ（MB） */
+    private static final long DEFAULT_COPY_MB = 1024;
+
+    /** デフォルトのホットファイルのサイズ（MB） */
+    private static final long DEFAULT_HOT_MB = 256;
+
+    /** 並行して読み込むサイズ */
+    private static final int READ_SIZE = 4096;
+
+    /** 記録するレイテンシの最大数 */
+    private static final int MAX_SAMPLES = 1_000_000;
+
+    /** 1MBのバイト数 */
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * インスタンス化を禁止する。
+     */
+    private PageCacheHygieneBenchmark() {
+
+        // 処理なし
+    }
+
+    /**
+     * ベンチマークを実行する。
+     *
+     * @param args
+     *             第1引数: 計測に使用するディレクトリ（省略時は一時ディレクトリ）、第2引数: コピーするファイルのサイズ（MB。省略時は1024）、
+     *             第3引数: ホットファイルのサイズ（MB。省略時は256）
+     * @throws Exception
+     *                   ベンチマーク中にエラーが発生した場合
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final Path baseDir = args.length == 0 ? null : Path.of(args[0]);
+        final long copyMb  = args.length <= 1 ? PageCacheHygieneBenchmark.DEFAULT_COPY_MB : Long.parseLong(args[1]);
+        final long hotMb   = args.length <= 2 ? PageCacheHygieneBenchmark.DEFAULT_HOT_MB : Long.parseLong(args[2]);
+
+        if (!NativeIo.isAvailable()) {
+
+            System.out.println("ネイティブなファイル操作を使用できないため、キャッシュ保護モードはページキャッシュを解放しません。");
+
+        }
+
+        final Path tempDir = baseDir == null ? Files.createTempDirectory("hygiene-benchmark")
+                : Files.createTempDirectory(baseDir, "hygiene-benchmark");
+        final Path hot     = tempDir.resolve("hot.bin");
+        final Path source  = tempDir.resolve("source.bin");
+        final Path target  = tempDir.resolve("target.bin");
+
+        try {
+
+            PageCacheHygieneBenchmark.writeRandomFile(hot, hotMb * PageCacheHygieneBenchmark.MB);
+            PageCacheHygieneBenchmark.writeRandomFile(source, copyMb * PageCacheHygieneBenchmark.MB);
+
+            System.out.printf("%-10s %12s %12s %12s %12s %12s%n", "mode", "copy(MB/s)", "reads", "p50(us)",
+                    "p99(us)", "max(us)");
+            PageCacheHygieneBenchmark.measure("standard", new FilesCopyEngine(false), hot, source, target, copyMb);
+            PageCacheHygieneBenchmark.measure("hygiene", new FilesCopyEngine(true), hot, source, target, copyMb);
+
+        } finally {
+
+            Files.deleteIfExists(hot);
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+            Files.deleteIfExists(tempDir);
+
+        }
+
+    }
+
+    /**
+     * ホットファイルを並行して読み込みながらコピーし、結果を出力する。
+     *
+     * @param mode
+     *               表示するモードの名前
+     * @param engine
+     *               コピーエンジン
+     * @param hot
+     *               ホットファイル
+     * @param source
+     *               コピー元のファイル
+     * @param target
+     *               コピー先のファイル
+     * @param copyMb
+     *               コピーするファイルのサイズ（MB）
+     * @throws Exception
+     *                   計測中にエラーが発生した場合
+     */
+    private static void measure(final String mode, final FileCopyEngine engine, final Path hot, final Path source,
+            final Path target, final long copyMb) throws Exception {
+
+        Files.deleteIfExists(target);
+        NativeIo.dropCache(source);
+
+        try (FileChannel channel = FileChannel.open(hot, StandardOpenOption.READ)) {
+
+            // ホットファイルをページキャッシュに載せる
+            PageCacheHygieneBenchmark.readAll(channel);
+
+            final long[]        samples = new long[PageCacheHygieneBenchmark.MAX_SAMPLES];
+            final int[]         count   = new int[1];
+            final AtomicBoolean running = new AtomicBoolean(true);
+
+            final Thread reader = Thread.ofPlatform().start(() -> {
+
+                final ByteBuffer       buffer = ByteBuffer.allocateDirect(PageCacheHygieneBenchmark.READ_SIZE);
+                final SplittableRandom random = new SplittableRandom(1);
+
+                try {
+
+                    final long pages = channel.size() / PageCacheHygieneBenchmark.READ_SIZE;
+
+                    while (running.get() && (count[0] < samples.length)) {
+
+                        final long position = random.nextLong(pages) * PageCacheHygieneBenchmark.READ_SIZE;
+                        final long start    = System.nanoTime();
+                        buffer.clear();
+                        channel.read(buffer, position);
+                        samples[count[0]++] = (System.nanoTime() - start) / 1000;
+
+                    }
+
+                } catch (final IOException e) {
+
+                    throw new IllegalStateException(e);
+
+                }
+
+            });
+
+            final long start = System.nanoTime();
+            engine.copy(source, target, null);
+            final double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            running.set(false);
+            reader.join();
+
+            final long[] sorted = Arrays.copyOf(samples, Math.max(1, count[0]));
+            Arrays.sort(sorted);
+            System.out.printf("%-10s %12.1f %12d %12d %12d %12d%n", mode, copyMb / seconds, count[0],
+                    sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)], sorted[sorted.length - 1]);
+
+        }
+
+    }
+
+    /**
+     * チャネルの内容をすべて読み込む。
+     *
+     * @param channel
+     *                読み込むチャネル
+     * @throws IOException
+     *                     読み込みに失敗した場合
+     */
+    private static void readAll(final FileChannel channel) throws IOException {
+
+        final ByteBuffer buffer   = ByteBuffer.allocateDirect((int) PageCacheHygieneBenchmark.MB);
+        long             position = 0;
+
+        while (position < channel.size()) {
+
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+
+            if (read <= 0) {
+
+                break;
+
+            }
+            position += read;
+
+        }
+
+    }
+
+    /**
+     * 乱数で埋めたファイルを作成する。
+     *
+     * @param file
+     *             作成するファイル
+     * @param size
+     *             ファイルサイズ
+     * @throws IOException
+     *                     ファイルの書き込みに失敗した場合
+     */
+    private static void writeRandomFile(final Path file, final long size) throws IOException {
+
+        final SplittableRandom random = new SplittableRandom(size);
+        final byte[]           block  = new byte[(int) PageCacheHygieneBenchmark.MB];
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+
+            for (long written = 0; written < size; written += block.length) {
+
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+
+            }
+
+        }
+
+    }
+}
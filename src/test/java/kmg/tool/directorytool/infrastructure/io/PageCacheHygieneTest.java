@@ -0,0 +1,104 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * キャッシュ保護モードのコピーと{@link PageCacheHygiene}のテストクラス。
+ */
+public class PageCacheHygieneTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * テスト対象のキャッシュ保護モードのコピーエンジンを返す。
+     *
+     * @return コピーエンジン
+     */
+    static Stream<FileCopyEngine> engines() {
+
+        final Stream<FileCopyEngine> result = Stream.of(new FilesCopyEngine(true),
+                new BufferedFileCopyEngine(BufferedFileCopyEngine.DEFAULT_BLOCK_SIZE, true));
+        return result;
+
+    }
+
+    /**
+     * 書き戻しの単位をまたぐ大きなファイルと小さいファイルが正しくコピーされることのテスト
+     *
+     * @param engine
+     *               コピーエンジン
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @ParameterizedTest
+    @MethodSource("engines")
+    public void testCopyWithCacheHygiene(final FileCopyEngine engine) throws IOException {
+
+        /* 期待値の定義 */
+        final byte[] expectedLarge = new byte[(int) PageCacheHygiene.DIRTY_BATCH_SIZE + (3 * 1024 * 1024) + 7];
+        final byte[] expectedSmall = new byte[4096 + 1];
+        final Random random        = new Random(42);
+        random.nextBytes(expectedLarge);
+        random.nextBytes(expectedSmall);
+
+        /* 準備 */
+        final Path largeSource = this.tempDir.resolve("large.bin");
+        final Path smallSource = this.tempDir.resolve("small.bin");
+        Files.write(largeSource, expectedLarge);
+        Files.write(smallSource, expectedSmall);
+
+        /* テスト対象の実行 */
+        engine.copy(largeSource, this.tempDir.resolve("large-copy.bin"), null);
+        engine.copy(smallSource, this.tempDir.resolve("small-copy.bin"), null);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(-1, Files.mismatch(largeSource, this.tempDir.resolve("large-copy.bin")),
+                "大きなファイルの内容が一致すること");
+        Assertions.assertEquals(-1, Files.mismatch(smallSource, this.tempDir.resolve("small-copy.bin")),
+                "小さいファイルの内容が一致すること");
+
+    }
+
+    /**
+     * チャンクごとの解放と終了時の書き戻しがファイルの内容に影響しないことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testReleaseKeepsContent() throws IOException {
+
+        Assumptions.assumeTrue(NativeIo.isAvailable(), "ネイティブなファイル操作を使用できる環境のみ");
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("source.txt");
+        final Path target = this.tempDir.resolve("target.txt");
+        Files.writeString(source, "source content");
+        Files.writeString(target, "target content");
+
+        /* テスト対象の実行 */
+        try (PageCacheHygiene hygiene = NativeIo.openPageCacheHygiene(source, target)) {
+
+            hygiene.release(0, Files.size(target));
+
+        }
+
+        /* 検証の実施 */
+        Assertions.assertEquals("source content", Files.readString(source), "ソースの内容が変わらないこと");
+        Assertions.assertEquals("target content", Files.readString(target), "コピー先の内容が変わらないこと");
+
+    }
+}
@@ -0,0 +1,200 @@
+package kmg.tool.directorytool.infrastructure.io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * 事前割り当てとスパースファイルに対応したコピーのテストクラス。
+ */
+public class SparseFileCopyTest {
+
+    /** データを書き込む位置（ホールの後） */
+    private static final long DATA_POSITION = 8L * 1024 * 1024;
+
+    /** ファイルサイズ（末尾もホール） */
+    private static final long FILE_SIZE = 32L * 1024 * 1024;
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * テスト対象のコピーエンジンを返す。
+     *
+     * @return コピーエンジン
+     */
+    static Stream<FileCopyEngine> engines() {
+
+        final Stream<FileCopyEngine> result = Stream.of(new FilesCopyEngine(),
+                new BufferedFileCopyEngine(BufferedFileCopyEngine.DEFAULT_BLOCK_SIZE));
+        return result;
+
+    }
+
+    /**
+     * スパースファイルのデータ領域のみがコピーされ、コピー先もスパースファイルとなることのテスト
+     *
+     * @param engine
+     *               コピーエンジン
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @ParameterizedTest
+    @MethodSource("engines")
+    public void testCopySparseFile(final FileCopyEngine engine) throws IOException {
+
+        Assumptions.assumeTrue(NativeIo.isAvailable(), "ネイティブなファイル操作を使用できる環境のみ");
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("sparse.img");
+        final Path target = this.tempDir.resolve("copied.img");
+        SparseFileCopyTest.writeSparseFile(source);
+        Files.writeString(target, "existing content");
+
+        final List<NativeIo.Region> sourceRegions = NativeIo.dataRegions(source, SparseFileCopyTest.FILE_SIZE);
+        Assumptions.assumeTrue(sourceRegions.size() == 1, "ホールに対応したファイルシステムのみ");
+
+        /* テスト対象の実行 */
+        engine.copy(source, target, null);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(SparseFileCopyTest.FILE_SIZE, Files.size(target), "論理サイズが一致すること");
+        Assertions.assertEquals(-1, Files.mismatch(source, target), "内容が一致すること");
+        Assertions.assertEquals(sourceRegions, NativeIo.dataRegions(target, SparseFileCopyTest.FILE_SIZE),
+                "ホールが維持されること");
+
+    }
+
+    /**
+     * ホールを含まないファイルが事前割り当ての後にコピーされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @Test
+    public void testCopyDenseFile() throws IOException {
+
+        /* 準備 */
+        final Path   source  = this.tempDir.resolve("dense.bin");
+        final Path   target  = this.tempDir.resolve("copied.bin");
+        final byte[] content = new byte[(int) AbstractFileCopyEngine.LAYOUT_THRESHOLD * 2];
+
+        for (int i = 0; i < content.length; i++) {
+
+            content[i] = (byte) i;
+
+        }
+        Files.write(source, content);
+
+        /* テスト対象の実行 */
+        new FilesCopyEngine().copy(source, target, null);
+
+        /* 検証の実施 */
+        Assertions.assertArrayEquals(content, Files.readAllBytes(target), "内容が一致すること");
+
+    }
+
+    /**
+     * テスト対象のコピーエンジンに、クローン、キャッシュ保護モード、ダイレクトI/Oのコピーエンジンを加えて返す。
+     *
+     * @return コピーエンジン
+     */
+    static Stream<FileCopyEngine> allEngines() {
+
+        final Stream<FileCopyEngine> result = Stream.concat(SparseFileCopyTest.engines(),
+                Stream.of(new FilesCopyEngine(true), new CloneFileCopyEngine(),
+                        new DirectFileCopyEngine(BufferedFileCopyEngine.DEFAULT_BLOCK_SIZE,
+                                DirectFileCopyEngine.DEFAULT_QUEUE_DEPTH)));
+        return result;
+
+    }
+
+    /**
+     * 書き込み権限のないソースを、書き込み権限のない既存のファイルに上書きでコピーできることのテスト
+     *
+     * @param engine
+     *               コピーエンジン
+     * @throws IOException
+     *                     ファイル操作中にエラーが発生した場合
+     */
+    @ParameterizedTest
+    @MethodSource("allEngines")
+    public void testCopyReadOnlyFile(final FileCopyEngine engine) throws IOException {
+
+        Assumptions.assumeTrue(NativeIo.isAvailable(), "ネイティブなファイル操作を使用できる環境のみ");
+
+        /* 期待値の定義 */
+        final byte[] expected = new byte[(int) AbstractFileCopyEngine.LAYOUT_THRESHOLD * 2];
+
+        for (int i = 0; i < expected.length; i++) {
+
+            expected[i] = (byte) (i * 7);
+
+        }
+
+        /* 準備 */
+        final Path source = this.tempDir.resolve("read-only.bin");
+        final Path target = this.tempDir.resolve("copied.bin");
+        Files.write(source, expected);
+        Files.setPosixFilePermissions(source, PosixFilePermissions.fromString("r--r--r--"));
+        Files.writeString(target, "existing content");
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("r--r--r--"));
+
+        /* テスト対象の実行 */
+        engine.copy(source, target, null);
+
+        /* 検証の実施 */
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(target), "内容が一致すること");
+        Assertions.assertEquals(0444, NativeIo.stat(target).mode(), "ソースと同じく書き込み権限のないパーミッションとなること");
+
+    }
+
+    /**
+     * 先頭と末尾がホールのスパースファイルを作成する。
+     *
+     * @param file
+     *             作成するファイル
+     * @throws IOException
+     *                     ファイルの書き込みに失敗した場合
+     */
+    private static void writeSparseFile(final Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.SPARSE)) {
+
+            final ByteBuffer data = ByteBuffer.allocate(1024 * 1024);
+
+            while (data.hasRemaining()) {
+
+                data.put((byte) 'x');
+
+            }
+            data.flip();
+            channel.write(data, SparseFileCopyTest.DATA_POSITION);
+
+        }
+
+        // 末尾のホールは書き込みなしでサイズを拡張して作成する
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+
+            randomAccessFile.setLength(SparseFileCopyTest.FILE_SIZE);
+
+        }
+
+    }
+}
@@ -0,0 +1,71 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CompareDepthTypesの列挙型のテストクラス
+ */
+public class CompareDepthTypesTest {
+
+    /**
+     * getEnumメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetEnum() {
+
+        /* 期待値の定義 */
+        final CompareDepthTypes expectedSampled = CompareDepthTypes.SAMPLED;
+        final CompareDepthTypes expectedNone    = CompareDepthTypes.NONE;
+
+        /* テスト対象の実行 */
+        final CompareDepthTypes actualSampled = CompareDepthTypes.getEnum("sampled");
+        final CompareDepthTypes actualInvalid = CompareDepthTypes.getEnum("INVALID");
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedSampled, actualSampled, "有効な値でSAMPLEDが返されること");
+        Assertions.assertEquals(expectedNone, actualInvalid, "無効な値でNONEが返されること");
+
+    }
+
+    /**
+     * getDefaultメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetDefault() {
+
+        /* 期待値の定義 */
+        final CompareDepthTypes expected = CompareDepthTypes.FULL;
+
+        /* テスト対象の実行 */
+        final CompareDepthTypes actual = CompareDepthTypes.getDefault();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "デフォルト値としてFULLが返されること");
+
+    }
+
+    /**
+     * getName、getValue、getメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetters() {
+
+        /* 期待値の定義 */
+        final String expectedQuickName  = "簡易";
+        final String expectedQuickValue = "quick";
+
+        /* テスト対象の実行 */
+        final CompareDepthTypes quick = CompareDepthTypes.QUICK;
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedQuickName, quick.getName(), "getName()が正しい名称を返すこと");
+        Assertions.assertEquals(expectedQuickValue, quick.getValue(), "getValue()が正しい値を返すこと");
+        Assertions.assertEquals(expectedQuickValue, quick.get(), "get()が正しい値を返すこと");
+        Assertions.assertEquals(expectedQuickValue, quick.toString(), "toString()が正しい値を返すこと");
+
+    }
+}
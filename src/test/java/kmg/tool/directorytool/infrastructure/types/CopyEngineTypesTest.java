@@ -0,0 +1,52 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CopyEngineTypesの列挙型のテストクラス
+ */
+public class CopyEngineTypesTest {
+
+    /**
+     * getEnumメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetEnum() {
+
+        /* 期待値の定義 */
+        final CopyEngineTypes expectedBuffered = CopyEngineTypes.BUFFERED;
+        final CopyEngineTypes expectedClone    = CopyEngineTypes.CLONE;
+        final CopyEngineTypes expectedNone     = CopyEngineTypes.NONE;
+
+        /* テスト対象の実行 */
+        final CopyEngineTypes actualBuffered = CopyEngineTypes.getEnum("buffered");
+        final CopyEngineTypes actualClone    = CopyEngineTypes.getEnum("clone");
+        final CopyEngineTypes actualInvalid  = CopyEngineTypes.getEnum("xcopy");
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedBuffered, actualBuffered, "有効な値でBUFFEREDが返されること");
+        Assertions.assertEquals(expectedClone, actualClone, "有効な値でCLONEが返されること");
+        Assertions.assertEquals(expectedNone, actualInvalid, "無効な値でNONEが返されること");
+
+    }
+
+    /**
+     * getDefaultメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetDefault() {
+
+        /* 期待値の定義 */
+        final CopyEngineTypes expected = CopyEngineTypes.FILES;
+
+        /* テスト対象の実行 */
+        final CopyEngineTypes actual = CopyEngineTypes.getDefault();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "デフォルト値としてFILESが返されること");
+
+    }
+}
@@ -0,0 +1,52 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * DurabilityTypesの列挙型のテストクラス
+ */
+public class DurabilityTypesTest {
+
+    /**
+     * getEnumメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetEnum() {
+
+        /* 期待値の定義 */
+        final DurabilityTypes expectedNoSync = DurabilityTypes.NO_SYNC;
+        final DurabilityTypes expectedBatch  = DurabilityTypes.BATCH;
+        final DurabilityTypes expectedNone   = DurabilityTypes.NONE;
+
+        /* テスト対象の実行 */
+        final DurabilityTypes actualNoSync  = DurabilityTypes.getEnum("none");
+        final DurabilityTypes actualBatch   = DurabilityTypes.getEnum("batch");
+        final DurabilityTypes actualInvalid = DurabilityTypes.getEnum("always");
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedNoSync, actualNoSync, "noneで同期なし（NO_SYNC）が返されること");
+        Assertions.assertEquals(expectedBatch, actualBatch, "有効な値でBATCHが返されること");
+        Assertions.assertEquals(expectedNone, actualInvalid, "無効な値でNONEが返されること");
+
+    }
+
+    /**
+     * getDefaultメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetDefault() {
+
+        /* 期待値の定義 */
+        final DurabilityTypes expected = DurabilityTypes.NO_SYNC;
+
+        /* テスト対象の実行 */
+        final DurabilityTypes actual = DurabilityTypes.getDefault();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "デフォルト値としてNO_SYNCが返されること");
+
+    }
+}
@@ -0,0 +1,52 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * RecoveryTypesの列挙型のテストクラス
+ */
+public class RecoveryTypesTest {
+
+    /**
+     * getEnumメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetEnum() {
+
+        /* 期待値の定義 */
+        final RecoveryTypes expectedCommit   = RecoveryTypes.COMMIT;
+        final RecoveryTypes expectedRollback = RecoveryTypes.ROLLBACK;
+        final RecoveryTypes expectedNone     = RecoveryTypes.NONE;
+
+        /* テスト対象の実行 */
+        final RecoveryTypes actualCommit   = RecoveryTypes.getEnum("commit");
+        final RecoveryTypes actualRollback = RecoveryTypes.getEnum("rollback");
+        final RecoveryTypes actualInvalid  = RecoveryTypes.getEnum("abort");
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedCommit, actualCommit, "有効な値でCOMMITが返されること");
+        Assertions.assertEquals(expectedRollback, actualRollback, "有効な値でROLLBACKが返されること");
+        Assertions.assertEquals(expectedNone, actualInvalid, "無効な値でNONEが返されること");
+
+    }
+
+    /**
+     * getDefaultメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetDefault() {
+
+        /* 期待値の定義 */
+        final RecoveryTypes expected = RecoveryTypes.COMMIT;
+
+        /* テスト対象の実行 */
+        final RecoveryTypes actual = RecoveryTypes.getDefault();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "デフォルト値としてCOMMITが返されること");
+
+    }
+}
@@ -0,0 +1,49 @@
+package kmg.tool.directorytool.infrastructure.types;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ReportFormatTypesの列挙型のテストクラス
+ */
+public class ReportFormatTypesTest {
+
+    /**
+     * getEnumメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetEnum() {
+
+        /* 期待値の定義 */
+        final ReportFormatTypes expectedCsv  = ReportFormatTypes.CSV;
+        final ReportFormatTypes expectedNone = ReportFormatTypes.NONE;
+
+        /* テスト対象の実行 */
+        final ReportFormatTypes actualCsv     = ReportFormatTypes.getEnum("csv");
+        final ReportFormatTypes actualInvalid = ReportFormatTypes.getEnum("xml");
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedCsv, actualCsv, "有効な値でCSVが返されること");
+        Assertions.assertEquals(expectedNone, actualInvalid, "無効な値でNONEが返されること");
+
+    }
+
+    /**
+     * getDefaultメソッドのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testGetDefault() {
+
+        /* 期待値の定義 */
+        final ReportFormatTypes expected = ReportFormatTypes.JSONL;
+
+        /* テスト対象の実行 */
+        final ReportFormatTypes actual = ReportFormatTypes.getDefault();
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "デフォルト値としてJSONLが返されること");
+
+    }
+}
@@ -0,0 +1,202 @@
+package kmg.tool.directorytool.presentation.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
+
+/**
+ * DirectoryToolServerとDirectoryToolClientのテストクラス。
+ */
+public class DirectoryToolServerTest {
+
+    /** ジョブ内でログを出力するロガー */
+    private static final Logger JOB_LOGGER = LoggerFactory.getLogger("kmg.tool.directorytool.daemon.test");
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * ジョブのログと終了コードがクライアントに返され、停止要求でサーバーが終了することのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に例外が発生した場合
+     */
+    @Test
+    public void testSubmitAndShutdown() throws Exception {
+
+        /* 期待値の定義 */
+        final List<String> requestArgs    = List.of("--compare-depth=quick", "DIFF", "src dir", "dest");
+        final List<String> expectedArgs   = List.of("--compare-depth=quick", "DIFF",
+                Path.of("src dir").toAbsolutePath().toString(), Path.of("dest").toAbsolutePath().toString());
+        final String       expectedOutput = "INFO  差異あり: a.txt" + System.lineSeparator() + "INFO  2行目"
+                + System.lineSeparator();
+
+        /* 準備 */
+        final Path                socketPath = this.tempDir.resolve("run/test.sock");
+        final List<List<String>> actualArgs = new CopyOnWriteArrayList<>();
+        final DirectoryToolServer server     = new DirectoryToolServer(socketPath, args -> {
+
+            actualArgs.add(args.getSourceArgs() == null ? List.of() : List.of(args.getSourceArgs()));
+            DirectoryToolServerTest.JOB_LOGGER.info("差異あり: {}", "a.txt");
+            DirectoryToolServerTest.JOB_LOGGER.debug("転送されないログ");
+            DirectoryToolServerTest.JOB_LOGGER.info("2行目");
+            return ExitCodeTypes.EXPECTED_ERROR;
+
+        });
+        final CompletableFuture<Void> serving = CompletableFuture.runAsync(() -> {
+
+            try {
+
+                server.serve();
+
+            } catch (final Exception e) {
+
+                throw new IllegalStateException(e);
+
+            }
+
+        });
+        DirectoryToolServerTest.awaitSocket(socketPath);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        /* テスト対象の実行 */
+        final int actualExitCode = DirectoryToolClient.submit(socketPath, requestArgs,
+                new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        // 待ち受け中（ジョブの受け付け後）の権限を取得する
+        final Set<PosixFilePermission> actualSocketPermissions    = Files.getPosixFilePermissions(socketPath);
+        final Set<PosixFilePermission> actualDirectoryPermissions = Files
+                .getPosixFilePermissions(socketPath.getParent());
+
+        final int actualShutdown = DirectoryToolClient.submit(socketPath, List.of(DirectoryToolServer.SHUTDOWN_REQUEST),
+                new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        serving.get(30, TimeUnit.SECONDS);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(List.of(expectedArgs), actualArgs, "パスの引数が絶対パスに変換されてジョブに渡されること");
+        Assertions.assertEquals(PosixFilePermissions.fromString("rw-------"), actualSocketPermissions,
+                "ソケットファイルは所有者のみが読み書きできること");
+        Assertions.assertEquals(PosixFilePermissions.fromString("rwx------"), actualDirectoryPermissions,
+                "作成したディレクトリは所有者のみが利用できること");
+        Assertions.assertEquals(expectedOutput, output.toString(StandardCharsets.UTF_8), "INFO以上のログが転送されること");
+        Assertions.assertEquals(ExitCodeTypes.EXPECTED_ERROR.getValue(), actualExitCode, "ジョブの終了コードが返されること");
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), actualShutdown, "停止要求が成功すること");
+        Assertions.assertFalse(Files.exists(socketPath), "停止後にソケットファイルが削除されること");
+
+    }
+
+    /**
+     * サーバーが起動していない場合に想定エラーの終了コードが返されることのテスト
+     */
+    @Test
+    public void testClientWithoutServer() {
+
+        /* 準備 */
+        final String[] args = {
+                DirectoryToolClient.CLIENT_OPTION + "=" + this.tempDir.resolve("none.sock"), "DIFF", "src", "dest",
+        };
+
+        /* テスト対象の実行 */
+        final int actual = DirectoryToolClient.execute(args,
+                new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+
+        /* 検証の実施 */
+        Assertions.assertTrue(DirectoryToolClient.isClientRequest(args), "クライアントの引数と判定されること");
+        Assertions.assertFalse(DirectoryToolClient.isClientRequest(new String[] {
+                "DIFF"
+        }), "通常の引数はクライアントの引数と判定されないこと");
+        Assertions.assertEquals(ExitCodeTypes.EXPECTED_ERROR.getValue(), actual, "想定エラーの終了コードが返されること");
+
+    }
+
+    /**
+     * サーバーのプロセス全体に作用するオプションを指定したジョブ要求が、送信されずに引数エラーとなることのテスト
+     */
+    @Test
+    public void testClientRejectsProcessOptions() {
+
+        /* 準備 */
+        final String                socket = DirectoryToolClient.CLIENT_OPTION + "=" + this.tempDir.resolve("none.sock");
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        /* テスト対象の実行 */
+        final int actual = DirectoryToolClient.execute(new String[] {
+                socket, "--bandwidth-limit=10MB", "COPY", "src", "dest",
+        }, new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        /* 検証の実施 */
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), actual, "引数エラーの終了コードが返されること");
+        Assertions.assertTrue(output.toString(StandardCharsets.UTF_8).contains("--bandwidth-limit"),
+                "指定できないオプションが表示されること");
+        Assertions.assertEquals("throttle-file",
+                DirectoryToolClient.findProcessOption(List.of("--throttle-file=limits.txt", "COPY", "src", "dest")),
+                "値を持つオプションも検出されること");
+        Assertions.assertEquals("iops-limit", DirectoryToolClient.findProcessOption(List.of("--iops-limit", "DIFF")),
+                "値のないオプションも検出されること");
+        Assertions.assertNull(DirectoryToolClient.findProcessOption(List.of("--batch=jobs.txt")),
+                "バッチ実行はジョブ要求に指定できること");
+
+    }
+
+    /**
+     * パスを表す引数のみが絶対パスに変換されることのテスト
+     */
+    @Test
+    public void testToAbsoluteArgs() {
+
+        /* 期待値の定義 */
+        final List<String> expectedJob   = List.of("--report-file=" + Path.of("out.jsonl").toAbsolutePath(),
+                "--include=*.txt", "--thread-pool-size=4", "COPY", Path.of("src").toAbsolutePath().toString(),
+                "/abs/dest");
+        final List<String> expectedMerge = List.of("--merge-reports=" + Path.of("merged.csv").toAbsolutePath(),
+                Path.of("a.csv").toAbsolutePath().toString(), Path.of("b.csv").toAbsolutePath().toString());
+
+        /* テスト対象の実行 */
+        final List<String> actualJob   = DirectoryToolClient.toAbsoluteArgs(
+                List.of("--report-file=out.jsonl", "--include=*.txt", "--thread-pool-size=4", "COPY", "src", "/abs/dest"));
+        final List<String> actualMerge = DirectoryToolClient
+                .toAbsoluteArgs(List.of("--merge-reports=merged.csv", "a.csv", "b.csv"));
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expectedJob, actualJob, "モードとパスでないオプションは変換されないこと");
+        Assertions.assertEquals(expectedMerge, actualMerge, "結合するレポートはすべて変換されること");
+
+    }
+
+    /**
+     * ソケットファイルが作成されるまで待つ。
+     *
+     * @param socketPath
+     *                   ソケットファイルのパス
+     * @throws InterruptedException
+     *                              待機中に割り込まれた場合
+     */
+    private static void awaitSocket(final Path socketPath) throws InterruptedException {
+
+        for (int i = 0; (i < 300) && !Files.exists(socketPath); i++) {
+
+            Thread.sleep(100);
+
+        }
+
+    }
+}
@@ -0,0 +1,79 @@
+package kmg.tool.directorytool.presentation.runner;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import kmg.tool.directorytool.domain.service.DirectoryService;
+import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
+
+/**
+ * BatchJobRunnerのテストクラス。
+ */
+public class BatchJobRunnerTest {
+
+    /**
+     * ジョブごとにサービスを取得して共有のエグゼキュータを設定し、最も重い終了コードを返すことのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testRun() {
+
+        /* 期待値の定義 */
+        final ExitCodeTypes expected = ExitCodeTypes.EXPECTED_ERROR;
+
+        /* 準備 */
+        final DirectoryService          service1 = Mockito.mock(DirectoryService.class);
+        final DirectoryService          service2 = Mockito.mock(DirectoryService.class);
+        final DirectoryService          service3 = Mockito.mock(DirectoryService.class);
+        final List<DirectoryService>    services = List.of(service1, service2, service3);
+        final Iterator<DirectoryService>  iterator = services.iterator();
+        final List<BatchManifest.Entry> entries  = List.of(new BatchManifest.Entry(1, List.of("COPY", "a", "b")),
+                new BatchManifest.Entry(2, List.of("MOVE", "c", "d")), new BatchManifest.Entry(3, List.of("DIFF", "e", "f")));
+
+        final BatchJobRunner runner = new BatchJobRunner(() -> {
+
+            synchronized (iterator) {
+
+                return iterator.next();
+
+            }
+
+        }, (args, service) -> "MOVE".equals(args.getNonOptionArgs().get(0)) ? ExitCodeTypes.EXPECTED_ERROR
+                : ExitCodeTypes.SUCCESS, 2);
+
+        /* テスト対象の実行 */
+        final ExitCodeTypes actual = runner.run(entries);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "最も重い終了コードが返されること");
+
+        for (final DirectoryService service : services) {
+
+            Mockito.verify(service).setExecutor(ArgumentMatchers.any(Executor.class));
+
+        }
+
+    }
+
+    /**
+     * ジョブが無い場合に正常終了することのテスト
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    public void testRunWithoutJobs() {
+
+        /* テスト対象の実行 */
+        final ExitCodeTypes actual = new BatchJobRunner(() -> null, (args, service) -> ExitCodeTypes.SUCCESS, 1)
+                .run(List.of());
+
+        /* 検証の実施 */
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS, actual, "正常終了すること");
+
+    }
+}
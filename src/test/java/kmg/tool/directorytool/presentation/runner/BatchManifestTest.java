@@ -0,0 +1,94 @@
+package kmg.tool.directorytool.presentation.runner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BatchManifestのテストクラス。
+ */
+public class BatchManifestTest {
+
+    /** テスト用の一時ディレクトリ */
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * コメントと空行を無視し、引用符で囲んだ引数を1つの引数として読み込むことのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testParse() throws IOException {
+
+        /* 期待値の定義 */
+        final List<BatchManifest.Entry> expected = List.of(
+                new BatchManifest.Entry(2, List.of("COPY", "/src", "/dest", "--merkle")),
+                new BatchManifest.Entry(4, List.of("DIFF", "/src dir", "/dest", "--report-file=a b.jsonl")));
+
+        /* 準備 */
+        final Path manifest = this.tempDir.resolve("jobs.txt");
+        Files.writeString(manifest, String.join("\n", "# コメント", "COPY /src /dest --merkle", "",
+                "  DIFF \"/src dir\"\t/dest --report-file=\"a b.jsonl\"  "));
+
+        /* テスト対象の実行 */
+        final List<BatchManifest.Entry> actual = BatchManifest.parse(manifest);
+
+        /* 検証の実施 */
+        Assertions.assertEquals(expected, actual, "ジョブが正しく読み込まれること");
+
+    }
+
+    /**
+     * 引用符が閉じられていない場合に例外がスローされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testUnterminatedQuote() throws IOException {
+
+        /* 準備 */
+        final Path manifest = this.tempDir.resolve("jobs.txt");
+        Files.writeString(manifest, "COPY /src \"/dest");
+
+        /* テスト対象の実行と検証 */
+        final IllegalArgumentException actual = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BatchManifest.parse(manifest));
+        Assertions.assertEquals("マニフェストの1行目の引用符が閉じられていません。", actual.getMessage(), "行番号を含むメッセージであること");
+
+    }
+
+    /**
+     * ジョブごとに指定できないオプションを含む行で、行番号を含む例外がスローされることのテスト
+     *
+     * @throws IOException
+     *                     ファイル操作時にエラーが発生した場合
+     */
+    @Test
+    public void testProcessOptionRejected() throws IOException {
+
+        /* 準備 */
+        final Path manifest = this.tempDir.resolve("jobs.txt");
+
+        for (final String option : List.of("--bandwidth-limit=10MB", "--iops-limit=100", "--throttle-file=t.conf",
+                "--server", "--batch=other.txt", "--client=/tmp/a.sock", "--merge-reports=out.csv")) {
+
+            Files.writeString(manifest, String.join("\n", "COPY /src1 /dest1", "# コメント", "COPY /src2 /dest2 " + option));
+
+            /* テスト対象の実行と検証 */
+            final IllegalArgumentException actual = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> BatchManifest.parse(manifest), String.format("例外がスローされること: %s", option));
+            Assertions.assertTrue(actual.getMessage().startsWith("マニフェストの3行目の--"),
+                    String.format("行番号を含むメッセージであること: %s", actual.getMessage()));
+
+        }
+
+    }
+}
@@ -1,7 +1,16 @@
 package kmg.tool.directorytool.presentation.runner;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
@@ -9,22 +18,38 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import kmg.tool.directorytool.domain.model.PathFilter;
+import kmg.tool.directorytool.domain.model.TraversalScope;
 import kmg.tool.directorytool.domain.service.DirectoryService;
+import kmg.tool.directorytool.infrastructure.concurrent.ThroughputLimiter;
+import kmg.tool.directorytool.infrastructure.io.BufferedFileCopyEngine;
+import kmg.tool.directorytool.infrastructure.io.CloneFileCopyEngine;
+import kmg.tool.directorytool.infrastructure.io.DirectFileCopyEngine;
+import kmg.tool.directorytool.infrastructure.io.FilesCopyEngine;
+import kmg.tool.directorytool.infrastructure.types.CompareDepthTypes;
+import kmg.tool.directorytool.infrastructure.types.DurabilityTypes;
 import kmg.tool.directorytool.infrastructure.types.ExitCodeTypes;
 import kmg.tool.directorytool.infrastructure.types.OperationModeTypes;
+import kmg.tool.directorytool.infrastructure.types.RecoveryTypes;
+import kmg.tool.directorytool.infrastructure.types.ReportFormatTypes;
+import kmg.tool.directorytool.presentation.daemon.DirectoryToolClient;
+import kmg.tool.directorytool.presentation.daemon.DirectoryToolServer;
 
 /**
  * DirectoryToolArのテストクラス
@@ -166,8 +191,32 @@ public class DirectoryToolArTest {
 
         /* 期待値の定義 */
         final String[] expectedMsgs = {
-                "使用方法: [--thread-pool-size=<size>] <mode> <src> <dest>", "モデルの種類: COPY, MOVE, DIFF", "オプション:",
+                "使用方法: [オプション] <mode> <src> <dest>", "モデルの種類: COPY, MOVE, DIFF", "オプション:",
                 "  --thread-pool-size=<size>  並列処理で使用するスレッド数（デフォルト: 利用可能なCPUの論理コア数）",
+                "  --merkle                   マークル木による要約を使用する（DIFFは差分のあるサブツリーのみ比較、COPY/MOVEは要約を更新）",
+                "  --compare-depth=<depth>    DIFFでのファイル内容の比較深度（quick: サイズのみ, sampled: サンプリング, full: 全体。デフォルト: full）",
+                "  --report-file=<path>       DIFFの差分をログではなく指定したファイルにレポートとして出力する",
+                "  --report-format=<format>   差分レポートの形式（jsonl, csv。デフォルト: jsonl）",
+                "  --server[=<socket>]        サーバーモードで起動し、ローカルソケットでジョブ要求を待ち受ける",
+                "  --batch=<manifest>         マニフェストに記述した複数のジョブを共有のワーカーで並行して実行する",
+                "  --copy-engine=<engine>     COPY/MOVEのコピーエンジン（files: Files.copy, buffered: ダイレクトバッファ, clone: reflink, direct: O_DIRECT。デフォルト: files）",
+                "  --copy-block-size=<size>   buffered/directのブロックサイズ（64KB～16MB。デフォルト: 1MB）",
+                "  --cache-hygiene            コピー・比較したファイルのページキャッシュを解放し、コピーの書き戻しを一定量ごとに完了させる",
+                "  --small-file-batch-count=<count> 1つのタスクにまとめる同じディレクトリの小さいファイルの最大数（1以下でまとめない。デフォルト: 32）",
+                "  --small-file-batch-size=<size>   1つのタスクにまとめる小さいファイルの合計サイズの上限（デフォルト: 128KB）",
+                "  --durability=<level>       COPY/MOVEで処理したファイルの同期（none: 同期なし, file: ファイルごと, batch: 一括。デフォルト: none）",
+                "  --resume                   完了したファイルをジャーナルに記録し、中断したCOPY/MOVEの再開時は完了済みのファイルを読み飛ばす",
+                "  --transactional            MOVEをトランザクションで行う（すべてのファイルをコピーして検証した後にソースを削除する）",
+                "  --recover[=<action>]       中断したトランザクションのMOVEをジャーナルから復旧する（commit: 完了, rollback: 取り消し。デフォルト: commit）",
+                "  --atomic-publish           COPYで一時ファイルに書き込んだ後に名前の変更で公開し、書き込み途中のファイルを見せない",
+                "  --include=<rule>           COPY/MOVE/DIFFの対象とするファイルのルール（グロブ, regex:, size:, age:。複数指定可）",
+                "  --exclude=<rule>           COPY/MOVE/DIFFから除外するルール（例: node_modules, .git, *.tmp。ディレクトリは配下を走査しない。複数指定可）",
+                "  --max-depth=<depth>        走査の深さの上限（ソースの直下が1。デフォルト: 制限なし）",
+                "  --shard=<k>/<N>            ソースの直下のエントリをN個に分割し、k番目のみを処理する（例: 2/4）",
+                "  --merge-reports=<output>   シャードごとの差分レポート（非オプション引数）を1つに結合する",
+                "  --bandwidth-limit=<size>   COPY/MOVEの帯域の上限（1秒あたり。例: 50MB。デフォルト: 制限なし）",
+                "  --iops-limit=<count>       COPY/MOVEの1秒あたりのファイル操作数の上限（デフォルト: 制限なし）",
+                "  --throttle-file=<path>     実行中に上限を変更する制御ファイル（bandwidth=, iops=）を監視する",
         };
 
         /* 準備 */
@@ -428,4 +477,737 @@ public class DirectoryToolArTest {
         Assertions.assertEquals(expectedMsgs.length, actualMsgs.length);
 
     }
+
+    /**
+     * マークル木による要約の使用が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testMerkleOption() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("DIFF", "source", "target"));
+        Mockito.when(this.applicationArguments.containsOption(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> "merkle".equals(invocation.getArgument(0)));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setMerkleEnabled(true);
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.DIFF);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode());
+
+    }
+
+    /**
+     * 比較深度が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testCompareDepthOption() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("DIFF", "source", "target"));
+        Mockito.when(this.applicationArguments.containsOption(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> "compare-depth".equals(invocation.getArgument(0)));
+        Mockito.when(this.applicationArguments.getOptionValues("compare-depth")).thenReturn(Arrays.asList("SAMPLED"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setCompareDepth(CompareDepthTypes.SAMPLED);
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.DIFF);
+
+    }
+
+    /**
+     * 無効な比較深度が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testInvalidCompareDepth() throws Exception {
+
+        /* 期待値の定義 */
+        final String expectedMsg = "無効な比較深度が指定されています。: [deep] 有効な比較深度: quick, sampled, full";
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.containsOption(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> "compare-depth".equals(invocation.getArgument(0)));
+        Mockito.when(this.applicationArguments.getOptionValues("compare-depth")).thenReturn(Arrays.asList("deep"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService, Mockito.never()).processDirectory(ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode());
+        Assertions.assertEquals(expectedMsg, this.listAppender.list.get(0).getFormattedMessage());
+
+    }
+
+    /**
+     * 差分レポートの出力先と形式が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testReportOptions() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("DIFF", "source", "target"));
+        Mockito.when(this.applicationArguments.containsOption(ArgumentMatchers.anyString())).thenAnswer(
+                invocation -> Arrays.asList("report-file", "report-format").contains(invocation.getArgument(0)));
+        Mockito.when(this.applicationArguments.getOptionValues("report-file")).thenReturn(Arrays.asList("diff.csv"));
+        Mockito.when(this.applicationArguments.getOptionValues("report-format")).thenReturn(Arrays.asList("CSV"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setReport(Path.of("diff.csv"), ReportFormatTypes.CSV);
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.DIFF);
+
+    }
+
+    /**
+     * サーバーモードで受け付けたジョブが、コマンドラインと同様に実行されることのテスト
+     *
+     * @param tempDir
+     *                テスト用の一時ディレクトリ
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testServerMode(@TempDir final Path tempDir) throws Exception {
+
+        /* 準備 */
+        final Path socketPath = tempDir.resolve("runner.sock");
+        final Path merged     = tempDir.resolve("merged.jsonl");
+        final Path part       = tempDir.resolve("part.jsonl");
+        Files.writeString(part, "");
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("server"));
+        Mockito.when(this.applicationArguments.getOptionValues("server")).thenReturn(List.of(socketPath.toString()));
+        final CompletableFuture<Void> serving = CompletableFuture
+                .runAsync(() -> this.runner.run(this.applicationArguments));
+
+        for (int i = 0; (i < 300) && !Files.exists(socketPath); i++) {
+
+            Thread.sleep(100);
+
+        }
+
+        final PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+
+        /* テスト対象の実行 */
+        final int actualCopy     = DirectoryToolClient.submit(socketPath, List.of("COPY", "source", "target"), out);
+        final int actualArgError = DirectoryToolClient.submit(socketPath, List.of("COPY"), out);
+        final int actualThrottle = DirectoryToolClient.submit(socketPath,
+                List.of("--bandwidth-limit=10MB", "COPY", "source", "target"), out);
+        final int actualMerge    = DirectoryToolClient.submit(socketPath,
+                List.of("--merge-reports=" + merged, part.toString()), out);
+        DirectoryToolClient.submit(socketPath, List.of(DirectoryToolServer.SHUTDOWN_REQUEST), out);
+        serving.get(30, TimeUnit.SECONDS);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).processDirectory(Path.of("source").toAbsolutePath().toString(),
+                Path.of("target").toAbsolutePath().toString(), OperationModeTypes.COPY);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), actualCopy, "ジョブが成功すること");
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), actualArgError, "ジョブごとに終了コードが返されること");
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), actualThrottle,
+                "プロセス全体に作用するオプションを指定したジョブは引数エラーとなること");
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), actualMerge, "差分レポートの結合を実行できること");
+        Assertions.assertTrue(Files.exists(merged), "結合したレポートが出力されること");
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "サーバーが正常に終了すること");
+
+    }
+
+    /**
+     * マニフェストの各ジョブがジョブごとのサービスで実行されることのテスト
+     *
+     * @param tempDir
+     *                テスト用の一時ディレクトリ
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testBatchMode(@TempDir final Path tempDir) throws Exception {
+
+        /* 準備 */
+        final Path manifest = tempDir.resolve("jobs.txt");
+        Files.writeString(manifest, "COPY src1 dest1\nDIFF src2 dest2 --compare-depth=quick\n");
+        final DirectoryService                 jobService = Mockito.mock(DirectoryService.class);
+        @SuppressWarnings("unchecked")
+        final ObjectProvider<DirectoryService> provider   = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getObject()).thenReturn(jobService);
+        this.runner.setDirectoryServiceProvider(provider);
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("batch"));
+        Mockito.when(this.applicationArguments.getOptionValues("batch")).thenReturn(List.of(manifest.toString()));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(jobService).processDirectory("src1", "dest1", OperationModeTypes.COPY);
+        Mockito.verify(jobService).processDirectory("src2", "dest2", OperationModeTypes.DIFF);
+        Mockito.verify(jobService).setCompareDepth(CompareDepthTypes.QUICK);
+        Mockito.verifyNoInteractions(this.directoryService);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 帯域とファイル操作数の上限がリミッタに設定されることのテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testThroughputLimits() throws Exception {
+
+        /* 期待値の定義 */
+        final long expectedBandwidth = 50L * 1024 * 1024;
+        final long expectedIops      = 200;
+
+        /* 準備 */
+        final ThroughputLimiter limiter = new ThroughputLimiter("0", 0);
+        this.runner.setThroughputLimiter(limiter);
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("bandwidth-limit", "iops-limit"));
+        Mockito.when(this.applicationArguments.getOptionValues("bandwidth-limit")).thenReturn(List.of("50MB"));
+        Mockito.when(this.applicationArguments.getOptionValues("iops-limit")).thenReturn(List.of("200"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.COPY);
+        Assertions.assertEquals(expectedBandwidth, limiter.getBandwidth(), "帯域の上限が設定されること");
+        Assertions.assertEquals(expectedIops, limiter.getOperationsPerSecond(), "ファイル操作数の上限が設定されること");
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 帯域の上限に不正な値が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testInvalidBandwidthLimit() throws Exception {
+
+        /* 準備 */
+        this.runner.setThroughputLimiter(new ThroughputLimiter("0", 0));
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("bandwidth-limit"));
+        Mockito.when(this.applicationArguments.getOptionValues("bandwidth-limit")).thenReturn(List.of("fast"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verifyNoInteractions(this.directoryService);
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode(), "引数エラーとなること");
+
+    }
+
+    /**
+     * コピーエンジンとブロックサイズが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testCopyEngine() throws Exception {
+
+        /* 期待値の定義 */
+        final int expectedBlockSize = 4 * 1024 * 1024;
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("copy-engine", "copy-block-size"));
+        Mockito.when(this.applicationArguments.getOptionValues("copy-engine")).thenReturn(List.of("BUFFERED"));
+        Mockito.when(this.applicationArguments.getOptionValues("copy-block-size")).thenReturn(List.of("4MB"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setCopyEngine(ArgumentMatchers.argThat(
+                engine -> (engine instanceof final BufferedFileCopyEngine buffered)
+                        && (buffered.getBlockSize() == expectedBlockSize)));
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.COPY);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * クローンのコピーエンジンが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testCloneCopyEngine() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("copy-engine"));
+        Mockito.when(this.applicationArguments.getOptionValues("copy-engine")).thenReturn(List.of("clone"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService)
+                .setCopyEngine(ArgumentMatchers.argThat(engine -> engine instanceof CloneFileCopyEngine));
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.COPY);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * ダイレクトI/Oのコピーエンジンが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testDirectCopyEngine() throws Exception {
+
+        /* 期待値の定義 */
+        final int expectedBlockSize = 8 * 1024 * 1024;
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("copy-engine", "copy-block-size"));
+        Mockito.when(this.applicationArguments.getOptionValues("copy-engine")).thenReturn(List.of("direct"));
+        Mockito.when(this.applicationArguments.getOptionValues("copy-block-size")).thenReturn(List.of("8MB"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setCopyEngine(ArgumentMatchers
+                .argThat(engine -> (engine instanceof final DirectFileCopyEngine direct)
+                        && (direct.getBlockSize() == expectedBlockSize)
+                        && (direct.getQueueDepth() == DirectFileCopyEngine.DEFAULT_QUEUE_DEPTH)));
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * キャッシュ保護モードが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testCacheHygiene() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("cache-hygiene"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setCopyEngine(ArgumentMatchers
+                .argThat(engine -> (engine instanceof final FilesCopyEngine files) && files.isCacheHygiene()));
+        Mockito.verify(this.directoryService).setCacheHygiene(true);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 範囲外のブロックサイズが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testInvalidCopyBlockSize() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("copy-engine", "copy-block-size"));
+        Mockito.when(this.applicationArguments.getOptionValues("copy-engine")).thenReturn(List.of("buffered"));
+        Mockito.when(this.applicationArguments.getOptionValues("copy-block-size")).thenReturn(List.of("1KB"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verifyNoInteractions(this.directoryService);
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode(), "引数エラーとなること");
+
+    }
+
+    /**
+     * 小さいファイルのバッチ処理のオプションが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testSmallFileBatch() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames())
+                .thenReturn(Set.of("small-file-batch-count", "small-file-batch-size"));
+        Mockito.when(this.applicationArguments.getOptionValues("small-file-batch-count")).thenReturn(List.of("64"));
+        Mockito.when(this.applicationArguments.getOptionValues("small-file-batch-size")).thenReturn(List.of("256KB"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setSmallFileBatch(64, 256L * 1024);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 不正なバッチのファイル数が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testInvalidSmallFileBatchCount() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("small-file-batch-count"));
+        Mockito.when(this.applicationArguments.getOptionValues("small-file-batch-count")).thenReturn(List.of("many"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verifyNoInteractions(this.directoryService);
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode(), "引数エラーとなること");
+
+    }
+
+    /**
+     * 永続性が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testDurability() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("durability"));
+        Mockito.when(this.applicationArguments.getOptionValues("durability")).thenReturn(List.of("BATCH"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setDurability(DurabilityTypes.BATCH);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 無効な永続性が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testInvalidDurability() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("durability"));
+        Mockito.when(this.applicationArguments.getOptionValues("durability")).thenReturn(List.of("always"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verifyNoInteractions(this.directoryService);
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode(), "引数エラーとなること");
+
+    }
+
+    /**
+     * 再開が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testResume() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("resume"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("MOVE", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setResume(true);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * トランザクションのMOVEの復旧が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testRecover() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("recover"));
+        Mockito.when(this.applicationArguments.getOptionValues("recover")).thenReturn(List.of("rollback"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("MOVE", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).recoverMove("source", "target", RecoveryTypes.ROLLBACK);
+        Mockito.verify(this.directoryService, Mockito.never()).processDirectory(ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * MOVE以外で復旧が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testRecoverRequiresMove() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("recover"));
+        Mockito.when(this.applicationArguments.getOptionValues("recover")).thenReturn(List.of(""));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verifyNoInteractions(this.directoryService);
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode(), "引数エラーとなること");
+
+    }
+
+    /**
+     * トランザクションのMOVEが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testTransactionalMove() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("transactional"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("MOVE", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setTransactionalMove(true);
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.MOVE);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 原子的な公開が指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testAtomicPublish() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("atomic-publish"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService).setAtomicPublish(true);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 包含と除外のルールが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testIncludeAndExclude() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("include", "exclude"));
+        Mockito.when(this.applicationArguments.getOptionValues("include")).thenReturn(List.of("*.java"));
+        Mockito.when(this.applicationArguments.getOptionValues("exclude")).thenReturn(List.of("node_modules", ".git"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("COPY", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        final ArgumentCaptor<PathFilter> captor = ArgumentCaptor.forClass(PathFilter.class);
+        Mockito.verify(this.directoryService).setPathFilter(captor.capture());
+        Assertions.assertNotNull(captor.getValue(), "フィルタが設定されること");
+        Assertions.assertTrue(captor.getValue().isExcludedDirectory(Path.of("node_modules")), "除外のルールが設定されること");
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.COPY);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 無効な絞り込みのルールが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testInvalidFilterRule() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("exclude"));
+        Mockito.when(this.applicationArguments.getOptionValues("exclude")).thenReturn(List.of("size:100MB"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService, Mockito.never()).processDirectory(ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode(), "引数エラーとなること");
+
+    }
+
+    /**
+     * 走査の深さとシャードが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testMaxDepthAndShard() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("max-depth", "shard"));
+        Mockito.when(this.applicationArguments.getOptionValues("max-depth")).thenReturn(List.of("3"));
+        Mockito.when(this.applicationArguments.getOptionValues("shard")).thenReturn(List.of("2/4"));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList("DIFF", "source", "target"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        final ArgumentCaptor<TraversalScope> captor = ArgumentCaptor.forClass(TraversalScope.class);
+        Mockito.verify(this.directoryService).setTraversalScope(captor.capture());
+        Assertions.assertEquals(3, captor.getValue().getMaxDepth(), "深さの上限が設定されること");
+        Assertions.assertEquals("2-of-4", captor.getValue().getShardName(), "シャードが設定されること");
+        Mockito.verify(this.directoryService).processDirectory("source", "target", OperationModeTypes.DIFF);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
+
+    /**
+     * 無効なシャードが指定された場合のテスト
+     *
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testInvalidShard() throws Exception {
+
+        /* 準備 */
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("shard"));
+        Mockito.when(this.applicationArguments.getOptionValues("shard")).thenReturn(List.of("5/4"));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Mockito.verify(this.directoryService, Mockito.never()).processDirectory(ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(ExitCodeTypes.ARGUMENT_ERROR.getValue(), this.runner.getExitCode(), "引数エラーとなること");
+
+    }
+
+    /**
+     * シャードごとの差分レポートを結合するテスト
+     *
+     * @param tempDir
+     *                テスト用の一時ディレクトリ
+     * @throws Exception
+     *                   テスト実行中に発生する可能性のある例外
+     */
+    @Test
+    public void testMergeReports(@TempDir final Path tempDir) throws Exception {
+
+        /* 準備 */
+        final Path first  = tempDir.resolve("shard1.jsonl");
+        final Path second = tempDir.resolve("shard2.jsonl");
+        final Path output = tempDir.resolve("merged.jsonl");
+        Files.writeString(first, "{\"path\":\"a.txt\"}\n");
+        Files.writeString(second, "{\"path\":\"b.txt\"}\n");
+        Mockito.when(this.applicationArguments.getOptionNames()).thenReturn(Set.of("merge-reports"));
+        Mockito.when(this.applicationArguments.getOptionValues("merge-reports")).thenReturn(List.of(output.toString()));
+        Mockito.when(this.applicationArguments.getNonOptionArgs())
+                .thenReturn(Arrays.asList(first.toString(), second.toString()));
+
+        /* テスト対象の実行 */
+        this.runner.run(this.applicationArguments);
+
+        /* 検証 */
+        Assertions.assertEquals(List.of("{\"path\":\"a.txt\"}", "{\"path\":\"b.txt\"}"), Files.readAllLines(output),
+                "差分レポートが結合されること");
+        Mockito.verifyNoInteractions(this.directoryService);
+        Assertions.assertEquals(ExitCodeTypes.SUCCESS.getValue(), this.runner.getExitCode(), "正常終了すること");
+
+    }
 }